@@ -0,0 +1,562 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.api.records.reader.impl.csv;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.datavec.api.conf.Configuration;
+import org.datavec.api.records.Record;
+import org.datavec.api.records.metadata.RecordMetaData;
+import org.datavec.api.records.metadata.RecordMetaDataLine;
+import org.datavec.api.records.reader.BaseRecordReader;
+import org.datavec.api.split.InputSplit;
+import org.datavec.api.transform.ColumnType;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.*;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * CSV record reader that parses files on multiple threads.
+ *
+ * Each file is split into byte-range chunks, aligned to line boundaries. Chunks are parsed in parallel
+ * (optionally reading them via memory-mapped I/O), and records are returned in the original file order.
+ * Values are converted directly into typed writables according to the provided {@link Schema}
+ * (IntWritable, LongWritable, DoubleWritable etc) instead of Text.
+ *
+ * Limitations:
+ * - Only local files are supported, since random access is required for byte-range splits
+ * - Quoted values can't contain line breaks, same as in {@link CSVRecordReader}
+ * - Empty lines are skipped
+ */
+@Slf4j
+public class ParallelCSVRecordReader extends BaseRecordReader {
+    public final static long DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    public final static String NUM_THREADS = NAME_SPACE + ".parallelcsv.numthreads";
+    public final static String CHUNK_SIZE = NAME_SPACE + ".parallelcsv.chunksize";
+    public final static String MEMORY_MAPPED = NAME_SPACE + ".parallelcsv.mmap";
+
+    @Getter
+    protected final Schema schema;
+    protected int skipNumLines;
+    protected char delimiter;
+    protected char quote;
+    protected int numThreads;
+    protected long chunkSize;
+    protected boolean memoryMapped;
+
+    protected Configuration conf;
+    protected InputSplit inputSplit;
+    protected URI[] locations;
+    protected transient ColumnType[] columnTypes;
+
+    protected transient ExecutorService executor;
+    protected transient Iterator<Chunk> chunks;
+    protected transient Deque<Future<ParsedChunk>> inFlight;
+    protected transient ParsedChunk current;
+    protected int position;
+    // line number of the first line in current chunk, within its file
+    protected int lineOffset;
+
+    /**
+     * @param schema Schema of the CSV files. Values will be converted according to column types
+     */
+    public ParallelCSVRecordReader(@NonNull Schema schema) {
+        this(schema, 0, CSVRecordReader.DEFAULT_DELIMITER, CSVRecordReader.DEFAULT_QUOTE);
+    }
+
+    /**
+     * @param schema       Schema of the CSV files. Values will be converted according to column types
+     * @param skipNumLines Number of lines to skip at the beginning of each file
+     * @param delimiter    Delimiter character
+     * @param quote        Quote character
+     */
+    public ParallelCSVRecordReader(@NonNull Schema schema, int skipNumLines, char delimiter, char quote) {
+        this(schema, skipNumLines, delimiter, quote, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE, false);
+    }
+
+    /**
+     * @param schema       Schema of the CSV files. Values will be converted according to column types
+     * @param skipNumLines Number of lines to skip at the beginning of each file
+     * @param delimiter    Delimiter character
+     * @param quote        Quote character
+     * @param numThreads   Number of parsing threads
+     * @param chunkSize    Approximate size of a single chunk, in bytes
+     * @param memoryMapped If true, chunks will be read via memory-mapped I/O
+     */
+    public ParallelCSVRecordReader(@NonNull Schema schema, int skipNumLines, char delimiter, char quote, int numThreads,
+                    long chunkSize, boolean memoryMapped) {
+        if (numThreads < 1)
+            throw new IllegalArgumentException("Number of threads should be positive value");
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size should be positive value");
+
+        this.schema = schema;
+        this.skipNumLines = skipNumLines;
+        this.delimiter = delimiter;
+        this.quote = quote;
+        this.numThreads = numThreads;
+        this.chunkSize = chunkSize;
+        this.memoryMapped = memoryMapped;
+    }
+
+    @Override
+    public void initialize(InputSplit split) throws IOException, InterruptedException {
+        this.inputSplit = split;
+        this.locations = split.locations();
+        this.columnTypes = schema.getColumnTypes().toArray(new ColumnType[0]);
+
+        for (URI uri : locations) {
+            if (!"file".equalsIgnoreCase(uri.getScheme()))
+                throw new UnsupportedOperationException("ParallelCSVRecordReader supports local files only, got [" + uri + "]");
+        }
+
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = Executors.defaultThreadFactory().newThread(r);
+                    t.setName("ParallelCSVRecordReader-" + t.getId());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+
+        cancelInFlight();
+        this.chunks = new ChunkIterator();
+        this.inFlight = new ArrayDeque<>();
+        this.current = null;
+        this.position = 0;
+        this.lineOffset = 0;
+    }
+
+    @Override
+    public void initialize(Configuration conf, InputSplit split) throws IOException, InterruptedException {
+        this.conf = conf;
+        this.skipNumLines = conf.getInt(CSVRecordReader.SKIP_NUM_LINES, this.skipNumLines);
+        this.delimiter = conf.getChar(CSVRecordReader.DELIMITER, this.delimiter);
+        this.quote = conf.getChar(CSVRecordReader.QUOTE, this.quote);
+        this.numThreads = conf.getInt(NUM_THREADS, this.numThreads);
+        this.chunkSize = conf.getLong(CHUNK_SIZE, this.chunkSize);
+        this.memoryMapped = conf.getBoolean(MEMORY_MAPPED, this.memoryMapped);
+        initialize(split);
+    }
+
+    @Override
+    public boolean batchesSupported() {
+        return true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (current == null || position >= current.records.size()) {
+            // keeping a few chunks in flight, so parsing threads never starve while memory use stays bounded
+            while (inFlight.size() < numThreads * 2 && chunks.hasNext()) {
+                final Chunk chunk = chunks.next();
+                inFlight.add(executor.submit(new Callable<ParsedChunk>() {
+                    @Override
+                    public ParsedChunk call() throws Exception {
+                        return parseChunk(chunk);
+                    }
+                }));
+            }
+
+            if (inFlight.isEmpty())
+                return false;
+
+            try {
+                ParsedChunk previous = current;
+                current = inFlight.poll().get();
+                position = 0;
+
+                // chunks arrive in file order, so line numbers can be resolved here
+                if (current.chunk.start == 0)
+                    lineOffset = 0;
+                else if (previous != null)
+                    lineOffset += previous.lineCount;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error parsing CSV chunk", e.getCause());
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public List<Writable> next() {
+        if (!hasNext())
+            throw new NoSuchElementException("No next element found!");
+
+        List<Writable> ret = current.records.get(position++);
+        invokeListeners(ret);
+        return ret;
+    }
+
+    @Override
+    public List<List<Writable>> next(int num) {
+        List<List<Writable>> ret = new ArrayList<>(Math.min(num, 10000));
+        while (ret.size() < num && hasNext()) {
+            // copying straight from parsed chunk, without going through next() per record
+            int toCopy = Math.min(num - ret.size(), current.records.size() - position);
+            List<List<Writable>> copied = current.records.subList(position, position + toCopy);
+            ret.addAll(copied);
+            position += toCopy;
+
+            // listeners see the same records as with next()
+            for (List<Writable> record : copied)
+                invokeListeners(record);
+        }
+
+        return ret;
+    }
+
+    @Override
+    public Record nextRecord() {
+        if (!hasNext())
+            throw new NoSuchElementException("No next element found!");
+
+        int idx = position;
+        List<Writable> next = next();
+        RecordMetaData meta = new RecordMetaDataLine(lineOffset + current.lineNumbers[idx], current.chunk.location, ParallelCSVRecordReader.class);
+        return new org.datavec.api.records.impl.Record(next, meta);
+    }
+
+    @Override
+    public Record loadFromMetaData(RecordMetaData recordMetaData) throws IOException {
+        return loadFromMetaData(Collections.singletonList(recordMetaData)).get(0);
+    }
+
+    @Override
+    public List<Record> loadFromMetaData(List<RecordMetaData> recordMetaDatas) throws IOException {
+        // grouping requested lines by file, so each file is read only once
+        Map<URI, Set<Integer>> requested = new HashMap<>();
+        for (RecordMetaData rmd : recordMetaDatas) {
+            if (!(rmd instanceof RecordMetaDataLine))
+                throw new IllegalArgumentException("Invalid metadata; expected RecordMetaDataLine instance; got: " + rmd);
+
+            RecordMetaDataLine line = (RecordMetaDataLine) rmd;
+            if (!requested.containsKey(line.getURI()))
+                requested.put(line.getURI(), new HashSet<Integer>());
+            requested.get(line.getURI()).add(line.getLineNumber());
+        }
+
+        Map<URI, Map<Integer, List<Writable>>> loaded = new HashMap<>();
+        SerializableCSVParser parser = new SerializableCSVParser(delimiter, quote);
+        for (Map.Entry<URI, Set<Integer>> e : requested.entrySet()) {
+            Map<Integer, List<Writable>> lines = new HashMap<>();
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(e.getKey().toURL().openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                int lineNumber = 0;
+                while ((line = br.readLine()) != null && lines.size() < e.getValue().size()) {
+                    if (e.getValue().contains(lineNumber))
+                        lines.put(lineNumber, parseLine(parser, line, lineNumber));
+                    lineNumber++;
+                }
+            }
+            loaded.put(e.getKey(), lines);
+        }
+
+        List<Record> out = new ArrayList<>(recordMetaDatas.size());
+        for (RecordMetaData rmd : recordMetaDatas) {
+            RecordMetaDataLine line = (RecordMetaDataLine) rmd;
+            List<Writable> record = loaded.get(line.getURI()).get(line.getLineNumber());
+            if (record == null)
+                throw new IllegalStateException("Could not find line " + line.getLineNumber() + " in " + line.getURI());
+            out.add(new org.datavec.api.records.impl.Record(record, rmd));
+        }
+
+        return out;
+    }
+
+    @Override
+    public List<Writable> record(URI uri, DataInputStream dataInputStream) throws IOException {
+        invokeListeners(uri);
+        BufferedReader br = new BufferedReader(new InputStreamReader(dataInputStream, StandardCharsets.UTF_8));
+        for (int i = 0; i < skipNumLines; i++) {
+            br.readLine();
+        }
+        return parseLine(new SerializableCSVParser(delimiter, quote), br.readLine(), skipNumLines);
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return null;
+    }
+
+    @Override
+    public void reset() {
+        if (inputSplit == null)
+            throw new UnsupportedOperationException("Cannot reset without first initializing");
+        try {
+            inputSplit.reset();
+            initialize(inputSplit);
+        } catch (Exception e) {
+            throw new RuntimeException("Error during ParallelCSVRecordReader reset", e);
+        }
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return inputSplit == null || inputSplit.resetSupported();
+    }
+
+    @Override
+    public void close() throws IOException {
+        cancelInFlight();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public void setConf(Configuration conf) {
+        this.conf = conf;
+    }
+
+    @Override
+    public Configuration getConf() {
+        return conf;
+    }
+
+    protected void cancelInFlight() {
+        if (inFlight != null) {
+            for (Future<ParsedChunk> f : inFlight)
+                f.cancel(true);
+            inFlight.clear();
+        }
+    }
+
+    /**
+     * This method reads given chunk and parses all lines within it
+     */
+    protected ParsedChunk parseChunk(Chunk chunk) throws IOException {
+        CharBuffer chars;
+        try (FileChannel channel = FileChannel.open(Paths.get(chunk.location), StandardOpenOption.READ)) {
+            ByteBuffer bytes;
+            if (memoryMapped) {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+            } else {
+                bytes = ByteBuffer.allocate((int) (chunk.end - chunk.start));
+                while (bytes.hasRemaining()) {
+                    if (channel.read(bytes, chunk.start + bytes.position()) < 0)
+                        break;
+                }
+                bytes.flip();
+            }
+            chars = StandardCharsets.UTF_8.decode(bytes);
+        }
+
+        String text = chars.toString();
+        SerializableCSVParser parser = new SerializableCSVParser(delimiter, quote);
+        List<List<Writable>> records = new ArrayList<>();
+        int[] lineNumbers = new int[16];
+
+        // line numbers are relative to the chunk start here
+        int lineNumber = 0;
+        int lineStart = 0;
+        int length = text.length();
+        while (lineStart < length) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0)
+                lineEnd = length;
+
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && text.charAt(contentEnd - 1) == '\r')
+                contentEnd--;
+
+            // skipping header lines at the beginning of the file, and empty lines anywhere
+            boolean header = chunk.start == 0 && lineNumber < skipNumLines;
+            if (!header && contentEnd > lineStart) {
+                records.add(parseLine(parser, text.substring(lineStart, contentEnd), lineNumber));
+                if (records.size() > lineNumbers.length)
+                    lineNumbers = Arrays.copyOf(lineNumbers, lineNumbers.length * 2);
+                lineNumbers[records.size() - 1] = lineNumber;
+            }
+
+            lineNumber++;
+            lineStart = lineEnd + 1;
+        }
+
+        return new ParsedChunk(chunk, records, lineNumbers, lineNumber);
+    }
+
+    /**
+     * This method parses single line, and converts values into writables according to the schema
+     */
+    protected List<Writable> parseLine(SerializableCSVParser parser, String line, int lineNumber) throws IOException {
+        String[] split = parser.parseLine(line);
+        if (split.length != columnTypes.length)
+            throw new IllegalStateException("Invalid number of values at line " + lineNumber + ": expected "
+                            + columnTypes.length + " columns, got " + split.length + ". Line: \"" + line + "\"");
+
+        List<Writable> ret = new ArrayList<>(split.length);
+        for (int i = 0; i < split.length; i++) {
+            ret.add(toWritable(columnTypes[i], split[i], lineNumber, i));
+        }
+        return ret;
+    }
+
+    protected Writable toWritable(ColumnType type, String value, int lineNumber, int column) {
+        try {
+            switch (type) {
+                case Integer:
+                    return new IntWritable(Integer.parseInt(value.trim()));
+                case Long:
+                    return new LongWritable(Long.parseLong(value.trim()));
+                case Double:
+                    return new DoubleWritable(Double.parseDouble(value));
+                case Float:
+                    return new FloatWritable(Float.parseFloat(value));
+                case Boolean:
+                    return new BooleanWritable(Boolean.parseBoolean(value.trim()));
+                default:
+                    // String, Categorical, and everything that can't be parsed from a single CSV value
+                    return new Text(value);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Can't parse value \"" + value + "\" at line " + lineNumber + ", column "
+                            + schema.getName(column) + " as " + type, e);
+        }
+    }
+
+    /**
+     * This method finds first line start at or after given position
+     */
+    protected static long alignToLine(FileChannel channel, long position, long fileSize) throws IOException {
+        if (position <= 0)
+            return 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        // line starts right after '\n', so we check previous byte as well
+        long pos = position - 1;
+        while (pos < fileSize) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read <= 0)
+                break;
+
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n')
+                    return pos + i + 1;
+            }
+            pos += read;
+        }
+        return fileSize;
+    }
+
+    /**
+     * This method splits single file into chunks aligned to line boundaries
+     */
+    protected List<Chunk> splitFile(URI location) throws IOException {
+        List<Chunk> result = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(Paths.get(location), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            // header lines are skipped only within the first chunk, so it has to include all of them
+            long headerEnd = 0;
+            for (int i = 0; i < skipNumLines && headerEnd < fileSize; i++)
+                headerEnd = alignToLine(channel, headerEnd + 1, fileSize);
+
+            long start = 0;
+            while (start < fileSize) {
+                long end = Math.min(fileSize, alignToLine(channel, Math.max(start + chunkSize, headerEnd), fileSize));
+                // we can't memory-map or allocate more than 2GB at once
+                if (end - start > Integer.MAX_VALUE)
+                    throw new IllegalStateException("Line at position " + start + " in " + location + " is longer than 2GB");
+
+                result.add(new Chunk(location, start, end));
+                start = end;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This iterator splits files lazily, one file at a time
+     */
+    protected class ChunkIterator implements Iterator<Chunk> {
+        protected int fileIndex = 0;
+        protected Iterator<Chunk> fileChunks = Collections.emptyIterator();
+
+        @Override
+        public boolean hasNext() {
+            while (!fileChunks.hasNext() && fileIndex < locations.length) {
+                try {
+                    fileChunks = splitFile(locations[fileIndex++]).iterator();
+                } catch (IOException e) {
+                    throw new RuntimeException("Error splitting " + locations[fileIndex - 1], e);
+                }
+            }
+            return fileChunks.hasNext();
+        }
+
+        @Override
+        public Chunk next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            return fileChunks.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    protected static class Chunk {
+        protected final URI location;
+        protected final long start;
+        protected final long end;
+
+        protected Chunk(URI location, long start, long end) {
+            this.location = location;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    protected static class ParsedChunk {
+        protected final Chunk chunk;
+        protected final List<List<Writable>> records;
+        // line numbers of parsed records, relative to chunk start
+        protected final int[] lineNumbers;
+        // total number of lines in chunk, including skipped ones
+        protected final int lineCount;
+
+        protected ParsedChunk(Chunk chunk, List<List<Writable>> records, int[] lineNumbers, int lineCount) {
+            this.chunk = chunk;
+            this.records = records;
+            this.lineNumbers = lineNumbers;
+            this.lineCount = lineCount;
+        }
+    }
+}
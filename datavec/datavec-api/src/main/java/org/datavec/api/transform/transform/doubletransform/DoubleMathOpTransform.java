@@ -71,6 +71,18 @@ public class DoubleMathOpTransform extends BaseColumnTransform {
     }
 
     private double doOp(double input) {
+        return doOp(mathOp, input, scalar);
+    }
+
+    /**
+     * Apply the math op to a double value and a double scalar
+     *
+     * @param mathOp math op to apply
+     * @param input  column value
+     * @param scalar scalar argument of the op
+     * @return result of the op
+     */
+    public static double doOp(MathOp mathOp, double input, double scalar) {
         switch (mathOp) {
             case Add:
                 return input + scalar;
@@ -68,6 +68,18 @@ public class IntegerMathOpTransform extends BaseColumnTransform {
     }
 
     private int doOp(int input) {
+        return doOp(mathOp, input, scalar);
+    }
+
+    /**
+     * Integer version of {@link org.datavec.api.transform.transform.doubletransform.DoubleMathOpTransform#doOp(MathOp, double, double)}
+     *
+     * @param mathOp math op to apply
+     * @param input  column value
+     * @param scalar scalar argument of the op
+     * @return result of the op
+     */
+    public static int doOp(MathOp mathOp, int input, int scalar) {
         switch (mathOp) {
             case Add:
                 return input + scalar;
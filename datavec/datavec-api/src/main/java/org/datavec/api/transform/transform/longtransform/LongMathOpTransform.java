@@ -68,6 +68,18 @@ public class LongMathOpTransform extends BaseColumnTransform {
     }
 
     private long doOp(long input) {
+        return doOp(mathOp, input, scalar);
+    }
+
+    /**
+     * Long version of {@link org.datavec.api.transform.transform.doubletransform.DoubleMathOpTransform#doOp(MathOp, double, double)}
+     *
+     * @param mathOp math op to apply
+     * @param input  column value
+     * @param scalar scalar argument of the op
+     * @return result of the op
+     */
+    public static long doOp(MathOp mathOp, long input, long scalar) {
         switch (mathOp) {
             case Add:
                 return input + scalar;
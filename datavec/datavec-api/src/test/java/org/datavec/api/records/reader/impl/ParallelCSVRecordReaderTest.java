@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.api.records.reader.impl;
+
+import org.apache.commons.io.FileUtils;
+import org.datavec.api.records.Record;
+import org.datavec.api.records.listener.RecordListener;
+import org.datavec.api.records.metadata.RecordMetaData;
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.records.reader.impl.csv.ParallelCSVRecordReader;
+import org.datavec.api.records.writer.RecordWriter;
+import org.datavec.api.split.FileSplit;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.DoubleWritable;
+import org.datavec.api.writable.IntWritable;
+import org.datavec.api.writable.Text;
+import org.datavec.api.writable.Writable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParallelCSVRecordReaderTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private static Schema schema() {
+        return new Schema.Builder()
+                .addColumnInteger("idx")
+                .addColumnDouble("value")
+                .addColumnString("label")
+                .build();
+    }
+
+    private static List<List<Writable>> writeCsv(File file, int numLines, boolean header) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        List<List<Writable>> expected = new ArrayList<>();
+        if (header)
+            sb.append("idx,value,label\n");
+
+        for (int i = 0; i < numLines; i++) {
+            sb.append(i).append(",").append(i * 0.5).append(",\"label_").append(i % 7).append("\"\n");
+            expected.add(Arrays.<Writable>asList(new IntWritable(i), new DoubleWritable(i * 0.5), new Text("label_" + (i % 7))));
+        }
+
+        FileUtils.writeStringToFile(file, sb.toString(), StandardCharsets.UTF_8);
+        return expected;
+    }
+
+    @Test
+    public void testParallelRead() throws Exception {
+        File dir = testDir.newFolder();
+        List<List<Writable>> expected = writeCsv(new File(dir, "data.csv"), 1000, true);
+
+        for (boolean mmap : new boolean[] {false, true}) {
+            // tiny chunks, so we get lots of them
+            ParallelCSVRecordReader rr = new ParallelCSVRecordReader(schema(), 1, ',', '"', 4, 100, mmap);
+            rr.initialize(new FileSplit(dir));
+
+            List<List<Writable>> actual = new ArrayList<>();
+            while (rr.hasNext())
+                actual.add(rr.next());
+
+            assertEquals(expected, actual);
+
+            rr.reset();
+            actual.clear();
+            while (rr.hasNext())
+                actual.addAll(rr.next(37));
+
+            assertEquals(expected, actual);
+            rr.close();
+        }
+    }
+
+    @Test
+    public void testListeners() throws Exception {
+        File dir = testDir.newFolder();
+        List<List<Writable>> expected = writeCsv(new File(dir, "data.csv"), 250, false);
+
+        final List<Object> seen = new ArrayList<>();
+        RecordListener listener = new RecordListener() {
+            @Override
+            public boolean invoked() {
+                return !seen.isEmpty();
+            }
+
+            @Override
+            public void invoke() {
+            }
+
+            @Override
+            public void recordRead(RecordReader reader, Object record) {
+                seen.add(record);
+            }
+
+            @Override
+            public void recordWrite(RecordWriter writer, Object record) {
+            }
+        };
+
+        ParallelCSVRecordReader rr = new ParallelCSVRecordReader(schema(), 0, ',', '"', 2, 100, false);
+        rr.initialize(new FileSplit(dir));
+        rr.setListeners(listener);
+
+        // listeners should see every record, whether it's read one by one or in batches
+        while (rr.hasNext())
+            rr.next();
+        assertEquals(expected, seen);
+
+        rr.reset();
+        seen.clear();
+        while (rr.hasNext())
+            rr.next(37);
+        assertEquals(expected, seen);
+        rr.close();
+    }
+
+    @Test
+    public void testMultipleFiles() throws Exception {
+        File dir = testDir.newFolder();
+        List<List<Writable>> expected = new ArrayList<>();
+        expected.addAll(writeCsv(new File(dir, "a.csv"), 100, false));
+        expected.addAll(writeCsv(new File(dir, "b.csv"), 200, false));
+
+        ParallelCSVRecordReader rr = new ParallelCSVRecordReader(schema(), 0, ',', '"', 2, 64, false);
+        rr.initialize(new FileSplit(dir));
+
+        List<List<Writable>> actual = new ArrayList<>();
+        while (rr.hasNext())
+            actual.add(rr.next());
+
+        assertEquals(expected.size(), actual.size());
+        // FileSplit doesn't guarantee file order, so we compare contents only
+        assertTrue(actual.containsAll(expected));
+        rr.close();
+    }
+
+    @Test
+    public void testMetaData() throws Exception {
+        File dir = testDir.newFolder();
+        writeCsv(new File(dir, "data.csv"), 500, true);
+
+        ParallelCSVRecordReader rr = new ParallelCSVRecordReader(schema(), 1, ',', '"', 3, 128, false);
+        rr.initialize(new FileSplit(dir));
+
+        List<Record> records = new ArrayList<>();
+        List<RecordMetaData> meta = new ArrayList<>();
+        while (rr.hasNext()) {
+            Record r = rr.nextRecord();
+            records.add(r);
+            meta.add(r.getMetaData());
+        }
+
+        assertEquals(500, records.size());
+
+        List<Record> loaded = rr.loadFromMetaData(meta);
+        assertEquals(records.size(), loaded.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(records.get(i).getRecord(), loaded.get(i).getRecord());
+        }
+        rr.close();
+    }
+}
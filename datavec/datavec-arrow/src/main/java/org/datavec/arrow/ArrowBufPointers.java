@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.arrow;
+
+import io.netty.buffer.ArrowBuf;
+import org.bytedeco.javacpp.DoublePointer;
+import org.bytedeco.javacpp.FloatPointer;
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.javacpp.LongPointer;
+import org.bytedeco.javacpp.Pointer;
+import org.bytedeco.javacpp.indexer.DoubleIndexer;
+import org.bytedeco.javacpp.indexer.FloatIndexer;
+import org.bytedeco.javacpp.indexer.IntIndexer;
+import org.bytedeco.javacpp.indexer.LongIndexer;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Wraps the memory of an {@link ArrowBuf} as an nd4j {@link DataBuffer}, without copying.<br>
+ * The pointer backing each data buffer holds a reference to the ArrowBuf (its reference count is incremented on
+ * creation), so the memory stays allocated even if the vector that owns the ArrowBuf is cleared or closed. The
+ * reference is released when the pointer is deallocated: explicitly via {@link #release(DataBuffer)}, or when the
+ * pointer is garbage collected. Until then, the allocator of the ArrowBuf accounts for the memory, and closing the
+ * allocator fails instead of freeing memory that is still in use.
+ */
+class ArrowBufPointers {
+
+    private ArrowBufPointers() {
+    }
+
+    /**
+     * Wrap part of an ArrowBuf as a data buffer
+     *
+     * @param buf the buffer to wrap
+     * @param type the data type: INT, LONG, FLOAT or DOUBLE
+     * @param offset offset of the first element (in elements, not bytes)
+     * @param length number of elements
+     * @return a data buffer backed by the memory of the ArrowBuf
+     */
+    static DataBuffer wrap(ArrowBuf buf, DataBuffer.Type type, long offset, long length) {
+        switch (type) {
+            case INT:
+                IntPointer intPointer = new ArrowIntPointer(buf, offset, length);
+                return Nd4j.createBuffer(intPointer, type, length, IntIndexer.create(intPointer));
+            case LONG:
+                LongPointer longPointer = new ArrowLongPointer(buf, offset, length);
+                return Nd4j.createBuffer(longPointer, type, length, LongIndexer.create(longPointer));
+            case FLOAT:
+                FloatPointer floatPointer = new ArrowFloatPointer(buf, offset, length);
+                return Nd4j.createBuffer(floatPointer, type, length, FloatIndexer.create(floatPointer));
+            case DOUBLE:
+                DoublePointer doublePointer = new ArrowDoublePointer(buf, offset, length);
+                return Nd4j.createBuffer(doublePointer, type, length, DoubleIndexer.create(doublePointer));
+            default:
+                throw new IllegalArgumentException("Unsupported data type: " + type);
+        }
+    }
+
+    /**
+     * Release the ArrowBuf reference held by a data buffer created by {@link #wrap(ArrowBuf, DataBuffer.Type, long, long)}.
+     * The data buffer must not be used after this. No-op for other data buffers, or if already released.
+     *
+     * @param buffer the data buffer to release
+     */
+    static void release(DataBuffer buffer) {
+        Pointer pointer = buffer.pointer();
+        if (pointer instanceof ArrowBufReference) {
+            pointer.deallocate();
+        }
+    }
+
+    /**
+     * Marker for pointers holding an ArrowBuf reference
+     */
+    private interface ArrowBufReference {
+    }
+
+    private static class ArrowIntPointer extends IntPointer implements ArrowBufReference {
+        private ArrowIntPointer(ArrowBuf buf, long offset, long length) {
+            address = buf.memoryAddress() + 4 * offset;
+            capacity = length;
+            limit = length;
+            deallocator(new ArrowDoublePointer.ReleaseDeallocator(buf));
+        }
+    }
+
+    private static class ArrowLongPointer extends LongPointer implements ArrowBufReference {
+        private ArrowLongPointer(ArrowBuf buf, long offset, long length) {
+            address = buf.memoryAddress() + 8 * offset;
+            capacity = length;
+            limit = length;
+            deallocator(new ArrowDoublePointer.ReleaseDeallocator(buf));
+        }
+    }
+
+    private static class ArrowFloatPointer extends FloatPointer implements ArrowBufReference {
+        private ArrowFloatPointer(ArrowBuf buf, long offset, long length) {
+            address = buf.memoryAddress() + 4 * offset;
+            capacity = length;
+            limit = length;
+            deallocator(new ArrowDoublePointer.ReleaseDeallocator(buf));
+        }
+    }
+
+    private static class ArrowDoublePointer extends DoublePointer implements ArrowBufReference {
+        private ArrowDoublePointer(ArrowBuf buf, long offset, long length) {
+            address = buf.memoryAddress() + 8 * offset;
+            capacity = length;
+            limit = length;
+            deallocator(new ReleaseDeallocator(buf));
+        }
+
+        /**
+         * Holds a reference to the ArrowBuf - and not to the pointer, so the pointer can still be garbage collected
+         */
+        private static class ReleaseDeallocator implements Deallocator {
+            private ArrowBuf buf;
+
+            private ReleaseDeallocator(ArrowBuf buf) {
+                buf.retain();
+                this.buf = buf;
+            }
+
+            @Override
+            public synchronized void deallocate() {
+                if (buf != null) {
+                    buf.release();
+                    buf = null;
+                }
+            }
+        }
+    }
+}
@@ -55,6 +55,10 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.*;
 
 import static java.nio.channels.Channels.newChannel;
@@ -143,19 +147,87 @@ public class ArrowConverter {
 
         }
 
+        return toMatrix(columnVectors,schema,arrowWritableRecordBatch.getOffset(),arrowWritableRecordBatch.size());
+    }
+
+    /**
+     * Create a [length, numColumns] feature matrix of the default data type from the given numeric
+     * (Integer, Long, Float or Double) columns, in a single pass over the arrow data.<br>
+     * The returned matrix is in 'f' (column major) order: as arrow storage is columnar, each column is copied
+     * straight from its arrow data buffer into a contiguous region of the matrix (a bulk copy when the column type
+     * matches the data type of the matrix), without any intermediate per-column arrays.
+     *
+     * @param columnVectors the columns
+     * @param schema the schema for the columns
+     * @param offset the first row to copy
+     * @param length the number of rows to copy
+     * @return the feature matrix
+     */
+    public static INDArray toMatrix(List<FieldVector> columnVectors,Schema schema,int offset,int length) {
         int cols = schema.numColumns();
-        INDArray arr  = Nd4j.create(rows,cols);
-        for(int i = 0; i < cols; i++) {
-            INDArray put = ArrowConverter.convertArrowVector(columnVectors.get(i),schema.getType(i));
-            switch(arr.data().dataType()) {
-                case FLOAT:
-                    arr.putColumn(i,Nd4j.create(put.data().asFloat()).reshape(rows,1));
-                    break;
-                case DOUBLE:
-                    arr.putColumn(i,Nd4j.create(put.data().asDouble()).reshape(rows,1));
-                    break;
+        INDArray arr = Nd4j.createUninitialized(new long[] {length,cols},'f');
+        DataBuffer.Type dataType = arr.data().dataType();
+        if(dataType != DataBuffer.Type.FLOAT && dataType != DataBuffer.Type.DOUBLE) {
+            for(int i = 0; i < cols; i++) {
+                arr.putColumn(i,convertArrowVector(columnVectors.get(i),schema.getType(i),offset,length));
             }
+            return arr;
+        }
 
+        ByteBuffer out = arr.data().asNio().order(ByteOrder.nativeOrder());
+        for(int i = 0; i < cols; i++) {
+            FieldVector vector = columnVectors.get(i);
+            ColumnType type = schema.getType(i);
+            if(dataType == DataBuffer.Type.DOUBLE) {
+                DoubleBuffer dst = (DoubleBuffer) out.asDoubleBuffer().position(i * length);
+                switch(type) {
+                    case Double:
+                        dst.put(dataSlice(vector,offset,length,8).asDoubleBuffer());
+                        break;
+                    case Float:
+                        FloatBuffer floatBuffer = dataSlice(vector,offset,length,4).asFloatBuffer();
+                        for(int j = 0; j < length; j++)
+                            dst.put(floatBuffer.get(j));
+                        break;
+                    case Integer:
+                        IntBuffer intBuffer = dataSlice(vector,offset,length,4).asIntBuffer();
+                        for(int j = 0; j < length; j++)
+                            dst.put(intBuffer.get(j));
+                        break;
+                    case Long:
+                        LongBuffer longBuffer = dataSlice(vector,offset,length,8).asLongBuffer();
+                        for(int j = 0; j < length; j++)
+                            dst.put(longBuffer.get(j));
+                        break;
+                    default:
+                        throw new ND4JIllegalArgumentException("Illegal data type found for column " + schema.getName(i) + " of type " + type);
+                }
+            }
+            else {
+                FloatBuffer dst = (FloatBuffer) out.asFloatBuffer().position(i * length);
+                switch(type) {
+                    case Float:
+                        dst.put(dataSlice(vector,offset,length,4).asFloatBuffer());
+                        break;
+                    case Double:
+                        DoubleBuffer doubleBuffer = dataSlice(vector,offset,length,8).asDoubleBuffer();
+                        for(int j = 0; j < length; j++)
+                            dst.put((float) doubleBuffer.get(j));
+                        break;
+                    case Integer:
+                        IntBuffer intBuffer = dataSlice(vector,offset,length,4).asIntBuffer();
+                        for(int j = 0; j < length; j++)
+                            dst.put(intBuffer.get(j));
+                        break;
+                    case Long:
+                        LongBuffer longBuffer = dataSlice(vector,offset,length,8).asLongBuffer();
+                        for(int j = 0; j < length; j++)
+                            dst.put(longBuffer.get(j));
+                        break;
+                    default:
+                        throw new ND4JIllegalArgumentException("Illegal data type found for column " + schema.getName(i) + " of type " + type);
+                }
+            }
         }
 
         return arr;
@@ -192,6 +264,129 @@ public class ArrowConverter {
         return Nd4j.create(buffer,new int[] {cols,1});
     }
 
+    /**
+     * Copy a range of rows of a numeric field vector to a column vector (shape [length,1]) of the default
+     * data type. Only the requested rows are read, directly from the arrow data buffer - the rest of the
+     * vector isn't touched.
+     *
+     * @param fieldVector the field vector to convert
+     * @param type the type of the column vector: Integer, Long, Float or Double
+     * @param offset the first row to copy
+     * @param length the number of rows to copy
+     * @return the converted ndarray
+     */
+    public static INDArray convertArrowVector(FieldVector fieldVector,ColumnType type,int offset,int length) {
+        if(offset < 0 || length < 0 || offset + length > fieldVector.getValueCount()) {
+            throw new ND4JIllegalArgumentException("Invalid row range: offset " + offset + ", length " + length
+                    + " for vector with " + fieldVector.getValueCount() + " values");
+        }
+
+        double[] out = new double[length];
+        switch(type) {
+            case Integer:
+                IntBuffer intBuffer = dataSlice(fieldVector,offset,length,4).asIntBuffer();
+                for(int i = 0; i < length; i++)
+                    out[i] = intBuffer.get(i);
+                break;
+            case Long:
+                LongBuffer longBuffer = dataSlice(fieldVector,offset,length,8).asLongBuffer();
+                for(int i = 0; i < length; i++)
+                    out[i] = longBuffer.get(i);
+                break;
+            case Float:
+                FloatBuffer floatBuffer = dataSlice(fieldVector,offset,length,4).asFloatBuffer();
+                for(int i = 0; i < length; i++)
+                    out[i] = floatBuffer.get(i);
+                break;
+            case Double:
+                dataSlice(fieldVector,offset,length,8).asDoubleBuffer().get(out);
+                break;
+            default:
+                throw new ND4JIllegalArgumentException("Illegal data type found for column " + fieldVector.getField().getName()
+                        + " of type " + type + ": only Integer, Long, Float and Double columns can be converted");
+        }
+
+        return Nd4j.create(out,new int[] {length,1});
+    }
+
+    private static ByteBuffer dataSlice(FieldVector fieldVector,int offset,int length,int elementSize) {
+        //Arrow buffers are always little endian
+        return fieldVector.getDataBuffer().nioBuffer(offset * elementSize,length * elementSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Wrap a numeric field vector as a column vector (shape [valueCount,1]) without copying:
+     * see {@link #wrapArrowVector(FieldVector, ColumnType, int, int)}
+     *
+     * @param fieldVector the field vector to wrap
+     * @param type the type of the column: Integer, Long, Float or Double
+     * @return a column vector backed by the arrow memory of the field vector
+     */
+    public static INDArray wrapArrowVector(FieldVector fieldVector,ColumnType type) {
+        return wrapArrowVector(fieldVector,type,0,fieldVector.getValueCount());
+    }
+
+    /**
+     * Wrap a range of rows of a numeric field vector as a column vector (shape [length,1]), backed directly by
+     * the arrow (off heap) memory of the vector - no data is copied. The data type of the returned array
+     * matches the column type: INT, LONG, FLOAT or DOUBLE.<br>
+     * The array holds a reference to the arrow buffer of the vector: the memory stays allocated if the vector is
+     * cleared or closed, until the array is garbage collected or {@link #releaseArrowVector(INDArray)} is called.
+     * While the reference is held, the memory is accounted for by the {@link BufferAllocator} of the vector (so
+     * closing the allocator fails, rather than freeing the memory). Changes to the array are visible in the field
+     * vector (and vice versa) until the vector is cleared or reallocated.<br>
+     * Arrow data is little endian: on big endian platforms, the data is copied instead.
+     *
+     * @param fieldVector the field vector to wrap
+     * @param type the type of the column: Integer, Long, Float or Double
+     * @param offset the first row to wrap
+     * @param length the number of rows to wrap
+     * @return a column vector backed by the arrow memory of the field vector
+     */
+    public static INDArray wrapArrowVector(FieldVector fieldVector,ColumnType type,int offset,int length) {
+        if(offset < 0 || length < 1 || offset + length > fieldVector.getValueCount()) {
+            throw new ND4JIllegalArgumentException("Invalid row range: offset " + offset + ", length " + length
+                    + " for vector with " + fieldVector.getValueCount() + " values");
+        }
+
+        if(ByteOrder.nativeOrder() != ByteOrder.LITTLE_ENDIAN) {
+            return convertArrowVector(fieldVector,type,offset,length);
+        }
+
+        DataBuffer.Type dataType;
+        switch(type) {
+            case Integer:
+                dataType = DataBuffer.Type.INT;
+                break;
+            case Long:
+                dataType = DataBuffer.Type.LONG;
+                break;
+            case Float:
+                dataType = DataBuffer.Type.FLOAT;
+                break;
+            case Double:
+                dataType = DataBuffer.Type.DOUBLE;
+                break;
+            default:
+                throw new ND4JIllegalArgumentException("Illegal data type found for column " + fieldVector.getField().getName()
+                        + " of type " + type + ": only Integer, Long, Float and Double columns can be wrapped");
+        }
+
+        DataBuffer buffer = ArrowBufPointers.wrap(fieldVector.getDataBuffer(),dataType,offset,length);
+        return Nd4j.create(buffer,new int[] {length,1});
+    }
+
+
+    /**
+     * Release the arrow buffer reference held by an array returned by
+     * {@link #wrapArrowVector(FieldVector, ColumnType, int, int)}, without waiting for the array to be garbage
+     * collected. The array must not be used after this. No-op for arrays that don't wrap arrow memory.
+     *
+     * @param wrapped the array to release
+     */
+    public static void releaseArrowVector(INDArray wrapped) {
+        ArrowBufPointers.release(wrapped.data());
+    }
 
     /**
      * Convert an {@link INDArray}
@@ -0,0 +1,529 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.arrow.recordreader;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.ipc.SeekableReadChannel;
+import org.apache.arrow.vector.util.ByteArrayReadableSeekableByteChannel;
+import org.apache.commons.io.IOUtils;
+import org.datavec.api.conf.Configuration;
+import org.datavec.api.records.Record;
+import org.datavec.api.records.listener.RecordListener;
+import org.datavec.api.records.metadata.RecordMetaData;
+import org.datavec.api.records.metadata.RecordMetaDataIndex;
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.split.CollectionInputSplit;
+import org.datavec.api.split.InputSplit;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.Writable;
+import org.datavec.api.writable.batch.NDArrayRecordBatch;
+import org.datavec.arrow.ArrowConverter;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A streaming record reader for arrow data, in either the arrow IPC file format or the arrow IPC stream format.<br>
+ * Unlike {@link ArrowRecordReader} (which reads the whole of each file before returning any records), this reader
+ * iterates over the record batches in each file one at a time: only the current record batch is held in arrow memory,
+ * so memory use is bounded by the size of the largest record batch (plus one minibatch of output) regardless of the
+ * size of the file. All record batches of each file are read, not just the first.<br>
+ * Local files are memory-mapped when smaller than 2GB (larger files are read via a {@link FileChannel}); other
+ * locations are read via {@link InputSplit#openInputStreamFor(String)}. Note that for non-local locations, the file
+ * format (unlike the stream format) requires random access, so such files are buffered in memory in full.<br>
+ * <br>
+ * Batches: when all columns are numeric (Integer, Long, Float or Double), {@link #next(int)} returns a
+ * {@link NDArrayRecordBatch}, with one [num,1] column vector per column, copied directly from the arrow buffers with
+ * no per-record {@link Writable} objects - this is used as-is by RecordReaderDataSetIterator and
+ * RecordReaderMultiDataSetIterator. Minibatches may span record batches (and files).<br>
+ * PLEASE NOTE: null values are returned as {@link org.datavec.api.writable.NullWritable} by {@link #next()}, but can't
+ * be represented in an {@link NDArrayRecordBatch}: {@link #next(int)} throws an IllegalStateException for numeric
+ * columns with nulls.<br>
+ * Records returned by {@link #next()} are copied out of the current record batch, so they remain valid after the
+ * reader has moved on to the next record batch.
+ */
+@Slf4j
+public class StreamingArrowRecordReader implements RecordReader {
+    private static final byte[] FILE_MAGIC = "ARROW1".getBytes(StandardCharsets.UTF_8);
+
+    private InputSplit split;
+    private Configuration configuration;
+    private Iterator<String> pathsIter;
+    private List<RecordListener> recordListeners;
+
+    private BufferAllocator allocator;
+    private ArrowReader reader;
+    private String currentPath;
+    @Getter
+    private Schema schema;
+    private boolean numeric;
+    @Getter
+    private ArrowWritableRecordBatch currentBatch;
+    private int currIdx;
+    private long rowsBeforeCurrentBatch;
+
+    @Override
+    public void initialize(InputSplit split) {
+        this.split = split;
+        this.pathsIter = split.locationsPathIterator();
+        closeCurrent();
+    }
+
+    @Override
+    public void initialize(Configuration conf, InputSplit split) {
+        setConf(conf);
+        initialize(split);
+    }
+
+    @Override
+    public boolean batchesSupported() {
+        return true;
+    }
+
+    @Override
+    public List<List<Writable>> next(int num) {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No next element");
+        }
+
+        if (!numeric) {
+            List<List<Writable>> ret = new ArrayList<>(Math.min(num, 100000));
+            for (int i = 0; i < num && hasNext(); i++) {
+                ret.add(next());
+            }
+            return ret;
+        }
+
+        int numColumns = schema.numColumns();
+        List<List<INDArray>> parts = new ArrayList<>(numColumns);
+        for (int c = 0; c < numColumns; c++) {
+            parts.add(new ArrayList<INDArray>(2));
+        }
+
+        int remaining = num;
+        while (remaining > 0 && hasNext()) {
+            int n = Math.min(remaining, currentBatch.size() - currIdx);
+            List<FieldVector> vectors = currentBatch.getList();
+            for (int c = 0; c < numColumns; c++) {
+                checkNoNulls(vectors.get(c), c, currIdx, n);
+                parts.get(c).add(ArrowConverter.convertArrowVector(vectors.get(c), schema.getType(c), currIdx, n));
+            }
+            currIdx += n;
+            remaining -= n;
+        }
+
+        List<INDArray> columns = new ArrayList<>(numColumns);
+        for (List<INDArray> l : parts) {
+            columns.add(l.size() == 1 ? l.get(0) : Nd4j.concat(0, l.toArray(new INDArray[l.size()])));
+        }
+        return new NDArrayRecordBatch(columns);
+    }
+
+    /**
+     * Numeric batches are copied from the arrow data buffers directly, which ignores the validity bitmap: null values
+     * would silently come back as whatever is in the data buffer at that position
+     */
+    private void checkNoNulls(FieldVector vector, int column, int from, int n) {
+        if (vector.getNullCount() == 0) {
+            return;
+        }
+        for (int i = from; i < from + n; i++) {
+            if (vector.isNull(i)) {
+                throw new IllegalStateException("Null value in column \"" + schema.getName(column) + "\" at record "
+                        + (rowsBeforeCurrentBatch + i) + " of " + currentPath + ": null values are not supported "
+                        + "by next(int) for numeric data, use next() to read them as NullWritable");
+            }
+        }
+    }
+
+    @Override
+    public List<Writable> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No next element");
+        }
+        return currentBatch.get(currIdx++);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (currentBatch == null || currIdx >= currentBatch.size()) {
+            if (!loadNextBatch()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Load the next non-empty record batch, opening the next location if the current one is exhausted
+     *
+     * @return false if there are no more record batches
+     */
+    private boolean loadNextBatch() {
+        try {
+            while (true) {
+                if (reader != null) {
+                    if (currentBatch != null) {
+                        rowsBeforeCurrentBatch += currentBatch.size();
+                    }
+                    if (reader.loadNextBatch()) {
+                        VectorSchemaRoot root = reader.getVectorSchemaRoot();
+                        currentBatch = new ArrowWritableRecordBatch(root.getFieldVectors(), schema, 0, root.getRowCount());
+                        currIdx = 0;
+                        if (root.getRowCount() > 0) {
+                            return true;
+                        }
+                        continue;
+                    }
+                    closeCurrent();
+                }
+
+                if (pathsIter == null || !pathsIter.hasNext()) {
+                    return false;
+                }
+                open(pathsIter.next());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading arrow data from " + currentPath, e);
+        }
+    }
+
+    private void open(String location) throws IOException {
+        if (allocator == null) {
+            allocator = new RootAllocator(Long.MAX_VALUE);
+        }
+        currentPath = location;
+        currentBatch = null;
+        currIdx = 0;
+        rowsBeforeCurrentBatch = 0;
+
+        File f = localFile(location);
+        if (f != null) {
+            SeekableByteChannel channel;
+            try (FileChannel fileChannel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+                if (fileChannel.size() <= Integer.MAX_VALUE) {
+                    //Mapping stays valid after the file channel is closed
+                    channel = new MappedReadChannel(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size()));
+                } else {
+                    channel = FileChannel.open(f.toPath(), StandardOpenOption.READ);
+                }
+            }
+
+            ByteBuffer magic = ByteBuffer.allocate(FILE_MAGIC.length);
+            while (magic.hasRemaining() && channel.read(magic) > 0);
+            channel.position(0);
+            if (isFileFormat(magic.array(), magic.position())) {
+                reader = new ArrowFileReader(new SeekableReadChannel(channel), allocator);
+            } else {
+                reader = new ArrowStreamReader(channel, allocator);
+            }
+        } else {
+            InputStream is;
+            try {
+                is = new BufferedInputStream(split.openInputStreamFor(location));
+            } catch (Exception e) {
+                throw new IOException("Unable to open " + location, e);
+            }
+            is.mark(FILE_MAGIC.length);
+            byte[] magic = new byte[FILE_MAGIC.length];
+            int read = IOUtils.read(is, magic);
+            is.reset();
+            if (isFileFormat(magic, read)) {
+                //File format requires random access (footer is at the end) - buffer the whole file
+                log.debug("Buffering arrow file format data from non-local location {} in memory", location);
+                byte[] bytes;
+                try {
+                    bytes = IOUtils.toByteArray(is);
+                } finally {
+                    is.close();
+                }
+                reader = new ArrowFileReader(new SeekableReadChannel(new ByteArrayReadableSeekableByteChannel(bytes)), allocator);
+            } else {
+                reader = new ArrowStreamReader(is, allocator);
+            }
+        }
+
+        Schema s = ArrowConverter.toDatavecSchema(reader.getVectorSchemaRoot().getSchema());
+        if (schema == null) {
+            schema = s;
+            numeric = isNumeric(schema);
+        } else if (!schema.equals(s)) {
+            throw new IllegalStateException("Schema for " + location + " does not match the schema of previous "
+                    + "locations.\nExpected: " + schema + "\nGot: " + s);
+        }
+    }
+
+    private static boolean isFileFormat(byte[] magic, int length) {
+        return length == FILE_MAGIC.length && Arrays.equals(magic, FILE_MAGIC);
+    }
+
+    private static boolean isNumeric(Schema schema) {
+        for (int i = 0; i < schema.numColumns(); i++) {
+            switch (schema.getType(i)) {
+                case Integer:
+                case Long:
+                case Float:
+                case Double:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static File localFile(String location) {
+        File f;
+        try {
+            URI uri = URI.create(location);
+            if (uri.getScheme() == null) {
+                f = new File(location);
+            } else if ("file".equalsIgnoreCase(uri.getScheme())) {
+                f = new File(uri);
+            } else {
+                return null;
+            }
+        } catch (IllegalArgumentException e) {
+            f = new File(location);
+        }
+        return f.isFile() ? f : null;
+    }
+
+    private void closeCurrent() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                log.warn("Error closing arrow reader for {}", currentPath, e);
+            }
+            reader = null;
+        }
+        currentBatch = null;
+        currIdx = 0;
+        rowsBeforeCurrentBatch = 0;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return null;
+    }
+
+    @Override
+    public void reset() {
+        closeCurrent();
+        if (split != null) {
+            split.reset();
+            pathsIter = split.locationsPathIterator();
+        }
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return split != null && split.resetSupported();
+    }
+
+    @Override
+    public List<Writable> record(URI uri, DataInputStream dataInputStream) {
+        throw new UnsupportedOperationException("Reading arrow records from a DataInputStream is not supported");
+    }
+
+    @Override
+    public Record nextRecord() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No next element");
+        }
+        int idx = currIdx++;
+        RecordMetaData meta = new RecordMetaDataIndex(rowsBeforeCurrentBatch + idx, URI.create(currentPath),
+                StreamingArrowRecordReader.class);
+        return new org.datavec.api.records.impl.Record(currentBatch.get(idx), meta);
+    }
+
+    @Override
+    public Record loadFromMetaData(RecordMetaData recordMetaData) throws IOException {
+        return loadFromMetaData(Collections.singletonList(recordMetaData)).get(0);
+    }
+
+    @Override
+    public List<Record> loadFromMetaData(List<RecordMetaData> recordMetaDatas) throws IOException {
+        //Group by location, so each location is read only once, in a single pass
+        Map<String, List<Integer>> positionsByUri = new LinkedHashMap<>();
+        for (int i = 0; i < recordMetaDatas.size(); i++) {
+            RecordMetaData m = recordMetaDatas.get(i);
+            if (!(m instanceof RecordMetaDataIndex)) {
+                throw new IllegalArgumentException("Unable to load from meta data. No index specified for record");
+            }
+            String uri = m.getURI().toString();
+            List<Integer> l = positionsByUri.get(uri);
+            if (l == null) {
+                l = new ArrayList<>();
+                positionsByUri.put(uri, l);
+            }
+            l.add(i);
+        }
+
+        Record[] out = new Record[recordMetaDatas.size()];
+        for (Map.Entry<String, List<Integer>> e : positionsByUri.entrySet()) {
+            final List<Integer> positions = new ArrayList<>(e.getValue());
+            final List<RecordMetaData> metas = recordMetaDatas;
+            Collections.sort(positions, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return Long.compare(((RecordMetaDataIndex) metas.get(o1)).getIndex(),
+                            ((RecordMetaDataIndex) metas.get(o2)).getIndex());
+                }
+            });
+
+            StreamingArrowRecordReader r = new StreamingArrowRecordReader();
+            r.initialize(new CollectionInputSplit(Collections.singletonList(URI.create(e.getKey()))));
+            try {
+                long row = 0;
+                Record last = null;
+                for (int pos : positions) {
+                    long target = ((RecordMetaDataIndex) metas.get(pos)).getIndex();
+                    while (row <= target) {
+                        if (!r.hasNext()) {
+                            throw new IllegalStateException("Record index " + target + " not found for location "
+                                    + e.getKey() + ": only " + row + " records present");
+                        }
+                        Record rec = r.nextRecord();
+                        row++;
+                        if (row > target) {
+                            last = rec;
+                        }
+                    }
+                    out[pos] = last;
+                }
+            } finally {
+                r.close();
+            }
+        }
+        return Arrays.asList(out);
+    }
+
+    @Override
+    public List<RecordListener> getListeners() {
+        return recordListeners;
+    }
+
+    @Override
+    public void setListeners(RecordListener... listeners) {
+        this.recordListeners = new ArrayList<>(Arrays.asList(listeners));
+    }
+
+    @Override
+    public void setListeners(Collection<RecordListener> listeners) {
+        this.recordListeners = new ArrayList<>(listeners);
+    }
+
+    @Override
+    public void close() {
+        closeCurrent();
+        if (allocator != null) {
+            allocator.close();
+            allocator = null;
+        }
+    }
+
+    @Override
+    public void setConf(Configuration conf) {
+        this.configuration = conf;
+    }
+
+    @Override
+    public Configuration getConf() {
+        return configuration;
+    }
+
+    /**
+     * Read-only {@link SeekableByteChannel} over a memory-mapped file
+     */
+    private static class MappedReadChannel implements SeekableByteChannel {
+        private final MappedByteBuffer buffer;
+        private boolean open = true;
+
+        private MappedReadChannel(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(dst.remaining(), buffer.remaining());
+            ByteBuffer src = buffer.duplicate();
+            src.limit(src.position() + n);
+            dst.put(src);
+            buffer.position(buffer.position() + n);
+            return n;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() {
+            return buffer.position();
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) {
+            buffer.position((int) Math.min(newPosition, buffer.limit()));
+            return this;
+        }
+
+        @Override
+        public long size() {
+            return buffer.limit();
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
@@ -20,6 +20,8 @@ import lombok.val;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
 import org.apache.arrow.vector.TimeStampMilliVector;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.VectorUnloader;
@@ -40,8 +42,10 @@ import org.datavec.arrow.recordreader.ArrowWritableRecordBatch;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.primitives.Pair;
 
 import java.io.ByteArrayOutputStream;
@@ -251,6 +255,74 @@ public class ArrowConverterTest {
         assertEquals(5,arr.length());
     }
 
+    @Test
+    public void testWrapVector() {
+        Float8Vector doubles = ArrowConverter.vectorFor(bufferAllocator,"d",new double[] {1,2,3,4,5});
+        IntVector ints = ArrowConverter.vectorFor(bufferAllocator,"i",new int[] {1,2,3,4,5});
+
+        INDArray wrappedDoubles = ArrowConverter.wrapArrowVector(doubles,ColumnType.Double);
+        assertArrayEquals(new long[] {5,1},wrappedDoubles.shape());
+        assertEquals(DataBuffer.Type.DOUBLE,wrappedDoubles.data().dataType());
+        for(int i = 0; i < 5; i++) {
+            assertEquals(i + 1,wrappedDoubles.getDouble(i),0.0);
+        }
+
+        INDArray wrappedInts = ArrowConverter.wrapArrowVector(ints,ColumnType.Integer,1,3);
+        assertArrayEquals(new long[] {3,1},wrappedInts.shape());
+        assertEquals(DataBuffer.Type.INT,wrappedInts.data().dataType());
+        for(int i = 0; i < 3; i++) {
+            assertEquals(i + 2,wrappedInts.getInt(i));
+        }
+
+        //No copy: changes to the arrow vector are visible in the array
+        doubles.set(2,10.0);
+        assertEquals(10.0,wrappedDoubles.getDouble(2),0.0);
+
+        doubles.close();
+        ints.close();
+    }
+
+    @Test
+    public void testWrappedVectorOutlivesVector() {
+        BufferAllocator allocator = bufferAllocator.newChildAllocator("wrap",0,Long.MAX_VALUE);
+        Float8Vector doubles = ArrowConverter.vectorFor(allocator,"d",new double[] {1,2,3,4,5});
+        INDArray wrapped = ArrowConverter.wrapArrowVector(doubles,ColumnType.Double,1,3);
+
+        //Closing the vector must not free the memory backing the array
+        doubles.close();
+        assertTrue(allocator.getAllocatedMemory() > 0);
+        for(int i = 0; i < 3; i++) {
+            assertEquals(i + 2,wrapped.getDouble(i),0.0);
+        }
+
+        ArrowConverter.releaseArrowVector(wrapped);
+        assertEquals(0,allocator.getAllocatedMemory());
+        //Second release is a no-op
+        ArrowConverter.releaseArrowVector(wrapped);
+        allocator.close();
+    }
+
+    @Test
+    public void testToMatrixMixedTypes() {
+        Schema schema = new Schema.Builder().addColumnDouble("d").addColumnInteger("i")
+                .addColumnLong("l").addColumnFloat("f").build();
+        int rows = 6;
+        List<List<Writable>> records = new ArrayList<>();
+        INDArray exp = Nd4j.create(rows,4);
+        for(int i = 0; i < rows; i++) {
+            records.add(Arrays.<Writable>asList(new DoubleWritable(i / 2.0),new IntWritable(i),
+                    new LongWritable(10L * i),new FloatWritable(-i)));
+            exp.putRow(i,Nd4j.create(new double[] {i / 2.0,i,10 * i,-i}));
+        }
+
+        List<FieldVector> fieldVectors = ArrowConverter.toArrowColumns(bufferAllocator,schema,records);
+        INDArray arr = ArrowConverter.toArray(new ArrowWritableRecordBatch(fieldVectors,schema));
+        assertEquals(exp,arr);
+
+        INDArray subset = ArrowConverter.toMatrix(fieldVectors,schema,2,3);
+        assertEquals(exp.get(NDArrayIndex.interval(2,5),NDArrayIndex.all()),subset);
+    }
+
     @Test
     public void testCreateNDArray() throws Exception {
         val recordsToWrite = recordToWrite();
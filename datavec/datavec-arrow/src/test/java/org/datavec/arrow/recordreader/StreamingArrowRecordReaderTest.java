@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.arrow.recordreader;
+
+import lombok.val;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.ArrowWriter;
+import org.datavec.api.records.Record;
+import org.datavec.api.records.metadata.RecordMetaData;
+import org.datavec.api.split.FileSplit;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.DoubleWritable;
+import org.datavec.api.writable.IntWritable;
+import org.datavec.api.writable.NullWritable;
+import org.datavec.api.writable.Text;
+import org.datavec.api.writable.Writable;
+import org.datavec.api.writable.batch.NDArrayRecordBatch;
+import org.datavec.arrow.ArrowConverter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StreamingArrowRecordReaderTest {
+
+    private static final int ROWS_PER_BATCH = 7;
+    private static final int NUM_BATCHES = 4;
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testStreamFormat() throws Exception {
+        File f = writeNumeric(testDir.newFile("data.arrows"), false);
+        testNumeric(f);
+    }
+
+    @Test
+    public void testFileFormat() throws Exception {
+        File f = writeNumeric(testDir.newFile("data.arrow"), true);
+        testNumeric(f);
+    }
+
+    @Test
+    public void testNonNumericColumns() throws Exception {
+        Schema schema = new Schema.Builder().addColumnInteger("i").addColumnString("s").build();
+        List<List<Writable>> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            records.add(Arrays.<Writable>asList(new IntWritable(i), new Text("s" + i)));
+        }
+        File f = testDir.newFile("text.arrow");
+        try (FileOutputStream fos = new FileOutputStream(f)) {
+            ArrowConverter.writeRecordBatchTo(records, schema, fos);
+        }
+
+        StreamingArrowRecordReader rr = new StreamingArrowRecordReader();
+        rr.initialize(new FileSplit(f));
+        List<List<Writable>> batch = rr.next(6);
+        assertFalse(batch instanceof NDArrayRecordBatch);
+        assertEquals(6, batch.size());
+        for (int i = 0; i < 6; i++) {
+            assertEquals(records.get(i).toString(), batch.get(i).toString());
+        }
+        assertEquals(4, rr.next(6).size());
+        assertFalse(rr.hasNext());
+        rr.close();
+    }
+
+    @Test
+    public void testNonNumericMultipleBatches() throws Exception {
+        testNonNumericMultipleBatches(writeText(testDir.newFile("text.arrows"), false));
+        testNonNumericMultipleBatches(writeText(testDir.newFile("text.arrow"), true));
+    }
+
+    private void testNonNumericMultipleBatches(File f) throws Exception {
+        int total = ROWS_PER_BATCH * NUM_BATCHES;
+        StreamingArrowRecordReader rr = new StreamingArrowRecordReader();
+        rr.initialize(new FileSplit(f));
+
+        //Records are kept until all record batches have been read: they must not depend on the current record batch
+        List<List<Writable>> all = new ArrayList<>();
+        while (rr.hasNext()) {
+            all.add(rr.next());
+        }
+        assertEquals(total, all.size());
+        for (int i = 0; i < total; i++) {
+            assertEquals(Arrays.<Writable>asList(new IntWritable(i), new Text("s" + i)), all.get(i));
+        }
+
+        //Minibatches, spanning record batch boundaries
+        rr.reset();
+        int batchSize = 5;
+        int count = 0;
+        while (rr.hasNext()) {
+            List<List<Writable>> batch = rr.next(batchSize);
+            assertFalse(batch instanceof NDArrayRecordBatch);
+            assertEquals(Math.min(batchSize, total - count), batch.size());
+            for (List<Writable> l : batch) {
+                assertEquals(all.get(count++), l);
+            }
+        }
+        assertEquals(total, count);
+
+        //Metadata, for records in different record batches
+        rr.reset();
+        List<RecordMetaData> meta = new ArrayList<>();
+        List<Integer> toLoad = Arrays.asList(3, 15, 27);
+        for (int i = 0; rr.hasNext(); i++) {
+            Record r = rr.nextRecord();
+            if (toLoad.contains(i)) {
+                meta.add(r.getMetaData());
+            }
+        }
+        List<Record> loaded = rr.loadFromMetaData(meta);
+        assertEquals(toLoad.size(), loaded.size());
+        for (int i = 0; i < toLoad.size(); i++) {
+            assertEquals(all.get(toLoad.get(i)), loaded.get(i).getRecord());
+        }
+        rr.close();
+    }
+
+    @Test
+    public void testNumericNulls() throws Exception {
+        Schema schema = new Schema.Builder().addColumnInteger("i").addColumnDouble("d").build();
+        List<List<Writable>> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Writable w = i == 3 ? NullWritable.INSTANCE : new IntWritable(i);
+            records.add(Arrays.<Writable>asList(w, new DoubleWritable(i / 10.0)));
+        }
+        File f = testDir.newFile("nulls.arrow");
+        try (FileOutputStream fos = new FileOutputStream(f)) {
+            ArrowConverter.writeRecordBatchTo(records, schema, fos);
+        }
+
+        StreamingArrowRecordReader rr = new StreamingArrowRecordReader();
+        rr.initialize(new FileSplit(f));
+
+        //Single records: nulls are returned as NullWritable
+        for (int i = 0; i < 10; i++) {
+            List<Writable> next = rr.next();
+            if (i == 3) {
+                assertEquals(NullWritable.INSTANCE, next.get(0));
+            } else {
+                assertEquals(i, next.get(0).toInt());
+            }
+        }
+
+        //Batches: records before the null are fine, the batch containing the null fails
+        rr.reset();
+        assertEquals(3, rr.next(3).size());
+        try {
+            rr.next(3);
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("\"i\" at record 3"));
+        }
+        rr.close();
+    }
+
+    private void testNumeric(File f) throws Exception {
+        int total = ROWS_PER_BATCH * NUM_BATCHES;
+        StreamingArrowRecordReader rr = new StreamingArrowRecordReader();
+        rr.initialize(new FileSplit(f));
+        assertTrue(rr.batchesSupported());
+
+        //Single records, across all record batches
+        int count = 0;
+        while (rr.hasNext()) {
+            List<Writable> next = rr.next();
+            assertEquals(2, next.size());
+            assertEquals(count, next.get(0).toInt());
+            assertEquals(count / 10.0, next.get(1).toDouble(), 1e-12);
+            count++;
+        }
+        assertEquals(total, count);
+
+        //Minibatches, spanning record batch boundaries
+        rr.reset();
+        int batchSize = 5;
+        count = 0;
+        while (rr.hasNext()) {
+            List<List<Writable>> batch = rr.next(batchSize);
+            assertTrue(batch instanceof NDArrayRecordBatch);
+            List<INDArray> arrays = ((NDArrayRecordBatch) batch).getArrays();
+            assertEquals(2, arrays.size());
+            int n = Math.min(batchSize, total - count);
+            assertEquals(n, batch.size());
+            assertArrayEquals(new long[] {n, 1}, arrays.get(0).shape());
+            for (int i = 0; i < n; i++) {
+                assertEquals(count + i, arrays.get(0).getDouble(i), 0.0);
+                assertEquals((count + i) / 10.0, arrays.get(1).getDouble(i), 1e-12);
+            }
+            count += n;
+        }
+        assertEquals(total, count);
+
+        //Metadata
+        rr.reset();
+        List<RecordMetaData> meta = new ArrayList<>();
+        List<List<Writable>> expected = new ArrayList<>();
+        List<Integer> toLoad = Arrays.asList(0, 9, 20);
+        for (int i = 0; rr.hasNext(); i++) {
+            Record r = rr.nextRecord();
+            if (toLoad.contains(i)) {
+                meta.add(r.getMetaData());
+                expected.add(new ArrayList<>(r.getRecord()));
+            }
+        }
+        //Request out of order: results should be in the order of the metadata
+        Collections.reverse(meta);
+        Collections.reverse(expected);
+        List<Record> loaded = rr.loadFromMetaData(meta);
+        assertEquals(expected.size(), loaded.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), loaded.get(i).getRecord().toString());
+        }
+        rr.close();
+    }
+
+    private static File writeText(File f, boolean fileFormat) throws Exception {
+        Schema schema = new Schema.Builder().addColumnInteger("i").addColumnString("s").build();
+        try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+             VectorSchemaRoot root = VectorSchemaRoot.create(ArrowConverter.toArrowSchema(schema), allocator);
+             FileOutputStream fos = new FileOutputStream(f)) {
+            val provider = new DictionaryProvider.MapDictionaryProvider();
+            ArrowWriter writer = fileFormat ? new ArrowFileWriter(root, provider, fos.getChannel())
+                    : new ArrowStreamWriter(root, provider, fos.getChannel());
+            writer.start();
+            IntVector iv = (IntVector) root.getVector("i");
+            VarCharVector sv = (VarCharVector) root.getVector("s");
+            int idx = 0;
+            for (int b = 0; b < NUM_BATCHES; b++) {
+                iv.allocateNew(ROWS_PER_BATCH);
+                sv.allocateNew();
+                for (int i = 0; i < ROWS_PER_BATCH; i++, idx++) {
+                    iv.setSafe(i, idx);
+                    sv.setSafe(i, ("s" + idx).getBytes(StandardCharsets.UTF_8));
+                }
+                root.setRowCount(ROWS_PER_BATCH);
+                writer.writeBatch();
+            }
+            writer.end();
+            writer.close();
+        }
+        return f;
+    }
+
+    private static File writeNumeric(File f, boolean fileFormat) throws Exception {
+        Schema schema = new Schema.Builder().addColumnInteger("i").addColumnDouble("d").build();
+        try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+             VectorSchemaRoot root = VectorSchemaRoot.create(ArrowConverter.toArrowSchema(schema), allocator);
+             FileOutputStream fos = new FileOutputStream(f)) {
+            val provider = new DictionaryProvider.MapDictionaryProvider();
+            ArrowWriter writer = fileFormat ? new ArrowFileWriter(root, provider, fos.getChannel())
+                    : new ArrowStreamWriter(root, provider, fos.getChannel());
+            writer.start();
+            IntVector iv = (IntVector) root.getVector("i");
+            Float8Vector dv = (Float8Vector) root.getVector("d");
+            int idx = 0;
+            for (int b = 0; b < NUM_BATCHES; b++) {
+                iv.allocateNew(ROWS_PER_BATCH);
+                dv.allocateNew(ROWS_PER_BATCH);
+                for (int i = 0; i < ROWS_PER_BATCH; i++, idx++) {
+                    iv.setSafe(i, idx);
+                    dv.setSafe(i, idx / 10.0);
+                }
+                root.setRowCount(ROWS_PER_BATCH);
+                writer.writeBatch();
+            }
+            writer.end();
+            writer.close();
+        }
+        return f;
+    }
+}
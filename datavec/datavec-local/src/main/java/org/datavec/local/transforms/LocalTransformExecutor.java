@@ -23,6 +23,7 @@ import lombok.val;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.FieldVector;
+import org.datavec.api.records.reader.RecordReader;
 import org.datavec.api.transform.DataAction;
 import org.datavec.api.transform.Transform;
 import org.datavec.api.transform.TransformProcess;
@@ -37,6 +38,8 @@ import org.datavec.api.transform.sequence.ConvertToSequence;
 import org.datavec.api.transform.sequence.SequenceSplit;
 import org.datavec.api.writable.*;
 import org.datavec.arrow.ArrowConverter;
+import org.datavec.local.transforms.columnar.ColumnarBatch;
+import org.datavec.local.transforms.columnar.ColumnarExecutor;
 import org.datavec.local.transforms.functions.EmptyRecordFunction;
 import org.datavec.local.transforms.join.ExecuteJoinFromCoGroupFlatMapFunction;
 import org.datavec.local.transforms.join.ExtractKeysFunction;
@@ -44,6 +47,7 @@ import org.datavec.local.transforms.misc.ColumnAsKeyPairFunction;
 import org.datavec.local.transforms.rank.UnzipForCalculateSortedRankFunction;
 import org.datavec.local.transforms.reduce.MapToPairForReducerFunction;
 import org.datavec.local.transforms.sequence.*;
+import org.datavec.local.transforms.streaming.StreamingTransformExecutor;
 import org.datavec.local.transforms.transform.LocalTransformFunction;
 import org.datavec.local.transforms.transform.SequenceSplitFunction;
 import org.datavec.local.transforms.transform.filter.LocalFilterFunction;
@@ -93,6 +97,67 @@ public class LocalTransformExecutor {
         return execute(filteredSequence, null, transformProcess).getFirst();
     }
 
+    /**
+     * Execute the specified TransformProcess over all records of the given RecordReader, without materializing
+     * the whole dataset in memory. Records are pulled from the reader as the returned iterator is traversed;
+     * sort, reduce and sequence conversion steps spill to disk when needed.
+     * See {@link StreamingTransformExecutor} for configuration options.<br>
+     * Note: this method can only be used if the TransformProcess returns non-sequence data.
+     *
+     * @param reader           Source of the input data
+     * @param transformProcess TransformProcess to execute
+     * @return Iterator over processed data
+     */
+    public static Iterator<List<Writable>> executeStreaming(RecordReader reader, TransformProcess transformProcess) {
+        return new StreamingTransformExecutor.Builder().build().execute(reader, transformProcess);
+    }
+
+    /**
+     * Execute the specified TransformProcess with the given input data, using columnar execution mode.<br>
+     * Input is converted into primitive column arrays once, and leading transform/filter steps are executed
+     * column by column, without per-step row materialization. Execution falls back to row mode at the first
+     * step that can't be executed on columns (reduce, sort, sequence conversion etc), and for all steps if
+     * {@link #LOG_ERROR_PROPERTY} is set.<br>
+     * Note: this method can only be used if the TransformProcess returns non-sequence data.
+     *
+     * @param inputWritables   Input data to process
+     * @param transformProcess TransformProcess to execute
+     * @return Processed data
+     */
+    public static List<List<Writable>> executeColumnar(List<List<Writable>> inputWritables,
+                                                       TransformProcess transformProcess) {
+        if (transformProcess.getFinalSchema() instanceof SequenceSchema) {
+            throw new IllegalStateException("Cannot return sequence data with this method");
+        }
+
+        if (isTryCatch())
+            return execute(inputWritables, transformProcess);
+
+        List<List<Writable>> filtered = inputWritables.stream()
+                .filter(input -> input.size() == transformProcess.getInitialSchema().numColumns()).collect(toList());
+        if(filtered.size() != inputWritables.size()) {
+            log.warn("Filtered out " + (inputWritables.size() - filtered.size()) + " values");
+        }
+
+        List<DataAction> dataActions = transformProcess.getActionList();
+        Pair<ColumnarBatch, Integer> columnar = ColumnarExecutor.execute(
+                ColumnarBatch.fromRows(filtered, transformProcess.getInitialSchema()), dataActions);
+
+        List<List<Writable>> rows = columnar.getFirst().toRows();
+        if (rows.isEmpty())
+            return rows;
+
+        int executed = columnar.getSecond();
+        if (executed < dataActions.size()) {
+            // remaining steps are executed in row mode
+            return executeActions(rows, null, dataActions.subList(executed, dataActions.size()),
+                    transformProcess.getFinalSchema()).getFirst();
+        }
+
+        return ArrowConverter.toArrowWritables(ArrowConverter.toArrowColumns(bufferAllocator,
+                transformProcess.getFinalSchema(), rows), transformProcess.getFinalSchema());
+    }
+
     /**
      * Execute the specified TransformProcess with the given input data<br>
      * Note: this method can only be used if the TransformProcess
@@ -304,10 +369,6 @@ public class LocalTransformExecutor {
     private static Pair<List<List<Writable>>, List<List<List<Writable>>>> execute(
             List<List<Writable>> inputWritables, List<List<List<Writable>>> inputSequence,
             TransformProcess sequence) {
-        List<List<Writable>> currentWritables = inputWritables;
-        List<List<List<Writable>>> currentSequence = inputSequence;
-
-        List<DataAction> dataActions = sequence.getActionList();
         if (inputWritables != null) {
             List<Writable> first = inputWritables.get(0);
             if (first.size() != sequence.getInitialSchema().numColumns()) {
@@ -324,6 +385,14 @@ public class LocalTransformExecutor {
             }
         }
 
+        return executeActions(inputWritables, inputSequence, sequence.getActionList(), sequence.getFinalSchema());
+    }
+
+    private static Pair<List<List<Writable>>, List<List<List<Writable>>>> executeActions(
+            List<List<Writable>> inputWritables, List<List<List<Writable>>> inputSequence,
+            List<DataAction> dataActions, Schema finalSchema) {
+        List<List<Writable>> currentWritables = inputWritables;
+        List<List<List<Writable>>> currentSequence = inputSequence;
 
         for (DataAction d : dataActions) {
             //log.info("Starting execution of stage {} of {}", count, dataActions.size());     //
@@ -519,7 +588,7 @@ public class LocalTransformExecutor {
             if(allSameLength) {
                 List<FieldVector> arrowColumns = ArrowConverter.toArrowColumnsTimeSeries(
                         bufferAllocator,
-                        sequence.getFinalSchema(),
+                        finalSchema,
                         currentSequence);
                  int timeSeriesLength = currentSequence.get(0).size() * currentSequence.get(0).get(0).size();
               /*   if(currentSequence.get(0).get(0).size() == 1) {
@@ -527,7 +596,7 @@ public class LocalTransformExecutor {
                  }*/
                 List<List<List<Writable>>> writablesConvert = ArrowConverter.toArrowWritablesTimeSeries(
                         arrowColumns,
-                        sequence.getFinalSchema(),
+                        finalSchema,
                         timeSeriesLength);
                 currentSequence = writablesConvert;
             }
@@ -541,9 +610,9 @@ public class LocalTransformExecutor {
             return new Pair<>(ArrowConverter.
                     toArrowWritables(ArrowConverter.toArrowColumns(
                             bufferAllocator,
-                            sequence.getFinalSchema(),
+                            finalSchema,
                             currentWritables)
-                            ,sequence.getFinalSchema()),
+                            ,finalSchema),
                     null);
         }
 
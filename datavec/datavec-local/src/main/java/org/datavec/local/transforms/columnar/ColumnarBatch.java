@@ -0,0 +1,304 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.local.transforms.columnar;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.datavec.api.transform.ColumnType;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Column-oriented representation of non-sequence data.<br>
+ * Numeric and boolean columns are stored as primitive arrays (double[], float[], int[], long[], boolean[]),
+ * everything else (or numeric columns holding values that can't be converted) is stored as Writable[].
+ * Time columns are stored as long[].
+ *
+ * Column arrays are treated as immutable: operations produce new arrays, but unchanged columns are shared between batches.
+ */
+public class ColumnarBatch {
+    @Getter
+    protected final Schema schema;
+    @Getter
+    protected final int numRows;
+    protected final Object[] columns;
+
+    public ColumnarBatch(@NonNull Schema schema, int numRows, @NonNull Object[] columns) {
+        if (columns.length != schema.numColumns())
+            throw new IllegalArgumentException("Number of columns (" + columns.length
+                            + ") doesn't match number of columns in schema (" + schema.numColumns() + ")");
+
+        this.schema = schema;
+        this.numRows = numRows;
+        this.columns = columns;
+    }
+
+    /**
+     * This method converts row-based data into columnar batch
+     *
+     * @param rows   rows to convert
+     * @param schema schema of the rows
+     * @return
+     */
+    public static ColumnarBatch fromRows(@NonNull final List<List<Writable>> rows, @NonNull Schema schema) {
+        int numColumns = schema.numColumns();
+        Object[] columns = new Object[numColumns];
+        for (int c = 0; c < numColumns; c++) {
+            final int column = c;
+            columns[c] = toColumn(new IntFunction<Writable>() {
+                @Override
+                public Writable apply(int row) {
+                    return rows.get(row).get(column);
+                }
+            }, rows.size(), schema.getType(c));
+        }
+        return new ColumnarBatch(schema, rows.size(), columns);
+    }
+
+    /**
+     * This method converts column of Writables into primitive column, if that's possible for given type
+     *
+     * @param values column values
+     * @param type   column type
+     * @return primitive array, or original Writable[] if conversion isn't possible
+     */
+    public static Object fromWritables(@NonNull final Writable[] values, @NonNull ColumnType type) {
+        return toColumn(new IntFunction<Writable>() {
+            @Override
+            public Writable apply(int row) {
+                return values[row];
+            }
+        }, values.length, type);
+    }
+
+    protected static Object toColumn(IntFunction<Writable> cells, int n, ColumnType type) {
+        try {
+            switch (type) {
+                case Double: {
+                    double[] out = new double[n];
+                    for (int r = 0; r < n; r++)
+                        out[r] = cells.apply(r).toDouble();
+                    return out;
+                }
+                case Float: {
+                    float[] out = new float[n];
+                    for (int r = 0; r < n; r++)
+                        out[r] = cells.apply(r).toFloat();
+                    return out;
+                }
+                case Integer: {
+                    int[] out = new int[n];
+                    for (int r = 0; r < n; r++)
+                        out[r] = cells.apply(r).toInt();
+                    return out;
+                }
+                case Long:
+                case Time: {
+                    long[] out = new long[n];
+                    for (int r = 0; r < n; r++)
+                        out[r] = cells.apply(r).toLong();
+                    return out;
+                }
+                case Boolean: {
+                    boolean[] out = new boolean[n];
+                    for (int r = 0; r < n; r++) {
+                        Writable w = cells.apply(r);
+                        if (!(w instanceof BooleanWritable))
+                            return toGenericColumn(cells, n);
+                        out[r] = ((BooleanWritable) w).get();
+                    }
+                    return out;
+                }
+                default:
+                    return toGenericColumn(cells, n);
+            }
+        } catch (RuntimeException e) {
+            // NullWritable, unparseable Text etc: keeping column as is, so behaviour matches row-based execution
+            return toGenericColumn(cells, n);
+        }
+    }
+
+    protected static Writable[] toGenericColumn(IntFunction<Writable> cells, int n) {
+        Writable[] out = new Writable[n];
+        for (int r = 0; r < n; r++)
+            out[r] = cells.apply(r);
+        return out;
+    }
+
+    /**
+     * This method returns raw column storage: one of double[], float[], int[], long[], boolean[] or Writable[]
+     *
+     * @param column index of the column
+     * @return
+     */
+    public Object getColumn(int column) {
+        return columns[column];
+    }
+
+    public int numColumns() {
+        return columns.length;
+    }
+
+    /**
+     * This method returns true if given column is stored as primitive array
+     */
+    public boolean isPrimitive(int column) {
+        return !(columns[column] instanceof Writable[]);
+    }
+
+    /**
+     * This method returns column values as doubles, converting numeric primitive columns if necessary.
+     *
+     * @return double values, or null if column isn't numeric primitive column
+     */
+    public double[] getDoubleColumn(int column) {
+        Object c = columns[column];
+        if (c instanceof double[])
+            return (double[]) c;
+
+        double[] out;
+        if (c instanceof float[]) {
+            float[] f = (float[]) c;
+            out = new double[f.length];
+            for (int i = 0; i < f.length; i++)
+                out[i] = f[i];
+        } else if (c instanceof int[]) {
+            int[] f = (int[]) c;
+            out = new double[f.length];
+            for (int i = 0; i < f.length; i++)
+                out[i] = f[i];
+        } else if (c instanceof long[]) {
+            long[] f = (long[]) c;
+            out = new double[f.length];
+            for (int i = 0; i < f.length; i++)
+                out[i] = f[i];
+        } else
+            return null;
+
+        return out;
+    }
+
+    /**
+     * This method returns value from given cell as Writable
+     */
+    public Writable getWritable(int row, int column) {
+        Object c = columns[column];
+        if (c instanceof double[])
+            return new DoubleWritable(((double[]) c)[row]);
+        else if (c instanceof float[])
+            return new FloatWritable(((float[]) c)[row]);
+        else if (c instanceof int[])
+            return new IntWritable(((int[]) c)[row]);
+        else if (c instanceof long[])
+            return new LongWritable(((long[]) c)[row]);
+        else if (c instanceof boolean[])
+            return new BooleanWritable(((boolean[]) c)[row]);
+        else
+            return ((Writable[]) c)[row];
+    }
+
+    /**
+     * This method materializes single row
+     */
+    public List<Writable> getRow(int row) {
+        List<Writable> out = new ArrayList<>(columns.length);
+        for (int c = 0; c < columns.length; c++)
+            out.add(getWritable(row, c));
+        return out;
+    }
+
+    /**
+     * This method converts this batch back into row-based representation
+     */
+    public List<List<Writable>> toRows() {
+        List<List<Writable>> out = new ArrayList<>(numRows);
+        for (int r = 0; r < numRows; r++)
+            out.add(getRow(r));
+        return out;
+    }
+
+    /**
+     * This method returns new batch with the same schema, containing only rows marked in the mask
+     *
+     * @param keep   mask, true for rows to keep
+     * @param numKept number of true values in mask
+     * @return
+     */
+    public ColumnarBatch select(@NonNull boolean[] keep, int numKept) {
+        if (numKept == numRows)
+            return this;
+
+        Object[] out = new Object[columns.length];
+        for (int c = 0; c < columns.length; c++) {
+            Object col = columns[c];
+            if (col instanceof double[]) {
+                double[] src = (double[]) col, dst = new double[numKept];
+                for (int r = 0, p = 0; r < numRows; r++)
+                    if (keep[r])
+                        dst[p++] = src[r];
+                out[c] = dst;
+            } else if (col instanceof float[]) {
+                float[] src = (float[]) col, dst = new float[numKept];
+                for (int r = 0, p = 0; r < numRows; r++)
+                    if (keep[r])
+                        dst[p++] = src[r];
+                out[c] = dst;
+            } else if (col instanceof int[]) {
+                int[] src = (int[]) col, dst = new int[numKept];
+                for (int r = 0, p = 0; r < numRows; r++)
+                    if (keep[r])
+                        dst[p++] = src[r];
+                out[c] = dst;
+            } else if (col instanceof long[]) {
+                long[] src = (long[]) col, dst = new long[numKept];
+                for (int r = 0, p = 0; r < numRows; r++)
+                    if (keep[r])
+                        dst[p++] = src[r];
+                out[c] = dst;
+            } else if (col instanceof boolean[]) {
+                boolean[] src = (boolean[]) col, dst = new boolean[numKept];
+                for (int r = 0, p = 0; r < numRows; r++)
+                    if (keep[r])
+                        dst[p++] = src[r];
+                out[c] = dst;
+            } else {
+                Writable[] src = (Writable[]) col, dst = new Writable[numKept];
+                for (int r = 0, p = 0; r < numRows; r++)
+                    if (keep[r])
+                        dst[p++] = src[r];
+                out[c] = dst;
+            }
+        }
+        return new ColumnarBatch(schema, numKept, out);
+    }
+
+    /**
+     * This method returns new batch with given schema and columns, sharing row count with this batch
+     */
+    public ColumnarBatch withColumns(@NonNull Schema schema, @NonNull Object[] columns) {
+        return new ColumnarBatch(schema, numRows, columns);
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarBatch(numRows=" + numRows + ", columns=" + schema.getColumnNames() + ")";
+    }
+}
@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.local.transforms.columnar;
+
+import lombok.NonNull;
+import org.datavec.api.transform.DataAction;
+import org.datavec.api.transform.Transform;
+import org.datavec.api.transform.condition.BooleanCondition;
+import org.datavec.api.transform.condition.Condition;
+import org.datavec.api.transform.condition.column.*;
+import org.datavec.api.transform.filter.ConditionFilter;
+import org.datavec.api.transform.filter.Filter;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.transform.transform.BaseColumnTransform;
+import org.datavec.api.transform.transform.column.RemoveAllColumnsExceptForTransform;
+import org.datavec.api.transform.transform.column.RemoveColumnsTransform;
+import org.datavec.api.transform.transform.column.RenameColumnsTransform;
+import org.datavec.api.transform.transform.column.ReorderColumnsTransform;
+import org.datavec.api.transform.transform.doubletransform.DoubleMathOpTransform;
+import org.datavec.api.transform.transform.doubletransform.MinMaxNormalizer;
+import org.datavec.api.transform.transform.doubletransform.StandardizeNormalizer;
+import org.datavec.api.transform.transform.doubletransform.SubtractMeanNormalizer;
+import org.datavec.api.transform.transform.integer.IntegerMathOpTransform;
+import org.datavec.api.transform.transform.longtransform.LongMathOpTransform;
+import org.datavec.api.writable.Writable;
+import org.nd4j.linalg.primitives.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executes transforms and filters over {@link ColumnarBatch}es.<br>
+ * Common numeric transforms, column selection/renaming and column conditions are executed directly on primitive
+ * column arrays. Any other column transform is applied to its single column only, and everything else falls back
+ * to row-by-row execution of that step.
+ */
+public class ColumnarExecutor {
+
+    private ColumnarExecutor() {
+        //
+    }
+
+    /**
+     * This method executes transform and filter steps, starting from the first one, until it meets step that
+     * can't be executed on non-sequence columnar data (reductions, sequence conversions etc)
+     *
+     * @param batch   input data
+     * @param actions steps to execute
+     * @return Pair of resulting batch and number of executed steps
+     */
+    public static Pair<ColumnarBatch, Integer> execute(@NonNull ColumnarBatch batch, @NonNull List<DataAction> actions) {
+        int cnt = 0;
+        for (DataAction d : actions) {
+            if (d.getTransform() != null) {
+                batch = transform(batch, d.getTransform());
+            } else if (d.getFilter() != null) {
+                batch = filter(batch, d.getFilter());
+            } else
+                break;
+
+            cnt++;
+        }
+
+        return Pair.of(batch, cnt);
+    }
+
+    /**
+     * This method applies given transform to the batch
+     */
+    public static ColumnarBatch transform(@NonNull ColumnarBatch batch, @NonNull Transform t) {
+        Schema in = batch.getSchema();
+        Schema out = t.transform(in);
+        int n = batch.getNumRows();
+
+        if (t instanceof RemoveColumnsTransform || t instanceof RemoveAllColumnsExceptForTransform
+                        || t instanceof ReorderColumnsTransform) {
+            // output columns are subset of input columns, so we just pick them by name
+            Object[] columns = new Object[out.numColumns()];
+            for (int c = 0; c < columns.length; c++)
+                columns[c] = batch.getColumn(in.getIndexOfColumn(out.getName(c)));
+            return batch.withColumns(out, columns);
+        } else if (t instanceof RenameColumnsTransform) {
+            Object[] columns = new Object[out.numColumns()];
+            for (int c = 0; c < columns.length; c++)
+                columns[c] = batch.getColumn(c);
+            return batch.withColumns(out, columns);
+        } else if (t instanceof BaseColumnTransform) {
+            int idx = in.getIndexOfColumn(((BaseColumnTransform) t).getColumnName());
+            Object column = transformColumn(batch, idx, (BaseColumnTransform) t);
+            if (column == null) {
+                // no primitive implementation for this transform: mapping single column via Writables
+                Writable[] mapped = new Writable[n];
+                for (int r = 0; r < n; r++)
+                    mapped[r] = ((BaseColumnTransform) t).map(batch.getWritable(r, idx));
+                column = ColumnarBatch.fromWritables(mapped, out.getType(idx));
+            }
+
+            Object[] columns = new Object[out.numColumns()];
+            for (int c = 0; c < columns.length; c++)
+                columns[c] = c == idx ? column : batch.getColumn(c);
+            return batch.withColumns(out, columns);
+        }
+
+        // fallback: row-based execution for this step only
+        List<List<Writable>> rows = new ArrayList<>(n);
+        for (int r = 0; r < n; r++)
+            rows.add(t.map(batch.getRow(r)));
+        return ColumnarBatch.fromRows(rows, out);
+    }
+
+    /**
+     * This method executes known column transforms over primitive column
+     *
+     * @return new column, or null if transform (or column storage) isn't supported
+     */
+    protected static Object transformColumn(ColumnarBatch batch, int idx, BaseColumnTransform t) {
+        int n = batch.getNumRows();
+        Object col = batch.getColumn(idx);
+
+        if (t instanceof IntegerMathOpTransform && col instanceof int[]) {
+            IntegerMathOpTransform op = (IntegerMathOpTransform) t;
+            int[] src = (int[]) col, dst = new int[n];
+            for (int r = 0; r < n; r++)
+                dst[r] = IntegerMathOpTransform.doOp(op.getMathOp(), src[r], op.getScalar());
+            return dst;
+        } else if (t instanceof LongMathOpTransform && col instanceof long[]) {
+            LongMathOpTransform op = (LongMathOpTransform) t;
+            long[] src = (long[]) col, dst = new long[n];
+            for (int r = 0; r < n; r++)
+                dst[r] = LongMathOpTransform.doOp(op.getMathOp(), src[r], op.getScalar());
+            return dst;
+        }
+
+        double[] src = batch.getDoubleColumn(idx);
+        if (src == null)
+            return null;
+
+        double[] dst = new double[n];
+        if (t instanceof DoubleMathOpTransform) {
+            DoubleMathOpTransform op = (DoubleMathOpTransform) t;
+            for (int r = 0; r < n; r++)
+                dst[r] = DoubleMathOpTransform.doOp(op.getMathOp(), src[r], op.getScalar());
+        } else if (t instanceof MinMaxNormalizer) {
+            MinMaxNormalizer op = (MinMaxNormalizer) t;
+            double ratio = op.getRatio(), min = op.getMin(), newMin = op.getNewMin();
+            for (int r = 0; r < n; r++)
+                dst[r] = Double.isNaN(src[r]) ? 0.0 : ratio * (src[r] - min) + newMin;
+        } else if (t instanceof StandardizeNormalizer) {
+            StandardizeNormalizer op = (StandardizeNormalizer) t;
+            double mean = op.getMean(), stdev = op.getStdev();
+            for (int r = 0; r < n; r++)
+                dst[r] = (src[r] - mean) / stdev;
+        } else if (t instanceof SubtractMeanNormalizer) {
+            double mean = ((SubtractMeanNormalizer) t).getMean();
+            for (int r = 0; r < n; r++)
+                dst[r] = src[r] - mean;
+        } else
+            return null;
+
+        return dst;
+    }
+
+    /**
+     * This method applies given filter to the batch
+     */
+    public static ColumnarBatch filter(@NonNull ColumnarBatch batch, @NonNull Filter f) {
+        int n = batch.getNumRows();
+        boolean[] remove;
+        if (f instanceof ConditionFilter) {
+            remove = evaluate(batch, ((ConditionFilter) f).getCondition());
+        } else {
+            remove = new boolean[n];
+            for (int r = 0; r < n; r++)
+                remove[r] = f.removeExample(batch.getRow(r));
+        }
+
+        // turning "remove" mask into "keep" mask in place
+        int kept = 0;
+        for (int r = 0; r < n; r++) {
+            remove[r] = !remove[r];
+            if (remove[r])
+                kept++;
+        }
+
+        return batch.select(remove, kept);
+    }
+
+    /**
+     * This method evaluates condition for every row in the batch
+     *
+     * @return condition result for each row
+     */
+    public static boolean[] evaluate(@NonNull ColumnarBatch batch, @NonNull Condition condition) {
+        int n = batch.getNumRows();
+        boolean[] result = new boolean[n];
+
+        if (condition instanceof BooleanCondition) {
+            BooleanCondition bc = (BooleanCondition) condition;
+            Condition[] conditions = bc.getConditions();
+            boolean[] first = evaluate(batch, conditions[0]);
+            switch (bc.getType()) {
+                case NOT:
+                    for (int r = 0; r < n; r++)
+                        result[r] = !first[r];
+                    return result;
+                case AND:
+                case OR:
+                case XOR:
+                    System.arraycopy(first, 0, result, 0, n);
+                    for (int i = 1; i < conditions.length; i++) {
+                        boolean[] other = evaluate(batch, conditions[i]);
+                        for (int r = 0; r < n; r++) {
+                            if (bc.getType() == BooleanCondition.Type.AND)
+                                result[r] &= other[r];
+                            else if (bc.getType() == BooleanCondition.Type.OR)
+                                result[r] |= other[r];
+                            else
+                                result[r] ^= other[r];
+                        }
+                    }
+                    return result;
+                default:
+                    break;
+            }
+        } else if (condition instanceof BaseColumnCondition) {
+            int idx = batch.getSchema().getIndexOfColumn(((BaseColumnCondition) condition).columnName());
+            Object col = batch.getColumn(idx);
+
+            if (condition instanceof DoubleColumnCondition) {
+                DoubleColumnCondition c = (DoubleColumnCondition) condition;
+                double[] values = batch.getDoubleColumn(idx);
+                if (values != null) {
+                    double value = c.getValue() == null ? Double.NaN : c.getValue();
+                    for (int r = 0; r < n; r++)
+                        result[r] = c.getOp().apply(values[r], value, c.getSet());
+                    return result;
+                }
+            } else if (condition instanceof IntegerColumnCondition && col instanceof int[]) {
+                IntegerColumnCondition c = (IntegerColumnCondition) condition;
+                int[] values = (int[]) col;
+                int value = c.getValue() == null ? 0 : c.getValue();
+                for (int r = 0; r < n; r++)
+                    result[r] = c.getOp().apply(values[r], value, c.getSet());
+                return result;
+            } else if (condition instanceof LongColumnCondition && col instanceof long[]) {
+                LongColumnCondition c = (LongColumnCondition) condition;
+                long[] values = (long[]) col;
+                long value = c.getValue() == null ? 0 : c.getValue();
+                for (int r = 0; r < n; r++)
+                    result[r] = c.getOp().apply(values[r], value, c.getSet());
+                return result;
+            } else if (condition instanceof FloatColumnCondition && col instanceof float[]) {
+                FloatColumnCondition c = (FloatColumnCondition) condition;
+                float[] values = (float[]) col;
+                float value = c.getValue() == null ? Float.NaN : c.getValue();
+                for (int r = 0; r < n; r++)
+                    result[r] = c.getOp().apply(values[r], value, c.getSet());
+                return result;
+            }
+
+            // any other column condition: checking single column, without materializing rows
+            BaseColumnCondition c = (BaseColumnCondition) condition;
+            for (int r = 0; r < n; r++)
+                result[r] = c.columnCondition(batch.getWritable(r, idx));
+            return result;
+        }
+
+        // generic fallback: row by row
+        for (int r = 0; r < n; r++)
+            result[r] = condition.condition(batch.getRow(r));
+        return result;
+    }
+}
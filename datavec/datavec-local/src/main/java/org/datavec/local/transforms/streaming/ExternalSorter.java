@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.local.transforms.streaming;
+
+import lombok.NonNull;
+import org.datavec.api.writable.Writable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * External merge sort for records.<br>
+ * Input is consumed in runs of at most {@code maxRecordsInMemory} records; each run is sorted in memory and,
+ * unless the whole input fits into a single run, written to a {@link SpillFile}. Sorted runs are then merged lazily
+ * with a k-way merge, so at most one record per run is held in memory during the merge.<br>
+ * PLEASE NOTE: sort is stable, records that compare as equal are returned in input order.
+ */
+public class ExternalSorter {
+    private final int maxRecordsInMemory;
+    private final File directory;
+
+    public ExternalSorter(int maxRecordsInMemory, @NonNull File directory) {
+        if (maxRecordsInMemory < 1)
+            throw new IllegalArgumentException("maxRecordsInMemory must be positive, got " + maxRecordsInMemory);
+
+        this.maxRecordsInMemory = maxRecordsInMemory;
+        this.directory = directory;
+    }
+
+    /**
+     * Sort all records provided by the iterator
+     *
+     * @param input      records to sort
+     * @param comparator comparator defining the order
+     * @return iterator over sorted records
+     */
+    public Iterator<List<Writable>> sort(@NonNull Iterator<List<Writable>> input,
+                    @NonNull Comparator<List<Writable>> comparator) {
+        List<SpillFile> runs = new ArrayList<>();
+        List<List<Writable>> buffer = new ArrayList<>();
+        try {
+            while (input.hasNext()) {
+                buffer.add(input.next());
+                if (buffer.size() >= maxRecordsInMemory) {
+                    runs.add(spill(buffer, comparator));
+                    buffer = new ArrayList<>();
+                }
+            }
+        } catch (RuntimeException e) {
+            for (SpillFile run : runs)
+                run.delete();
+            throw e;
+        }
+
+        if (runs.isEmpty()) {
+            Collections.sort(buffer, comparator);
+            return buffer.iterator();
+        }
+
+        if (!buffer.isEmpty())
+            runs.add(spill(buffer, comparator));
+
+        List<Iterator<List<Writable>>> iterators = new ArrayList<>(runs.size());
+        for (SpillFile run : runs)
+            iterators.add(run.iterator());
+
+        return new MergingIterator(iterators, comparator);
+    }
+
+    protected SpillFile spill(List<List<Writable>> buffer, Comparator<List<Writable>> comparator) {
+        Collections.sort(buffer, comparator);
+        try {
+            SpillFile file = new SpillFile(directory);
+            for (List<Writable> record : buffer)
+                file.write(record);
+            file.close();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * K-way merge of sorted iterators
+     */
+    protected static class MergingIterator implements Iterator<List<Writable>> {
+        private final List<Iterator<List<Writable>>> iterators;
+        private final PriorityQueue<Head> queue;
+
+        protected MergingIterator(List<Iterator<List<Writable>>> iterators, final Comparator<List<Writable>> comparator) {
+            this.iterators = iterators;
+            this.queue = new PriorityQueue<>(Math.max(1, iterators.size()), new Comparator<Head>() {
+                @Override
+                public int compare(Head o1, Head o2) {
+                    int result = comparator.compare(o1.record, o2.record);
+                    // ties are resolved by run index, to keep sort stable
+                    return result != 0 ? result : Integer.compare(o1.source, o2.source);
+                }
+            });
+
+            for (int i = 0; i < iterators.size(); i++)
+                advance(i);
+        }
+
+        private void advance(int source) {
+            Iterator<List<Writable>> iterator = iterators.get(source);
+            if (iterator.hasNext())
+                queue.add(new Head(iterator.next(), source));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public List<Writable> next() {
+            Head head = queue.poll();
+            if (head == null)
+                throw new NoSuchElementException();
+
+            advance(head.source);
+            return head.record;
+        }
+    }
+
+    private static class Head {
+        private final List<Writable> record;
+        private final int source;
+
+        private Head(List<Writable> record, int source) {
+            this.record = record;
+            this.source = source;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.local.transforms.streaming;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.datavec.api.writable.Writable;
+import org.nd4j.linalg.function.Function;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hash partitioning of records by key, with spilling to disk.<br>
+ * Records are buffered in memory until {@code maxRecordsInMemory} is exceeded. After that all records (buffered and
+ * subsequent ones) are written to one of {@code numPartitions} {@link SpillFile}s, chosen by key hash, so all records
+ * that share a key always end up in the same partition. Each partition can then be processed independently, with
+ * memory requirements of roughly {@code 1 / numPartitions} of the whole input.
+ */
+public class RecordPartitions {
+    private final Function<List<Writable>, ?> keyFunction;
+    private final int numPartitions;
+    private final int maxRecordsInMemory;
+    private final File directory;
+
+    private List<List<Writable>> buffer = new ArrayList<>();
+    private SpillFile[] files;
+
+    @Getter
+    private long numRecords;
+
+    public RecordPartitions(@NonNull Function<List<Writable>, ?> keyFunction, int numPartitions,
+                    int maxRecordsInMemory, @NonNull File directory) {
+        if (numPartitions < 1)
+            throw new IllegalArgumentException("numPartitions must be positive, got " + numPartitions);
+
+        this.keyFunction = keyFunction;
+        this.numPartitions = numPartitions;
+        this.maxRecordsInMemory = maxRecordsInMemory;
+        this.directory = directory;
+    }
+
+    /**
+     * Add record to partitions
+     */
+    public void add(@NonNull List<Writable> record) {
+        numRecords++;
+        if (files != null) {
+            files[partitionOf(record)].write(record);
+            return;
+        }
+
+        buffer.add(record);
+        if (buffer.size() > maxRecordsInMemory)
+            spill();
+    }
+
+    /**
+     * Move everything to disk. All records added after this call go to disk as well
+     */
+    public void spill() {
+        if (files != null)
+            return;
+
+        files = new SpillFile[numPartitions];
+        try {
+            for (int i = 0; i < numPartitions; i++)
+                files[i] = new SpillFile(directory);
+        } catch (IOException e) {
+            delete();
+            throw new UncheckedIOException(e);
+        }
+
+        for (List<Writable> record : buffer)
+            files[partitionOf(record)].write(record);
+
+        buffer = null;
+    }
+
+    /**
+     * @return true if records were moved to disk
+     */
+    public boolean isSpilled() {
+        return files != null;
+    }
+
+    /**
+     * @return number of partitions available for reading: 1 if everything fits in memory, numPartitions otherwise
+     */
+    public int numPartitions() {
+        return files == null ? 1 : numPartitions;
+    }
+
+    /**
+     * Returns records for the given partition. Each partition can be read only once
+     */
+    public Iterator<List<Writable>> partition(int index) {
+        if (files == null) {
+            if (index != 0)
+                throw new IllegalArgumentException("Partition index " + index + " out of range: records are in memory");
+
+            List<List<Writable>> records = buffer;
+            buffer = new ArrayList<>();
+            return records.iterator();
+        }
+
+        return files[index].iterator();
+    }
+
+    /**
+     * Release all resources, including files that were not read yet
+     */
+    public void delete() {
+        buffer = new ArrayList<>();
+        if (files != null) {
+            for (SpillFile file : files)
+                if (file != null)
+                    file.delete();
+        }
+    }
+
+    protected int partitionOf(List<Writable> record) {
+        Object key = keyFunction.apply(record);
+        int hash = key == null ? 0 : key.hashCode();
+        // spread bits, keys like small integers tend to have poor low bits
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash * 0x9E3779B9, numPartitions);
+    }
+}
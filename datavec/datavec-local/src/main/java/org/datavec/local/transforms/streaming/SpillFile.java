@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.local.transforms.streaming;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.datavec.api.writable.Writable;
+import org.datavec.api.writable.WritableFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Temporary on-disk storage for records, used by {@link StreamingTransformExecutor} for the steps that can't be
+ * executed in a single pass (sort, reduce, join, conversion to sequence).<br>
+ * Records are written sequentially, each one as its number of values followed by the typed values
+ * (see {@link WritableFactory#writeWithType(Writable, DataOutput)}), and are read back exactly once, in write order.
+ * The file is deleted as soon as it has been fully read.
+ */
+public class SpillFile implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    @Getter
+    private final File file;
+    @Getter
+    private long numRecords;
+
+    private DataOutputStream output;
+
+    public SpillFile(@NonNull File directory) throws IOException {
+        this.file = File.createTempFile("datavec_spill_", ".bin", directory);
+        this.file.deleteOnExit();
+        this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    }
+
+    /**
+     * Append a single record to this file
+     */
+    public void write(@NonNull List<Writable> record) {
+        if (output == null)
+            throw new IllegalStateException("SpillFile was already closed for writing");
+
+        try {
+            writeRecord(output, record);
+            numRecords++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Finish writing. Must be called before {@link #iterator()}
+     */
+    @Override
+    public void close() {
+        if (output == null)
+            return;
+
+        try {
+            output.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            output = null;
+        }
+    }
+
+    /**
+     * Returns iterator over records stored in this file. File is removed once iterator is exhausted.
+     */
+    public Iterator<List<Writable>> iterator() {
+        close();
+
+        final DataInputStream input;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new Iterator<List<Writable>>() {
+            private long position = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (position < numRecords)
+                    return true;
+
+                release();
+                return false;
+            }
+
+            @Override
+            public List<Writable> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                try {
+                    position++;
+                    return readRecord(input);
+                } catch (IOException e) {
+                    release();
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            private void release() {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    // nothing to do here, file is removed anyway
+                }
+                delete();
+            }
+        };
+    }
+
+    /**
+     * Remove underlying file
+     */
+    public void delete() {
+        close();
+        file.delete();
+    }
+
+    protected static void writeRecord(DataOutput output, List<Writable> record) throws IOException {
+        WritableFactory factory = WritableFactory.getInstance();
+        output.writeInt(record.size());
+        for (Writable w : record)
+            factory.writeWithType(w, output);
+    }
+
+    protected static List<Writable> readRecord(DataInput input) throws IOException {
+        WritableFactory factory = WritableFactory.getInstance();
+        int size = input.readInt();
+        List<Writable> record = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            record.add(factory.readWithType(input));
+
+        return record;
+    }
+}
@@ -0,0 +1,586 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.local.transforms.streaming;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.records.reader.SequenceRecordReader;
+import org.datavec.api.transform.DataAction;
+import org.datavec.api.transform.TransformProcess;
+import org.datavec.api.transform.join.Join;
+import org.datavec.api.transform.ops.IAggregableReduceOp;
+import org.datavec.api.transform.rank.CalculateSortedRank;
+import org.datavec.api.transform.reduce.IAssociativeReducer;
+import org.datavec.api.transform.schema.SequenceSchema;
+import org.datavec.api.transform.sequence.ConvertToSequence;
+import org.datavec.api.writable.LongWritable;
+import org.datavec.api.writable.Writable;
+import org.datavec.local.transforms.LocalTransformExecutor;
+import org.datavec.local.transforms.join.ExecuteJoinFromCoGroupFlatMapFunction;
+import org.datavec.local.transforms.join.ExtractKeysFunction;
+import org.datavec.local.transforms.reduce.MapToPairForReducerFunction;
+import org.datavec.local.transforms.sequence.*;
+import org.datavec.local.transforms.transform.LocalTransformFunction;
+import org.datavec.local.transforms.transform.SequenceSplitFunction;
+import org.datavec.local.transforms.transform.filter.LocalFilterFunction;
+import org.nd4j.linalg.function.Function;
+import org.nd4j.linalg.primitives.Pair;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming counterpart of {@link LocalTransformExecutor}.<br>
+ * Instead of fully materialized lists, input is pulled from a {@link RecordReader} (or any iterator) and the result is
+ * returned as an iterator, so a {@link TransformProcess} can be executed over datasets that don't fit into memory.<br>
+ * <br>
+ * Transforms, filters, sequence splits and conversions from sequence are applied lazily, one record at a time.
+ * Steps that need to see the whole dataset are executed as follows:
+ * <ul>
+ *     <li>CalculateSortedRank: external merge sort, see {@link ExternalSorter}</li>
+ *     <li>Reduce: one incremental aggregator per key kept in memory; once the number of keys exceeds
+ *     maxRecordsInMemory, records for new keys are hash partitioned to disk and reduced partition by partition</li>
+ *     <li>ConvertToSequence: records are hash partitioned by key to disk if there are more than maxRecordsInMemory
+ *     of them, and each partition is grouped independently, see {@link RecordPartitions}</li>
+ *     <li>Join: grace hash join, both sides partitioned by join key</li>
+ * </ul>
+ * Nothing is spilled to disk if the data fits into the configured limits.<br>
+ * PLEASE NOTE: unlike {@link LocalTransformExecutor}, output isn't converted via Arrow to the final schema types.
+ * PLEASE NOTE: returned iterators are single-use, and the input is consumed as the result iterator is traversed.
+ */
+@Slf4j
+public class StreamingTransformExecutor {
+    public static final int DEFAULT_MAX_RECORDS_IN_MEMORY = 500000;
+    public static final int DEFAULT_NUM_PARTITIONS = 32;
+
+    @Getter
+    protected int maxRecordsInMemory = DEFAULT_MAX_RECORDS_IN_MEMORY;
+    @Getter
+    protected int numPartitions = DEFAULT_NUM_PARTITIONS;
+    @Getter
+    protected File tempDirectory = new File(System.getProperty("java.io.tmpdir"));
+
+    protected StreamingTransformExecutor() {
+        //
+    }
+
+    /**
+     * Execute the specified TransformProcess over all records of the given RecordReader.
+     * TransformProcess must start and end with non-sequential data
+     *
+     * @param reader           source of the input data
+     * @param transformProcess TransformProcess to execute
+     * @return iterator over processed records
+     */
+    public Iterator<List<Writable>> execute(@NonNull RecordReader reader, @NonNull TransformProcess transformProcess) {
+        return execute(records(reader), transformProcess);
+    }
+
+    /**
+     * Execute the specified TransformProcess over the given records.
+     * TransformProcess must start and end with non-sequential data
+     *
+     * @param input            input records
+     * @param transformProcess TransformProcess to execute
+     * @return iterator over processed records
+     */
+    public Iterator<List<Writable>> execute(@NonNull Iterator<List<Writable>> input,
+                    @NonNull TransformProcess transformProcess) {
+        if (transformProcess.getFinalSchema() instanceof SequenceSchema)
+            throw new IllegalStateException("Cannot return sequence data with this method");
+
+        return executeActions(validated(stream(input), transformProcess), null, transformProcess).getFirst()
+                        .iterator();
+    }
+
+    /**
+     * Execute the specified TransformProcess over all records of the given RecordReader.
+     * TransformProcess must start with non-sequential data and end with sequence data
+     *
+     * @param reader           source of the input data
+     * @param transformProcess TransformProcess to execute
+     * @return iterator over processed sequences
+     */
+    public Iterator<List<List<Writable>>> executeToSequence(@NonNull RecordReader reader,
+                    @NonNull TransformProcess transformProcess) {
+        return executeToSequence(records(reader), transformProcess);
+    }
+
+    /**
+     * Execute the specified TransformProcess over the given records.
+     * TransformProcess must start with non-sequential data and end with sequence data
+     *
+     * @param input            input records
+     * @param transformProcess TransformProcess to execute
+     * @return iterator over processed sequences
+     */
+    public Iterator<List<List<Writable>>> executeToSequence(@NonNull Iterator<List<Writable>> input,
+                    @NonNull TransformProcess transformProcess) {
+        if (!(transformProcess.getFinalSchema() instanceof SequenceSchema))
+            throw new IllegalStateException("Cannot return non-sequence data with this method");
+
+        return executeActions(validated(stream(input), transformProcess), null, transformProcess).getSecond()
+                        .iterator();
+    }
+
+    /**
+     * Execute the specified TransformProcess over all sequences of the given SequenceRecordReader.
+     * TransformProcess must start with sequence data and end with non-sequential data
+     *
+     * @param reader           source of the input sequences
+     * @param transformProcess TransformProcess to execute
+     * @return iterator over processed records
+     */
+    public Iterator<List<Writable>> executeSequenceToSeparate(@NonNull SequenceRecordReader reader,
+                    @NonNull TransformProcess transformProcess) {
+        return executeSequenceToSeparate(sequences(reader), transformProcess);
+    }
+
+    /**
+     * Execute the specified TransformProcess over the given sequences.
+     * TransformProcess must start with sequence data and end with non-sequential data
+     *
+     * @param input            input sequences
+     * @param transformProcess TransformProcess to execute
+     * @return iterator over processed records
+     */
+    public Iterator<List<Writable>> executeSequenceToSeparate(@NonNull Iterator<List<List<Writable>>> input,
+                    @NonNull TransformProcess transformProcess) {
+        if (transformProcess.getFinalSchema() instanceof SequenceSchema)
+            throw new IllegalStateException("Cannot return sequence data with this method");
+
+        return executeActions(null, validatedSequences(stream(input), transformProcess), transformProcess)
+                        .getFirst().iterator();
+    }
+
+    /**
+     * Execute the specified TransformProcess over all sequences of the given SequenceRecordReader.
+     * TransformProcess must start and end with sequence data
+     *
+     * @param reader           source of the input sequences
+     * @param transformProcess TransformProcess to execute
+     * @return iterator over processed sequences
+     */
+    public Iterator<List<List<Writable>>> executeSequenceToSequence(@NonNull SequenceRecordReader reader,
+                    @NonNull TransformProcess transformProcess) {
+        return executeSequenceToSequence(sequences(reader), transformProcess);
+    }
+
+    /**
+     * Execute the specified TransformProcess over the given sequences.
+     * TransformProcess must start and end with sequence data
+     *
+     * @param input            input sequences
+     * @param transformProcess TransformProcess to execute
+     * @return iterator over processed sequences
+     */
+    public Iterator<List<List<Writable>>> executeSequenceToSequence(@NonNull Iterator<List<List<Writable>>> input,
+                    @NonNull TransformProcess transformProcess) {
+        if (!(transformProcess.getFinalSchema() instanceof SequenceSchema))
+            throw new IllegalStateException("Cannot return non-sequence data with this method");
+
+        return executeActions(null, validatedSequences(stream(input), transformProcess), transformProcess)
+                        .getSecond().iterator();
+    }
+
+    /**
+     * Execute a join on the specified data. Both inputs are partitioned by join key, spilling to disk if they don't
+     * fit into memory, and then joined partition by partition.
+     *
+     * @param join  Join to execute
+     * @param left  Left data for join
+     * @param right Right data for join
+     * @return iterator over joined records
+     */
+    public Iterator<List<Writable>> executeJoin(@NonNull Join join, @NonNull Iterator<List<Writable>> left,
+                    @NonNull Iterator<List<Writable>> right) {
+        final ExtractKeysFunction leftKeys =
+                        new ExtractKeysFunction(join.getLeftSchema().getIndexOfColumns(join.getJoinColumnsLeft()));
+        final ExtractKeysFunction rightKeys =
+                        new ExtractKeysFunction(join.getRightSchema().getIndexOfColumns(join.getJoinColumnsRight()));
+        final ExecuteJoinFromCoGroupFlatMapFunction joinFunction = new ExecuteJoinFromCoGroupFlatMapFunction(join);
+
+        return lazy(() -> {
+            // both sides must use the same partitioning, so each side gets half of the memory budget
+            int limit = Math.max(1, maxRecordsInMemory / 2);
+            RecordPartitions leftPartitions = new RecordPartitions(key(leftKeys), numPartitions, limit, tempDirectory);
+            RecordPartitions rightPartitions = new RecordPartitions(key(rightKeys), numPartitions, limit, tempDirectory);
+
+            try {
+                while (left.hasNext())
+                    leftPartitions.add(left.next());
+                while (right.hasNext())
+                    rightPartitions.add(right.next());
+            } catch (RuntimeException e) {
+                leftPartitions.delete();
+                rightPartitions.delete();
+                throw e;
+            }
+
+            if (leftPartitions.isSpilled() || rightPartitions.isSpilled()) {
+                log.debug("Join inputs exceed memory limit, spilling {} + {} records to disk",
+                                leftPartitions.getNumRecords(), rightPartitions.getNumRecords());
+                leftPartitions.spill();
+                rightPartitions.spill();
+            }
+
+            return IntStream.range(0, leftPartitions.numPartitions()).boxed().flatMap(p -> {
+                Map<List<Writable>, Pair<List<List<Writable>>, List<List<Writable>>>> cogrouped = new LinkedHashMap<>();
+                Iterator<List<Writable>> l = leftPartitions.partition(p);
+                while (l.hasNext()) {
+                    List<Writable> record = l.next();
+                    cogroup(cogrouped, leftKeys.apply(record).getFirst()).getFirst().add(record);
+                }
+
+                Iterator<List<Writable>> r = rightPartitions.partition(p);
+                while (r.hasNext()) {
+                    List<Writable> record = r.next();
+                    cogroup(cogrouped, rightKeys.apply(record).getFirst()).getSecond().add(record);
+                }
+
+                return cogrouped.entrySet().stream()
+                                .flatMap(e -> joinFunction.call(Pair.of(e.getKey(), e.getValue())).stream());
+            });
+        }).iterator();
+    }
+
+    /**
+     * Returns iterator over all records of the given RecordReader
+     */
+    public static Iterator<List<Writable>> records(@NonNull final RecordReader reader) {
+        return new Iterator<List<Writable>>() {
+            @Override
+            public boolean hasNext() {
+                return reader.hasNext();
+            }
+
+            @Override
+            public List<Writable> next() {
+                if (!reader.hasNext())
+                    throw new NoSuchElementException();
+
+                return reader.next();
+            }
+        };
+    }
+
+    /**
+     * Returns iterator over all sequences of the given SequenceRecordReader
+     */
+    public static Iterator<List<List<Writable>>> sequences(@NonNull final SequenceRecordReader reader) {
+        return new Iterator<List<List<Writable>>>() {
+            @Override
+            public boolean hasNext() {
+                return reader.hasNext();
+            }
+
+            @Override
+            public List<List<Writable>> next() {
+                if (!reader.hasNext())
+                    throw new NoSuchElementException();
+
+                return reader.sequenceRecord();
+            }
+        };
+    }
+
+    protected Pair<Stream<List<Writable>>, Stream<List<List<Writable>>>> executeActions(
+                    Stream<List<Writable>> inputWritables, Stream<List<List<Writable>>> inputSequence,
+                    TransformProcess transformProcess) {
+        Stream<List<Writable>> currentWritables = inputWritables;
+        Stream<List<List<Writable>>> currentSequence = inputSequence;
+        boolean tryCatch = LocalTransformExecutor.isTryCatch();
+
+        for (DataAction d : transformProcess.getActionList()) {
+            if (d.getTransform() != null) {
+                if (currentWritables != null) {
+                    final LocalTransformFunction function = new LocalTransformFunction(d.getTransform());
+                    currentWritables = currentWritables.map(function::apply);
+                    if (tryCatch)
+                        currentWritables = currentWritables.filter(r -> !r.isEmpty());
+                } else {
+                    final LocalSequenceTransformFunction function = new LocalSequenceTransformFunction(d.getTransform());
+                    currentSequence = currentSequence.map(function::apply);
+                    if (tryCatch)
+                        currentSequence = currentSequence.filter(s -> !s.isEmpty());
+                }
+            } else if (d.getFilter() != null) {
+                if (currentWritables != null) {
+                    final LocalFilterFunction function = new LocalFilterFunction(d.getFilter());
+                    currentWritables = currentWritables.filter(function::apply);
+                } else {
+                    final LocalSequenceFilterFunction function = new LocalSequenceFilterFunction(d.getFilter());
+                    currentSequence = currentSequence.filter(function::apply);
+                }
+            } else if (d.getConvertToSequence() != null) {
+                if (currentWritables == null)
+                    throw new IllegalStateException("Cannot execute ConvertToSequence operation: current writables are null");
+
+                final ConvertToSequence cts = d.getConvertToSequence();
+                final Stream<List<Writable>> source = currentWritables;
+                if (cts.isSingleStepSequencesMode()) {
+                    final ConvertToSequenceLengthOne function = new ConvertToSequenceLengthOne();
+                    currentSequence = source.map(function::apply);
+                } else {
+                    currentSequence = lazy(() -> groupToSequences(source.iterator(), cts));
+                }
+                currentWritables = null;
+            } else if (d.getConvertFromSequence() != null) {
+                if (currentSequence == null)
+                    throw new IllegalStateException("Cannot execute ConvertFromSequence operation: current sequence is null");
+
+                currentWritables = currentSequence.flatMap(List::stream);
+                currentSequence = null;
+            } else if (d.getSequenceSplit() != null) {
+                if (currentSequence == null)
+                    throw new IllegalStateException("Error during execution of SequenceSplit: currentSequence is null");
+
+                final SequenceSplitFunction function = new SequenceSplitFunction(d.getSequenceSplit());
+                currentSequence = currentSequence.flatMap(s -> function.call(s).stream());
+            } else if (d.getReducer() != null) {
+                if (currentWritables == null)
+                    throw new IllegalStateException("Error during execution of reduction: current writables are null. "
+                                    + "Trying to execute a reduce operation on a sequence?");
+
+                final IAssociativeReducer reducer = d.getReducer();
+                final Stream<List<Writable>> source = currentWritables;
+                currentWritables = lazy(() -> reduce(source.iterator(), reducer));
+            } else if (d.getCalculateSortedRank() != null) {
+                if (currentWritables == null)
+                    throw new IllegalStateException("Error during execution of CalculateSortedRank: current writables are null. "
+                                    + "Trying to execute a CalculateSortedRank operation on a sequence? (not currently supported)");
+
+                final CalculateSortedRank csr = d.getCalculateSortedRank();
+                final Stream<List<Writable>> source = currentWritables;
+                currentWritables = lazy(() -> sortedRank(source.iterator(), csr));
+            } else {
+                throw new RuntimeException("Unknown/not implemented action: " + d);
+            }
+        }
+
+        return Pair.of(currentWritables, currentSequence);
+    }
+
+    protected Stream<List<List<Writable>>> groupToSequences(Iterator<List<Writable>> input, ConvertToSequence cts) {
+        final LocalMapToPairByMultipleColumnsFunction keys = new LocalMapToPairByMultipleColumnsFunction(
+                        cts.getInputSchema().getIndexOfColumns(cts.getKeyColumns()));
+        final LocalGroupToSequenceFunction toSequence = new LocalGroupToSequenceFunction(cts.getComparator());
+        final RecordPartitions partitions = partition(input, key(keys));
+
+        return IntStream.range(0, partitions.numPartitions()).boxed().flatMap(p -> {
+            Map<List<Writable>, List<List<Writable>>> groups = new LinkedHashMap<>();
+            Iterator<List<Writable>> iterator = partitions.partition(p);
+            while (iterator.hasNext()) {
+                List<Writable> record = iterator.next();
+                groups.computeIfAbsent(keys.apply(record).getFirst(), k -> new ArrayList<>()).add(record);
+            }
+
+            return groups.values().stream().map(toSequence::apply);
+        });
+    }
+
+    protected Stream<List<Writable>> reduce(Iterator<List<Writable>> input, IAssociativeReducer reducer) {
+        final MapToPairForReducerFunction keys = new MapToPairForReducerFunction(reducer);
+        Map<String, IAggregableReduceOp<List<Writable>, List<Writable>>> aggregators = new LinkedHashMap<>();
+        RecordPartitions overflow = null;
+
+        try {
+            while (input.hasNext()) {
+                List<Writable> record = input.next();
+                String key = keys.apply(record).getFirst();
+                IAggregableReduceOp<List<Writable>, List<Writable>> op = aggregators.get(key);
+                if (op == null && aggregators.size() < maxRecordsInMemory) {
+                    op = reducer.aggregableReducer();
+                    aggregators.put(key, op);
+                }
+
+                if (op != null) {
+                    op.accept(record);
+                } else {
+                    // too many distinct keys: records for keys we haven't seen yet go to disk
+                    if (overflow == null) {
+                        log.debug("Number of reduction keys exceeds {}, spilling to disk", maxRecordsInMemory);
+                        overflow = new RecordPartitions(key(keys), numPartitions, 0, tempDirectory);
+                        overflow.spill();
+                    }
+                    overflow.add(record);
+                }
+            }
+        } catch (RuntimeException e) {
+            if (overflow != null)
+                overflow.delete();
+            throw e;
+        }
+
+        Stream<List<Writable>> result = aggregators.values().stream().map(IAggregableReduceOp::get);
+        if (overflow == null)
+            return result;
+
+        final RecordPartitions partitions = overflow;
+        return Stream.concat(result, IntStream.range(0, partitions.numPartitions()).boxed().flatMap(p -> {
+            Map<String, IAggregableReduceOp<List<Writable>, List<Writable>>> partial = new LinkedHashMap<>();
+            Iterator<List<Writable>> iterator = partitions.partition(p);
+            while (iterator.hasNext()) {
+                List<Writable> record = iterator.next();
+                partial.computeIfAbsent(keys.apply(record).getFirst(), k -> reducer.aggregableReducer()).accept(record);
+            }
+
+            return partial.values().stream().map(IAggregableReduceOp::get);
+        }));
+    }
+
+    protected Stream<List<Writable>> sortedRank(Iterator<List<Writable>> input, CalculateSortedRank csr) {
+        final Comparator<Writable> comparator = csr.getComparator();
+        final int column = csr.getInputSchema().getIndexOfColumn(csr.getSortOnColumn());
+        final boolean ascending = csr.isAscending();
+
+        Iterator<List<Writable>> sorted = new ExternalSorter(maxRecordsInMemory, tempDirectory).sort(input,
+                        new Comparator<List<Writable>>() {
+                            @Override
+                            public int compare(List<Writable> o1, List<Writable> o2) {
+                                int result = comparator.compare(o1.get(column), o2.get(column));
+                                return ascending ? result : -result;
+                            }
+                        });
+
+        final AtomicLong rank = new AtomicLong(0);
+        return stream(sorted).map(record -> {
+            List<Writable> ret = new ArrayList<>(record.size() + 1);
+            ret.addAll(record);
+            ret.add(new LongWritable(rank.getAndIncrement()));
+            return ret;
+        });
+    }
+
+    protected RecordPartitions partition(Iterator<List<Writable>> input, Function<List<Writable>, ?> key) {
+        RecordPartitions partitions = new RecordPartitions(key, numPartitions, maxRecordsInMemory, tempDirectory);
+        try {
+            while (input.hasNext())
+                partitions.add(input.next());
+        } catch (RuntimeException e) {
+            partitions.delete();
+            throw e;
+        }
+
+        if (partitions.isSpilled())
+            log.debug("Spilled {} records to disk in {} partitions", partitions.getNumRecords(), numPartitions);
+
+        return partitions;
+    }
+
+    protected static Stream<List<Writable>> validated(Stream<List<Writable>> input, final TransformProcess tp) {
+        final int numColumns = tp.getInitialSchema().numColumns();
+        return input.peek(record -> {
+            if (record.size() != numColumns)
+                throw new IllegalStateException("Input data number of columns (" + record.size()
+                                + ") does not match the number of columns for the transform process (" + numColumns + ")");
+        });
+    }
+
+    protected static Stream<List<List<Writable>>> validatedSequences(Stream<List<List<Writable>>> input,
+                    final TransformProcess tp) {
+        final int numColumns = tp.getInitialSchema().numColumns();
+        return input.peek(sequence -> {
+            if (!sequence.isEmpty() && sequence.get(0).size() != numColumns)
+                throw new IllegalStateException("Input sequence data number of columns (" + sequence.get(0).size()
+                                + ") does not match the number of columns for the transform process (" + numColumns + ")");
+        });
+    }
+
+    protected static <K> Function<List<Writable>, Object> key(final Function<List<Writable>, Pair<K, List<Writable>>> function) {
+        return new Function<List<Writable>, Object>() {
+            @Override
+            public Object apply(List<Writable> record) {
+                return function.apply(record).getFirst();
+            }
+        };
+    }
+
+    protected static <T> Pair<List<T>, List<T>> cogroup(Map<List<Writable>, Pair<List<T>, List<T>>> map, List<Writable> key) {
+        return map.computeIfAbsent(key, k -> Pair.of(new ArrayList<T>(), new ArrayList<T>()));
+    }
+
+    protected static <T> Stream<T> stream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Returns stream that calls the supplier only once traversal starts, so the whole pipeline stays lazy even for
+     * steps that have to consume their entire input first
+     */
+    protected static <T> Stream<T> lazy(final Supplier<Stream<T>> supplier) {
+        return StreamSupport.stream(() -> supplier.get().spliterator(), Spliterator.ORDERED, false);
+    }
+
+    public static class Builder {
+        protected int maxRecordsInMemory = DEFAULT_MAX_RECORDS_IN_MEMORY;
+        protected int numPartitions = DEFAULT_NUM_PARTITIONS;
+        protected File tempDirectory = new File(System.getProperty("java.io.tmpdir"));
+
+        /**
+         * Maximum number of records (or distinct keys, for reductions) kept in memory by sort, reduce, join and
+         * sequence conversion steps, before spilling to disk.
+         * Default value: 500000
+         */
+        public Builder maxRecordsInMemory(int maxRecordsInMemory) {
+            if (maxRecordsInMemory < 1)
+                throw new IllegalArgumentException("maxRecordsInMemory must be positive");
+
+            this.maxRecordsInMemory = maxRecordsInMemory;
+            return this;
+        }
+
+        /**
+         * Number of hash partitions used when grouping or joining data doesn't fit into memory.
+         * Each partition has to fit into memory on its own.
+         * Default value: 32
+         */
+        public Builder numPartitions(int numPartitions) {
+            if (numPartitions < 1)
+                throw new IllegalArgumentException("numPartitions must be positive");
+
+            this.numPartitions = numPartitions;
+            return this;
+        }
+
+        /**
+         * Directory for spill files. Default value: java.io.tmpdir
+         */
+        public Builder tempDirectory(@NonNull File tempDirectory) {
+            if (!tempDirectory.isDirectory())
+                throw new IllegalArgumentException("Not a directory: " + tempDirectory.getAbsolutePath());
+
+            this.tempDirectory = tempDirectory;
+            return this;
+        }
+
+        public StreamingTransformExecutor build() {
+            StreamingTransformExecutor executor = new StreamingTransformExecutor();
+            executor.maxRecordsInMemory = this.maxRecordsInMemory;
+            executor.numPartitions = this.numPartitions;
+            executor.tempDirectory = this.tempDirectory;
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.local.transforms.transform;
+
+import org.datavec.api.transform.MathOp;
+import org.datavec.api.transform.ReduceOp;
+import org.datavec.api.transform.TransformProcess;
+import org.datavec.api.transform.condition.ConditionOp;
+import org.datavec.api.transform.condition.column.DoubleColumnCondition;
+import org.datavec.api.transform.condition.column.IntegerColumnCondition;
+import org.datavec.api.transform.reduce.Reducer;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.*;
+import org.datavec.local.transforms.LocalTransformExecutor;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that columnar execution produces the same output as row-based execution
+ */
+public class ColumnarExecutionTest {
+
+    private static Schema schema() {
+        return new Schema.Builder().addColumnInteger("id").addColumnDouble("x").addColumnLong("count")
+                        .addColumnString("name").build();
+    }
+
+    private static List<List<Writable>> data(int numRows) {
+        List<List<Writable>> rows = new ArrayList<>();
+        for (int i = 0; i < numRows; i++) {
+            rows.add(Arrays.<Writable>asList(new IntWritable(i % 7), new DoubleWritable(i * 0.5),
+                            new LongWritable(i * 3L), new Text("name_" + (i % 3))));
+        }
+        return rows;
+    }
+
+    @Test
+    public void testColumnarMathOpsAndFilter() {
+        TransformProcess tp = new TransformProcess.Builder(schema())
+                        .doubleMathOp("x", MathOp.Multiply, 2.0)
+                        .integerMathOp("id", MathOp.Add, 1)
+                        .longMathOp("count", MathOp.Subtract, 5L)
+                        .filter(new DoubleColumnCondition("x", ConditionOp.GreaterThan, 20.0))
+                        .removeColumns("name")
+                        .renameColumn("count", "total")
+                        .build();
+
+        List<List<Writable>> input = data(100);
+        List<List<Writable>> expected = LocalTransformExecutor.execute(input, tp);
+        List<List<Writable>> columnar = LocalTransformExecutor.executeColumnar(input, tp);
+
+        assertEquals(21, expected.size());
+        assertEquals(expected, columnar);
+    }
+
+    @Test
+    public void testColumnarRowFallback() {
+        TransformProcess tp = new TransformProcess.Builder(schema())
+                        .filter(new IntegerColumnCondition("id", ConditionOp.Equal, 3))
+                        .doubleMathOp("x", MathOp.Add, 1.0)
+                        .removeColumns("name")
+                        .reduce(new Reducer.Builder(ReduceOp.Sum).keyColumns("id").build())
+                        .build();
+
+        List<List<Writable>> input = data(50);
+        List<List<Writable>> expected = new ArrayList<>(LocalTransformExecutor.execute(input, tp));
+        List<List<Writable>> columnar = new ArrayList<>(LocalTransformExecutor.executeColumnar(input, tp));
+
+        Comparator<List<Writable>> byKey = new Comparator<List<Writable>>() {
+            @Override
+            public int compare(List<Writable> o1, List<Writable> o2) {
+                return Integer.compare(o1.get(0).toInt(), o2.get(0).toInt());
+            }
+        };
+        Collections.sort(expected, byKey);
+        Collections.sort(columnar, byKey);
+
+        assertEquals(6, expected.size());
+        assertEquals(expected, columnar);
+    }
+
+    @Test
+    public void testColumnarEmptyResult() {
+        TransformProcess tp = new TransformProcess.Builder(schema())
+                        .filter(new DoubleColumnCondition("x", ConditionOp.GreaterOrEqual, 0.0))
+                        .build();
+
+        assertEquals(0, LocalTransformExecutor.executeColumnar(data(10), tp).size());
+    }
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.datavec.local.transforms.transform;
+
+import org.datavec.api.records.reader.impl.collection.CollectionRecordReader;
+import org.datavec.api.transform.MathOp;
+import org.datavec.api.transform.ReduceOp;
+import org.datavec.api.transform.TransformProcess;
+import org.datavec.api.transform.condition.ConditionOp;
+import org.datavec.api.transform.condition.column.IntegerColumnCondition;
+import org.datavec.api.transform.join.Join;
+import org.datavec.api.transform.reduce.Reducer;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.transform.sequence.comparator.NumericalColumnComparator;
+import org.datavec.api.writable.*;
+import org.datavec.api.writable.comparator.DoubleWritableComparator;
+import org.datavec.local.transforms.LocalTransformExecutor;
+import org.datavec.local.transforms.streaming.StreamingTransformExecutor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that streaming execution produces the same output as in-memory execution,
+ * with and without spilling to disk
+ */
+public class StreamingExecutionTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private static Schema schema() {
+        return new Schema.Builder().addColumnInteger("key").addColumnDouble("value").addColumnLong("time").build();
+    }
+
+    private static List<List<Writable>> data(int numRows) {
+        Random rng = new Random(12345);
+        List<List<Writable>> rows = new ArrayList<>();
+        for (int i = 0; i < numRows; i++) {
+            rows.add(Arrays.<Writable>asList(new IntWritable(i % 10), new DoubleWritable(rng.nextInt(1000) / 10.0),
+                            new LongWritable(numRows - i)));
+        }
+        return rows;
+    }
+
+    private StreamingTransformExecutor executor(File dir) {
+        // tiny limits, to force spilling for every step that needs it
+        return new StreamingTransformExecutor.Builder().maxRecordsInMemory(7).numPartitions(3).tempDirectory(dir)
+                        .build();
+    }
+
+    private static <T> List<T> collect(Iterator<T> iterator) {
+        List<T> ret = new ArrayList<>();
+        while (iterator.hasNext())
+            ret.add(iterator.next());
+        return ret;
+    }
+
+    private static List<String> sorted(Collection<?> values) {
+        List<String> ret = new ArrayList<>();
+        for (Object v : values)
+            ret.add(v.toString());
+        Collections.sort(ret);
+        return ret;
+    }
+
+    @Test
+    public void testStreamingTransformsAndFilter() throws Exception {
+        TransformProcess tp = new TransformProcess.Builder(schema())
+                        .doubleMathOp("value", MathOp.Multiply, 2.0)
+                        .filter(new IntegerColumnCondition("key", ConditionOp.LessThan, 3))
+                        .removeColumns("time")
+                        .build();
+
+        List<List<Writable>> input = data(100);
+        List<List<Writable>> expected = LocalTransformExecutor.execute(input, tp);
+        List<List<Writable>> streamed = collect(executor(testDir.newFolder())
+                        .execute(new CollectionRecordReader(input), tp));
+
+        assertEquals(70, streamed.size());
+        assertEquals(sorted(expected), sorted(streamed));
+    }
+
+    @Test
+    public void testStreamingSortedRank() throws Exception {
+        TransformProcess tp = new TransformProcess.Builder(schema())
+                        .calculateSortedRank("rank", "value", new DoubleWritableComparator())
+                        .build();
+
+        File dir = testDir.newFolder();
+        List<List<Writable>> input = data(50);
+        List<List<Writable>> streamed = collect(executor(dir).execute(new CollectionRecordReader(input), tp));
+
+        assertEquals(50, streamed.size());
+        for (int i = 0; i < streamed.size(); i++) {
+            assertEquals(i, streamed.get(i).get(3).toLong());
+            if (i > 0)
+                assertEquals(true, streamed.get(i - 1).get(1).toDouble() <= streamed.get(i).get(1).toDouble());
+        }
+
+        // all spill files should be gone once the output is consumed
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void testStreamingReduce() throws Exception {
+        TransformProcess tp = new TransformProcess.Builder(schema())
+                        .reduce(new Reducer.Builder(ReduceOp.Sum).keyColumns("key").build())
+                        .build();
+
+        File dir = testDir.newFolder();
+        List<List<Writable>> input = data(100);
+        List<List<Writable>> expected = LocalTransformExecutor.execute(input, tp);
+        List<List<Writable>> streamed = collect(executor(dir).execute(new CollectionRecordReader(input), tp));
+
+        assertEquals(10, streamed.size());
+        assertEquals(sorted(expected), sorted(streamed));
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void testStreamingConvertToSequence() throws Exception {
+        TransformProcess tp = new TransformProcess.Builder(schema())
+                        .convertToSequence("key", new NumericalColumnComparator("time"))
+                        .build();
+
+        File dir = testDir.newFolder();
+        List<List<Writable>> input = data(100);
+        List<List<List<Writable>>> expected = LocalTransformExecutor.executeToSequence(input, tp);
+        List<List<List<Writable>>> streamed = collect(executor(dir)
+                        .executeToSequence(new CollectionRecordReader(input), tp));
+
+        assertEquals(10, streamed.size());
+        assertEquals(sorted(expected), sorted(streamed));
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void testStreamingJoin() throws Exception {
+        Schema leftSchema = new Schema.Builder().addColumnLong("id").addColumnString("name").build();
+        Schema rightSchema = new Schema.Builder().addColumnLong("purchaseId").addColumnLong("id")
+                        .addColumnDouble("amount").build();
+
+        List<List<Writable>> left = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            left.add(Arrays.<Writable>asList(new LongWritable(i), new Text("customer_" + i)));
+
+        List<List<Writable>> right = new ArrayList<>();
+        for (int i = 0; i < 30; i++)
+            right.add(Arrays.<Writable>asList(new LongWritable(1000 + i), new LongWritable(i % 25),
+                            new DoubleWritable(i)));
+
+        Join join = new Join.Builder(Join.JoinType.Inner).setJoinColumns("id").setSchemas(leftSchema, rightSchema)
+                        .build();
+
+        File dir = testDir.newFolder();
+        List<List<Writable>> expected = LocalTransformExecutor.executeJoin(join, left, right);
+        List<List<Writable>> streamed = collect(executor(dir).executeJoin(join, left.iterator(), right.iterator()));
+
+        assertEquals(25, streamed.size());
+        assertEquals(sorted(expected), sorted(streamed));
+        assertEquals(0, dir.listFiles().length);
+    }
+}
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks;
+
+import org.nd4j.benchmarks.BenchmarkRunner;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Entry point for DL4J benchmarks.<br>
+ * Usage: {@code java -jar deeplearning4j-benchmarks.jar [output file] [benchmark regex]}<br>
+ * In addition to throughput, allocation rate (bytes/op) and GC counts are reported for every benchmark,
+ * so the effect of workspaces is visible in the results.
+ */
+public class DL4JBenchmarkRunner {
+    public static final String DEFAULT_OUTPUT = "dl4j-benchmarks.json";
+
+    private DL4JBenchmarkRunner() {
+        //
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        BenchmarkRunner.run(DL4JBenchmarkRunner.class.getPackage().getName() + ".*", DEFAULT_OUTPUT, true, args);
+    }
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks.layers;
+
+import org.deeplearning4j.nn.api.Layer;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.workspace.ArrayType;
+import org.deeplearning4j.nn.workspace.LayerWorkspaceMgr;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.ResetPolicy;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.NoOp;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class for single layer benchmarks: forward pass (inference and training), and forward + backward pass,
+ * with and without workspaces.<br>
+ * Layer is instantiated directly from its configuration, so network-level overhead (preprocessors, listeners,
+ * updater, score calculation) isn't included here.<br>
+ * <br>
+ * PLEASE NOTE: with workspaces enabled, all array types share the same workspace, which is reset after each invocation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public abstract class BaseLayerBenchmark {
+    protected static final String WORKSPACE_ID = "WS_LAYER_BENCHMARK";
+    protected static final WorkspaceConfiguration WORKSPACE_CONFIGURATION = WorkspaceConfiguration.builder()
+                    .initialSize(0)
+                    .overallocationLimit(0.05)
+                    .policyLearning(LearningPolicy.FIRST_LOOP)
+                    .policyReset(ResetPolicy.BLOCK_LEFT)
+                    .policySpill(SpillPolicy.REALLOCATE)
+                    .policyAllocation(AllocationPolicy.OVERALLOCATE)
+                    .build();
+
+    @Param({"true", "false"})
+    public boolean workspaces;
+
+    @Param({"32"})
+    public int minibatch;
+
+    protected Layer layer;
+    protected INDArray input;
+    protected INDArray epsilon;
+    protected LayerWorkspaceMgr workspaceMgr;
+
+    /**
+     * @return configuration of the layer to benchmark
+     */
+    protected abstract org.deeplearning4j.nn.conf.layers.Layer getLayerConfiguration();
+
+    /**
+     * @return input for the layer, with the given minibatch size
+     */
+    protected abstract INDArray getInput(int minibatch);
+
+    @Setup
+    public void setUp() {
+        Nd4j.getRandom().setSeed(119);
+
+        NeuralNetConfiguration conf = new NeuralNetConfiguration.Builder()
+                        .seed(119)
+                        .updater(new NoOp())
+                        .layer(getLayerConfiguration())
+                        .build();
+
+        long numParams = conf.getLayer().initializer().numParams(conf);
+        INDArray params = numParams > 0 ? Nd4j.create(1, numParams) : null;
+        layer = conf.getLayer().instantiate(conf, null, 0, params, true);
+        if (numParams > 0)
+            layer.setBackpropGradientsViewArray(Nd4j.create(1, numParams));
+
+        input = getInput(minibatch);
+
+        // epsilon has the same shape as layer output
+        INDArray output = layer.activate(input, false, LayerWorkspaceMgr.noWorkspaces());
+        epsilon = Nd4j.rand(output.shape());
+
+        if (workspaces) {
+            workspaceMgr = LayerWorkspaceMgr.builder()
+                            .defaultWorkspace(WORKSPACE_ID, WORKSPACE_CONFIGURATION)
+                            .build();
+        } else {
+            workspaceMgr = LayerWorkspaceMgr.noWorkspaces();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        layer.clear();
+        Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+    }
+
+    @Benchmark
+    public void activate(Blackhole bh) {
+        try (MemoryWorkspace ws = workspaceMgr.notifyScopeEntered(ArrayType.ACTIVATIONS)) {
+            bh.consume(layer.activate(input, false, workspaceMgr));
+        }
+    }
+
+    @Benchmark
+    public void activateTraining(Blackhole bh) {
+        try (MemoryWorkspace ws = workspaceMgr.notifyScopeEntered(ArrayType.ACTIVATIONS)) {
+            bh.consume(layer.activate(input, true, workspaceMgr));
+        }
+    }
+
+    @Benchmark
+    public void backpropGradient(Blackhole bh) {
+        try (MemoryWorkspace ws = workspaceMgr.notifyScopeEntered(ArrayType.ACTIVATIONS)) {
+            bh.consume(layer.activate(input, true, workspaceMgr));
+            bh.consume(layer.backpropGradient(epsilon, workspaceMgr));
+        }
+    }
+}
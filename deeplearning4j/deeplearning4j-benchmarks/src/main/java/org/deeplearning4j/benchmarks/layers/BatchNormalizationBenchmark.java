@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks.layers;
+
+import org.deeplearning4j.nn.conf.layers.BatchNormalization;
+import org.deeplearning4j.nn.conf.layers.Layer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * {@link BatchNormalization} for dense (2d) and convolutional (4d, 16x16 images) activations
+ */
+public class BatchNormalizationBenchmark extends BaseLayerBenchmark {
+    protected static final int HEIGHT = 16;
+    protected static final int WIDTH = 16;
+
+    @Param({"dense", "cnn"})
+    public String inputType;
+
+    @Param({"64", "256"})
+    public int size;
+
+    @Override
+    protected Layer getLayerConfiguration() {
+        return new BatchNormalization.Builder().nIn(size).nOut(size).build();
+    }
+
+    @Override
+    protected INDArray getInput(int minibatch) {
+        switch (inputType) {
+            case "dense":
+                return Nd4j.rand(minibatch, size);
+            case "cnn":
+                return Nd4j.rand(new int[] {minibatch, size, HEIGHT, WIDTH});
+            default:
+                throw new IllegalArgumentException("Unknown input type: " + inputType);
+        }
+    }
+}
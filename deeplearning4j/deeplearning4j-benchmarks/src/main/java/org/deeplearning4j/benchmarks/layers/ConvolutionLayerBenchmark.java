@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks.layers;
+
+import org.deeplearning4j.nn.conf.ConvolutionMode;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
+import org.deeplearning4j.nn.conf.layers.Layer;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * {@link ConvolutionLayer} with 3x3 kernel, stride 1, same mode, on 32x32 images
+ */
+public class ConvolutionLayerBenchmark extends BaseLayerBenchmark {
+    protected static final int HEIGHT = 32;
+    protected static final int WIDTH = 32;
+
+    @Param({"3", "64"})
+    public int channels;
+
+    @Param({"64"})
+    public int filters;
+
+    @Override
+    protected Layer getLayerConfiguration() {
+        return new ConvolutionLayer.Builder(3, 3)
+                        .stride(1, 1)
+                        .convolutionMode(ConvolutionMode.Same)
+                        .nIn(channels)
+                        .nOut(filters)
+                        .activation(Activation.RELU)
+                        .build();
+    }
+
+    @Override
+    protected INDArray getInput(int minibatch) {
+        return Nd4j.rand(new int[] {minibatch, channels, HEIGHT, WIDTH});
+    }
+}
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks.layers;
+
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.Layer;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * {@link DenseLayer} with nIn == nOut == size
+ */
+public class DenseLayerBenchmark extends BaseLayerBenchmark {
+
+    @Param({"128", "1024"})
+    public int size;
+
+    @Override
+    protected Layer getLayerConfiguration() {
+        return new DenseLayer.Builder().nIn(size).nOut(size).activation(Activation.RELU).build();
+    }
+
+    @Override
+    protected INDArray getInput(int minibatch) {
+        return Nd4j.rand(minibatch, size);
+    }
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks.layers;
+
+import org.deeplearning4j.nn.conf.layers.GravesLSTM;
+import org.deeplearning4j.nn.conf.layers.LSTM;
+import org.deeplearning4j.nn.conf.layers.Layer;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * {@link LSTM} and {@link GravesLSTM} (both backed by LSTMHelpers), with nIn == nOut == size
+ */
+public class LSTMBenchmark extends BaseLayerBenchmark {
+
+    @Param({"LSTM", "GravesLSTM"})
+    public String layerType;
+
+    @Param({"128", "512"})
+    public int size;
+
+    @Param({"50"})
+    public int timeSeriesLength;
+
+    @Override
+    protected Layer getLayerConfiguration() {
+        switch (layerType) {
+            case "LSTM":
+                return new LSTM.Builder().nIn(size).nOut(size).activation(Activation.TANH).build();
+            case "GravesLSTM":
+                return new GravesLSTM.Builder().nIn(size).nOut(size).activation(Activation.TANH).build();
+            default:
+                throw new IllegalArgumentException("Unknown layer type: " + layerType);
+        }
+    }
+
+    @Override
+    protected INDArray getInput(int minibatch) {
+        return Nd4j.rand(new int[] {minibatch, size, timeSeriesLength});
+    }
+}
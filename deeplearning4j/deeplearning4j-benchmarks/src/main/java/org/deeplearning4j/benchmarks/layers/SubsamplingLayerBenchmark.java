@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks.layers;
+
+import org.deeplearning4j.nn.conf.layers.Layer;
+import org.deeplearning4j.nn.conf.layers.PoolingType;
+import org.deeplearning4j.nn.conf.layers.SubsamplingLayer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * {@link SubsamplingLayer} with 2x2 kernel and stride 2, on 32x32 images with 64 channels
+ */
+public class SubsamplingLayerBenchmark extends BaseLayerBenchmark {
+    protected static final int CHANNELS = 64;
+    protected static final int HEIGHT = 32;
+    protected static final int WIDTH = 32;
+
+    @Param({"MAX", "AVG"})
+    public PoolingType poolingType;
+
+    @Override
+    protected Layer getLayerConfiguration() {
+        return new SubsamplingLayer.Builder(poolingType)
+                        .kernelSize(2, 2)
+                        .stride(2, 2)
+                        .build();
+    }
+
+    @Override
+    protected INDArray getInput(int minibatch) {
+        return Nd4j.rand(new int[] {minibatch, CHANNELS, HEIGHT, WIDTH});
+    }
+}
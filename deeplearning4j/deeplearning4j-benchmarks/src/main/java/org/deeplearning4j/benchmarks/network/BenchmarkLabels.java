@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks.network;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Random;
+
+/**
+ * Random labels for network benchmarks
+ */
+class BenchmarkLabels {
+
+    private BenchmarkLabels() {
+        //
+    }
+
+    /**
+     * @return one-hot labels with shape [minibatch, numClasses]
+     */
+    static INDArray oneHot(int minibatch, int numClasses, Random random) {
+        INDArray labels = Nd4j.create(minibatch, numClasses);
+        for (int i = 0; i < minibatch; i++)
+            labels.putScalar(i, random.nextInt(numClasses), 1.0);
+
+        return labels;
+    }
+
+    /**
+     * @return one-hot labels with shape [minibatch, numClasses, timeSeriesLength]
+     */
+    static INDArray oneHotTimeSeries(int minibatch, int numClasses, int timeSeriesLength, Random random) {
+        INDArray labels = Nd4j.create(new int[] {minibatch, numClasses, timeSeriesLength}, 'f');
+        for (int i = 0; i < minibatch; i++)
+            for (int t = 0; t < timeSeriesLength; t++)
+                labels.putScalar(new int[] {i, random.nextInt(numClasses), t}, 1.0);
+
+        return labels;
+    }
+}
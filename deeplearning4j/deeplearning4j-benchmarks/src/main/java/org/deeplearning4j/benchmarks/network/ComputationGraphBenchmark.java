@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks.network;
+
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.ConvolutionMode;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
+import org.deeplearning4j.nn.conf.graph.ElementWiseVertex;
+import org.deeplearning4j.nn.conf.graph.MergeVertex;
+import org.deeplearning4j.nn.conf.inputs.InputType;
+import org.deeplearning4j.nn.conf.layers.*;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-network fit and output for a few canonical {@link ComputationGraph} configurations:<br>
+ * residual: feed-forward network with skip connections (ElementWiseVertex)<br>
+ * inception: inception-like CNN block (1x1, 3x3 and pooling branches joined with MergeVertex) on 32x32 RGB images
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComputationGraphBenchmark {
+    protected static final int NUM_CLASSES = 10;
+    protected static final int SIZE = 512;
+
+    @Param({"residual", "inception"})
+    public String model;
+
+    @Param({"ENABLED", "NONE"})
+    public WorkspaceMode workspaceMode;
+
+    @Param({"32"})
+    public int minibatch;
+
+    private ComputationGraph graph;
+    private DataSet dataSet;
+
+    @Setup
+    public void setUp() {
+        Nd4j.getRandom().setSeed(119);
+        Random random = new Random(119);
+
+        switch (model) {
+            case "residual":
+                dataSet = new DataSet(Nd4j.rand(minibatch, SIZE), BenchmarkLabels.oneHot(minibatch, NUM_CLASSES, random));
+                break;
+            case "inception":
+                dataSet = new DataSet(Nd4j.rand(new int[] {minibatch, 3, 32, 32}),
+                                BenchmarkLabels.oneHot(minibatch, NUM_CLASSES, random));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown model: " + model);
+        }
+
+        graph = new ComputationGraph(getConfiguration(model, workspaceMode));
+        graph.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+    }
+
+    @Benchmark
+    public ComputationGraph fit() {
+        graph.fit(dataSet);
+        return graph;
+    }
+
+    @Benchmark
+    public INDArray output() {
+        return graph.outputSingle(dataSet.getFeatures());
+    }
+
+    protected static ComputationGraphConfiguration getConfiguration(String model, WorkspaceMode workspaceMode) {
+        ComputationGraphConfiguration.GraphBuilder builder = new NeuralNetConfiguration.Builder()
+                        .seed(119)
+                        .updater(new Adam(1e-3))
+                        .weightInit(WeightInit.XAVIER)
+                        .trainingWorkspaceMode(workspaceMode)
+                        .inferenceWorkspaceMode(workspaceMode)
+                        .graphBuilder()
+                        .addInputs("in");
+
+        switch (model) {
+            case "residual":
+                return builder.addLayer("dense0", new DenseLayer.Builder().nOut(SIZE).activation(Activation.RELU).build(), "in")
+                                .addLayer("dense1", new DenseLayer.Builder().nOut(SIZE).activation(Activation.RELU).build(), "dense0")
+                                .addVertex("add1", new ElementWiseVertex(ElementWiseVertex.Op.Add), "dense0", "dense1")
+                                .addLayer("dense2", new DenseLayer.Builder().nOut(SIZE).activation(Activation.RELU).build(), "add1")
+                                .addVertex("add2", new ElementWiseVertex(ElementWiseVertex.Op.Add), "add1", "dense2")
+                                .addLayer("out", new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                                .nOut(NUM_CLASSES).activation(Activation.SOFTMAX).build(), "add2")
+                                .setOutputs("out")
+                                .setInputTypes(InputType.feedForward(SIZE))
+                                .build();
+            case "inception":
+                return builder.addLayer("conv1x1", new ConvolutionLayer.Builder(1, 1).nOut(32)
+                                                .convolutionMode(ConvolutionMode.Same).activation(Activation.RELU).build(), "in")
+                                .addLayer("conv3x3", new ConvolutionLayer.Builder(3, 3).nOut(32)
+                                                .convolutionMode(ConvolutionMode.Same).activation(Activation.RELU).build(), "in")
+                                .addLayer("pool3x3", new SubsamplingLayer.Builder(PoolingType.MAX).kernelSize(3, 3).stride(1, 1)
+                                                .convolutionMode(ConvolutionMode.Same).build(), "in")
+                                .addVertex("merge", new MergeVertex(), "conv1x1", "conv3x3", "pool3x3")
+                                .addLayer("bn", new BatchNormalization.Builder().build(), "merge")
+                                .addLayer("pool", new SubsamplingLayer.Builder(PoolingType.MAX).kernelSize(2, 2).stride(2, 2).build(), "bn")
+                                .addLayer("dense", new DenseLayer.Builder().nOut(256).activation(Activation.RELU).build(), "pool")
+                                .addLayer("out", new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                                .nOut(NUM_CLASSES).activation(Activation.SOFTMAX).build(), "dense")
+                                .setOutputs("out")
+                                .setInputTypes(InputType.convolutional(32, 32, 3))
+                                .build();
+            default:
+                throw new IllegalArgumentException("Unknown model: " + model);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks.network;
+
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.WorkspaceMode;
+import org.deeplearning4j.nn.conf.inputs.InputType;
+import org.deeplearning4j.nn.conf.layers.*;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-network fit and output for a few canonical {@link MultiLayerNetwork} configurations:<br>
+ * mlp: 784-1000-1000-10 feed-forward network<br>
+ * lenet: LeNet-like CNN on 28x28 grayscale images<br>
+ * lstm: 2 layer LSTM on sequences of length 50
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MultiLayerNetworkBenchmark {
+    protected static final int NUM_CLASSES = 10;
+    protected static final int RNN_SIZE = 64;
+    protected static final int TIME_SERIES_LENGTH = 50;
+
+    @Param({"mlp", "lenet", "lstm"})
+    public String model;
+
+    @Param({"ENABLED", "NONE"})
+    public WorkspaceMode workspaceMode;
+
+    @Param({"32"})
+    public int minibatch;
+
+    private MultiLayerNetwork network;
+    private DataSet dataSet;
+
+    @Setup
+    public void setUp() {
+        Nd4j.getRandom().setSeed(119);
+        Random random = new Random(119);
+
+        switch (model) {
+            case "mlp":
+            case "lenet":
+                dataSet = new DataSet(Nd4j.rand(minibatch, 784), BenchmarkLabels.oneHot(minibatch, NUM_CLASSES, random));
+                break;
+            case "lstm":
+                dataSet = new DataSet(Nd4j.rand(new int[] {minibatch, RNN_SIZE, TIME_SERIES_LENGTH}),
+                                BenchmarkLabels.oneHotTimeSeries(minibatch, NUM_CLASSES, TIME_SERIES_LENGTH, random));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown model: " + model);
+        }
+
+        network = new MultiLayerNetwork(getConfiguration(model, workspaceMode));
+        network.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+    }
+
+    @Benchmark
+    public MultiLayerNetwork fit() {
+        network.fit(dataSet);
+        return network;
+    }
+
+    @Benchmark
+    public INDArray output() {
+        return network.output(dataSet.getFeatures());
+    }
+
+    protected static MultiLayerConfiguration getConfiguration(String model, WorkspaceMode workspaceMode) {
+        NeuralNetConfiguration.ListBuilder builder = new NeuralNetConfiguration.Builder()
+                        .seed(119)
+                        .updater(new Adam(1e-3))
+                        .weightInit(WeightInit.XAVIER)
+                        .trainingWorkspaceMode(workspaceMode)
+                        .inferenceWorkspaceMode(workspaceMode)
+                        .list();
+
+        switch (model) {
+            case "mlp":
+                return builder.layer(0, new DenseLayer.Builder().nIn(784).nOut(1000).activation(Activation.RELU).build())
+                                .layer(1, new DenseLayer.Builder().nIn(1000).nOut(1000).activation(Activation.RELU).build())
+                                .layer(2, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                                .nIn(1000).nOut(NUM_CLASSES).activation(Activation.SOFTMAX).build())
+                                .build();
+            case "lenet":
+                return builder.layer(0, new ConvolutionLayer.Builder(5, 5).nOut(20).activation(Activation.IDENTITY).build())
+                                .layer(1, new SubsamplingLayer.Builder(PoolingType.MAX).kernelSize(2, 2).stride(2, 2).build())
+                                .layer(2, new ConvolutionLayer.Builder(5, 5).nOut(50).activation(Activation.IDENTITY).build())
+                                .layer(3, new SubsamplingLayer.Builder(PoolingType.MAX).kernelSize(2, 2).stride(2, 2).build())
+                                .layer(4, new DenseLayer.Builder().nOut(500).activation(Activation.RELU).build())
+                                .layer(5, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                                .nOut(NUM_CLASSES).activation(Activation.SOFTMAX).build())
+                                .setInputType(InputType.convolutionalFlat(28, 28, 1))
+                                .build();
+            case "lstm":
+                return builder.layer(0, new LSTM.Builder().nIn(RNN_SIZE).nOut(RNN_SIZE).activation(Activation.TANH).build())
+                                .layer(1, new LSTM.Builder().nIn(RNN_SIZE).nOut(RNN_SIZE).activation(Activation.TANH).build())
+                                .layer(2, new RnnOutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                                .nIn(RNN_SIZE).nOut(NUM_CLASSES).activation(Activation.SOFTMAX).build())
+                                .build();
+            default:
+                throw new IllegalArgumentException("Unknown model: " + model);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.benchmarks.updaters;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.GradientUpdater;
+import org.nd4j.linalg.learning.config.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updaters applied to a flattened gradient view, the same way as BaseMultiLayerUpdater does for each updater block
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UpdaterBenchmark {
+
+    @Param({"Sgd", "Nesterovs", "Adam", "RmsProp", "AdaGrad", "AdaDelta", "AMSGrad"})
+    public String updater;
+
+    @Param({"100000", "10000000"})
+    public int numParams;
+
+    private GradientUpdater gradientUpdater;
+    private INDArray gradient;
+    private INDArray originalGradient;
+    private int iteration;
+
+    @Setup
+    public void setUp() {
+        Nd4j.getRandom().setSeed(119);
+        IUpdater config = getUpdater(updater);
+
+        long stateSize = config.stateSize(numParams);
+        INDArray state = stateSize > 0 ? Nd4j.create(1, stateSize) : null;
+        gradientUpdater = config.instantiate(state, true);
+
+        originalGradient = Nd4j.rand(1, numParams).subi(0.5);
+        gradient = originalGradient.dup();
+    }
+
+    /**
+     * Updaters modify gradient in place, so we restore it before each invocation. Restoration isn't measured.
+     */
+    @Setup(Level.Invocation)
+    public void restoreGradient() {
+        gradient.assign(originalGradient);
+    }
+
+    @Benchmark
+    public INDArray applyUpdater() {
+        gradientUpdater.applyUpdater(gradient, iteration++, 0);
+        return gradient;
+    }
+
+    protected static IUpdater getUpdater(String name) {
+        switch (name) {
+            case "Sgd":
+                return new Sgd(0.01);
+            case "Nesterovs":
+                return new Nesterovs(0.01, 0.9);
+            case "Adam":
+                return new Adam(0.01);
+            case "RmsProp":
+                return new RmsProp(0.01);
+            case "AdaGrad":
+                return new AdaGrad(0.01);
+            case "AdaDelta":
+                return new AdaDelta();
+            case "AMSGrad":
+                return new AMSGrad(0.01);
+            default:
+                throw new IllegalArgumentException("Unknown updater: " + name);
+        }
+    }
+}
@@ -28,13 +28,17 @@ import org.datavec.api.records.reader.impl.collection.CollectionRecordReader;
 import org.datavec.api.records.reader.impl.collection.CollectionSequenceRecordReader;
 import org.datavec.api.records.reader.impl.csv.CSVRecordReader;
 import org.datavec.api.records.reader.impl.csv.CSVSequenceRecordReader;
+import org.datavec.api.split.CollectionInputSplit;
 import org.datavec.api.split.FileSplit;
 import org.datavec.api.split.InputStreamInputSplit;
 import org.datavec.api.split.NumberedFileInputSplit;
+import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.writable.DoubleWritable;
 import org.datavec.api.writable.IntWritable;
 import org.datavec.api.writable.NDArrayWritable;
 import org.datavec.api.writable.Writable;
+import org.datavec.arrow.ArrowConverter;
+import org.datavec.arrow.recordreader.StreamingArrowRecordReader;
 import org.datavec.image.recordreader.ImageRecordReader;
 import org.deeplearning4j.BaseDL4JTest;
 import org.deeplearning4j.TestUtils;
@@ -55,6 +59,7 @@ import org.nd4j.linalg.io.ClassPathResource;
 import org.nd4j.linalg.primitives.Pair;
 
 import java.io.*;
+import java.net.URI;
 import java.util.*;
 
 import static org.junit.Assert.*;
@@ -1367,4 +1372,50 @@ public class RecordReaderDataSetiteratorTest extends BaseDL4JTest {
         assertNotNull(ds.getFeatures());
         assertNull(ds.getLabels());
     }
+
+    @Test
+    public void testStreamingArrowRecordReader() throws Exception {
+        Schema schema = new Schema.Builder().addColumnsDouble("d0", "d1").addColumnInteger("label").build();
+
+        //Two files, so that minibatches span locations
+        List<List<Writable>> all = new ArrayList<>();
+        List<URI> uris = new ArrayList<>();
+        File dir = temporaryFolder.newFolder();
+        for (int f = 0; f < 2; f++) {
+            List<List<Writable>> records = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                int idx = 8 * f + i;
+                records.add(Arrays.<Writable>asList(new DoubleWritable(idx), new DoubleWritable(idx / 10.0),
+                        new IntWritable(idx % 3)));
+            }
+            File file = new File(dir, "data_" + f + ".arrow");
+            try (FileOutputStream fos = new FileOutputStream(file)) {
+                ArrowConverter.writeRecordBatchTo(records, schema, fos);
+            }
+            all.addAll(records);
+            uris.add(file.toURI());
+        }
+
+        StreamingArrowRecordReader arrowReader = new StreamingArrowRecordReader();
+        arrowReader.initialize(new CollectionInputSplit(uris));
+        DataSetIterator arrowIter = new RecordReaderDataSetIterator(arrowReader, 5, 2, 3);
+        DataSetIterator expIter = new RecordReaderDataSetIterator(new CollectionRecordReader(all), 5, 2, 3);
+
+        int count = 0;
+        while (expIter.hasNext()) {
+            assertTrue(arrowIter.hasNext());
+            DataSet exp = expIter.next();
+            DataSet act = arrowIter.next();
+            assertEquals(exp.getFeatures(), act.getFeatures());
+            assertEquals(exp.getLabels(), act.getLabels());
+            count += act.numExamples();
+        }
+        assertFalse(arrowIter.hasNext());
+        assertEquals(16, count);
+
+        arrowIter.reset();
+        assertTrue(arrowIter.hasNext());
+        assertEquals(5, arrowIter.next().numExamples());
+        arrowReader.close();
+    }
 }
@@ -28,6 +28,7 @@ import org.datavec.api.records.metadata.RecordMetaData;
 import org.datavec.api.records.reader.BaseRecordReader;
 import org.datavec.api.records.reader.RecordReader;
 import org.datavec.api.records.reader.SequenceRecordReader;
+import org.datavec.api.records.reader.impl.collection.CollectionRecordReader;
 import org.datavec.api.records.reader.impl.collection.CollectionSequenceRecordReader;
 import org.datavec.api.records.reader.impl.csv.CSVRecordReader;
 import org.datavec.api.records.reader.impl.csv.CSVSequenceRecordReader;
@@ -37,8 +38,11 @@ import org.datavec.api.split.InputSplit;
 import org.datavec.api.split.NumberedFileInputSplit;
 import org.datavec.api.util.ndarray.RecordConverter;
 import org.datavec.api.writable.DoubleWritable;
+import org.datavec.api.writable.FloatWritable;
 import org.datavec.api.writable.IntWritable;
+import org.datavec.api.writable.NDArrayWritable;
 import org.datavec.api.writable.Writable;
+import org.datavec.api.writable.batch.NDArrayRecordBatch;
 import org.datavec.image.recordreader.ImageRecordReader;
 import org.deeplearning4j.BaseDL4JTest;
 import org.deeplearning4j.TestUtils;
@@ -51,6 +55,7 @@ import org.nd4j.linalg.dataset.api.MultiDataSet;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.INDArrayIndex;
 import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.io.ClassPathResource;
 
@@ -801,6 +806,91 @@ public class RecordReaderMultiDataSetIteratorTest extends BaseDL4JTest {
     }
 
 
+    @Test
+    public void testMixedWritablesConversion() {
+        //Mixed NDArrayWritable + numeric writables, for both standard and sequence readers
+        List<List<Writable>> records = new ArrayList<>();
+        List<List<List<Writable>>> sequences = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            INDArray row = Nd4j.create(new double[] {10 * i, 10 * i + 1, 10 * i + 2});
+            records.add(Arrays.<Writable>asList(new DoubleWritable(i), new NDArrayWritable(row),
+                            new FloatWritable(-i), new IntWritable(i % 3)));
+
+            List<List<Writable>> seq = new ArrayList<>();
+            for (int t = 0; t <= i; t++) {
+                seq.add(Arrays.<Writable>asList(new NDArrayWritable(row.add(t)), new DoubleWritable(t),
+                                new IntWritable(t % 2)));
+            }
+            sequences.add(seq);
+        }
+
+        MultiDataSetIterator iter = new RecordReaderMultiDataSetIterator.Builder(4)
+                        .addReader("rr", new CollectionRecordReader(records))
+                        .addSequenceReader("seq", new CollectionSequenceRecordReader(sequences))
+                        .addInput("rr", 0, 2).addOutputOneHot("rr", 3, 3).addInput("seq", 0, 1)
+                        .addOutputOneHot("seq", 2, 2)
+                        .sequenceAlignmentMode(RecordReaderMultiDataSetIterator.AlignmentMode.ALIGN_START).build();
+
+        MultiDataSet mds = iter.next();
+
+        INDArray expFeatures = Nd4j.create(4, 5);
+        INDArray expLabels = Nd4j.create(4, 3);
+        INDArray expSeqFeatures = Nd4j.create(new int[] {4, 4, 4}, 'f');
+        INDArray expSeqLabels = Nd4j.create(new int[] {4, 2, 4}, 'f');
+        INDArray expSeqMask = Nd4j.create(4, 4);
+        for (int i = 0; i < 4; i++) {
+            expFeatures.putRow(i, Nd4j.create(new double[] {i, 10 * i, 10 * i + 1, 10 * i + 2, -i}));
+            expLabels.putScalar(i, i % 3, 1.0);
+            for (int t = 0; t <= i; t++) {
+                expSeqFeatures.put(new INDArrayIndex[] {point(i), all(), point(t)},
+                                Nd4j.create(new double[] {10 * i + t, 10 * i + 1 + t, 10 * i + 2 + t, t}));
+                expSeqLabels.putScalar(i, t % 2, t, 1.0);
+                expSeqMask.putScalar(i, t, 1.0);
+            }
+        }
+
+        assertEquals(expFeatures, mds.getFeatures(0));
+        assertEquals(expLabels, mds.getLabels(0));
+        assertEquals(expSeqFeatures, mds.getFeatures(1));
+        assertEquals(expSeqLabels, mds.getLabels(1));
+        assertEquals(expSeqMask, mds.getFeaturesMaskArray(1));
+        assertEquals(expSeqMask, mds.getLabelsMaskArray(1));
+    }
+
+    @Test
+    public void testBatchedOneHotInvalidClassIndex() {
+        final List<List<Writable>> batch = new NDArrayRecordBatch(Nd4j.create(new double[] {1, 2}, new int[] {2, 1}),
+                        Nd4j.create(new double[] {0, 3}, new int[] {2, 1}));
+        RecordReader rr = new CollectionRecordReader(batch) {
+            boolean done = false;
+
+            @Override
+            public boolean batchesSupported() {
+                return true;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !done;
+            }
+
+            @Override
+            public List<List<Writable>> next(int num) {
+                done = true;
+                return batch;
+            }
+        };
+
+        MultiDataSetIterator iter = new RecordReaderMultiDataSetIterator.Builder(2).addReader("rr", rr)
+                        .addInput("rr", 0, 0).addOutputOneHot("rr", 1, 3).build();
+        try {
+            iter.next();
+            fail("Expected exception for out of range class index");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("class index 3"));
+        }
+    }
+
     private static final int nX = 32;
     private static final int nY = 32;
     private static final int nZ = 28;
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.datasets.iterator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.datasets.iterator.impl.MultiDataSetIteratorAdapter;
+import org.junit.Test;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class ParallelAsyncDataSetIteratorTest extends BaseDL4JTest {
+    private static final int TEST_SIZE = 103;
+
+    /**
+     * Partition i holds DataSets i, i + numPartitions, ..., DataSet j has all features equal to j
+     */
+    private static List<DataSetIterator> getPartitions(int numPartitions) {
+        List<List<DataSet>> lists = new ArrayList<>();
+        for (int i = 0; i < numPartitions; i++)
+            lists.add(new ArrayList<DataSet>());
+
+        for (int i = 0; i < TEST_SIZE; i++)
+            lists.get(i % numPartitions).add(new DataSet(Nd4j.create(1, 10).assign(i), Nd4j.create(1, 2).assign(i)));
+
+        List<DataSetIterator> result = new ArrayList<>();
+        for (List<DataSet> list : lists)
+            result.add(new ExistingDataSetIterator(list));
+
+        return result;
+    }
+
+    @Test
+    public void testOrdered() {
+        for (int numPartitions = 1; numPartitions <= 4; numPartitions++) {
+            ParallelAsyncDataSetIterator iterator =
+                            new ParallelAsyncDataSetIterator(getPartitions(numPartitions), 8, true);
+
+            for (int e = 0; e < 3; e++) {
+                int cnt = 0;
+                while (iterator.hasNext()) {
+                    DataSet ds = iterator.next();
+                    assertEquals("Failed on epoch " + e + ", partitions: " + numPartitions, (double) cnt,
+                                    ds.getFeatures().getDouble(0), 1e-5);
+                    cnt++;
+                }
+
+                assertEquals(TEST_SIZE, cnt);
+                iterator.reset();
+            }
+
+            assertEquals(3 * TEST_SIZE, iterator.getMetrics().getNumDelivered());
+            iterator.shutdown();
+        }
+    }
+
+    @Test
+    public void testUnordered() {
+        ParallelAsyncDataSetIterator iterator = new ParallelAsyncDataSetIterator(getPartitions(3), 6, false);
+
+        for (int e = 0; e < 3; e++) {
+            Set<Integer> seen = new HashSet<>();
+            while (iterator.hasNext())
+                assertTrue(seen.add(iterator.next().getFeatures().getInt(0)));
+
+            assertEquals(TEST_SIZE, seen.size());
+            iterator.reset();
+        }
+
+        log.info("Metrics: {}", iterator.getMetrics());
+        iterator.shutdown();
+    }
+
+    @Test
+    public void testMultiDataSet() {
+        List<MultiDataSetIterator> partitions = new ArrayList<>();
+        for (DataSetIterator iterator : getPartitions(2))
+            partitions.add(new MultiDataSetIteratorAdapter(iterator));
+
+        ParallelAsyncMultiDataSetIterator iterator = new ParallelAsyncMultiDataSetIterator(partitions, 4, true);
+
+        int cnt = 0;
+        while (iterator.hasNext()) {
+            MultiDataSet mds = iterator.next();
+            assertEquals((double) cnt, mds.getFeatures(0).getDouble(0), 1e-5);
+            cnt++;
+        }
+
+        assertEquals(TEST_SIZE, cnt);
+        iterator.shutdown();
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testWithException() {
+        List<DataSetIterator> partitions = getPartitions(2);
+        partitions.add(new ExistingDataSetIterator(new Iterator<DataSet>() {
+            private int counter = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public DataSet next() {
+                if (++counter >= 10)
+                    throw new ArrayIndexOutOfBoundsException("Thrown as expected");
+
+                return new DataSet(Nd4j.create(1, 10), Nd4j.create(1, 2));
+            }
+
+            @Override
+            public void remove() {
+
+            }
+        }));
+
+        ParallelAsyncDataSetIterator iterator = new ParallelAsyncDataSetIterator(partitions, 8, false);
+        try {
+            while (iterator.hasNext())
+                iterator.next();
+        } finally {
+            iterator.shutdown();
+        }
+    }
+}
@@ -22,12 +22,14 @@ import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.optimize.listeners.Checkpoint;
 import org.deeplearning4j.optimize.listeners.CheckpointListener;
 import org.deeplearning4j.util.ModelSerializer;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 import org.nd4j.linalg.primitives.Pair;
@@ -153,6 +155,93 @@ public class TestCheckpointListener extends BaseDL4JTest {
         assertEquals(3, l.availableCheckpoints().size());
     }
 
+    @Test
+    public void testCheckpointListenerAsyncEvery5Iter() throws Exception {
+        File f = tempDir.newFolder();
+        Pair<MultiLayerNetwork, DataSetIterator> p = getNetAndData();
+        MultiLayerNetwork net = p.getFirst();
+        DataSetIterator iter = p.getSecond();
+
+
+        CheckpointListener l = new CheckpointListener.Builder(f)
+                .keepLast(3)
+                .saveEveryNIterations(5)
+                .asyncSaving(true)
+                .maxPendingCheckpoints(2)
+                .build();
+        net.setListeners(l);
+
+        for(int i=0; i<20; i++ ){   //40 iterations total
+            net.fit(iter);
+            //Pending checkpoints must not be reported until their model file has been written
+            Checkpoint last = l.lastCheckpoint();
+            if(last != null){
+                assertTrue(new File(f, last.getFilename()).exists());
+            }
+        }
+        l.awaitPendingCheckpoints();
+        assertEquals(0, l.getNumPendingCheckpoints());
+        assertEquals(7, l.getNumCheckpointsWritten());
+
+        //Expect models saved at iterations: 5, 10, 15, 20, 25, 30, 35  (training does 0 to 39 here)
+        //But: keep only 25, 30, 35
+        File[] files = f.listFiles();
+        Set<Integer> ns = new HashSet<>();
+        for(File f2 : files){
+            assertFalse(f2.getName().endsWith(".tmp"));
+            if(!f2.getPath().endsWith(".zip")){
+                continue;
+            }
+            int prefixLength = "checkpoint_".length();
+            int num = Integer.parseInt(f2.getName().substring(prefixLength, prefixLength+1));
+
+            MultiLayerNetwork n = ModelSerializer.restoreMultiLayerNetwork(f2, true);
+            int expIter = 5 * (num+1);
+            assertEquals(expIter, n.getIterationCount());
+
+            ns.add(n.getIterationCount());
+        }
+
+        assertEquals(ns.toString(), 3, ns.size());
+        assertTrue(ns.containsAll(Arrays.asList(25, 30, 35)));
+
+        assertEquals(3, l.availableCheckpoints().size());
+        assertEquals(6, l.lastCheckpoint().getCheckpointNum());
+    }
+
+    @Test
+    public void testCheckpointListenerAsyncSnapshot() throws Exception {
+        File f = tempDir.newFolder();
+        Pair<MultiLayerNetwork, DataSetIterator> p = getNetAndData();
+        MultiLayerNetwork net = p.getFirst();
+        DataSetIterator iter = p.getSecond();
+
+
+        CheckpointListener l = new CheckpointListener.Builder(f)
+                .keepAll()
+                .saveEveryEpoch()
+                .asyncSaving(true)
+                .build();
+        net.setListeners(l);
+
+        net.fit(iter);
+        //Snapshot is taken at the end of epoch: later training shouldn't affect checkpoint content
+        INDArray paramsAtCheckpoint = net.params().dup();
+        INDArray updaterAtCheckpoint = net.getUpdater().getStateViewArray().dup();
+        net.setListeners();
+        for(int i=0; i<3; i++ ){
+            net.fit(iter);
+        }
+        l.awaitPendingCheckpoints();
+
+        MultiLayerNetwork restored = l.loadCheckpointMLN(0);
+        assertEquals(paramsAtCheckpoint, restored.params());
+        assertEquals(updaterAtCheckpoint, restored.getUpdater().getStateViewArray());
+        assertEquals(1, l.getNumCheckpointsWritten());
+        assertTrue(l.getTotalSnapshotTimeMs() >= 0);
+        assertTrue(l.getTotalWriteTimeMs() >= l.getLastWriteTimeMs());
+    }
+
     @Test
     public void testCheckpointListenerEveryTimeUnit() throws Exception {
         File f = tempDir.newFolder();
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.util;
+
+import org.deeplearning4j.BaseDL4JTest;
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.dataset.api.preprocessor.NormalizerStandardize;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class MappedModelSerializerTest extends BaseDL4JTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private static MultiLayerNetwork getNetwork() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345).updater(new Adam(0.01))
+                        .activation(Activation.TANH).weightInit(WeightInit.XAVIER).list()
+                        .layer(0, new DenseLayer.Builder().nIn(4).nOut(20).build())
+                        .layer(1, new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(20).nOut(3).build())
+                        .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
+
+    private static ComputationGraph getGraph() {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder().seed(12345)
+                        .updater(new Adam(0.01)).graphBuilder().addInputs("in")
+                        .addLayer("dense", new DenseLayer.Builder().nIn(4).nOut(5).build(), "in")
+                        .addLayer("out", new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                                        .activation(Activation.SOFTMAX).nIn(5).nOut(3).build(), "dense")
+                        .setOutputs("out").build();
+
+        ComputationGraph graph = new ComputationGraph(conf);
+        graph.init();
+        return graph;
+    }
+
+    @Test
+    public void testMappedMLN() throws Exception {
+        MultiLayerNetwork net = getNetwork();
+        DataSet ds = new IrisDataSetIterator(150, 150).next();
+        net.fit(ds);
+
+        File file = tempDir.newFile();
+        MappedModelSerializer.writeModel(net, file, true);
+        assertTrue(MappedModelSerializer.isMappedModel(file));
+
+        MultiLayerNetwork restored = MappedModelSerializer.restoreMultiLayerNetwork(file, true);
+        assertEquals(net.getLayerWiseConfigurations().toJson(), restored.getLayerWiseConfigurations().toJson());
+        assertEquals(net.params(), restored.params());
+        assertEquals(net.getUpdater().getStateViewArray(), restored.getUpdater().getStateViewArray());
+        assertEquals(net.output(ds.getFeatures()), restored.output(ds.getFeatures()));
+
+        // restored model must stay trainable, without touching the file
+        restored.fit(ds);
+        net.fit(ds);
+        assertEquals(net.params(), restored.params());
+
+        MultiLayerNetwork again = ModelSerializer.restoreMultiLayerNetwork(file, false);
+        assertNotEquals(restored.params(), again.params());
+        assertEquals(MappedModelSerializer.restoreMultiLayerNetwork(file, false).params(), again.params());
+    }
+
+    @Test
+    public void testMappedMLNNoUpdater() throws Exception {
+        MultiLayerNetwork net = getNetwork();
+
+        File file = tempDir.newFile();
+        MappedModelSerializer.writeModel(net, file, false);
+
+        MultiLayerNetwork restored = ModelSerializer.restoreMultiLayerNetwork(file);
+        assertEquals(net.params(), restored.params());
+    }
+
+    @Test
+    public void testMappedCG() throws Exception {
+        ComputationGraph graph = getGraph();
+        DataSet ds = new IrisDataSetIterator(150, 150).next();
+        graph.fit(ds);
+
+        File file = tempDir.newFile();
+        MappedModelSerializer.writeModel(graph, file, true);
+
+        ComputationGraph restored = ModelSerializer.restoreComputationGraph(file, true);
+        assertEquals(graph.getConfiguration().toJson(), restored.getConfiguration().toJson());
+        assertEquals(graph.params(), restored.params());
+        assertEquals(graph.getUpdater().getStateViewArray(), restored.getUpdater().getStateViewArray());
+        assertEquals(graph.outputSingle(ds.getFeatures()), restored.outputSingle(ds.getFeatures()));
+    }
+
+    @Test
+    public void testMappedNormalizer() throws Exception {
+        DataSetIterator iter = new IrisDataSetIterator(150, 150);
+        NormalizerStandardize normalizer = new NormalizerStandardize();
+        normalizer.fit(iter);
+
+        File file = tempDir.newFile();
+        MappedModelSerializer.writeModel(getNetwork(), file, true, normalizer);
+
+        NormalizerStandardize restored = ModelSerializer.restoreNormalizerFromFile(file);
+        assertEquals(normalizer.getMean(), restored.getMean());
+        assertEquals(normalizer.getStd(), restored.getStd());
+
+        File noNormalizer = tempDir.newFile();
+        MappedModelSerializer.writeModel(getNetwork(), noNormalizer, true);
+        assertNull(MappedModelSerializer.restoreNormalizer(noNormalizer));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWrongModelType() throws Exception {
+        File file = tempDir.newFile();
+        MappedModelSerializer.writeModel(getGraph(), file, false);
+        MappedModelSerializer.restoreMultiLayerNetwork(file, false);
+    }
+
+    @Test
+    public void testZipModelIsNotMapped() throws Exception {
+        File file = tempDir.newFile();
+        ModelSerializer.writeModel(getNetwork(), file, true);
+        assertFalse(MappedModelSerializer.isMappedModel(file));
+    }
+}
@@ -39,8 +39,6 @@ import org.nd4j.linalg.dataset.api.MultiDataSet;
 import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
 import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
 import org.nd4j.linalg.factory.Nd4j;
-import org.nd4j.linalg.indexing.INDArrayIndex;
-import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.primitives.Pair;
 
 import java.io.IOException;
@@ -415,13 +413,19 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
         }
 
         val n = arr.size(0);
-        INDArray out = Nd4j.create(n, details.oneHotNumClasses);
+        WritableBatchBuffer out = new WritableBatchBuffer('c', n, details.oneHotNumClasses);
+        int[] classes = arr.dup('c').data().asInt();
         for (int i = 0; i < n; i++) {
-            int v = arr.getInt(i, 0);
-            out.putScalar(i, v, 1.0);
+            int classIdx = classes[i];
+            if (classIdx >= details.oneHotNumClasses || classIdx < 0) {
+                throw new IllegalStateException("Cannot convert sequence writables to one-hot: class index " + classIdx
+                                + " >= numClass (" + details.oneHotNumClasses + "). (Note that classes are zero-" +
+                        "indexed, thus only values 0 to nClasses-1 are valid)");
+            }
+            out.put(i * details.oneHotNumClasses + classIdx, 1.0);
         }
 
-        return out;
+        return out.build();
     }
 
     private int countLength(List<Writable> list) {
@@ -462,113 +466,88 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
     }
 
     private INDArray convertWritablesHelper(List<List<Writable>> list, int minValues, SubsetDetails details) {
-        INDArray arr;
-        if (details.entireReader) {
-            if (list.get(0).size() == 1 && list.get(0).get(0) instanceof NDArrayWritable) {
-                //Special case: single NDArrayWritable...
-                INDArray temp = ((NDArrayWritable) list.get(0).get(0)).get();
-                val shape = ArrayUtils.clone(temp.shape());
-                shape[0] = minValues;
-                arr = Nd4j.create(shape);
-            } else {
-                arr = Nd4j.create(minValues, countLength(list.get(0)));
+        if (details.oneHot) {
+            //Convert a single column to a one-hot representation
+            WritableBatchBuffer buffer = new WritableBatchBuffer('c', minValues, details.oneHotNumClasses);
+            for (int i = 0; i < minValues; i++) {
+                Writable w = list.get(i).get(details.subsetStart);
+                //Index of class
+                int classIdx = w.toInt();
+                if (classIdx >= details.oneHotNumClasses || classIdx < 0) {
+                    throw new IllegalStateException("Cannot convert sequence writables to one-hot: class index " + classIdx
+                                    + " >= numClass (" + details.oneHotNumClasses + "). (Note that classes are zero-" +
+                            "indexed, thus only values 0 to nClasses-1 are valid)");
+                }
+                buffer.put(i * details.oneHotNumClasses + classIdx, 1.0);
             }
-        } else if (details.oneHot) {
-            arr = Nd4j.zeros(minValues, details.oneHotNumClasses);
-        } else {
-            if (details.subsetStart == details.subsetEndInclusive
-                            && list.get(0).get(details.subsetStart) instanceof NDArrayWritable) {
-                //Special case: single NDArrayWritable (example: ImageRecordReader)
-                INDArray temp = ((NDArrayWritable) list.get(0).get(details.subsetStart)).get();
-                val shape = ArrayUtils.clone(temp.shape());
-                shape[0] = minValues;
-                arr = Nd4j.create(shape);
-            } else {
-                //Need to check for multiple NDArrayWritables, or mixed NDArrayWritable + DoubleWritable etc
-                int length = countLength(list.get(0), details.subsetStart, details.subsetEndInclusive);
-                arr = Nd4j.create(minValues, length);
+            return buffer.build();
+        }
+
+        //Convert entire reader contents without modification, or a subset of the columns
+        int from = details.entireReader ? 0 : details.subsetStart;
+        int to = details.entireReader ? list.get(0).size() - 1 : details.subsetEndInclusive;
+
+        if (from == to && list.get(0).get(from) instanceof NDArrayWritable) {
+            //Special case: single NDArrayWritable (example: ImageRecordReader)
+            INDArray temp = ((NDArrayWritable) list.get(0).get(from)).get();
+            val shape = ArrayUtils.clone(temp.shape());
+            shape[0] = minValues;
+            WritableBatchBuffer buffer = new WritableBatchBuffer('c', shape);
+            int exampleLength = buffer.length() / minValues;
+            for (int i = 0; i < minValues; i++) {
+                INDArray example = ((NDArrayWritable) list.get(i).get(from)).get();
+                checkExampleShape(shape, example);
+                buffer.put(i * exampleLength, 1, example);
             }
+            return buffer.build();
         }
 
+        //Need to check for multiple NDArrayWritables, or mixed NDArrayWritable + DoubleWritable etc
+        int length = countLength(list.get(0), from, to);
+        WritableBatchBuffer buffer = new WritableBatchBuffer('c', minValues, length);
         for (int i = 0; i < minValues; i++) {
             List<Writable> c = list.get(i);
-            if (details.entireReader) {
-                //Convert entire reader contents, without modification
-                INDArray converted = RecordConverter.toArray(c);
-                putExample(arr, converted, i);
-            } else if (details.oneHot) {
-                //Convert a single column to a one-hot representation
-                Writable w = c.get(details.subsetStart);
-                //Index of class
-                int classIdx = w.toInt();
-                if (classIdx >= details.oneHotNumClasses) {
-                    throw new IllegalStateException("Cannot convert sequence writables to one-hot: class index " + classIdx
-                                    + " >= numClass (" + details.oneHotNumClasses + "). (Note that classes are zero-" +
-                            "indexed, thus only values 0 to nClasses-1 are valid)");
+            Iterator<Writable> iter = c.iterator();
+            for (int j = 0; j < from; j++)
+                iter.next();
+
+            int last = details.entireReader ? c.size() - 1 : to;
+            int offset = i * length;
+            int k = 0;
+            for (int j = from; j <= last; j++) {
+                Writable w = iter.next();
+                int size = w instanceof NDArrayWritable ? (int) ((NDArrayWritable) w).get().length() : 1;
+                if (k + size > length) {
+                    throw new IllegalStateException("Cannot convert writables: record " + i + " has more values"
+                                    + " than expected (" + length + " based on the first record in the minibatch)");
                 }
-                arr.putScalar(i, w.toInt(), 1.0);
-            } else {
-                //Convert a subset of the columns
 
-                //Special case: subsetStart == subsetEndInclusive && NDArrayWritable. Example: ImageRecordReader
-                if (details.subsetStart == details.subsetEndInclusive
-                                && (c.get(details.subsetStart) instanceof NDArrayWritable)) {
-                    putExample(arr, ((NDArrayWritable) c.get(details.subsetStart)).get(), i);
+                if (w instanceof NDArrayWritable) {
+                    k += buffer.put(offset + k, 1, ((NDArrayWritable) w).get());
                 } else {
-
-                    Iterator<Writable> iter = c.iterator();
-                    for (int j = 0; j < details.subsetStart; j++)
-                        iter.next();
-                    int k = 0;
-                    for (int j = details.subsetStart; j <= details.subsetEndInclusive; j++) {
-                        Writable w = iter.next();
-
-                        if (w instanceof NDArrayWritable) {
-                            INDArray toPut = ((NDArrayWritable) w).get();
-                            arr.put(new INDArrayIndex[] {NDArrayIndex.point(i),
-                                            NDArrayIndex.interval(k, k + toPut.length())}, toPut);
-                            k += toPut.length();
-                        } else {
-                            arr.putScalar(i, k, w.toDouble());
-                            k++;
-                        }
-                    }
+                    buffer.put(offset + k, w);
+                    k++;
                 }
             }
+
+            if (k != length) {
+                throw new IllegalStateException("Cannot convert writables: record " + i + " has " + k + " values,"
+                                + " expected " + length + " based on the first record in the minibatch");
+            }
         }
 
-        return arr;
+        return buffer.build();
     }
 
-    private void putExample(INDArray arr, INDArray singleExample, int exampleIdx) {
-        Preconditions.checkState(singleExample.size(0) == 1 && singleExample.rank() == arr.rank(), "Cannot put array: array should have leading dimension of 1 " +
-                "and equal rank to output array. Attempting to put array of shape %s into output array of shape %s", singleExample.shape(), arr.shape());
-
-        long[] arrShape = arr.shape();
+    private void checkExampleShape(long[] arrShape, INDArray singleExample) {
         long[] singleShape = singleExample.shape();
-        for( int i=1; i<arr.rank(); i++ ){
+        Preconditions.checkState(singleShape[0] == 1 && singleShape.length == arrShape.length, "Cannot put array: array should have leading dimension of 1 " +
+                "and equal rank to output array. Attempting to put array of shape %s into output array of shape %s", singleShape, arrShape);
+
+        for( int i=1; i<arrShape.length; i++ ){
             Preconditions.checkState(arrShape[i] == singleShape[i], "Single example array and output arrays differ at position %s:" +
                     "single example shape %s, output array shape %s", i, singleShape, arrShape);
         }
-        switch (arr.rank()) {
-            case 2:
-                arr.put(new INDArrayIndex[] {NDArrayIndex.point(exampleIdx), NDArrayIndex.all()}, singleExample);
-                break;
-            case 3:
-                arr.put(new INDArrayIndex[] {NDArrayIndex.point(exampleIdx), NDArrayIndex.all(), NDArrayIndex.all()},
-                                singleExample);
-                break;
-            case 4:
-                arr.put(new INDArrayIndex[] {NDArrayIndex.point(exampleIdx), NDArrayIndex.all(), NDArrayIndex.all(),
-                                NDArrayIndex.all()}, singleExample);
-                break;
-            case 5:
-                arr.put(new INDArrayIndex[] {NDArrayIndex.point(exampleIdx), NDArrayIndex.all(), NDArrayIndex.all(),
-                        NDArrayIndex.all(), NDArrayIndex.all()}, singleExample);
-                break;
-            default:
-                throw new RuntimeException("Unexpected array rank: " + arr.rank() + " with shape " + Arrays.toString(arr.shape()) + " input arrays should be rank 2 to 5 inclusive");
-        }
     }
 
     /**
@@ -578,7 +557,6 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
                     int maxTSLength, SubsetDetails details, int[] longestSequence, long rngSeed) {
         if (maxTSLength == -1)
             maxTSLength = list.get(0).size();
-        INDArray arr;
 
         if (list.get(0).isEmpty()) {
             throw new ZeroLengthSequenceException("Zero length sequence encountered");
@@ -609,7 +587,10 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
                 }
             }
         }
-        arr = Nd4j.create(new int[] {minValues, size, maxTSLength}, 'f');
+        //'f' order: flat offset of [i, j, k] is i + minValues * j + minValues * size * k
+        WritableBatchBuffer arr = new WritableBatchBuffer('f', minValues, size, maxTSLength);
+        int featureStride = minValues;
+        int timeStride = minValues * size;
 
         boolean needMaskArray = false;
         for (List<List<Writable>> c : list) {
@@ -623,9 +604,10 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
                                             + "encountered. Use AlignmentMode.ALIGN_START or AlignmentMode.ALIGN_END with variable length data");
         }
 
-        INDArray maskArray;
+        WritableBatchBuffer maskArray;
         if (needMaskArray) {
-            maskArray = Nd4j.ones(minValues, maxTSLength);
+            maskArray = new WritableBatchBuffer('c', minValues, maxTSLength);
+            maskArray.fill(1.0);
         } else {
             maskArray = null;
         }
@@ -658,56 +640,40 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
             int k;
             for (List<Writable> timeStep : sequence) {
                 k = startOffset + t++;
+                int offset = i + k * timeStride;
 
-                if (details.entireReader) {
-                    //Convert entire reader contents, without modification
-                    Iterator<Writable> iter = timeStep.iterator();
-                    int j = 0;
-                    while (iter.hasNext()) {
-                        Writable w = iter.next();
-
-                        if (w instanceof NDArrayWritable) {
-                            INDArray row = ((NDArrayWritable) w).get();
-
-                            arr.put(new INDArrayIndex[] {NDArrayIndex.point(i),
-                                            NDArrayIndex.interval(j, j + row.length()), NDArrayIndex.point(k)}, row);
-                            j += row.length();
-                        } else {
-                            arr.putScalar(i, j, k, w.toDouble());
-                            j++;
-                        }
-                    }
-                } else if (details.oneHot) {
+                if (details.oneHot) {
                     //Convert a single column to a one-hot representation
-                    Writable w = null;
-                    if (timeStep instanceof List)
-                        w = timeStep.get(details.subsetStart);
-                    else {
-                        Iterator<Writable> iter = timeStep.iterator();
-                        for (int x = 0; x <= details.subsetStart; x++)
-                            w = iter.next();
-                    }
+                    Writable w = timeStep.get(details.subsetStart);
                     int classIdx = w.toInt();
-                    if (classIdx >= details.oneHotNumClasses) {
+                    if (classIdx >= details.oneHotNumClasses || classIdx < 0) {
                         throw new IllegalStateException("Cannot convert sequence writables to one-hot: class index " + classIdx
                                         + " >= numClass (" + details.oneHotNumClasses + "). (Note that classes are zero-" +
                                 "indexed, thus only values 0 to nClasses-1 are valid)");
                     }
-                    arr.putScalar(i, classIdx, k, 1.0);
+                    arr.put(offset + classIdx * featureStride, 1.0);
                 } else {
-                    //Convert a subset of the columns...
+                    //Convert entire reader contents without modification, or a subset of the columns
+                    Iterator<Writable> iter = timeStep.iterator();
+                    int from = details.entireReader ? 0 : details.subsetStart;
+                    int to = details.entireReader ? timeStep.size() - 1 : details.subsetEndInclusive;
+                    for (int j = 0; j < from; j++)
+                        iter.next();
+
                     int l = 0;
-                    for (int j = details.subsetStart; j <= details.subsetEndInclusive; j++) {
-                        Writable w = timeStep.get(j);
+                    for (int j = from; j <= to; j++) {
+                        Writable w = iter.next();
+                        int length = w instanceof NDArrayWritable ? (int) ((NDArrayWritable) w).get().length() : 1;
+                        if (l + length > size) {
+                            throw new IllegalStateException("Cannot convert sequence writables: time step " + (t - 1)
+                                            + " of sequence " + i + " has more values than expected (" + size
+                                            + " based on the first time step in the minibatch)");
+                        }
 
                         if (w instanceof NDArrayWritable) {
-                            INDArray row = ((NDArrayWritable) w).get();
-                            arr.put(new INDArrayIndex[] {NDArrayIndex.point(i),
-                                            NDArrayIndex.interval(l, l + row.length()), NDArrayIndex.point(k)}, row);
-
-                            l += row.length();
+                            l += arr.put(offset + l * featureStride, featureStride, ((NDArrayWritable) w).get());
                         } else {
-                            arr.putScalar(i, l++, k, w.toDouble());
+                            arr.put(offset + (l++) * featureStride, w);
                         }
                     }
                 }
@@ -718,7 +684,7 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
                 //Masking array entries at start (for align end)
                 if (timeSeriesRandomOffset || alignmentMode == AlignmentMode.ALIGN_END) {
                     for (int t2 = 0; t2 < startOffset; t2++) {
-                        maskArray.putScalar(i, t2, 0.0);
+                        maskArray.put(i * maxTSLength + t2, 0.0);
                     }
                 }
 
@@ -726,13 +692,13 @@ public class RecordReaderMultiDataSetIterator implements MultiDataSetIterator, S
                 int lastStep = startOffset + sequence.size();
                 if (timeSeriesRandomOffset || alignmentMode == AlignmentMode.ALIGN_START || lastStep < maxTSLength) {
                     for (int t2 = lastStep; t2 < maxTSLength; t2++) {
-                        maskArray.putScalar(i, t2, 0.0);
+                        maskArray.put(i * maxTSLength + t2, 0.0);
                     }
                 }
             }
         }
 
-        return new Pair<>(arr, maskArray);
+        return new Pair<>(arr.build(), maskArray == null ? null : maskArray.build());
     }
 
     @Override
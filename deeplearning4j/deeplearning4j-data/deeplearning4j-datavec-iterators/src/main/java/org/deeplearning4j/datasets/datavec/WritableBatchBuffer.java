@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.datasets.datavec;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.datavec.api.writable.*;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.ArrayUtil;
+
+import java.util.Arrays;
+
+/**
+ * Primitive buffer used to assemble minibatch arrays out of {@link Writable}s.<br>
+ * Values are written directly into a float[] or double[] (depending on {@link Nd4j#dataType()}) using flat offsets,
+ * and the INDArray is created in one shot in {@link #build()} - so converting a record doesn't involve an op call per value.
+ */
+public class WritableBatchBuffer {
+    @Getter
+    private final long[] shape;
+    @Getter
+    private final char order;
+    private final float[] floats;
+    private final double[] doubles;
+
+    /**
+     * @param order ordering of the resulting array, 'c' or 'f'
+     * @param shape shape of the resulting array
+     */
+    public WritableBatchBuffer(char order, @NonNull long... shape) {
+        this.order = order;
+        this.shape = shape;
+
+        long length = ArrayUtil.prodLong(shape);
+        if (length > Integer.MAX_VALUE)
+            throw new IllegalStateException("Can't allocate array of shape " + Arrays.toString(shape)
+                            + ": length exceeds Integer.MAX_VALUE");
+
+        if (Nd4j.dataType() == DataBuffer.Type.DOUBLE) {
+            doubles = new double[(int) length];
+            floats = null;
+        } else {
+            floats = new float[(int) length];
+            doubles = null;
+        }
+    }
+
+    /**
+     * @return total number of elements in this buffer
+     */
+    public int length() {
+        return floats != null ? floats.length : doubles.length;
+    }
+
+    /**
+     * Fills the whole buffer with the given value
+     */
+    public void fill(double value) {
+        if (floats != null)
+            Arrays.fill(floats, (float) value);
+        else
+            Arrays.fill(doubles, value);
+    }
+
+    /**
+     * Puts a single value at the given flat offset
+     */
+    public void put(int offset, double value) {
+        if (floats != null)
+            floats[offset] = (float) value;
+        else
+            doubles[offset] = value;
+    }
+
+    /**
+     * Puts value of a single (non-NDArrayWritable) writable at the given flat offset.
+     * Numeric writables are read without intermediate conversions.
+     */
+    public void put(int offset, Writable w) {
+        if (floats != null) {
+            if (w instanceof FloatWritable)
+                floats[offset] = ((FloatWritable) w).get();
+            else if (w instanceof IntWritable)
+                floats[offset] = ((IntWritable) w).get();
+            else
+                floats[offset] = (float) w.toDouble();
+        } else {
+            if (w instanceof DoubleWritable)
+                doubles[offset] = ((DoubleWritable) w).get();
+            else if (w instanceof IntWritable)
+                doubles[offset] = ((IntWritable) w).get();
+            else
+                doubles[offset] = w.toDouble();
+        }
+    }
+
+    /**
+     * Copies all elements of the source array (in 'c' order), into positions offset, offset + stride, offset + 2*stride, ...
+     *
+     * @return number of elements copied
+     */
+    public int put(int offset, int stride, @NonNull INDArray source) {
+        int length = (int) source.length();
+        if (source.isView() || source.ordering() != 'c' || source.data().length() != length)
+            source = source.dup('c');
+
+        if (floats != null) {
+            float[] values = source.data().asFloat();
+            if (stride == 1) {
+                System.arraycopy(values, 0, floats, offset, length);
+            } else {
+                for (int e = 0; e < length; e++)
+                    floats[offset + e * stride] = values[e];
+            }
+        } else {
+            double[] values = source.data().asDouble();
+            if (stride == 1) {
+                System.arraycopy(values, 0, doubles, offset, length);
+            } else {
+                for (int e = 0; e < length; e++)
+                    doubles[offset + e * stride] = values[e];
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Creates INDArray out of this buffer
+     */
+    public INDArray build() {
+        if (floats != null)
+            return Nd4j.create(floats, shape, order);
+        else
+            return Nd4j.create(doubles, shape, order);
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.deeplearning4j.datasets.iterator;
 
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.deeplearning4j.datasets.iterator.callbacks.DataSetCallback;
@@ -63,6 +64,9 @@ public class AsyncDataSetIterator implements DataSetIterator {
     protected Integer deviceId;
     protected AtomicBoolean hasDepleted = new AtomicBoolean(false);
 
+    @Getter
+    protected PrefetchMetrics metrics = new PrefetchMetrics();
+
     protected DataSetCallback callback;
 
     protected AsyncDataSetIterator() {
@@ -327,13 +331,20 @@ public class AsyncDataSetIterator implements DataSetIterator {
                 return false;
 
 
-            nextElement = buffer.take();
+            int depth = buffer.size();
+            nextElement = buffer.poll();
+            if (nextElement == null) {
+                long time = System.nanoTime();
+                nextElement = buffer.take();
+                metrics.recordStarvation(System.nanoTime() - time);
+            }
 
             if (nextElement == terminator) {
                 hasDepleted.set(true);
                 return false;
             }
 
+            metrics.recordDelivery(Math.max(1, depth));
             return true;
         } catch (Exception e) {
             log.error("Premature end of loop!");
@@ -431,8 +442,11 @@ public class AsyncDataSetIterator implements DataSetIterator {
                     // we want to ensure underlying iterator finished dataset creation
                     Nd4j.getExecutioner().commit();
 
-                    if (smth != null)
+                    if (smth != null && !queue.offer(smth)) {
+                        long time = System.nanoTime();
                         queue.put(smth);
+                        metrics.recordProducerBlocked(System.nanoTime() - time);
+                    }
 
                 }
                 queue.put(terminator);
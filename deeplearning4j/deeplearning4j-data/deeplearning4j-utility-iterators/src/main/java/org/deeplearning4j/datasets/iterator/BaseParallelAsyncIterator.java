@@ -0,0 +1,389 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.datasets.iterator;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.ResetPolicy;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Base class for async iterators with multiple producer threads.<br>
+ * Each producer thread owns one partition (underlying iterator) and its own cyclic workspace, and prefetches into its own
+ * bounded queue. Consumer either takes batches from partitions in round-robin order (ordered delivery: deterministic,
+ * and if partition i holds elements i, i + N, i + 2N, ... of the original stream, the original order is preserved), or
+ * takes whichever batch is ready first (unordered delivery).
+ *
+ * @param <T> type of the prefetched elements
+ * @param <I> type of the partition iterators
+ */
+@Slf4j
+public abstract class BaseParallelAsyncIterator<T, I extends Iterator<T>> {
+    protected final List<I> partitions;
+    protected final List<BlockingQueue<T>> queues = new ArrayList<>();
+    protected final T terminator;
+    protected final boolean ordered;
+    protected final boolean useWorkspaces;
+    protected final int queueSizePerProducer;
+    protected final Integer deviceId;
+    protected final String workspaceId;
+
+    @Getter
+    protected final PrefetchMetrics metrics = new PrefetchMetrics();
+
+    // number of elements available in queues, used for unordered delivery only
+    protected final Semaphore available = new Semaphore(0);
+    protected final AtomicBoolean shouldWork = new AtomicBoolean(true);
+    protected volatile RuntimeException throwable = null;
+
+    protected List<ProducerThread> producers = new ArrayList<>();
+    protected boolean[] depleted;
+    protected int numDepleted;
+    protected int cursor;
+    protected T nextElement;
+
+    /**
+     * @param partitions     underlying iterators, one per producer thread. Partitions must be independent of each other
+     * @param terminator     element used to signal end of partition, never returned to the caller
+     * @param queueSize      total number of elements to prefetch, split evenly between producers (2 per producer minimum)
+     * @param ordered        if true, elements are delivered in round-robin order over partitions. Otherwise, in order of availability
+     * @param useWorkspaces  if true, each producer uses its own cyclic workspace
+     * @param deviceId       device to attach producer threads to
+     */
+    protected BaseParallelAsyncIterator(@NonNull List<I> partitions, @NonNull T terminator, int queueSize,
+                    boolean ordered, boolean useWorkspaces, Integer deviceId) {
+        if (partitions.isEmpty())
+            throw new IllegalArgumentException("At least one partition is required");
+
+        this.partitions = new ArrayList<>(partitions);
+        this.terminator = terminator;
+        this.ordered = ordered;
+        this.useWorkspaces = useWorkspaces;
+        this.deviceId = deviceId;
+        this.queueSizePerProducer = Math.max(2, queueSize / partitions.size());
+        this.workspaceId = "PADSI_ITER-" + java.util.UUID.randomUUID().toString();
+
+        for (int i = 0; i < partitions.size(); i++)
+            queues.add(new ArrayBlockingQueue<T>(queueSizePerProducer));
+    }
+
+    /**
+     * Applies callback (if any) to the freshly produced element, within producer thread
+     */
+    protected abstract void callback(T element);
+
+    /**
+     * Resets given partition, and callback (if any)
+     */
+    protected abstract void resetPartition(I partition);
+
+    protected void startProducers() {
+        depleted = new boolean[partitions.size()];
+        numDepleted = 0;
+        cursor = 0;
+        nextElement = null;
+        shouldWork.set(true);
+
+        producers = new ArrayList<>();
+        for (int i = 0; i < partitions.size(); i++) {
+            I partition = partitions.get(i);
+            if (partition.hasNext() == false && resetSupported())
+                resetPartition(partition);
+
+            ProducerThread thread = new ProducerThread(i, partition, queues.get(i));
+
+            /**
+             * We want to ensure, that background threads will have the same thread->device affinity, as master thread
+             */
+            Nd4j.getAffinityManager().attachThreadToDevice(thread, deviceId);
+            thread.setDaemon(true);
+            thread.start();
+            producers.add(thread);
+        }
+    }
+
+    protected void stopProducers() {
+        shouldWork.set(false);
+        for (ProducerThread thread : producers)
+            thread.interrupt();
+
+        try {
+            for (ProducerThread thread : producers)
+                thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        for (ProducerThread thread : producers)
+            thread.shutdown();
+
+        for (BlockingQueue<T> queue : queues)
+            queue.clear();
+        available.drainPermits();
+        producers.clear();
+    }
+
+    /**
+     * @return true, if all partitions support reset
+     */
+    public abstract boolean resetSupported();
+
+    /**
+     * @return number of producer threads
+     */
+    public int getNumProducers() {
+        return partitions.size();
+    }
+
+    /**
+     * @return number of elements currently prefetched and waiting for consumer
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (BlockingQueue<T> queue : queues)
+            depth += queue.size();
+        return depth;
+    }
+
+    public boolean hasNext() {
+        if (throwable != null)
+            throw throwable;
+
+        if (nextElement != null)
+            return true;
+
+        try {
+            while (numDepleted < partitions.size()) {
+                int depth = getQueueDepth();
+                T element = ordered ? takeOrdered() : takeUnordered();
+
+                if (throwable != null)
+                    throw throwable;
+
+                if (element == terminator)
+                    continue;
+
+                metrics.recordDelivery(Math.max(1, depth));
+                nextElement = element;
+                return true;
+            }
+
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        T temp = nextElement;
+        nextElement = null;
+        return temp;
+    }
+
+    protected T takeOrdered() throws InterruptedException {
+        int p = cursor;
+        BlockingQueue<T> queue = queues.get(p);
+        T element = queue.poll();
+        if (element == null) {
+            long time = System.nanoTime();
+            element = queue.take();
+            metrics.recordStarvation(System.nanoTime() - time);
+        }
+
+        if (element == terminator)
+            markDepleted(p);
+
+        advanceCursor(p);
+        return element;
+    }
+
+    protected T takeUnordered() throws InterruptedException {
+        if (!available.tryAcquire()) {
+            long time = System.nanoTime();
+            available.acquire();
+            metrics.recordStarvation(System.nanoTime() - time);
+        }
+
+        // every permit corresponds to exactly one element in one of the queues
+        int n = partitions.size();
+        for (int i = 0; i < n; i++) {
+            int p = (cursor + i) % n;
+            if (depleted[p])
+                continue;
+
+            T element = queues.get(p).poll();
+            if (element != null) {
+                if (element == terminator)
+                    markDepleted(p);
+
+                advanceCursor(p);
+                return element;
+            }
+        }
+
+        throw new IllegalStateException("Element was signalled as available, but all queues are empty");
+    }
+
+    private void markDepleted(int p) {
+        depleted[p] = true;
+        numDepleted++;
+    }
+
+    private void advanceCursor(int p) {
+        int n = partitions.size();
+        for (int i = 1; i <= n; i++) {
+            int c = (p + i) % n;
+            if (!depleted[c]) {
+                cursor = c;
+                return;
+            }
+        }
+    }
+
+    protected void externalCall() {
+        // for spark
+    }
+
+    protected class ProducerThread extends Thread implements Runnable {
+        private final I iterator;
+        private final BlockingQueue<T> queue;
+        private boolean isShutdown = false; // locked around `this`
+        private WorkspaceConfiguration configuration = WorkspaceConfiguration.builder().minSize(10 * 1024L * 1024L)
+                        .overallocationLimit(queueSizePerProducer + 1).policyReset(ResetPolicy.ENDOFBUFFER_REACHED)
+                        .policyLearning(LearningPolicy.FIRST_LOOP).policyAllocation(AllocationPolicy.OVERALLOCATE)
+                        .policySpill(SpillPolicy.REALLOCATE).build();
+
+        private MemoryWorkspace workspace;
+
+        protected ProducerThread(int producerId, @NonNull I iterator, @NonNull BlockingQueue<T> queue) {
+            this.iterator = iterator;
+            this.queue = queue;
+
+            this.setDaemon(true);
+            this.setName("PADSI prefetch thread " + producerId);
+        }
+
+        @Override
+        public void run() {
+            externalCall();
+            boolean interrupted = false;
+            try {
+                if (useWorkspaces)
+                    workspace = Nd4j.getWorkspaceManager().getWorkspaceForCurrentThread(configuration, workspaceId);
+
+                while (shouldWork.get() && iterator.hasNext()) {
+                    T smth = null;
+
+                    if (useWorkspaces) {
+                        try (MemoryWorkspace ws = workspace.notifyScopeEntered()) {
+                            smth = iterator.next();
+                            callback(smth);
+                        }
+                    } else {
+                        smth = iterator.next();
+                        callback(smth);
+                    }
+
+                    // we want to ensure underlying iterator finished dataset creation
+                    Nd4j.getExecutioner().commit();
+
+                    if (smth != null)
+                        enqueue(smth);
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (RuntimeException e) {
+                fail(e);
+            } catch (Exception e) {
+                fail(new RuntimeException(e));
+            }
+
+            try {
+                // terminator is sent on errors as well, so consumer never waits for element that won't be produced
+                if (!interrupted)
+                    enqueue(terminator);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } finally {
+                if (interrupted)
+                    Thread.currentThread().interrupt();
+
+                synchronized (this) {
+                    isShutdown = true;
+                    this.notifyAll();
+                }
+            }
+        }
+
+        private void fail(RuntimeException e) {
+            log.error("Prefetch thread failed", e);
+            if (throwable == null)
+                throwable = e;
+            shouldWork.set(false);
+        }
+
+        private void enqueue(T element) throws InterruptedException {
+            if (!queue.offer(element)) {
+                long time = System.nanoTime();
+                queue.put(element);
+                metrics.recordProducerBlocked(System.nanoTime() - time);
+            }
+
+            if (!ordered)
+                available.release();
+        }
+
+        public void shutdown() {
+            synchronized (this) {
+                while (!isShutdown) {
+                    try {
+                        this.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    }
+                }
+            }
+
+            if (workspace != null) {
+                log.debug("Manually destroying PADSI workspace");
+                workspace.destroyWorkspace(true);
+                workspace = null;
+            }
+        }
+    }
+}
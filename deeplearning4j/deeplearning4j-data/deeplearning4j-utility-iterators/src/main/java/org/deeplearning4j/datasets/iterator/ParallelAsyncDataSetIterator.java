@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.datasets.iterator;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.datasets.iterator.callbacks.DataSetCallback;
+import org.deeplearning4j.datasets.iterator.callbacks.DefaultCallback;
+import org.deeplearning4j.datasets.iterator.callbacks.FileCallback;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Async prefetching iterator with multiple producer threads, for DataSetIterators doing heavy work in next() (image
+ * decoding, CSV parsing, DataVec transforms etc), where a single {@link AsyncDataSetIterator} thread becomes a bottleneck.<br>
+ * Data is pulled from independent partitions (i.e. {@link FileSplitDataSetIterator}s over disjoint lists of files), one
+ * producer thread per partition, each one with its own cyclic workspace.<br>
+ * <br>
+ * With ordered delivery, partitions are consumed in round-robin order - so results are deterministic, and if partition i
+ * holds elements i, i + N, i + 2N, ... of the original data (see {@link #fromFiles(List, FileCallback, int, int, boolean)})
+ * the original order is preserved. With unordered delivery, whichever batch is ready first is returned.<br>
+ * <br>
+ * Use {@link #getMetrics()} to check whether training is waiting on data.
+ */
+@Slf4j
+public class ParallelAsyncDataSetIterator extends BaseParallelAsyncIterator<DataSet, DataSetIterator>
+                implements DataSetIterator {
+    protected DataSetCallback callback;
+
+    /**
+     * Create iterator with ordered delivery, and default queue size of 4 per partition
+     *
+     * @param partitions underlying iterators, one per producer thread
+     */
+    public ParallelAsyncDataSetIterator(@NonNull List<DataSetIterator> partitions) {
+        this(partitions, 4 * partitions.size(), true);
+    }
+
+    /**
+     * @param partitions underlying iterators, one per producer thread
+     * @param queueSize  total number of DataSets to prefetch, over all producers
+     * @param ordered    if true, partitions are consumed in round-robin order. Otherwise, in order of availability
+     */
+    public ParallelAsyncDataSetIterator(@NonNull List<DataSetIterator> partitions, int queueSize, boolean ordered) {
+        this(partitions, queueSize, ordered, true, new DefaultCallback(),
+                        Nd4j.getAffinityManager().getDeviceForCurrentThread());
+    }
+
+    /**
+     * @param partitions   underlying iterators, one per producer thread
+     * @param queueSize    total number of DataSets to prefetch, over all producers
+     * @param ordered      if true, partitions are consumed in round-robin order. Otherwise, in order of availability
+     * @param useWorkspace if true, each producer thread will use its own cyclic workspace
+     * @param callback     callback to apply to DataSets within producer threads. May be null
+     * @param deviceId     device to attach producer threads to
+     */
+    public ParallelAsyncDataSetIterator(@NonNull List<DataSetIterator> partitions, int queueSize, boolean ordered,
+                    boolean useWorkspace, DataSetCallback callback, Integer deviceId) {
+        super(partitions, new DataSet(), queueSize, ordered, useWorkspace, deviceId);
+        this.callback = callback;
+
+        startProducers();
+    }
+
+    /**
+     * Creates iterator over a list of files: file i goes to partition (i % numThreads), so ordered delivery preserves
+     * the order of files
+     *
+     * @param files      files to iterate over
+     * @param callback   callback for loading the files
+     * @param numThreads number of producer threads
+     * @param queueSize  total number of DataSets to prefetch, over all producers
+     * @param ordered    if true, DataSets are returned in the order of files. Otherwise, in order of availability
+     */
+    public static ParallelAsyncDataSetIterator fromFiles(@NonNull List<File> files, @NonNull FileCallback callback,
+                    int numThreads, int queueSize, boolean ordered) {
+        numThreads = Math.max(1, Math.min(numThreads, files.size()));
+        List<List<File>> split = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++)
+            split.add(new ArrayList<File>());
+
+        for (int i = 0; i < files.size(); i++)
+            split.get(i % numThreads).add(files.get(i));
+
+        List<DataSetIterator> partitions = new ArrayList<>();
+        for (List<File> part : split)
+            partitions.add(new FileSplitDataSetIterator(part, callback));
+
+        return new ParallelAsyncDataSetIterator(partitions, queueSize, ordered);
+    }
+
+    @Override
+    protected void callback(DataSet element) {
+        if (callback != null)
+            callback.call(element);
+    }
+
+    @Override
+    protected void resetPartition(DataSetIterator partition) {
+        partition.reset();
+    }
+
+    @Override
+    public DataSet next(int num) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int inputColumns() {
+        return partitions.get(0).inputColumns();
+    }
+
+    @Override
+    public int totalOutcomes() {
+        return partitions.get(0).totalOutcomes();
+    }
+
+    @Override
+    public boolean resetSupported() {
+        for (DataSetIterator partition : partitions)
+            if (!partition.resetSupported())
+                return false;
+
+        return true;
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        return false;
+    }
+
+    /**
+     * Resets all partitions, and restarts producer threads
+     */
+    @Override
+    public void reset() {
+        stopProducers();
+
+        for (DataSetIterator partition : partitions)
+            partition.reset();
+
+        if (callback != null)
+            callback.reset();
+
+        startProducers();
+    }
+
+    /**
+     * This method will terminate background threads AND will destroy attached workspaces (if any)
+     *
+     * PLEASE NOTE: After shutdown() call, this instance can't be used anymore
+     */
+    public void shutdown() {
+        stopProducers();
+    }
+
+    @Override
+    public int batch() {
+        return partitions.get(0).batch();
+    }
+
+    /**
+     * Set a pre processor to all partitions
+     *
+     * PLEASE NOTE: pre processor is called from producer threads, so it has to be thread-safe
+     */
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        for (DataSetIterator partition : partitions)
+            partition.setPreProcessor(preProcessor);
+    }
+
+    @Override
+    public DataSetPreProcessor getPreProcessor() {
+        return partitions.get(0).getPreProcessor();
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return partitions.get(0).getLabels();
+    }
+
+    @Override
+    public void remove() {
+        // no-op
+    }
+}
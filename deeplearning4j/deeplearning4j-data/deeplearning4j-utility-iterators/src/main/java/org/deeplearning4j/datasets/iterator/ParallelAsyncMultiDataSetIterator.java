@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.datasets.iterator;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.datasets.iterator.callbacks.DataSetCallback;
+import org.deeplearning4j.datasets.iterator.callbacks.DefaultCallback;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.List;
+
+/**
+ * Async prefetching iterator with multiple producer threads, for MultiDataSetIterators doing heavy work in next(), where
+ * a single {@link AsyncMultiDataSetIterator} thread becomes a bottleneck.<br>
+ * Data is pulled from independent partitions, one producer thread per partition, each one with its own cyclic workspace.
+ * See {@link ParallelAsyncDataSetIterator} for details on ordered and unordered delivery.
+ */
+@Slf4j
+public class ParallelAsyncMultiDataSetIterator extends BaseParallelAsyncIterator<MultiDataSet, MultiDataSetIterator>
+                implements MultiDataSetIterator {
+    protected DataSetCallback callback;
+
+    /**
+     * Create iterator with ordered delivery, and default queue size of 4 per partition
+     *
+     * @param partitions underlying iterators, one per producer thread
+     */
+    public ParallelAsyncMultiDataSetIterator(@NonNull List<MultiDataSetIterator> partitions) {
+        this(partitions, 4 * partitions.size(), true);
+    }
+
+    /**
+     * @param partitions underlying iterators, one per producer thread
+     * @param queueSize  total number of MultiDataSets to prefetch, over all producers
+     * @param ordered    if true, partitions are consumed in round-robin order. Otherwise, in order of availability
+     */
+    public ParallelAsyncMultiDataSetIterator(@NonNull List<MultiDataSetIterator> partitions, int queueSize,
+                    boolean ordered) {
+        this(partitions, queueSize, ordered, true, new DefaultCallback(),
+                        Nd4j.getAffinityManager().getDeviceForCurrentThread());
+    }
+
+    /**
+     * @param partitions   underlying iterators, one per producer thread
+     * @param queueSize    total number of MultiDataSets to prefetch, over all producers
+     * @param ordered      if true, partitions are consumed in round-robin order. Otherwise, in order of availability
+     * @param useWorkspace if true, each producer thread will use its own cyclic workspace
+     * @param callback     callback to apply to MultiDataSets within producer threads. May be null
+     * @param deviceId     device to attach producer threads to
+     */
+    public ParallelAsyncMultiDataSetIterator(@NonNull List<MultiDataSetIterator> partitions, int queueSize,
+                    boolean ordered, boolean useWorkspace, DataSetCallback callback, Integer deviceId) {
+        super(partitions, new org.nd4j.linalg.dataset.MultiDataSet(), queueSize, ordered, useWorkspace, deviceId);
+        this.callback = callback;
+
+        startProducers();
+    }
+
+    @Override
+    protected void callback(MultiDataSet element) {
+        if (callback != null)
+            callback.call(element);
+    }
+
+    @Override
+    protected void resetPartition(MultiDataSetIterator partition) {
+        partition.reset();
+    }
+
+    @Override
+    public MultiDataSet next(int num) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Set a pre processor to all partitions
+     *
+     * PLEASE NOTE: pre processor is called from producer threads, so it has to be thread-safe
+     */
+    @Override
+    public void setPreProcessor(MultiDataSetPreProcessor preProcessor) {
+        for (MultiDataSetIterator partition : partitions)
+            partition.setPreProcessor(preProcessor);
+    }
+
+    @Override
+    public MultiDataSetPreProcessor getPreProcessor() {
+        return partitions.get(0).getPreProcessor();
+    }
+
+    @Override
+    public boolean resetSupported() {
+        for (MultiDataSetIterator partition : partitions)
+            if (!partition.resetSupported())
+                return false;
+
+        return true;
+    }
+
+    @Override
+    public boolean asyncSupported() {
+        return false;
+    }
+
+    /**
+     * Resets all partitions, and restarts producer threads
+     */
+    @Override
+    public void reset() {
+        stopProducers();
+
+        for (MultiDataSetIterator partition : partitions)
+            partition.reset();
+
+        if (callback != null)
+            callback.reset();
+
+        startProducers();
+    }
+
+    /**
+     * This method will terminate background threads AND will destroy attached workspaces (if any)
+     *
+     * PLEASE NOTE: After shutdown() call, this instance can't be used anymore
+     */
+    public void shutdown() {
+        stopProducers();
+    }
+
+    @Override
+    public void remove() {
+        // no-op
+    }
+}
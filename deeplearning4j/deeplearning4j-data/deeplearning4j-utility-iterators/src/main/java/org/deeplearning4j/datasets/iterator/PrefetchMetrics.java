@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.datasets.iterator;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prefetch statistics for async iterators.<br>
+ * Consumer side: number of delivered batches, number of times the consumer had to wait for data (starvation) and total
+ * time spent waiting, plus queue depth observed on every delivery. Producer side: number of times producers were blocked
+ * on a full queue, and time spent blocked.<br>
+ * <br>
+ * High starvation ratio means training (consumer) is waiting on data, so more producer threads or a faster pipeline
+ * would help. Producers being blocked most of the time means the data pipeline is faster than training.
+ */
+public class PrefetchMetrics implements Serializable {
+    private final AtomicLong delivered = new AtomicLong(0);
+    private final AtomicLong starved = new AtomicLong(0);
+    private final AtomicLong starvationNanos = new AtomicLong(0);
+    private final AtomicLong depthSum = new AtomicLong(0);
+    private final AtomicLong maxDepth = new AtomicLong(0);
+    private final AtomicLong producerBlocked = new AtomicLong(0);
+    private final AtomicLong producerBlockedNanos = new AtomicLong(0);
+
+    /**
+     * Called by consumer for every delivered batch
+     *
+     * @param queueDepth number of prefetched batches available at delivery time, including delivered one
+     */
+    public void recordDelivery(int queueDepth) {
+        delivered.incrementAndGet();
+        depthSum.addAndGet(queueDepth);
+
+        long current;
+        while (queueDepth > (current = maxDepth.get()) && !maxDepth.compareAndSet(current, queueDepth));
+    }
+
+    /**
+     * Called by consumer if no batch was available, and it had to wait
+     *
+     * @param nanos time spent waiting
+     */
+    public void recordStarvation(long nanos) {
+        starved.incrementAndGet();
+        starvationNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Called by producer if queue was full, and it had to wait
+     *
+     * @param nanos time spent waiting
+     */
+    public void recordProducerBlocked(long nanos) {
+        producerBlocked.incrementAndGet();
+        producerBlockedNanos.addAndGet(nanos);
+    }
+
+    public long getNumDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * @return number of times consumer had to wait for data
+     */
+    public long getNumStarved() {
+        return starved.get();
+    }
+
+    /**
+     * @return fraction of deliveries consumer had to wait for, 0.0 to 1.0
+     */
+    public double getStarvationRatio() {
+        long d = delivered.get();
+        return d == 0 ? 0.0 : (double) starved.get() / d;
+    }
+
+    /**
+     * @return total time consumer spent waiting for data, in milliseconds
+     */
+    public long getStarvationTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(starvationNanos.get());
+    }
+
+    /**
+     * @return average number of prefetched batches available at delivery time
+     */
+    public double getAverageQueueDepth() {
+        long d = delivered.get();
+        return d == 0 ? 0.0 : (double) depthSum.get() / d;
+    }
+
+    public long getMaxQueueDepth() {
+        return maxDepth.get();
+    }
+
+    /**
+     * @return number of times producers had to wait for free space in queue
+     */
+    public long getNumProducerBlocked() {
+        return producerBlocked.get();
+    }
+
+    /**
+     * @return total time producers spent waiting for free space in queue, in milliseconds
+     */
+    public long getProducerBlockedTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(producerBlockedNanos.get());
+    }
+
+    public void reset() {
+        delivered.set(0);
+        starved.set(0);
+        starvationNanos.set(0);
+        depthSum.set(0);
+        maxDepth.set(0);
+        producerBlocked.set(0);
+        producerBlockedNanos.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "PrefetchMetrics(delivered=" + getNumDelivered() + ", starved=" + getNumStarved() + ", starvationRatio="
+                        + String.format("%.3f", getStarvationRatio()) + ", starvationTimeMs=" + getStarvationTimeMs()
+                        + ", avgQueueDepth=" + String.format("%.2f", getAverageQueueDepth()) + ", maxQueueDepth="
+                        + getMaxQueueDepth() + ", producerBlocked=" + getNumProducerBlocked()
+                        + ", producerBlockedTimeMs=" + getProducerBlockedTimeMs() + ")";
+    }
+}
@@ -18,6 +18,7 @@ package org.deeplearning4j.nearestneighbor.server;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import org.deeplearning4j.clustering.hnsw.HNSWIndex;
 import org.deeplearning4j.clustering.sptree.DataPoint;
 import org.deeplearning4j.clustering.vptree.VPTree;
 import org.deeplearning4j.nearestneighbor.model.NearestNeighborRequest;
@@ -35,6 +36,7 @@ import java.util.List;
 public class NearestNeighbor {
     private NearestNeighborRequest record;
     private VPTree tree;
+    private HNSWIndex index;
     private INDArray points;
 
     public List<NearestNeighborsResult> search() {
@@ -43,7 +45,10 @@ public class NearestNeighbor {
         if (input.isVector()) {
             List<DataPoint> add = new ArrayList<>();
             List<Double> distances = new ArrayList<>();
-            tree.search(input, record.getK(), add, distances);
+            if (index != null)
+                index.search(input, record.getK(), add, distances);
+            else
+                tree.search(input, record.getK(), add, distances);
 
             if (add.size() != distances.size()) {
                 throw new IllegalStateException(
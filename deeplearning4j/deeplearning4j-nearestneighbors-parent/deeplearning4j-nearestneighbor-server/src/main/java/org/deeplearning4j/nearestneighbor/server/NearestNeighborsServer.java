@@ -21,6 +21,7 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
+import org.deeplearning4j.clustering.hnsw.HNSWIndex;
 import org.deeplearning4j.clustering.sptree.DataPoint;
 import org.deeplearning4j.clustering.vptree.VPTree;
 import org.deeplearning4j.clustering.vptree.VPTreeFillSearch;
@@ -46,7 +47,7 @@ import static play.mvc.Results.*;
 
 /**
  * A rest server for using an
- * {@link VPTree} based on loading an ndarray containing
+ * {@link VPTree} (or {@link HNSWIndex}, see --indexType) based on loading an ndarray containing
  * the data points for the path
  * The input values are an {@link CSVRecord}
  * which (based on the input schema) will automatically
@@ -66,6 +67,17 @@ public class NearestNeighborsServer {
     private String similarityFunction = "euclidean";
     @Parameter(names = {"--invert"}, arity = 1)
     private boolean invert = false;
+    @Parameter(names = {"--indexType"}, arity = 1, description = "Search backend: vptree (exact) or hnsw (approximate)")
+    private String indexType = "vptree";
+    @Parameter(names = {"--hnswM"}, arity = 1)
+    private int hnswM = 16;
+    @Parameter(names = {"--hnswEfConstruction"}, arity = 1)
+    private int hnswEfConstruction = 200;
+    @Parameter(names = {"--hnswEf"}, arity = 1)
+    private int hnswEf = 100;
+    @Parameter(names = {"--hnswIndexPath"}, arity = 1, required = false,
+                    description = "Load HNSW index from this file if it exists, or save it there after building")
+    private String hnswIndexPath = null;
 
     private Server server;
 
@@ -147,7 +159,17 @@ public class NearestNeighborsServer {
             System.gc();
         }
 
-        VPTree tree = new VPTree(points, similarityFunction, invert);
+        final VPTree tree;
+        final HNSWIndex index;
+        if ("hnsw".equalsIgnoreCase(indexType)) {
+            tree = null;
+            index = buildHnswIndex(points);
+        } else if ("vptree".equalsIgnoreCase(indexType)) {
+            tree = new VPTree(points, similarityFunction, invert);
+            index = null;
+        } else {
+            throw new DL4JInvalidInputException("Unknown index type: " + indexType + ", expected vptree or hnsw");
+        }
 
         RoutingDsl routingDsl = new RoutingDsl();
         //return the host information for a given id
@@ -155,7 +177,7 @@ public class NearestNeighborsServer {
             try {
                 NearestNeighborRequest record = Json.fromJson(request().body().asJson(), NearestNeighborRequest.class);
                 NearestNeighbor nearestNeighbor =
-                                NearestNeighbor.builder().points(points).record(record).tree(tree).build();
+                                NearestNeighbor.builder().points(points).record(record).tree(tree).index(index).build();
 
                 if (record == null)
                     return badRequest(Json.toJson(Collections.singletonMap("status", "invalid json passed.")));
@@ -183,7 +205,12 @@ public class NearestNeighborsServer {
                 List<DataPoint> results;
                 List<Double> distances;
 
-                if (record.isForceFillK()) {
+                if (index != null) {
+                    // HNSW always returns k results, if index holds at least k points
+                    results = new ArrayList<>();
+                    distances = new ArrayList<>();
+                    index.search(arr, record.getK(), results, distances);
+                } else if (record.isForceFillK()) {
                     VPTreeFillSearch vpTreeFillSearch = new VPTreeFillSearch(tree, record.getK(), arr);
                     vpTreeFillSearch.search();
                     results = vpTreeFillSearch.getResults();
@@ -235,6 +262,33 @@ public class NearestNeighborsServer {
 
     }
 
+    protected HNSWIndex buildHnswIndex(INDArray points) throws Exception {
+        if (hnswIndexPath != null && new File(hnswIndexPath).exists()) {
+            log.info("Loading HNSW index from {}", hnswIndexPath);
+            HNSWIndex index = HNSWIndex.load(new File(hnswIndexPath));
+            if (index.size() != points.rows() || index.getDimensions() != points.columns())
+                throw new DL4JInvalidInputException("HNSW index at " + hnswIndexPath + " doesn't match points: "
+                                + index.size() + " x " + index.getDimensions() + " vs " + points.rows() + " x "
+                                + points.columns());
+
+            index.setEf(hnswEf);
+            return index;
+        }
+
+        log.info("Building HNSW index: M = {}; efConstruction = {}", hnswM, hnswEfConstruction);
+        HNSWIndex index = new HNSWIndex.Builder(points.columns()).m(hnswM).efConstruction(hnswEfConstruction)
+                        .ef(hnswEf).similarityFunction(similarityFunction, invert).initialCapacity(points.rows())
+                        .build();
+        index.add(points);
+
+        if (hnswIndexPath != null) {
+            log.info("Saving HNSW index to {}", hnswIndexPath);
+            index.save(new File(hnswIndexPath));
+        }
+
+        return index;
+    }
+
     /**
      * Stop the server
      */
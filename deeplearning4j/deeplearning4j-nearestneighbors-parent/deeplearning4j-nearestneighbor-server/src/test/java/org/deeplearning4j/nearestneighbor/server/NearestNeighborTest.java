@@ -16,6 +16,7 @@
 
 package org.deeplearning4j.nearestneighbor.server;
 
+import org.deeplearning4j.clustering.hnsw.HNSWIndex;
 import org.deeplearning4j.clustering.sptree.DataPoint;
 import org.deeplearning4j.clustering.vptree.VPTree;
 import org.deeplearning4j.clustering.vptree.VPTreeFillSearch;
@@ -104,6 +105,38 @@ public class NearestNeighborTest {
 
 
 
+    @Test
+    public void testServerHnsw() throws Exception {
+        int localPort = getAvailablePort();
+        Nd4j.getRandom().setSeed(7);
+        INDArray rand = Nd4j.randn(100, 5);
+        File writeToTmp = testDir.newFile();
+        writeToTmp.deleteOnExit();
+        BinarySerde.writeArrayToDisk(rand, writeToTmp);
+        NearestNeighborsServer server = new NearestNeighborsServer();
+        server.runMain("--ndarrayPath", writeToTmp.getAbsolutePath(), "--nearestNeighborsPort",
+                String.valueOf(localPort), "--indexType", "hnsw");
+
+        NearestNeighborsClient client = new NearestNeighborsClient("http://localhost:" + localPort);
+        NearestNeighborsResults result = client.knnNew(5, rand.getRow(0));
+        assertEquals(5, result.getResults().size());
+        assertEquals(0, result.getResults().get(0).getIndex());
+        server.stop();
+    }
+
+    @Test
+    public void testNearestNeighborHnsw() {
+        INDArray arr = Nd4j.create(new double[][] {{1, 2, 3, 4}, {1, 2, 3, 5}, {3, 4, 5, 6}});
+
+        HNSWIndex index = new HNSWIndex.Builder(4).build();
+        index.add(arr);
+        NearestNeighborRequest request = new NearestNeighborRequest();
+        request.setK(2);
+        request.setInputIndex(0);
+        NearestNeighbor nearestNeighbor = NearestNeighbor.builder().index(index).points(arr).record(request).build();
+        assertEquals(1, nearestNeighbor.search().get(1).getIndex());
+    }
+
     @Test
     public void testFullSearch() throws Exception {
         int numRows = 1000;
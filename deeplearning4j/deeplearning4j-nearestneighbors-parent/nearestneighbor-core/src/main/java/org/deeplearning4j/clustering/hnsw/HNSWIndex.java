@@ -0,0 +1,808 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.clustering.hnsw;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.clustering.sptree.DataPoint;
+import org.deeplearning4j.clustering.util.MultiThreadUtils;
+import org.deeplearning4j.clustering.util.SearchResult;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hierarchical Navigable Small World graph: approximate nearest neighbors index.<br>
+ * <br>
+ * Each item is a node of a multi-layer proximity graph. Layer 0 contains all items, and each upper layer contains
+ * an exponentially decaying random subset of the layer below. Search greedily descends from the top layer, and runs
+ * a best-first search with a dynamic candidate list of size {@code ef} on layer 0. Recall/latency tradeoff is tuned
+ * with {@code m} (connections per node), {@code efConstruction} (candidate list size during insertion) and
+ * {@code ef} (candidate list size during search, can be changed at any time).<br>
+ * <br>
+ * Items can be added at any time, and the index can be saved to and loaded from a file.
+ * Graph links are stored in flat int arrays, and vectors in a single float array, indexed by item id.<br>
+ * <br>
+ * PLEASE NOTE: searches run concurrently, but inserts are serialized, and block searches while in progress.
+ * PLEASE NOTE: supported similarity functions: euclidean, cosinedistance, cosinesimilarity, manhattan and dot.
+ * As with {@link org.deeplearning4j.clustering.vptree.VPTree}, use invert for similarity functions.
+ */
+@Slf4j
+public class HNSWIndex {
+    protected static final int MAGIC = 0x484E5357;
+    protected static final int VERSION = 1;
+
+    protected static final String[] FUNCTIONS = {"euclidean", "cosinedistance", "cosinesimilarity", "manhattan", "dot"};
+    protected static final int EUCLIDEAN = 0;
+    protected static final int COSINE_DISTANCE = 1;
+    protected static final int COSINE_SIMILARITY = 2;
+    protected static final int MANHATTAN = 3;
+    protected static final int DOT = 4;
+
+    @Getter
+    protected final int dimensions;
+    @Getter
+    protected final int m;
+    @Getter
+    protected final int efConstruction;
+    @Getter
+    protected final boolean invert;
+    protected final int function;
+    protected final int maxM0;
+    protected final double levelMultiplier;
+    protected final Random random;
+
+    protected volatile int ef;
+
+    protected float[] vectors;
+    protected int[] levels;
+    // layer 0 links: for each node [count, link_0 .. link_maxM0-1]
+    protected int[] layer0;
+    // upper layers links: for each node with level L > 0, L blocks of [count, link_0 .. link_m-1]
+    protected int[][] upperLayers;
+
+    protected int size;
+    protected int entryPoint = -1;
+    protected int maxLevel = -1;
+
+    protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    protected final ThreadLocal<VisitedSet> visited = new ThreadLocal<>();
+
+    protected HNSWIndex(int dimensions, int m, int efConstruction, int ef, int function, boolean invert,
+                    long seed, int initialCapacity) {
+        if (dimensions < 1)
+            throw new IllegalArgumentException("Number of dimensions should be positive");
+        if (m < 2)
+            throw new IllegalArgumentException("M should be at least 2");
+
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.ef = Math.max(1, ef);
+        this.function = function;
+        this.invert = invert;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new Random(seed);
+
+        int capacity = Math.max(16, initialCapacity);
+        this.vectors = new float[capacity * dimensions];
+        this.levels = new int[capacity];
+        this.layer0 = new int[capacity * (maxM0 + 1)];
+        this.upperLayers = new int[capacity][];
+    }
+
+    /**
+     * @return number of items in the index
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return size of the dynamic candidate list used for search
+     */
+    public int getEf() {
+        return ef;
+    }
+
+    /**
+     * Set size of the dynamic candidate list used for search. Higher values give better recall at the cost of
+     * latency. Values lower than k are ignored, k is used instead.
+     */
+    public void setEf(int ef) {
+        if (ef < 1)
+            throw new IllegalArgumentException("ef should be positive");
+
+        this.ef = ef;
+    }
+
+    /**
+     * @return name of the similarity function used by this index
+     */
+    public String getSimilarityFunction() {
+        return FUNCTIONS[function];
+    }
+
+    /**
+     * Add items to the index. Items get consecutive ids, in row order.
+     *
+     * @param items vector, or matrix with one item per row
+     * @return id of the first added item
+     */
+    public int add(@NonNull INDArray items) {
+        if (items.isVector() && items.length() == dimensions)
+            items = items.reshape(1, dimensions);
+
+        if (items.rank() != 2 || items.columns() != dimensions)
+            throw new ND4JIllegalStateException("Items should have shape of [N, " + dimensions + "] but got "
+                            + Arrays.toString(items.shape()) + " instead");
+
+        float[] data = items.dup('c').data().asFloat();
+        int rows = items.rows();
+
+        lock.writeLock().lock();
+        try {
+            int first = size;
+            for (int r = 0; r < rows; r++)
+                insert(data, r * dimensions);
+
+            return first;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns item with the given id
+     */
+    public INDArray getItem(int id) {
+        lock.readLock().lock();
+        try {
+            if (id < 0 || id >= size)
+                throw new IndexOutOfBoundsException("Item " + id + " doesn't exist, index size is " + size);
+
+            return Nd4j.create(Arrays.copyOfRange(vectors, id * dimensions, (id + 1) * dimensions),
+                            new int[] {1, dimensions});
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Search k approximate nearest neighbors of a single target. Results are ordered from nearest to farthest.
+     *
+     * @param target    query point
+     * @param k         number of neighbors to find
+     * @param results   list to store found points
+     * @param distances list to store distances to found points
+     */
+    public void search(@NonNull INDArray target, int k, @NonNull List<DataPoint> results,
+                    @NonNull List<Double> distances) {
+        if (!target.isVectorOrScalar() || target.length() != dimensions)
+            throw new ND4JIllegalStateException("Target for search should have shape of [1, " + dimensions
+                            + "] but got " + Arrays.toString(target.shape()) + " instead");
+
+        results.clear();
+        distances.clear();
+
+        float[] query = target.dup('c').data().asFloat();
+        int[] nodes = new int[Math.max(0, k)];
+        float[] dists = new float[Math.max(0, k)];
+
+        lock.readLock().lock();
+        try {
+            int found = search(query, 0, k, ef, nodes, dists);
+            for (int i = 0; i < found; i++) {
+                results.add(new DataPoint(nodes[i], Nd4j.create(Arrays.copyOfRange(vectors, nodes[i] * dimensions,
+                                (nodes[i] + 1) * dimensions), new int[] {1, dimensions})));
+                distances.add((double) dists[i]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Search k approximate nearest neighbors for each row of the queries matrix, using shared ForkJoinPool
+     *
+     * @param queries query points, one per row
+     * @param k       number of neighbors to find
+     * @return ids of, and distances to, found neighbors
+     */
+    public SearchResult search(@NonNull INDArray queries, int k) {
+        return search(queries, k, MultiThreadUtils.forkJoinPool());
+    }
+
+    /**
+     * Search k approximate nearest neighbors for each row of the queries matrix. Queries are processed in parallel
+     * within the given pool.
+     *
+     * @param queries query points, one per row
+     * @param k       number of neighbors to find
+     * @param pool    pool to run search within
+     * @return ids of, and distances to, found neighbors; for each query neighbors are ordered from nearest
+     *         to farthest
+     */
+    public SearchResult search(@NonNull INDArray queries, final int k, @NonNull ForkJoinPool pool) {
+        if (queries.isVector() && queries.length() == dimensions)
+            queries = queries.reshape(1, dimensions);
+
+        if (queries.rank() != 2 || queries.columns() != dimensions)
+            throw new ND4JIllegalStateException("Queries for search should have shape of [N, " + dimensions
+                            + "] but got " + Arrays.toString(queries.shape()) + " instead");
+
+        final int numQueries = queries.rows();
+        final float[] data = queries.dup('c').data().asFloat();
+        final int[][] resultIndices = new int[numQueries][];
+        final float[][] resultDistances = new float[numQueries][];
+        final int currentEf = ef;
+
+        lock.readLock().lock();
+        try {
+            MultiThreadUtils.parallelFor(pool, numQueries, new MultiThreadUtils.IndexedTask() {
+                @Override
+                public void run(int q) {
+                    int[] nodes = new int[Math.max(0, k)];
+                    float[] dists = new float[Math.max(0, k)];
+                    int found = search(data, q * dimensions, k, currentEf, nodes, dists);
+
+                    resultIndices[q] = found == nodes.length ? nodes : Arrays.copyOf(nodes, found);
+                    resultDistances[q] = found == dists.length ? dists : Arrays.copyOf(dists, found);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return new SearchResult(resultIndices, resultDistances);
+    }
+
+    /**
+     * Search k nearest nodes for the query stored at query[offset]. Caller must hold read lock.
+     *
+     * @return number of nodes found, nodes and distances are sorted from nearest to farthest
+     */
+    protected int search(float[] query, int offset, int k, int ef, int[] nodes, float[] distances) {
+        if (k < 1 || entryPoint < 0)
+            return 0;
+
+        int current = entryPoint;
+        float currentDistance = distance(query, offset, current);
+        for (int layer = maxLevel; layer > 0; layer--) {
+            int best = greedyClosest(query, offset, current, currentDistance, layer);
+            if (best != current) {
+                current = best;
+                currentDistance = distance(query, offset, current);
+            }
+        }
+
+        NeighborQueue found = searchLayer(query, offset, current, currentDistance, Math.max(ef, k), 0);
+        while (found.size() > k)
+            found.pop();
+
+        return found.drainAscending(nodes, distances);
+    }
+
+    /**
+     * Greedy search on the given layer: moves to the closest neighbor while it's closer than current node
+     */
+    protected int greedyClosest(float[] query, int offset, int current, float currentDistance, int layer) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] links = links(current, layer);
+            int base = linksOffset(current, layer);
+            int count = links[base];
+            for (int i = 1; i <= count; i++) {
+                int candidate = links[base + i];
+                float d = distance(query, offset, candidate);
+                if (d < currentDistance) {
+                    currentDistance = d;
+                    current = candidate;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search on the given layer
+     *
+     * @return max-heap holding up to ef closest nodes found
+     */
+    protected NeighborQueue searchLayer(float[] query, int offset, int entry, float entryDistance, int ef, int layer) {
+        VisitedSet visitedSet = visited.get();
+        if (visitedSet == null || visitedSet.capacity() < size) {
+            visitedSet = new VisitedSet(vectors.length / dimensions);
+            visited.set(visitedSet);
+        }
+        visitedSet.reset();
+
+        NeighborQueue candidates = new NeighborQueue(ef * 2, false);
+        NeighborQueue results = new NeighborQueue(ef + 1, true);
+
+        visitedSet.visit(entry);
+        candidates.push(entry, entryDistance);
+        results.push(entry, entryDistance);
+
+        while (!candidates.isEmpty()) {
+            float candidateDistance = candidates.peekDistance();
+            if (candidateDistance > results.peekDistance() && results.size() >= ef)
+                break;
+
+            int candidate = candidates.pop();
+            int[] links = links(candidate, layer);
+            int base = linksOffset(candidate, layer);
+            int count = links[base];
+            for (int i = 1; i <= count; i++) {
+                int neighbor = links[base + i];
+                if (!visitedSet.visit(neighbor))
+                    continue;
+
+                float d = distance(query, offset, neighbor);
+                if (results.size() < ef || d < results.peekDistance()) {
+                    candidates.push(neighbor, d);
+                    results.push(neighbor, d);
+                    if (results.size() > ef)
+                        results.pop();
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Insert single vector stored at data[offset]. Caller must hold write lock.
+     */
+    protected int insert(float[] data, int offset) {
+        ensureCapacity(size + 1);
+
+        int id = size;
+        System.arraycopy(data, offset, vectors, id * dimensions, dimensions);
+        int level = randomLevel();
+        levels[id] = level;
+        layer0[id * (maxM0 + 1)] = 0;
+        upperLayers[id] = level > 0 ? new int[level * (m + 1)] : null;
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = id;
+            maxLevel = level;
+            return id;
+        }
+
+        int current = entryPoint;
+        float currentDistance = distance(vectors, id * dimensions, current);
+        for (int layer = maxLevel; layer > level; layer--) {
+            int best = greedyClosest(vectors, id * dimensions, current, currentDistance, layer);
+            if (best != current) {
+                current = best;
+                currentDistance = distance(vectors, id * dimensions, current);
+            }
+        }
+
+        for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+            NeighborQueue found = searchLayer(vectors, id * dimensions, current, currentDistance, efConstruction, layer);
+            int[] nodes = new int[found.size()];
+            float[] dists = new float[found.size()];
+            int count = found.drainAscending(nodes, dists);
+
+            // closest node found becomes entry point for the next layer
+            current = nodes[0];
+            currentDistance = dists[0];
+
+            int[] selected = selectNeighbors(nodes, dists, count, m);
+            setLinks(id, layer, selected, selected.length);
+
+            for (int neighbor : selected)
+                connect(neighbor, id, layer);
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = id;
+        }
+
+        return id;
+    }
+
+    /**
+     * Adds link from node to newNode. If node already has maximum number of links, they are re-selected
+     */
+    protected void connect(int node, int newNode, int layer) {
+        int[] links = links(node, layer);
+        int base = linksOffset(node, layer);
+        int count = links[base];
+        int maxLinks = layer == 0 ? maxM0 : m;
+
+        if (count < maxLinks) {
+            links[base + 1 + count] = newNode;
+            links[base] = count + 1;
+            return;
+        }
+
+        NeighborQueue queue = new NeighborQueue(count + 1, false);
+        queue.push(newNode, distance(vectors, node * dimensions, newNode));
+        for (int i = 1; i <= count; i++)
+            queue.push(links[base + i], distance(vectors, node * dimensions, links[base + i]));
+
+        int[] nodes = new int[count + 1];
+        float[] dists = new float[count + 1];
+        int total = queue.drainAscending(nodes, dists);
+
+        int[] selected = selectNeighbors(nodes, dists, total, maxLinks);
+        setLinks(node, layer, selected, selected.length);
+    }
+
+    /**
+     * Neighbor selection heuristic: candidate is taken only if it's closer to the base node than to any of the
+     * already selected neighbors, which keeps links spread in different directions. Remaining slots are filled
+     * with the closest discarded candidates.
+     *
+     * @param nodes     candidates, sorted ascending by distance to base node
+     * @param distances distances from candidates to base node
+     * @param count     number of candidates
+     * @param maxLinks  max number of neighbors to select
+     */
+    protected int[] selectNeighbors(int[] nodes, float[] distances, int count, int maxLinks) {
+        if (count <= maxLinks)
+            return Arrays.copyOf(nodes, count);
+
+        int[] selected = new int[maxLinks];
+        int numSelected = 0;
+        boolean[] taken = new boolean[count];
+
+        for (int i = 0; i < count && numSelected < maxLinks; i++) {
+            boolean good = true;
+            for (int j = 0; j < numSelected; j++) {
+                if (distance(vectors, nodes[i] * dimensions, selected[j]) < distances[i]) {
+                    good = false;
+                    break;
+                }
+            }
+
+            if (good) {
+                selected[numSelected++] = nodes[i];
+                taken[i] = true;
+            }
+        }
+
+        for (int i = 0; i < count && numSelected < maxLinks; i++) {
+            if (!taken[i])
+                selected[numSelected++] = nodes[i];
+        }
+
+        return selected;
+    }
+
+    protected void setLinks(int node, int layer, int[] nodes, int count) {
+        int[] links = links(node, layer);
+        int base = linksOffset(node, layer);
+        links[base] = count;
+        System.arraycopy(nodes, 0, links, base + 1, count);
+    }
+
+    protected int[] links(int node, int layer) {
+        return layer == 0 ? layer0 : upperLayers[node];
+    }
+
+    protected int linksOffset(int node, int layer) {
+        return layer == 0 ? node * (maxM0 + 1) : (layer - 1) * (m + 1);
+    }
+
+    protected int randomLevel() {
+        double r = random.nextDouble();
+        return (int) (-Math.log(Math.max(r, Double.MIN_NORMAL)) * levelMultiplier);
+    }
+
+    protected void ensureCapacity(int required) {
+        int capacity = levels.length;
+        if (required <= capacity)
+            return;
+
+        int newCapacity = Math.max(required, capacity + (capacity >> 1));
+        vectors = Arrays.copyOf(vectors, newCapacity * dimensions);
+        levels = Arrays.copyOf(levels, newCapacity);
+        layer0 = Arrays.copyOf(layer0, newCapacity * (maxM0 + 1));
+        upperLayers = Arrays.copyOf(upperLayers, newCapacity);
+    }
+
+    /**
+     * Distance between vector stored at q[qOffset] and the given node
+     */
+    protected float distance(float[] q, int qOffset, int node) {
+        float[] p = vectors;
+        int pOffset = node * dimensions;
+        float ret;
+        switch (function) {
+            case MANHATTAN: {
+                float sum = 0.0f;
+                for (int e = 0; e < dimensions; e++)
+                    sum += Math.abs(q[qOffset + e] - p[pOffset + e]);
+                ret = sum;
+                break;
+            }
+            case COSINE_DISTANCE:
+            case COSINE_SIMILARITY: {
+                float dot = 0.0f, nq = 0.0f, np = 0.0f;
+                for (int e = 0; e < dimensions; e++) {
+                    float a = q[qOffset + e];
+                    float b = p[pOffset + e];
+                    dot += a * b;
+                    nq += a * a;
+                    np += b * b;
+                }
+                float similarity = dot / (float) (Math.sqrt(nq) * Math.sqrt(np));
+                ret = function == COSINE_SIMILARITY ? similarity : 1.0f - similarity;
+                break;
+            }
+            case DOT: {
+                float dot = 0.0f;
+                for (int e = 0; e < dimensions; e++)
+                    dot += q[qOffset + e] * p[pOffset + e];
+                ret = dot;
+                break;
+            }
+            case EUCLIDEAN:
+            default: {
+                float sum = 0.0f;
+                for (int e = 0; e < dimensions; e++) {
+                    float d = q[qOffset + e] - p[pOffset + e];
+                    sum += d * d;
+                }
+                ret = (float) Math.sqrt(sum);
+                break;
+            }
+        }
+
+        return invert ? -ret : ret;
+    }
+
+    /**
+     * Save index to the given file
+     */
+    public void save(@NonNull File file) throws IOException {
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            save(dos);
+        }
+    }
+
+    /**
+     * Save index to the given stream
+     */
+    public void save(@NonNull DataOutputStream dos) throws IOException {
+        lock.readLock().lock();
+        try {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeInt(dimensions);
+            dos.writeInt(m);
+            dos.writeInt(efConstruction);
+            dos.writeInt(ef);
+            dos.writeInt(function);
+            dos.writeBoolean(invert);
+            dos.writeInt(size);
+            dos.writeInt(entryPoint);
+            dos.writeInt(maxLevel);
+
+            for (int i = 0; i < size * dimensions; i++)
+                dos.writeFloat(vectors[i]);
+
+            for (int node = 0; node < size; node++) {
+                dos.writeInt(levels[node]);
+                for (int layer = 0; layer <= levels[node]; layer++) {
+                    int[] links = links(node, layer);
+                    int base = linksOffset(node, layer);
+                    int count = links[base];
+                    dos.writeInt(count);
+                    for (int i = 1; i <= count; i++)
+                        dos.writeInt(links[base + i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Load index previously saved via {@link #save(File)}
+     */
+    public static HNSWIndex load(@NonNull File file) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            return load(dis);
+        }
+    }
+
+    /**
+     * Load index previously saved via {@link #save(DataOutputStream)}
+     */
+    public static HNSWIndex load(@NonNull DataInputStream dis) throws IOException {
+        if (dis.readInt() != MAGIC)
+            throw new IOException("Not a HNSW index");
+
+        int version = dis.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported HNSW index version: " + version);
+
+        int dimensions = dis.readInt();
+        int m = dis.readInt();
+        int efConstruction = dis.readInt();
+        int ef = dis.readInt();
+        int function = dis.readInt();
+        boolean invert = dis.readBoolean();
+        int size = dis.readInt();
+
+        HNSWIndex index = new HNSWIndex(dimensions, m, efConstruction, ef, function, invert,
+                        System.nanoTime(), size);
+        index.entryPoint = dis.readInt();
+        index.maxLevel = dis.readInt();
+
+        for (int i = 0; i < size * dimensions; i++)
+            index.vectors[i] = dis.readFloat();
+
+        for (int node = 0; node < size; node++) {
+            int level = dis.readInt();
+            index.levels[node] = level;
+            index.upperLayers[node] = level > 0 ? new int[level * (m + 1)] : null;
+            for (int layer = 0; layer <= level; layer++) {
+                int[] links = index.links(node, layer);
+                int base = index.linksOffset(node, layer);
+                int count = dis.readInt();
+                links[base] = count;
+                for (int i = 1; i <= count; i++)
+                    links[base + i] = dis.readInt();
+            }
+        }
+
+        index.size = size;
+        return index;
+    }
+
+    /**
+     * Per-thread visited marks, reset in O(1) by bumping the generation
+     */
+    protected static class VisitedSet {
+        private final int[] marks;
+        private int generation = 0;
+
+        protected VisitedSet(int capacity) {
+            this.marks = new int[capacity];
+        }
+
+        protected int capacity() {
+            return marks.length;
+        }
+
+        protected void reset() {
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * @return true if node wasn't visited before
+         */
+        protected boolean visit(int node) {
+            if (marks[node] == generation)
+                return false;
+
+            marks[node] = generation;
+            return true;
+        }
+    }
+
+    public static class Builder {
+        protected final int dimensions;
+        protected int m = 16;
+        protected int efConstruction = 200;
+        protected int ef = 50;
+        protected String similarityFunction = "euclidean";
+        protected boolean invert = false;
+        protected long seed = 119;
+        protected int initialCapacity = 1024;
+
+        /**
+         * @param dimensions number of dimensions of indexed vectors
+         */
+        public Builder(int dimensions) {
+            this.dimensions = dimensions;
+        }
+
+        /**
+         * Number of links per node on upper layers, layer 0 has 2 * m links.
+         * Higher values improve recall for high-dimensional data, at the cost of memory and insertion time.
+         * Default value: 16
+         */
+        public Builder m(int m) {
+            this.m = m;
+            return this;
+        }
+
+        /**
+         * Size of the dynamic candidate list during insertion. Higher values give better graph quality, at the
+         * cost of insertion time. Default value: 200
+         */
+        public Builder efConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+            return this;
+        }
+
+        /**
+         * Size of the dynamic candidate list during search, see {@link HNSWIndex#setEf(int)}. Default value: 50
+         */
+        public Builder ef(int ef) {
+            this.ef = ef;
+            return this;
+        }
+
+        /**
+         * Similarity function, and whether to invert it (similarity functions have different min/max objectives).
+         * Default value: euclidean, not inverted
+         */
+        public Builder similarityFunction(@NonNull String similarityFunction, boolean invert) {
+            this.similarityFunction = similarityFunction;
+            this.invert = invert;
+            return this;
+        }
+
+        /**
+         * Seed for random level assignment
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Number of items to allocate memory for upfront
+         */
+        public Builder initialCapacity(int initialCapacity) {
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        public HNSWIndex build() {
+            int function = -1;
+            for (int i = 0; i < FUNCTIONS.length; i++)
+                if (FUNCTIONS[i].equals(similarityFunction))
+                    function = i;
+
+            if (function < 0)
+                throw new ND4JIllegalStateException("Unsupported similarity function for HNSW: " + similarityFunction);
+
+            return new HNSWIndex(dimensions, m, efConstruction, ef, function, invert, seed, initialCapacity);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.clustering.hnsw;
+
+import java.util.Arrays;
+
+/**
+ * Growable binary heap of (node, distance) pairs over primitive arrays, used for candidate and result sets
+ * during HNSW graph traversal. Can be either min-heap or max-heap by distance.
+ */
+public class NeighborQueue {
+    private final boolean maxHeap;
+    private int[] nodes;
+    private float[] distances;
+    private int size;
+
+    public NeighborQueue(int initialCapacity, boolean maxHeap) {
+        this.maxHeap = maxHeap;
+        this.nodes = new int[Math.max(1, initialCapacity)];
+        this.distances = new float[Math.max(1, initialCapacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return node on top of the heap
+     */
+    public int peekNode() {
+        return nodes[0];
+    }
+
+    /**
+     * @return distance of the node on top of the heap
+     */
+    public float peekDistance() {
+        return distances[0];
+    }
+
+    public void push(int node, float distance) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            distances = Arrays.copyOf(distances, size * 2);
+        }
+
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!above(distance, distances[parent]))
+                break;
+            nodes[i] = nodes[parent];
+            distances[i] = distances[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        distances[i] = distance;
+    }
+
+    /**
+     * Removes top of the heap
+     *
+     * @return removed node
+     */
+    public int pop() {
+        int top = nodes[0];
+        size--;
+        if (size > 0) {
+            int node = nodes[size];
+            float distance = distances[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size)
+                    break;
+                if (child + 1 < size && above(distances[child + 1], distances[child]))
+                    child++;
+                if (!above(distances[child], distance))
+                    break;
+                nodes[i] = nodes[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            nodes[i] = node;
+            distances[i] = distance;
+        }
+        return top;
+    }
+
+    /**
+     * Copies queue contents into given arrays, sorted ascending by distance. Queue is emptied.
+     *
+     * @return number of elements copied
+     */
+    public int drainAscending(int[] targetNodes, float[] targetDistances) {
+        int count = size;
+        if (maxHeap) {
+            for (int i = count - 1; i >= 0; i--) {
+                targetDistances[i] = peekDistance();
+                targetNodes[i] = pop();
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                targetDistances[i] = peekDistance();
+                targetNodes[i] = pop();
+            }
+        }
+        return count;
+    }
+
+    private boolean above(float a, float b) {
+        return maxHeap ? a > b : a < b;
+    }
+}
@@ -28,6 +28,8 @@ public class MultiThreadUtils {
 
     private static ExecutorService instance;
 
+    private static ForkJoinPool forkJoinPool;
+
     private MultiThreadUtils() {}
 
     public static synchronized ExecutorService newExecutorService() {
@@ -67,4 +69,59 @@ public class MultiThreadUtils {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * Shared ForkJoinPool, used for parallel search and tree building when no pool is specified
+     */
+    public static synchronized ForkJoinPool forkJoinPool() {
+        if (forkJoinPool == null)
+            forkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        return forkJoinPool;
+    }
+
+    /**
+     * Task executed for each index by {@link #parallelFor(ForkJoinPool, int, IndexedTask)}
+     */
+    public interface IndexedTask {
+        void run(int index);
+    }
+
+    /**
+     * Runs task for each index in [0, count) within the given pool, and waits for completion.
+     * Exceptions thrown by the task are rethrown to the caller.
+     */
+    public static void parallelFor(ForkJoinPool pool, int count, IndexedTask task) {
+        if (count <= 0)
+            return;
+
+        int grain = Math.max(1, count / (pool.getParallelism() * 8));
+        pool.invoke(new RangeAction(task, 0, count, grain));
+    }
+
+    private static class RangeAction extends RecursiveAction {
+        private final IndexedTask task;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        private RangeAction(IndexedTask task, int from, int to, int grain) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++)
+                    task.run(i);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeAction(task, from, mid, grain), new RangeAction(task, mid, to, grain));
+        }
+    }
 }
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.clustering.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Results of batched k-NN search: for query {@code q}, {@code indices[q]} holds indices of found items (rows of
+ * the original items matrix) and {@code distances[q]} holds distances to them, nearest first.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchResult {
+    private final int[][] indices;
+    private final float[][] distances;
+}
@@ -0,0 +1,703 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.clustering.vptree;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.clustering.sptree.DataPoint;
+import org.deeplearning4j.clustering.util.MultiThreadUtils;
+import org.deeplearning4j.clustering.util.SearchResult;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Vantage point tree with flat primitive storage, meant for high-throughput k-NN search.<br>
+ * <br>
+ * Unlike {@link VPTree}, nodes aren't objects: the tree is a set of int-indexed arrays (original item index,
+ * left/right child, threshold), and all points are stored as a single contiguous off-heap float matrix, in tree order,
+ * so row {@code i} of that matrix is the vantage point of node {@code i}. Distances are calculated directly over that
+ * memory, without creating INDArrays or executing ops per node, and batches of queries are searched in parallel on a
+ * {@link ForkJoinPool}.<br>
+ * <br>
+ * The same layout is used as serialized form: {@link #save(File)} writes it as-is, and {@link #load(File)} memory-maps
+ * the file, so loading is O(1) and pages are brought in by the OS on first access.<br>
+ * <br>
+ * PLEASE NOTE: points are stored as floats, and the total size of the tree is limited to 2GB.
+ * PLEASE NOTE: supported similarity functions are the same as for {@link VPTree}: euclidean, cosinedistance,
+ * cosinesimilarity, manhattan, dot, jaccard and hamming.
+ */
+@Slf4j
+public class FlatVPTree {
+    protected static final int MAGIC = 0x46565054;
+    protected static final int VERSION = 1;
+    protected static final int HEADER_LENGTH = 64;
+
+    protected static final String[] FUNCTIONS =
+                    {"euclidean", "cosinedistance", "cosinesimilarity", "manhattan", "dot", "jaccard", "hamming"};
+    protected static final int EUCLIDEAN = 0;
+    protected static final int COSINE_DISTANCE = 1;
+    protected static final int COSINE_SIMILARITY = 2;
+    protected static final int MANHATTAN = 3;
+    protected static final int DOT = 4;
+    protected static final int JACCARD = 5;
+    protected static final int HAMMING = 6;
+
+    // subtrees smaller than this are built within current thread
+    protected static final int PARALLEL_BUILD_THRESHOLD = 8192;
+
+    @Getter
+    protected final int numItems;
+    @Getter
+    protected final int dimensions;
+    @Getter
+    protected final boolean invert;
+    protected final int function;
+    protected final int root;
+
+    protected final ByteBuffer storage;
+    protected final IntBuffer indices;
+    protected final IntBuffer left;
+    protected final IntBuffer right;
+    protected final FloatBuffer thresholds;
+    protected final FloatBuffer points;
+
+    /**
+     * Build tree using euclidean distance
+     *
+     * @param items points, one per row
+     */
+    public FlatVPTree(@NonNull INDArray items) {
+        this(items, VPTree.EUCLIDEAN, false);
+    }
+
+    /**
+     * Build tree
+     *
+     * @param items              points, one per row
+     * @param similarityFunction the similarity function to use
+     * @param invert             whether to invert the distance (similarity functions have different min/max objectives)
+     */
+    public FlatVPTree(@NonNull INDArray items, @NonNull String similarityFunction, boolean invert) {
+        this(items, similarityFunction, invert, MultiThreadUtils.forkJoinPool());
+    }
+
+    /**
+     * Build tree
+     *
+     * @param items              points, one per row
+     * @param similarityFunction the similarity function to use
+     * @param invert             whether to invert the distance (similarity functions have different min/max objectives)
+     * @param pool               pool used for building the tree
+     */
+    public FlatVPTree(@NonNull INDArray items, @NonNull String similarityFunction, boolean invert,
+                    @NonNull ForkJoinPool pool) {
+        if (items.rank() != 2 || items.rows() < 1)
+            throw new ND4JIllegalStateException("Items should be a non-empty matrix, but got shape "
+                            + Arrays.toString(items.shape()) + " instead");
+
+        this.numItems = items.rows();
+        this.dimensions = items.columns();
+        this.invert = invert;
+        this.function = functionId(similarityFunction);
+
+        long length = HEADER_LENGTH + 16L * numItems + 4L * numItems * dimensions;
+        if (length > Integer.MAX_VALUE)
+            throw new ND4JIllegalStateException("FlatVPTree is limited to 2GB, but " + numItems + " x " + dimensions
+                            + " items need " + length + " bytes");
+
+        float[] data = items.dup('c').data().asFloat();
+
+        // building tree on heap arrays first
+        TreeBuilder builder = new TreeBuilder(FloatBuffer.wrap(data));
+        pool.invoke(builder.task(0, numItems));
+        this.root = 0;
+
+        this.storage = ByteBuffer.allocateDirect((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        storage.putInt(0, MAGIC);
+        storage.putInt(4, VERSION);
+        storage.putInt(8, numItems);
+        storage.putInt(12, dimensions);
+        storage.putInt(16, root);
+        storage.putInt(20, function);
+        storage.putInt(24, invert ? 1 : 0);
+
+        this.indices = region(storage, indicesOffset(), 4L * numItems).asIntBuffer();
+        this.left = region(storage, leftOffset(), 4L * numItems).asIntBuffer();
+        this.right = region(storage, rightOffset(), 4L * numItems).asIntBuffer();
+        this.thresholds = region(storage, thresholdsOffset(), 4L * numItems).asFloatBuffer();
+        this.points = region(storage, pointsOffset(), 4L * numItems * dimensions).asFloatBuffer();
+
+        indices.duplicate().put(builder.index);
+        left.duplicate().put(builder.left);
+        right.duplicate().put(builder.right);
+        thresholds.duplicate().put(builder.threshold);
+
+        // points are reordered, so node i has its point in row i
+        FloatBuffer target = points.duplicate();
+        for (int i = 0; i < numItems; i++)
+            target.put(data, builder.index[i] * dimensions, dimensions);
+    }
+
+    protected FlatVPTree(@NonNull ByteBuffer storage) throws IOException {
+        if (storage.capacity() < HEADER_LENGTH || storage.getInt(0) != MAGIC)
+            throw new IOException("Not a FlatVPTree file");
+
+        if (storage.getInt(4) != VERSION)
+            throw new IOException("Unsupported FlatVPTree version: " + storage.getInt(4));
+
+        this.storage = storage;
+        this.numItems = storage.getInt(8);
+        this.dimensions = storage.getInt(12);
+        this.root = storage.getInt(16);
+        this.function = storage.getInt(20);
+        this.invert = storage.getInt(24) != 0;
+
+        if (storage.capacity() != pointsOffset() + 4L * numItems * dimensions)
+            throw new IOException("FlatVPTree file is truncated or corrupted");
+
+        this.indices = region(storage, indicesOffset(), 4L * numItems).asIntBuffer();
+        this.left = region(storage, leftOffset(), 4L * numItems).asIntBuffer();
+        this.right = region(storage, rightOffset(), 4L * numItems).asIntBuffer();
+        this.thresholds = region(storage, thresholdsOffset(), 4L * numItems).asFloatBuffer();
+        this.points = region(storage, pointsOffset(), 4L * numItems * dimensions).asFloatBuffer();
+    }
+
+    /**
+     * Build flat tree over the same items and with the same similarity function as the given VPTree
+     */
+    public static FlatVPTree fromVPTree(@NonNull VPTree tree) {
+        return new FlatVPTree(tree.getItems(), tree.getSimilarityFunction(), tree.isInvert());
+    }
+
+    /**
+     * Memory-map tree previously saved via {@link #save(File)}
+     *
+     * @param file file to map
+     * @return FlatVPTree backed by the mapped file
+     */
+    public static FlatVPTree load(@NonNull File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("FlatVPTree file is larger than 2GB: " + file.getAbsolutePath());
+
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new FlatVPTree(buffer.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    /**
+     * Save this tree in a form suitable for {@link #load(File)}
+     *
+     * @param file file to write to
+     */
+    public void save(@NonNull File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = storage.duplicate();
+            buffer.clear();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    /**
+     * @return name of the similarity function used by this tree
+     */
+    public String getSimilarityFunction() {
+        return FUNCTIONS[function];
+    }
+
+    /**
+     * Search k nearest neighbors of a single target. Results are ordered from nearest to farthest.
+     *
+     * @param target    query point, vector of length equal to number of dimensions
+     * @param k         number of neighbors to find
+     * @param results   list to store found points
+     * @param distances list to store distances to found points
+     */
+    public void search(@NonNull INDArray target, int k, @NonNull List<DataPoint> results,
+                    @NonNull List<Double> distances) {
+        if (!target.isVectorOrScalar() || target.length() != dimensions)
+            throw new ND4JIllegalStateException("Target for search should have shape of [1, " + dimensions
+                            + "] but got " + Arrays.toString(target.shape()) + " instead");
+
+        results.clear();
+        distances.clear();
+
+        k = Math.min(k, numItems);
+        if (k < 1)
+            return;
+
+        float[] query = target.dup('c').data().asFloat();
+        int[] nodes = new int[k];
+        float[] dists = new float[k];
+        int found = search(query, 0, k, nodes, dists);
+
+        for (int i = 0; i < found; i++) {
+            results.add(new DataPoint(indices.get(nodes[i]), getPoint(nodes[i])));
+            distances.add((double) dists[i]);
+        }
+    }
+
+    /**
+     * Search k nearest neighbors for each row of the queries matrix, using shared ForkJoinPool
+     *
+     * @param queries query points, one per row
+     * @param k       number of neighbors to find
+     * @return indices of, and distances to, found neighbors
+     */
+    public SearchResult search(@NonNull INDArray queries, int k) {
+        return search(queries, k, MultiThreadUtils.forkJoinPool());
+    }
+
+    /**
+     * Search k nearest neighbors for each row of the queries matrix. Queries are processed in parallel within
+     * the given pool.
+     *
+     * @param queries query points, one per row
+     * @param k       number of neighbors to find
+     * @param pool    pool to run search within
+     * @return indices of, and distances to, found neighbors; for each query neighbors are ordered from nearest
+     *         to farthest
+     */
+    public SearchResult search(@NonNull INDArray queries, int k, @NonNull ForkJoinPool pool) {
+        if (queries.isVector() && queries.length() == dimensions)
+            queries = queries.reshape(1, dimensions);
+
+        if (queries.rank() != 2 || queries.columns() != dimensions)
+            throw new ND4JIllegalStateException("Queries for search should have shape of [N, " + dimensions
+                            + "] but got " + Arrays.toString(queries.shape()) + " instead");
+
+        final int numQueries = queries.rows();
+        final int numNeighbors = Math.max(0, Math.min(k, numItems));
+        final float[] data = queries.dup('c').data().asFloat();
+        final int[][] resultIndices = new int[numQueries][];
+        final float[][] resultDistances = new float[numQueries][];
+
+        MultiThreadUtils.parallelFor(pool, numQueries, new MultiThreadUtils.IndexedTask() {
+            @Override
+            public void run(int q) {
+                int[] nodes = new int[numNeighbors];
+                float[] dists = new float[numNeighbors];
+                int found = search(data, q * dimensions, numNeighbors, nodes, dists);
+
+                int[] idx = new int[found];
+                for (int i = 0; i < found; i++)
+                    idx[i] = indices.get(nodes[i]);
+
+                resultIndices[q] = idx;
+                resultDistances[q] = found == numNeighbors ? dists : Arrays.copyOf(dists, found);
+            }
+        });
+
+        return new SearchResult(resultIndices, resultDistances);
+    }
+
+    /**
+     * Returns point stored in the given node
+     */
+    protected INDArray getPoint(int node) {
+        float[] row = new float[dimensions];
+        FloatBuffer buffer = points.duplicate();
+        buffer.position(node * dimensions);
+        buffer.get(row);
+        return Nd4j.create(row, new int[] {1, dimensions});
+    }
+
+    /**
+     * Search k nearest nodes for the query stored at data[offset]
+     *
+     * @return number of nodes found, nodes and distances are sorted from nearest to farthest
+     */
+    protected int search(float[] query, int offset, int k, int[] nodes, float[] distances) {
+        if (k < 1)
+            return 0;
+
+        Heap heap = new Heap(nodes, distances);
+        search(root, query, offset, heap);
+        return heap.drainSorted();
+    }
+
+    protected void search(int node, float[] query, int offset, Heap heap) {
+        float distance = distance(query, offset, points, node * dimensions);
+        if (distance < heap.tau)
+            heap.offer(node, distance);
+
+        int l = left.get(node);
+        int r = right.get(node);
+        if (l < 0 && r < 0)
+            return;
+
+        float threshold = thresholds.get(node);
+        if (distance < threshold) {
+            // if there can still be neighbors inside the ball, search left child first
+            if (l >= 0 && distance - heap.tau < threshold)
+                search(l, query, offset, heap);
+
+            if (r >= 0 && distance + heap.tau >= threshold)
+                search(r, query, offset, heap);
+        } else {
+            // if there can still be neighbors outside the ball, search right child first
+            if (r >= 0 && distance + heap.tau >= threshold)
+                search(r, query, offset, heap);
+
+            if (l >= 0 && distance - heap.tau < threshold)
+                search(l, query, offset, heap);
+        }
+    }
+
+    /**
+     * Distance between query stored at q[qOffset] and point stored at p[pOffset]
+     */
+    protected float distance(float[] q, int qOffset, FloatBuffer p, int pOffset) {
+        float ret;
+        switch (function) {
+            case MANHATTAN: {
+                float sum = 0.0f;
+                for (int e = 0; e < dimensions; e++)
+                    sum += Math.abs(q[qOffset + e] - p.get(pOffset + e));
+                ret = sum;
+                break;
+            }
+            case COSINE_DISTANCE:
+            case COSINE_SIMILARITY: {
+                float dot = 0.0f, nq = 0.0f, np = 0.0f;
+                for (int e = 0; e < dimensions; e++) {
+                    float a = q[qOffset + e];
+                    float b = p.get(pOffset + e);
+                    dot += a * b;
+                    nq += a * a;
+                    np += b * b;
+                }
+                float similarity = dot / (float) (Math.sqrt(nq) * Math.sqrt(np));
+                ret = function == COSINE_SIMILARITY ? similarity : 1.0f - similarity;
+                break;
+            }
+            case DOT: {
+                float dot = 0.0f;
+                for (int e = 0; e < dimensions; e++)
+                    dot += q[qOffset + e] * p.get(pOffset + e);
+                ret = dot;
+                break;
+            }
+            case JACCARD: {
+                float min = 0.0f, max = 0.0f;
+                for (int e = 0; e < dimensions; e++) {
+                    float a = q[qOffset + e];
+                    float b = p.get(pOffset + e);
+                    min += Math.min(a, b);
+                    max += Math.max(a, b);
+                }
+                ret = max == 0.0f ? 0.0f : 1.0f - min / max;
+                break;
+            }
+            case HAMMING: {
+                int diff = 0;
+                for (int e = 0; e < dimensions; e++)
+                    if (q[qOffset + e] != p.get(pOffset + e))
+                        diff++;
+                ret = (float) diff / dimensions;
+                break;
+            }
+            case EUCLIDEAN:
+            default: {
+                float sum = 0.0f;
+                for (int e = 0; e < dimensions; e++) {
+                    float d = q[qOffset + e] - p.get(pOffset + e);
+                    sum += d * d;
+                }
+                ret = (float) Math.sqrt(sum);
+                break;
+            }
+        }
+
+        return invert ? -ret : ret;
+    }
+
+    protected long indicesOffset() {
+        return HEADER_LENGTH;
+    }
+
+    protected long leftOffset() {
+        return indicesOffset() + 4L * numItems;
+    }
+
+    protected long rightOffset() {
+        return leftOffset() + 4L * numItems;
+    }
+
+    protected long thresholdsOffset() {
+        return rightOffset() + 4L * numItems;
+    }
+
+    protected long pointsOffset() {
+        return thresholdsOffset() + 4L * numItems;
+    }
+
+    protected static ByteBuffer region(ByteBuffer buffer, long offset, long length) {
+        ByteBuffer dup = buffer.duplicate();
+        dup.clear();
+        dup.position((int) offset);
+        dup.limit((int) (offset + length));
+        return dup.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    protected static int functionId(String similarityFunction) {
+        for (int i = 0; i < FUNCTIONS.length; i++)
+            if (FUNCTIONS[i].equals(similarityFunction))
+                return i;
+
+        // VPTree falls back to euclidean for unknown functions, and so do we
+        log.warn("Unknown similarity function [{}], falling back to euclidean", similarityFunction);
+        return EUCLIDEAN;
+    }
+
+    /**
+     * Bounded max-heap over primitive arrays, holding k best candidates found so far
+     */
+    protected static class Heap {
+        private final int[] nodes;
+        private final float[] distances;
+        private int size;
+        private float tau = Float.MAX_VALUE;
+
+        protected Heap(int[] nodes, float[] distances) {
+            this.nodes = nodes;
+            this.distances = distances;
+        }
+
+        protected void offer(int node, float distance) {
+            int capacity = nodes.length;
+            if (size < capacity) {
+                // sift up
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (distances[parent] >= distance)
+                        break;
+                    nodes[i] = nodes[parent];
+                    distances[i] = distances[parent];
+                    i = parent;
+                }
+                nodes[i] = node;
+                distances[i] = distance;
+            } else {
+                // replace top, then sift down
+                siftDown(0, node, distance, size);
+            }
+
+            if (size == capacity)
+                tau = distances[0];
+        }
+
+        private void siftDown(int i, int node, float distance, int length) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= length)
+                    break;
+                if (child + 1 < length && distances[child + 1] > distances[child])
+                    child++;
+                if (distances[child] <= distance)
+                    break;
+                nodes[i] = nodes[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            nodes[i] = node;
+            distances[i] = distance;
+        }
+
+        /**
+         * Sorts heap contents in place, ascending by distance
+         *
+         * @return number of elements
+         */
+        protected int drainSorted() {
+            for (int last = size - 1; last > 0; last--) {
+                int node = nodes[last];
+                float distance = distances[last];
+                nodes[last] = nodes[0];
+                distances[last] = distances[0];
+                siftDown(0, node, distance, last);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Builds tree over heap arrays. Each node takes a random vantage point from its range of items, and splits the
+     * rest of the range around the median distance to it, so the tree is always balanced.
+     */
+    protected class TreeBuilder {
+        private final FloatBuffer data;
+        private final int[] permutation;
+        private final float[] scratch;
+        private final AtomicInteger counter = new AtomicInteger(0);
+
+        private final int[] index;
+        private final int[] left;
+        private final int[] right;
+        private final float[] threshold;
+
+        protected TreeBuilder(FloatBuffer data) {
+            this.data = data;
+            this.permutation = new int[numItems];
+            this.scratch = new float[numItems];
+            this.index = new int[numItems];
+            this.left = new int[numItems];
+            this.right = new int[numItems];
+            this.threshold = new float[numItems];
+
+            for (int i = 0; i < numItems; i++)
+                permutation[i] = i;
+        }
+
+        protected RecursiveAction task(final int from, final int to) {
+            return new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    build(from, to, -1, false, true);
+                }
+            };
+        }
+
+        /**
+         * Builds subtree over permutation[from, to), and attaches it to the parent node
+         */
+        private void build(int from, int to, int parent, boolean isLeft, boolean parallel) {
+            int node = counter.getAndIncrement();
+            if (parent >= 0) {
+                if (isLeft)
+                    left[parent] = node;
+                else
+                    right[parent] = node;
+            }
+
+            left[node] = -1;
+            right[node] = -1;
+
+            // picking vantage point, deterministic for the given range
+            long range = to - from;
+            int vantage = from + (int) (((mix(from * 31L + to) % range) + range) % range);
+            swap(from, vantage);
+            index[node] = permutation[from];
+
+            if (to - from == 1)
+                return;
+
+            float[] q = new float[dimensions];
+            int base = permutation[from] * dimensions;
+            for (int e = 0; e < dimensions; e++)
+                q[e] = data.get(base + e);
+
+            for (int i = from + 1; i < to; i++)
+                scratch[i] = distance(q, 0, data, permutation[i] * dimensions);
+
+            // items [from + 1, median) are not farther than threshold, items [median, to) are not closer
+            int median = (from + 1 + to) >>> 1;
+            select(from + 1, to - 1, median);
+            threshold[node] = scratch[median];
+
+            final boolean hasLeft = median > from + 1;
+            if (parallel && to - from > PARALLEL_BUILD_THRESHOLD) {
+                RecursiveAction l = hasLeft ? new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        build(from + 1, median, node, true, true);
+                    }
+                } : null;
+
+                RecursiveAction r = new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        build(median, to, node, false, true);
+                    }
+                };
+
+                if (l != null)
+                    RecursiveAction.invokeAll(l, r);
+                else
+                    r.invoke();
+            } else {
+                if (hasLeft)
+                    build(from + 1, median, node, true, false);
+
+                build(median, to, node, false, false);
+            }
+        }
+
+        /**
+         * Quickselect (Wirth): rearranges scratch/permutation within [lo, hi], so that scratch[k] is k-th smallest,
+         * with no bigger values before it and no smaller values after it
+         */
+        private void select(int lo, int hi, int k) {
+            while (lo < hi) {
+                float pivot = scratch[k];
+                int i = lo;
+                int j = hi;
+                do {
+                    while (scratch[i] < pivot)
+                        i++;
+                    while (pivot < scratch[j])
+                        j--;
+                    if (i <= j) {
+                        swap(i, j);
+                        i++;
+                        j--;
+                    }
+                } while (i <= j);
+
+                if (j < k)
+                    lo = i;
+                if (k < i)
+                    hi = j;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int p = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = p;
+
+            float s = scratch[i];
+            scratch[i] = scratch[j];
+            scratch[j] = s;
+        }
+
+        private long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
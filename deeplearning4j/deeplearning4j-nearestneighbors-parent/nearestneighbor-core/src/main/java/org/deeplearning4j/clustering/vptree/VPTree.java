@@ -21,6 +21,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.deeplearning4j.clustering.sptree.DataPoint;
 import org.deeplearning4j.clustering.sptree.HeapObject;
 import org.deeplearning4j.clustering.util.MathUtils;
+import org.deeplearning4j.clustering.util.MultiThreadUtils;
 import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
 import org.nd4j.linalg.api.memory.enums.*;
@@ -54,6 +55,7 @@ public class VPTree implements Serializable {
     private INDArray items;
     private List<INDArray> itemsList;
     private Node root;
+    @Getter
     private String similarityFunction;
     @Getter
     private boolean invert = false;
@@ -505,6 +507,43 @@ public class VPTree implements Serializable {
         }
     }
 
+    /**
+     * Batched search: finds k nearest neighbors for each row of the targets matrix.
+     * Rows are searched in parallel, within shared ForkJoinPool.
+     * PLEASE NOTE: for high query rates consider {@link FlatVPTree}
+     *
+     * @param targets   query points, one per row
+     * @param k         number of neighbors to find for each query
+     * @param distances list to store distances, one list per query
+     * @return found points, one list per query
+     */
+    public List<List<DataPoint>> search(@NonNull final INDArray targets, final int k,
+                    @NonNull List<List<Double>> distances) {
+        if (targets.rank() != 2 || (items != null && targets.columns() != items.columns()))
+            throw new ND4JIllegalStateException("Targets for search should have shape of [N, "
+                    + (items != null ? String.valueOf(items.columns()) : "D") + "] but got "
+                    + Arrays.toString(targets.shape()) + " instead");
+
+        final int numTargets = targets.rows();
+        final List<List<DataPoint>> results = new ArrayList<>(Collections.<List<DataPoint>>nCopies(numTargets, null));
+        final List<List<Double>> dists = new ArrayList<>(Collections.<List<Double>>nCopies(numTargets, null));
+
+        MultiThreadUtils.parallelFor(MultiThreadUtils.forkJoinPool(), numTargets, new MultiThreadUtils.IndexedTask() {
+            @Override
+            public void run(int i) {
+                List<DataPoint> r = new ArrayList<>();
+                List<Double> d = new ArrayList<>();
+                search(targets.getRow(i).dup('c'), k, r, d);
+                results.set(i, r);
+                dists.set(i, d);
+            }
+        });
+
+        distances.clear();
+        distances.addAll(dists);
+        return results;
+    }
+
     /**
      *
      * @param node
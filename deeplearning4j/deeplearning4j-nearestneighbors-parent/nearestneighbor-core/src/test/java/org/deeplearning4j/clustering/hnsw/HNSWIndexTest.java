@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.clustering.hnsw;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.deeplearning4j.clustering.sptree.DataPoint;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * HNSWIndex tests
+ */
+@Slf4j
+public class HNSWIndexTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    /**
+     * Exact k-NN via brute force, for recall calculation
+     */
+    protected static int[][] groundTruth(INDArray items, INDArray queries, int k) {
+        int[][] ret = new int[queries.rows()][k];
+        for (int q = 0; q < queries.rows(); q++) {
+            final double[] distances = new double[items.rows()];
+            Integer[] order = new Integer[items.rows()];
+            for (int i = 0; i < items.rows(); i++) {
+                distances[i] = items.getRow(i).distance2(queries.getRow(q));
+                order[i] = i;
+            }
+
+            Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(distances[a], distances[b]);
+            }
+        });
+            for (int i = 0; i < k; i++)
+                ret[q][i] = order[i];
+        }
+        return ret;
+    }
+
+    protected static double recall(int[][] truth, int[][] found) {
+        int hits = 0;
+        int total = 0;
+        for (int q = 0; q < truth.length; q++) {
+            Set<Integer> expected = new HashSet<>();
+            for (int i : truth[q])
+                expected.add(i);
+
+            for (int i : found[q])
+                if (expected.contains(i))
+                    hits++;
+
+            total += truth[q].length;
+        }
+        return (double) hits / total;
+    }
+
+    @Test
+    public void testRecall_1() {
+        Nd4j.getRandom().setSeed(12345);
+        val items = Nd4j.rand(new int[] {3000, 16});
+        val queries = Nd4j.rand(new int[] {50, 16});
+
+        val index = new HNSWIndex.Builder(16).m(12).efConstruction(100).ef(64).build();
+        index.add(items);
+        assertEquals(3000, index.size());
+
+        val result = index.search(queries, 10);
+        double recall = recall(groundTruth(items, queries, 10), result.getIndices());
+        log.info("Recall@10: {}", recall);
+        assertTrue("Recall was " + recall, recall > 0.95);
+
+        for (float[] distances : result.getDistances()) {
+            assertEquals(10, distances.length);
+            for (int i = 1; i < distances.length; i++)
+                assertTrue(distances[i - 1] <= distances[i]);
+        }
+    }
+
+    @Test
+    public void testIncrementalInserts_1() {
+        Nd4j.getRandom().setSeed(119);
+        val items = Nd4j.rand(new int[] {1000, 8});
+        val index = new HNSWIndex.Builder(8).initialCapacity(16).build();
+
+        // adding items in chunks, ids should be assigned sequentially
+        for (int i = 0; i < 1000; i += 100)
+            assertEquals(i, index.add(items.get(NDArrayIndex.interval(i, i + 100), NDArrayIndex.all())));
+
+        for (int i = 0; i < 1000; i += 97) {
+            List<DataPoint> results = new ArrayList<>();
+            List<Double> distances = new ArrayList<>();
+            index.search(items.getRow(i), 1, results, distances);
+
+            assertEquals(i, results.get(0).getIndex());
+            assertEquals(0.0, distances.get(0), 1e-5);
+            assertEquals(items.getRow(i), index.getItem(i));
+        }
+    }
+
+    @Test
+    public void testSaveLoad_1() throws Exception {
+        Nd4j.getRandom().setSeed(12345);
+        val items = Nd4j.rand(new int[] {500, 10});
+        val queries = Nd4j.rand(new int[] {10, 10});
+
+        val indexA = new HNSWIndex.Builder(10).similarityFunction("cosinedistance", false).build();
+        indexA.add(items);
+
+        File file = new File(testDir.getRoot(), "hnsw.bin");
+        indexA.save(file);
+        val indexB = HNSWIndex.load(file);
+
+        assertEquals(indexA.size(), indexB.size());
+        assertEquals(indexA.getSimilarityFunction(), indexB.getSimilarityFunction());
+        assertEquals(indexA.getEf(), indexB.getEf());
+
+        val resultA = indexA.search(queries, 5);
+        val resultB = indexB.search(queries, 5);
+        for (int q = 0; q < queries.rows(); q++) {
+            assertArrayEquals(resultA.getIndices()[q], resultB.getIndices()[q]);
+            assertArrayEquals(resultA.getDistances()[q], resultB.getDistances()[q], 0.0f);
+        }
+
+        // loaded index accepts further inserts
+        assertEquals(500, indexB.add(Nd4j.rand(new int[] {5, 10})));
+        assertEquals(505, indexB.size());
+    }
+
+    @Test
+    public void testSmallIndex_1() {
+        val index = new HNSWIndex.Builder(4).build();
+        assertEquals(0, index.search(Nd4j.rand(new int[] {1, 4}), 3).getIndices()[0].length);
+
+        index.add(Nd4j.create(new float[] {1, 2, 3, 4}, new int[] {1, 4}));
+        index.add(Nd4j.create(new float[] {1, 2, 3, 5}, new int[] {1, 4}));
+
+        val result = index.search(Nd4j.create(new float[] {1, 2, 3, 4}, new int[] {1, 4}), 5);
+        assertArrayEquals(new int[] {0, 1}, result.getIndices()[0]);
+    }
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.clustering.hnsw;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.deeplearning4j.clustering.randomprojection.RPForest;
+import org.deeplearning4j.clustering.sptree.DataPoint;
+import org.deeplearning4j.clustering.vptree.FlatVPTree;
+import org.deeplearning4j.clustering.vptree.VPTree;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recall/latency comparison of HNSWIndex against VPTree, FlatVPTree and RPForest on the same random data.
+ * Ignored by default, since it takes a while. Sizes can be changed via system properties:
+ * nn.benchmark.items, nn.benchmark.dimensions, nn.benchmark.queries, nn.benchmark.k
+ */
+@Slf4j
+@Ignore
+public class NearestNeighborsBenchmark {
+
+    @Test
+    public void benchmark() {
+        int numItems = Integer.getInteger("nn.benchmark.items", 50000);
+        int dimensions = Integer.getInteger("nn.benchmark.dimensions", 64);
+        int numQueries = Integer.getInteger("nn.benchmark.queries", 200);
+        int k = Integer.getInteger("nn.benchmark.k", 10);
+
+        Nd4j.getRandom().setSeed(12345);
+        val items = Nd4j.rand(new int[] {numItems, dimensions});
+        val queries = Nd4j.rand(new int[] {numQueries, dimensions});
+        val truth = HNSWIndexTest.groundTruth(items, queries, k);
+
+        log.info("Items: {} x {}; queries: {}; k: {}", numItems, dimensions, numQueries, k);
+
+        // VPTree
+        long time = System.nanoTime();
+        val vpTree = new VPTree(items, "euclidean", Runtime.getRuntime().availableProcessors(), false);
+        long build = System.nanoTime() - time;
+        int[][] found = new int[numQueries][];
+        time = System.nanoTime();
+        for (int q = 0; q < numQueries; q++) {
+            List<DataPoint> results = new ArrayList<>();
+            List<Double> distances = new ArrayList<>();
+            vpTree.search(queries.getRow(q).dup('c'), k, results, distances);
+            found[q] = indices(results);
+        }
+        report("VPTree", build, System.nanoTime() - time, numQueries, truth, found);
+
+        // FlatVPTree, single-threaded latency and batched throughput
+        time = System.nanoTime();
+        val flatTree = new FlatVPTree(items);
+        build = System.nanoTime() - time;
+        time = System.nanoTime();
+        for (int q = 0; q < numQueries; q++) {
+            List<DataPoint> results = new ArrayList<>();
+            List<Double> distances = new ArrayList<>();
+            flatTree.search(queries.getRow(q), k, results, distances);
+            found[q] = indices(results);
+        }
+        report("FlatVPTree", build, System.nanoTime() - time, numQueries, truth, found);
+
+        time = System.nanoTime();
+        found = flatTree.search(queries, k).getIndices();
+        report("FlatVPTree (batched)", build, System.nanoTime() - time, numQueries, truth, found);
+
+        // RPForest
+        time = System.nanoTime();
+        val forest = new RPForest(10, 1000, "euclidean");
+        forest.fit(items);
+        build = System.nanoTime() - time;
+        found = new int[numQueries][];
+        time = System.nanoTime();
+        for (int q = 0; q < numQueries; q++) {
+            INDArray result = forest.queryAll(queries.getRow(q), k);
+            found[q] = result.data().asInt();
+        }
+        report("RPForest", build, System.nanoTime() - time, numQueries, truth, found);
+
+        // HNSW, for a few values of ef
+        time = System.nanoTime();
+        val index = new HNSWIndex.Builder(dimensions).m(16).efConstruction(200).initialCapacity(numItems).build();
+        index.add(items);
+        build = System.nanoTime() - time;
+        for (int ef : new int[] {16, 32, 64, 128, 256}) {
+            index.setEf(ef);
+            time = System.nanoTime();
+            for (int q = 0; q < numQueries; q++) {
+                List<DataPoint> results = new ArrayList<>();
+                List<Double> distances = new ArrayList<>();
+                index.search(queries.getRow(q), k, results, distances);
+                found[q] = indices(results);
+            }
+            report("HNSW (ef = " + ef + ")", build, System.nanoTime() - time, numQueries, truth, found);
+        }
+
+        time = System.nanoTime();
+        found = index.search(queries, k).getIndices();
+        report("HNSW (batched, ef = 256)", build, System.nanoTime() - time, numQueries, truth, found);
+    }
+
+    protected static int[] indices(List<DataPoint> results) {
+        int[] ret = new int[results.size()];
+        for (int i = 0; i < ret.length; i++)
+            ret[i] = results.get(i).getIndex();
+        return ret;
+    }
+
+    protected static void report(String name, long buildNanos, long searchNanos, int numQueries, int[][] truth,
+                    int[][] found) {
+        log.info("{}: build {} ms; {} us/query; recall@{}: {}", name, buildNanos / 1000000,
+                        searchNanos / 1000 / numQueries, truth[0].length,
+                        String.format("%.4f", HNSWIndexTest.recall(truth, found)));
+    }
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.clustering.vptree;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.deeplearning4j.clustering.sptree.DataPoint;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * FlatVPTree tests
+ */
+@Slf4j
+public class FlatVPTreeTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    /**
+     * Brute-force k-NN, returns indices sorted by distance
+     */
+    private static int[] bruteForce(INDArray items, INDArray query, int k) {
+        int n = items.rows();
+        final double[] distances = new double[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            distances[i] = items.getRow(i).distance2(query);
+            order[i] = i;
+        }
+
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(distances[a], distances[b]);
+            }
+        });
+
+        int[] ret = new int[k];
+        for (int i = 0; i < k; i++)
+            ret[i] = order[i];
+        return ret;
+    }
+
+    @Test
+    public void testSearchVsBruteForce_1() {
+        Nd4j.getRandom().setSeed(12345);
+        val items = Nd4j.rand(new int[] {2000, 8});
+        val queries = Nd4j.rand(new int[] {50, 8});
+        val tree = new FlatVPTree(items);
+
+        val result = tree.search(queries, 5);
+        assertEquals(50, result.getIndices().length);
+
+        for (int q = 0; q < queries.rows(); q++) {
+            int[] expected = bruteForce(items, queries.getRow(q), 5);
+            assertArrayEquals("Query " + q, expected, result.getIndices()[q]);
+
+            float[] distances = result.getDistances()[q];
+            for (int i = 1; i < distances.length; i++)
+                assertTrue(distances[i - 1] <= distances[i]);
+        }
+    }
+
+    @Test
+    public void testBatchVsSingle_1() {
+        Nd4j.getRandom().setSeed(119);
+        val items = Nd4j.rand(new int[] {500, 16});
+        val queries = Nd4j.rand(new int[] {20, 16});
+        val tree = new FlatVPTree(items, "manhattan", false);
+
+        val batch = tree.search(queries, 7);
+
+        for (int q = 0; q < queries.rows(); q++) {
+            List<DataPoint> results = new ArrayList<>();
+            List<Double> distances = new ArrayList<>();
+            tree.search(queries.getRow(q), 7, results, distances);
+
+            assertEquals(7, results.size());
+            for (int i = 0; i < results.size(); i++) {
+                int index = results.get(i).getIndex();
+                assertEquals(batch.getIndices()[q][i], index);
+                assertEquals(batch.getDistances()[q][i], distances.get(i), 1e-5);
+                assertEquals(items.getRow(index), results.get(i).getPoint());
+            }
+        }
+    }
+
+    @Test
+    public void testSaveAndMap_1() throws Exception {
+        Nd4j.getRandom().setSeed(12345);
+        val items = Nd4j.rand(new int[] {1000, 10});
+        val queries = Nd4j.rand(new int[] {10, 10});
+        val treeA = new FlatVPTree(items);
+
+        File file = new File(testDir.getRoot(), "tree.bin");
+        treeA.save(file);
+
+        val treeB = FlatVPTree.load(file);
+        assertEquals(treeA.getNumItems(), treeB.getNumItems());
+        assertEquals(treeA.getDimensions(), treeB.getDimensions());
+        assertEquals(treeA.getSimilarityFunction(), treeB.getSimilarityFunction());
+
+        val resultA = treeA.search(queries, 3);
+        val resultB = treeB.search(queries, 3);
+        for (int q = 0; q < queries.rows(); q++) {
+            assertArrayEquals(resultA.getIndices()[q], resultB.getIndices()[q]);
+            assertArrayEquals(resultA.getDistances()[q], resultB.getDistances()[q], 0.0f);
+        }
+    }
+
+    @Test
+    public void testDuplicatePoints_1() {
+        // identical points shouldn't degrade tree into a list
+        val items = Nd4j.ones(20000, 4);
+        val tree = new FlatVPTree(items);
+
+        val result = tree.search(Nd4j.ones(1, 4), 3);
+        assertEquals(3, result.getIndices()[0].length);
+        assertEquals(0.0f, result.getDistances()[0][0], 1e-6f);
+    }
+
+    @Test
+    public void testVPTreeBatchSearch_1() {
+        Nd4j.getRandom().setSeed(12345);
+        val items = Nd4j.rand(new int[] {200, 5});
+        val queries = Nd4j.rand(new int[] {8, 5});
+        val tree = new VPTree(items);
+
+        val distances = new ArrayList<List<Double>>();
+        val results = tree.search(queries, 3, distances);
+        assertEquals(8, results.size());
+        assertEquals(8, distances.size());
+
+        for (int q = 0; q < queries.rows(); q++) {
+            List<DataPoint> single = new ArrayList<>();
+            List<Double> singleDistances = new ArrayList<>();
+            tree.search(queries.getRow(q).dup('c'), 3, single, singleDistances);
+
+            assertEquals(singleDistances, distances.get(q));
+        }
+    }
+}
@@ -28,6 +28,8 @@ import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
 import org.deeplearning4j.models.embeddings.learning.impl.elements.RandomUtils;
 import org.deeplearning4j.models.embeddings.loader.VectorsConfiguration;
 import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
+import org.deeplearning4j.models.embeddings.reader.impl.BasicModelUtils;
+import org.deeplearning4j.models.embeddings.reader.impl.FlatModelUtils;
 import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
 import org.deeplearning4j.models.paragraphvectors.ParagraphVectors;
 import org.deeplearning4j.models.word2vec.VocabWord;
@@ -625,6 +627,120 @@ public class WordVectorSerializerTest {
         assertEquals(arrayLive, arrayStatic);
     }
 
+    /**
+     * This method tests binary file conversion to mapped model
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMappedLoaderBinary() throws Exception {
+        File mapped = testDir.newFile("binary.mapped");
+        WordVectorSerializer.convertToMappedModel(binaryFile, mapped);
+
+        WordVectors vectorsLive = WordVectorSerializer.readWord2VecModel(binaryFile);
+        WordVectors vectorsMapped = WordVectorSerializer.loadMappedModel(mapped);
+
+        INDArray arrayLive = vectorsLive.getWordVectorMatrix("Morgan_Freeman");
+        INDArray arrayMapped = vectorsMapped.getWordVectorMatrix("Morgan_Freeman");
+
+        assertNotEquals(null, arrayLive);
+        assertEquals(arrayLive, arrayMapped);
+        assertEquals(vectorsLive.vocab().numWords(), vectorsMapped.vocab().numWords());
+        assertFalse(vectorsMapped.hasWord("Morgan_Freeman_unknown"));
+        assertEquals(null, vectorsMapped.getWordVectorMatrix("Morgan_Freeman_unknown"));
+    }
+
+    /**
+     * This method tests CSV file conversion to mapped model
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMappedLoaderText() throws Exception {
+        File mapped = testDir.newFile("text.mapped");
+        WordVectorSerializer.convertToMappedModel(textFile, mapped);
+
+        WordVectors vectorsLive = WordVectorSerializer.loadTxtVectors(textFile);
+        WordVectors vectorsMapped = WordVectorSerializer.loadMappedModel(mapped);
+
+        INDArray arrayLive = vectorsLive.getWordVectorMatrix("Morgan_Freeman");
+        INDArray arrayMapped = vectorsMapped.getWordVectorMatrix("Morgan_Freeman");
+
+        assertNotEquals(null, arrayLive);
+        assertEquals(arrayLive, arrayMapped);
+        assertEquals(vectorsLive.similarity("Morgan_Freeman", "JA_Montalbano"),
+                        vectorsMapped.similarity("Morgan_Freeman", "JA_Montalbano"), 1e-5);
+    }
+
+    /**
+     * This method tests ZIP file conversion to mapped model
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMappedLoaderArchive() throws Exception {
+        File w2v = new ClassPathResource("word2vec.dl4j/file.w2v").getFile();
+        File mapped = testDir.newFile("archive.mapped");
+        WordVectorSerializer.convertToMappedModel(w2v, mapped);
+
+        WordVectors vectorsLive = WordVectorSerializer.readWord2Vec(w2v);
+        WordVectors vectorsMapped = WordVectorSerializer.loadMappedModel(mapped);
+
+        INDArray arrayLive = vectorsLive.getWordVectorMatrix("night");
+        INDArray arrayMapped = vectorsMapped.getWordVectorMatrix("night");
+
+        assertNotEquals(null, arrayLive);
+        assertEquals(arrayLive, arrayMapped);
+        assertEquals(vectorsLive.indexOf("night"), vectorsMapped.indexOf("night"));
+    }
+
+    /**
+     * This method tests in-memory model saved as mapped model
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMappedWriteWordVectors() throws Exception {
+        File w2v = new ClassPathResource("word2vec.dl4j/file.w2v").getFile();
+        File mapped = testDir.newFile("model.mapped");
+
+        WordVectors vectorsLive = WordVectorSerializer.readWord2Vec(w2v);
+        WordVectorSerializer.writeMappedModel(vectorsLive, mapped);
+        WordVectors vectorsMapped = WordVectorSerializer.loadMappedModel(mapped);
+
+        assertEquals(vectorsLive.vocab().numWords(), vectorsMapped.vocab().numWords());
+        assertEquals(vectorsLive.getWordVectorMatrix("day"), vectorsMapped.getWordVectorMatrix("day"));
+        assertEquals(vectorsLive.similarity("day", "night"), vectorsMapped.similarity("day", "night"), 1e-5);
+
+        // flat scan doesn't compensate for the word itself, so we request one more element
+        vectorsLive.setModelUtils(new FlatModelUtils());
+        assertEquals(new ArrayList<>(vectorsLive.wordsNearest("day", 6)),
+                        new ArrayList<>(vectorsMapped.wordsNearest("day", 5)));
+    }
+
+    /**
+     * This method tests that mapped model uses the same positive/negative query semantics as BasicModelUtils
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMappedWordsNearestPositiveNegative() throws Exception {
+        File w2v = new ClassPathResource("word2vec.dl4j/file.w2v").getFile();
+        File mapped = testDir.newFile("analogy.mapped");
+
+        WordVectors vectorsLive = WordVectorSerializer.readWord2Vec(w2v);
+        WordVectorSerializer.writeMappedModel(vectorsLive, mapped);
+        WordVectors vectorsMapped = WordVectorSerializer.loadMappedModel(mapped);
+
+        vectorsLive.setModelUtils(new BasicModelUtils<VocabWord>());
+
+        List<String> positive = Arrays.asList("day");
+        List<String> negative = Arrays.asList("night");
+        Collection<String> expected = vectorsLive.wordsNearest(positive, negative, 5);
+        assertEquals(5, expected.size());
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(vectorsMapped.wordsNearest(positive, negative, 5)));
+    }
+
     @Test
     public void testUnifiedLoaderArchive1() throws Exception {
         logger.info("Executor name: {}", Nd4j.getExecutioner().getClass().getSimpleName());
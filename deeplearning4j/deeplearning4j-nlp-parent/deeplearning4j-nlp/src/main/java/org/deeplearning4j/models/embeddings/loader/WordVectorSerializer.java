@@ -29,6 +29,7 @@ import org.deeplearning4j.models.embeddings.WeightLookupTable;
 import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
 import org.deeplearning4j.models.embeddings.learning.impl.elements.SkipGram;
 import org.deeplearning4j.models.embeddings.reader.impl.BasicModelUtils;
+import org.deeplearning4j.models.embeddings.wordvectors.MappedWordVectors;
 import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
 import org.deeplearning4j.models.embeddings.wordvectors.WordVectorsImpl;
 import org.deeplearning4j.models.glove.Glove;
@@ -2608,6 +2609,105 @@ public class WordVectorSerializer {
     }
 
 
+    /**
+     * This method converts previously saved w2v model into memory-mappable format, which can be loaded later
+     * with {@link #loadMappedModel(File)}. File can be in one of the following formats:
+     * 1) Binary model, either compressed or not. Like well-known Google Model
+     * 2) Popular CSV word2vec text format
+     * 3) DL4j compressed format
+     *
+     * PLEASE NOTE: Vectors are streamed into target file, so only vocabulary is kept in memory during conversion.
+     *
+     * @param source File should point to previously saved w2v model
+     * @param target File to write mapped model to
+     */
+    public static void convertToMappedModel(@NonNull File source, @NonNull File target) throws IOException {
+        if (!source.exists() || source.isDirectory())
+            throw new FileNotFoundException("File [" + source.getAbsolutePath() + "] was not found");
+
+        // if zip - that's dl4j format
+        File tmpFileSyn0 = null;
+        try (ZipFile zipFile = new ZipFile(source)) {
+            ZipEntry syn0 = zipFile.getEntry("syn0.txt");
+            if (syn0 != null) {
+                tmpFileSyn0 = DL4JFileUtils.createTempFile("word2vec", "syn");
+                tmpFileSyn0.deleteOnExit();
+
+                try (InputStream stream = zipFile.getInputStream(syn0)) {
+                    FileUtils.copyInputStreamToFile(stream, tmpFileSyn0);
+                }
+            }
+        } catch (IOException e) {
+            // not a zip file
+        }
+
+        try {
+            if (tmpFileSyn0 != null) {
+                log.debug("Converting DL4j format...");
+                writeMappedModel(new CSVReader(tmpFileSyn0), target);
+                return;
+            }
+
+            try {
+                log.debug("Trying CSVReader...");
+                writeMappedModel(new CSVReader(source), target);
+            } catch (Exception e) {
+                // otherwise it's probably google model. which might be compressed or not
+                log.debug("Trying BinaryReader...");
+                try {
+                    writeMappedModel(new BinaryReader(source), target);
+                } catch (Exception ez) {
+                    throw new IOException("Unable to guess input file format", ez);
+                }
+            }
+        } finally {
+            if (tmpFileSyn0 != null)
+                tmpFileSyn0.delete();
+        }
+    }
+
+    /**
+     * This method saves given WordVectors in memory-mappable format, which can be loaded later
+     * with {@link #loadMappedModel(File)}. Words are written in vocabulary index order.
+     *
+     * @param vectors WordVectors to save
+     * @param file File to write mapped model to
+     */
+    public static void writeMappedModel(@NonNull WordVectors vectors, @NonNull File file) throws IOException {
+        VocabCache<?> vocab = vectors.vocab();
+        try (MappedWordVectors.Writer writer = new MappedWordVectors.Writer(file)) {
+            for (int i = 0; i < vocab.numWords(); i++) {
+                String word = vocab.wordAtIndex(i);
+                writer.add(word, vectors.getWordVectorMatrix(word).dup('c').data().asFloat());
+            }
+        }
+    }
+
+    protected static void writeMappedModel(@NonNull Reader reader, @NonNull File file) throws Exception {
+        try (Reader r = reader; MappedWordVectors.Writer writer = new MappedWordVectors.Writer(file)) {
+            while (r.hasNext()) {
+                Pair<VocabWord, float[]> pair = r.next();
+                writer.add(pair.getFirst().getLabel(), pair.getSecond());
+            }
+        }
+    }
+
+    /**
+     * This method memory-maps model previously saved with {@link #writeMappedModel(WordVectors, File)} or
+     * {@link #convertToMappedModel(File, File)}. Nothing is copied onto the heap, so this method takes milliseconds
+     * regardless of model size, and page cache is shared between all JVMs using the same file.
+     *
+     * @param file File should point to previously saved mapped model
+     * @return mapped model
+     */
+    public static MappedWordVectors loadMappedModel(@NonNull File file) throws IOException {
+        if (!file.exists() || file.isDirectory())
+            throw new FileNotFoundException("File [" + file.getAbsolutePath() + "] was not found");
+
+        return MappedWordVectors.load(file);
+    }
+
+
     protected interface Reader extends AutoCloseable {
         boolean hasNext();
 
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.models.embeddings.reader;
+
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optional extension of {@link ModelUtils} for implementations that can answer many nearest-neighbor queries at once.
+ * It's kept separate from ModelUtils, so existing ModelUtils implementations stay source and binary compatible:
+ * callers check for this interface, and fall back to per-query calls otherwise.
+ */
+public interface BatchModelUtils<T extends SequenceElement> extends ModelUtils<T> {
+
+    /**
+     * Batched version of {@link #wordsNearest(INDArray, int)}: returns nearest elements for each row of queries matrix
+     *
+     * @param queries query vectors, one per row
+     * @param top number of nearest elements to return for each query
+     * @return nearest elements labels, one collection per query, in row order
+     */
+    List<Collection<String>> wordsNearestBatch(INDArray queries, int top);
+
+    /**
+     * Batched version of {@link #wordsNearest(String, int)}: returns N nearest elements labels for each given label.
+     * Unknown labels are mapped to empty collections.
+     *
+     * @param labels labels to return nearest elements for
+     * @param n number of nearest elements to return for each label
+     * @return map of label to its nearest elements labels, in iteration order of given labels
+     */
+    Map<String, Collection<String>> wordsNearestBatch(Collection<String> labels, int n);
+}
@@ -16,19 +16,21 @@
 
 package org.deeplearning4j.models.embeddings.reader.impl;
 
-import com.google.common.collect.Lists;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.deeplearning4j.models.embeddings.WeightLookupTable;
 import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
-import org.deeplearning4j.models.embeddings.reader.ModelUtils;
+import org.deeplearning4j.models.embeddings.reader.BatchModelUtils;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
 import org.nd4j.linalg.util.MathUtils;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.ops.transforms.Transforms;
 import org.nd4j.linalg.primitives.Counter;
 import org.nd4j.util.SetUtils;
@@ -43,7 +45,7 @@ import java.util.*;
  * @author Adam Gibson
  */
 @Slf4j
-public class BasicModelUtils<T extends SequenceElement> implements ModelUtils<T> {
+public class BasicModelUtils<T extends SequenceElement> implements BatchModelUtils<T> {
     public static final String EXISTS = "exists";
     public static final String CORRECT = "correct";
     public static final String WRONG = "wrong";
@@ -52,6 +54,17 @@ public class BasicModelUtils<T extends SequenceElement> implements ModelUtils<T>
 
     protected volatile boolean normalized = false;
 
+    /**
+     * Number of syn0 rows scored at once by full-scan methods, this keeps temporary similarity buffers bounded
+     * for huge vocabularies.
+     */
+    @Getter
+    @Setter
+    protected int scoringBatchSize = 65536;
+
+    // extra candidates selected to compensate for UNK/STOP elements skipped from results
+    protected static final int SKIP_MARGIN = 20;
+
 
     public BasicModelUtils() {
 
@@ -240,38 +253,9 @@ public class BasicModelUtils<T extends SequenceElement> implements ModelUtils<T>
     @Override
     public Collection<String> wordsNearest(INDArray words, int top) {
         if (lookupTable instanceof InMemoryLookupTable) {
-            InMemoryLookupTable l = (InMemoryLookupTable) lookupTable;
-
-            INDArray syn0 = l.getSyn0();
-
-            if (!normalized) {
-                synchronized (this) {
-                    if (!normalized) {
-                        syn0.diviColumnVector(syn0.norm2(1));
-                        normalized = true;
-                    }
-                }
-            }
+            INDArray query = Transforms.unitVec(words.dup()).reshape(1, lookupTable.layerSize());
 
-            INDArray similarity = Transforms.unitVec(words).mmul(syn0.transpose());
-
-            List<Double> highToLowSimList = getTopN(similarity, top + 20);
-
-            List<WordSimilarity> result = new ArrayList<>();
-
-            for (int i = 0; i < highToLowSimList.size(); i++) {
-                String word = vocabCache.wordAtIndex(highToLowSimList.get(i).intValue());
-                if (word != null && !word.equals("UNK") && !word.equals("STOP")) {
-                    INDArray otherVec = lookupTable.vector(word);
-                    double sim = Transforms.cosineSim(words, otherVec);
-
-                    result.add(new WordSimilarity(word, sim));
-                }
-            }
-
-            Collections.sort(result, new SimilarityComparator());
-
-            return getLabels(result, top);
+            return getLabels(nearestIndices(query, top + SKIP_MARGIN)[0], top);
         }
 
         Counter<String> distances = new Counter<>();
@@ -290,36 +274,158 @@ public class BasicModelUtils<T extends SequenceElement> implements ModelUtils<T>
     }
 
     /**
-     * Get top N elements
+     * Batched version of {@link #wordsNearest(INDArray, int)}. For in-memory lookup tables all queries are scored
+     * against the same syn0 chunk with a single mmul call, so syn0 is scanned only once for the whole batch.
      *
-     * @param vec the vec to extract the top elements from
-     * @param N the number of elements to extract
-     * @return the indices and the sorted top N elements
+     * @param queries query vectors, one per row
+     * @param top number of nearest elements to return for each query
+     * @return nearest elements labels, one collection per query, in row order
      */
-    private List<Double> getTopN(INDArray vec, int N) {
-        ArrayComparator comparator = new ArrayComparator();
-        PriorityQueue<Double[]> queue = new PriorityQueue<>(vec.rows(), comparator);
-
-        for (int j = 0; j < vec.length(); j++) {
-            final Double[] pair = new Double[] {vec.getDouble(j), (double) j};
-            if (queue.size() < N) {
-                queue.add(pair);
-            } else {
-                Double[] head = queue.peek();
-                if (comparator.compare(pair, head) > 0) {
-                    queue.poll();
-                    queue.add(pair);
+    @Override
+    public List<Collection<String>> wordsNearestBatch(@NonNull INDArray queries, int top) {
+        if (!(lookupTable instanceof InMemoryLookupTable))
+            return wordsNearestSequential(queries, top);
+
+        INDArray unit = queries.dup().reshape(queries.rows(), lookupTable.layerSize());
+        unit.diviColumnVector(unit.norm2(1));
+
+        int[][] indices = nearestIndices(unit, top + SKIP_MARGIN);
+        List<Collection<String>> result = new ArrayList<>(indices.length);
+        for (int[] row : indices)
+            result.add(getLabels(row, top));
+
+        return result;
+    }
+
+    /**
+     * Batched version of {@link #wordsNearest(String, int)}: returns N nearest elements labels for each given label.
+     * Unknown labels are mapped to empty collections.
+     *
+     * @param labels labels to return nearest elements for
+     * @param n number of nearest elements to return for each label
+     * @return map of label to its nearest elements labels, in iteration order of given labels
+     */
+    @Override
+    public Map<String, Collection<String>> wordsNearestBatch(@NonNull Collection<String> labels, int n) {
+        Map<String, Collection<String>> result = new LinkedHashMap<>();
+        List<String> known = new ArrayList<>();
+        for (String label : labels) {
+            result.put(label, new ArrayList<String>());
+            if (vocabCache.hasToken(label) && !known.contains(label))
+                known.add(label);
+        }
+
+        if (known.isEmpty())
+            return result;
+
+        INDArray queries = Nd4j.create(known.size(), lookupTable.layerSize());
+        for (int i = 0; i < known.size(); i++)
+            queries.putRow(i, lookupTable.vector(known.get(i)));
+
+        // one extra element, since label itself is going to be the nearest one
+        List<Collection<String>> nearest = wordsNearestBatch(queries, n + 1);
+        for (int i = 0; i < known.size(); i++) {
+            List<String> words = new ArrayList<>(nearest.get(i));
+            words.remove(known.get(i));
+            while (words.size() > n)
+                words.remove(words.size() - 1);
+
+            result.put(known.get(i), words);
+        }
+
+        return result;
+    }
+
+    /**
+     * Fallback for batched methods: calls {@link #wordsNearest(INDArray, int)} for each row of queries matrix
+     */
+    protected List<Collection<String>> wordsNearestSequential(@NonNull INDArray queries, int top) {
+        List<Collection<String>> result = new ArrayList<>(queries.rows());
+        for (int i = 0; i < queries.rows(); i++)
+            result.add(wordsNearest(queries.getRow(i), top));
+
+        return result;
+    }
+
+    /**
+     * This method normalizes syn0 once, and returns it
+     */
+    protected INDArray normalizedSyn0() {
+        INDArray syn0 = ((InMemoryLookupTable) lookupTable).getSyn0();
+
+        if (!normalized) {
+            synchronized (this) {
+                if (!normalized) {
+                    syn0.diviColumnVector(syn0.norm2(1));
+                    normalized = true;
                 }
             }
         }
 
-        List<Double> lowToHighSimLst = new ArrayList<>();
+        return syn0;
+    }
+
+    /**
+     * Scans normalized syn0 in chunks of {@link #getScoringBatchSize()} rows, and selects N highest-scored rows for
+     * each query. Only bounded heaps are used for selection, so there's no full-vocabulary sort, and no boxing.
+     *
+     * @param queries unit-length query vectors, one per row
+     * @param n number of rows to select for each query
+     * @return syn0 row indices for each query, from the most similar to the least similar one
+     */
+    protected int[][] nearestIndices(INDArray queries, int n) {
+        INDArray syn0 = normalizedSyn0();
+        int rows = syn0.rows();
+        int numQueries = queries.rows();
+
+        TopNSelector[] selectors = new TopNSelector[numQueries];
+        for (int q = 0; q < numQueries; q++)
+            selectors[q] = new TopNSelector(Math.max(1, Math.min(n, rows)));
+
+        int chunkSize = Math.max(1, scoringBatchSize);
+        for (int start = 0; start < rows; start += chunkSize) {
+            int end = Math.min(rows, start + chunkSize);
+            INDArray chunk = start == 0 && end == rows ? syn0
+                            : syn0.get(NDArrayIndex.interval(start, end), NDArrayIndex.all());
+
+            float[] scores = asFloat(queries.mmul(chunk.transpose()));
+            int width = end - start;
+            for (int q = 0; q < numQueries; q++)
+                selectors[q].offer(scores, q * width, width, start);
+        }
+
+        int[][] result = new int[numQueries][];
+        for (int q = 0; q < numQueries; q++)
+            result[q] = selectors[q].drainDescending();
+
+        return result;
+    }
+
+    /**
+     * Returns content of the given array as float[] in c order
+     */
+    protected static float[] asFloat(INDArray array) {
+        if (array.ordering() != 'c' || array.isView() || array.data().length() != array.length())
+            array = array.dup('c');
+
+        return array.data().asFloat();
+    }
 
-        while (!queue.isEmpty()) {
-            double ind = queue.poll()[1];
-            lowToHighSimLst.add(ind);
+    /**
+     * Maps indices to words, skipping UNK/STOP and missing elements
+     */
+    protected List<String> getLabels(int[] indices, int limit) {
+        List<String> result = new ArrayList<>();
+        for (int index : indices) {
+            if (result.size() >= limit)
+                break;
+
+            String word = vocabCache.wordAtIndex(index);
+            if (word != null && !word.equals("UNK") && !word.equals("STOP"))
+                result.add(word);
         }
-        return Lists.reverse(lowToHighSimLst);
+
+        return result;
     }
 
     /**
@@ -334,27 +440,13 @@ public class BasicModelUtils<T extends SequenceElement> implements ModelUtils<T>
             InMemoryLookupTable l = (InMemoryLookupTable) lookupTable;
             INDArray syn0 = l.getSyn0();
             INDArray weights = syn0.norm2(0).rdivi(1).muli(words);
-            INDArray distances = syn0.mulRowVector(weights).sum(1);
-            INDArray[] sorted = Nd4j.sortWithIndices(distances, 0, false);
-            INDArray sort = sorted[0];
-            List<String> ret = new ArrayList<>();
-
-            // FIXME: int cast
-            if (top > sort.length())
-                top = (int) sort.length();
-            //there will be a redundant word
-            int end = top;
-            for (int i = 0; i < end; i++) {
-                String add = vocabCache.wordAtIndex(sort.getInt(i));
-                if (add == null || add.equals("UNK") || add.equals("STOP")) {
-                    end++;
-                    if (end >= sort.length())
-                        break;
-                    continue;
-                }
-                ret.add(vocabCache.wordAtIndex(sort.getInt(i)));
-            }
-            return ret;
+            INDArray distances = syn0.mmul(weights.reshape(weights.length(), 1));
+
+            float[] scores = asFloat(distances);
+            TopNSelector selector = new TopNSelector(Math.max(1, Math.min(top + SKIP_MARGIN, scores.length)));
+            selector.offer(scores, 0, scores.length, 0);
+
+            return getLabels(selector.drainDescending(), top);
         }
 
         Counter<String> distances = new Counter<>();
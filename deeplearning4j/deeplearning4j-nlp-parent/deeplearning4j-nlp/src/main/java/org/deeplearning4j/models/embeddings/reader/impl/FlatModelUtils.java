@@ -24,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * This model reader is suited for model tests, and for cases where flat scan against elements is required.
@@ -73,4 +74,16 @@ public class FlatModelUtils<T extends SequenceElement> extends BasicModelUtils<T
         distances.keepTopNElements(top);
         return distances.keySetSorted();
     }
+
+    /**
+     * This method does full scan against whole vocabulary for each query
+     *
+     * @param queries query vectors, one per row
+     * @param top number of nearest elements to return for each query
+     * @return nearest elements labels, one collection per query, in row order
+     */
+    @Override
+    public List<Collection<String>> wordsNearestBatch(INDArray queries, int top) {
+        return wordsNearestSequential(queries, top);
+    }
 }
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.models.embeddings.reader.impl;
+
+import lombok.NonNull;
+import org.deeplearning4j.clustering.hnsw.HNSWIndex;
+import org.deeplearning4j.clustering.util.SearchResult;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This is HNSW-based implementation for wordsNearest methods: approximate nearest neighbors search, suited for
+ * big vocabularies and multiple consequent calls. Index is built upon first call to wordsNearest methods, or can be
+ * provided via {@link #setIndex(HNSWIndex)}, i.e. loaded with {@link HNSWIndex#load(java.io.File)}.
+ *
+ * PLEASE NOTE: Index keeps its own copy of word vectors, so it will take some memory, dependant on your model size.
+ * PLEASE NOTE: Results are approximate, use {@link BasicModelUtils} if exact results are required.
+ */
+public class HnswModelUtils<T extends SequenceElement> extends BasicModelUtils<T> {
+    protected HNSWIndex index;
+    protected final int m;
+    protected final int efConstruction;
+    protected final int ef;
+
+    public HnswModelUtils() {
+        this(16, 200, 100);
+    }
+
+    /**
+     * @param m number of links per index node, see {@link HNSWIndex.Builder#m(int)}
+     * @param efConstruction size of candidates list during index construction
+     * @param ef size of candidates list during search, higher values give better recall
+     */
+    public HnswModelUtils(int m, int efConstruction, int ef) {
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.ef = ef;
+    }
+
+    @Override
+    public void init(@NonNull WeightLookupTable<T> lookupTable) {
+        super.init(lookupTable);
+        index = null;
+    }
+
+    /**
+     * This method allows to use pre-built index. Item ids within index should match vocabulary indices.
+     *
+     * @param index index to use for search
+     */
+    public synchronized void setIndex(@NonNull HNSWIndex index) {
+        if (vocabCache != null && index.size() != vocabCache.numWords())
+            throw new ND4JIllegalStateException("Index holds " + index.size() + " items, but vocabulary has "
+                            + vocabCache.numWords() + " words");
+
+        this.index = index;
+    }
+
+    /**
+     * @return index used for search, building it if it wasn't created before
+     */
+    public synchronized HNSWIndex getIndex() {
+        if (index == null) {
+            int numWords = vocabCache.numWords();
+            HNSWIndex hnsw = new HNSWIndex.Builder(lookupTable.layerSize()).m(m).efConstruction(efConstruction)
+                            .ef(ef).similarityFunction("cosinedistance", false).initialCapacity(Math.max(1, numWords))
+                            .build();
+
+            if (lookupTable instanceof InMemoryLookupTable) {
+                hnsw.add(((InMemoryLookupTable) lookupTable).getSyn0());
+            } else {
+                INDArray vectors = Nd4j.create(numWords, lookupTable.layerSize());
+                for (int i = 0; i < numWords; i++)
+                    vectors.putRow(i, lookupTable.vector(vocabCache.wordAtIndex(i)));
+
+                hnsw.add(vectors);
+            }
+
+            index = hnsw;
+        }
+
+        return index;
+    }
+
+    @Override
+    public Collection<String> wordsNearest(INDArray words, int top) {
+        SearchResult result = getIndex().search(words.reshape(1, lookupTable.layerSize()), top + SKIP_MARGIN);
+        return getLabels(result.getIndices()[0], top);
+    }
+
+    @Override
+    public List<Collection<String>> wordsNearestBatch(@NonNull INDArray queries, int top) {
+        SearchResult result = getIndex().search(queries.reshape(queries.rows(), lookupTable.layerSize()),
+                        top + SKIP_MARGIN);
+
+        List<Collection<String>> ret = new ArrayList<>(queries.rows());
+        for (int[] indices : result.getIndices())
+            ret.add(getLabels(indices, top));
+
+        return ret;
+    }
+}
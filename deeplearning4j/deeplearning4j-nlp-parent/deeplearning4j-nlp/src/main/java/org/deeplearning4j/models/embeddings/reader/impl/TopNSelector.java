@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.models.embeddings.reader.impl;
+
+import java.util.Arrays;
+
+/**
+ * Bounded primitive min-heap used to pick N highest scores out of a score vector, without sorting (or boxing)
+ * the whole vector: each offer is O(1) for scores below current N-th best, and O(log N) otherwise.
+ *
+ * PLEASE NOTE: NaN scores are never selected. This class isn't thread-safe.
+ */
+public class TopNSelector {
+    private final int capacity;
+    private final int[] indices;
+    private final float[] scores;
+    private int size;
+
+    public TopNSelector(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity should be positive, got " + capacity);
+
+        this.capacity = capacity;
+        this.indices = new int[capacity];
+        this.scores = new float[capacity];
+    }
+
+    /**
+     * @return number of elements currently held
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return lowest score currently selected, or -Infinity if less than N elements were offered so far
+     */
+    public float threshold() {
+        return size < capacity ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Offer single element
+     *
+     * @param index index of the element
+     * @param score score of the element, higher is better
+     */
+    public void offer(int index, float score) {
+        if (score != score)
+            return;
+
+        if (size < capacity) {
+            indices[size] = index;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (score > scores[0]) {
+            indices[0] = index;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Offer a run of scores: element {@code i} of the run gets index {@code firstIndex + i}
+     *
+     * @param buffer     scores
+     * @param offset     position of the first score within buffer
+     * @param length     number of scores
+     * @param firstIndex index of the first element
+     */
+    public void offer(float[] buffer, int offset, int length, int firstIndex) {
+        for (int i = 0; i < length; i++) {
+            float score = buffer[offset + i];
+            // fast path: most of vocabulary is rejected by this single comparison
+            if (size == capacity && !(score > scores[0]))
+                continue;
+
+            offer(firstIndex + i, score);
+        }
+    }
+
+    /**
+     * Returns selected indices ordered from the highest score to the lowest, and clears this selector
+     *
+     * @return indices of selected elements
+     */
+    public int[] drainDescending() {
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = indices[0];
+            size--;
+            if (size > 0) {
+                indices[0] = indices[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns selected scores ordered from the highest to the lowest, without modifying this selector
+     *
+     * @return scores of selected elements
+     */
+    public float[] scoresDescending() {
+        float[] result = Arrays.copyOf(scores, size);
+        Arrays.sort(result);
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            float t = result[i];
+            result[i] = result[j];
+            result[j] = t;
+        }
+        return result;
+    }
+
+    private void siftUp(int pos) {
+        int index = indices[pos];
+        float score = scores[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (scores[parent] <= score)
+                break;
+            indices[pos] = indices[parent];
+            scores[pos] = scores[parent];
+            pos = parent;
+        }
+        indices[pos] = index;
+        scores[pos] = score;
+    }
+
+    private void siftDown(int pos) {
+        int index = indices[pos];
+        float score = scores[pos];
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < size && scores[right] < scores[child])
+                child = right;
+            if (score <= scores[child])
+                break;
+            indices[pos] = indices[child];
+            scores[pos] = scores[child];
+            pos = child;
+        }
+        indices[pos] = index;
+        scores[pos] = score;
+    }
+}
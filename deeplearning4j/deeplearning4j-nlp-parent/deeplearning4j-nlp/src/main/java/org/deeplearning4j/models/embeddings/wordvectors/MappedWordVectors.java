@@ -0,0 +1,658 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.models.embeddings.wordvectors;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.reader.ModelUtils;
+import org.deeplearning4j.models.embeddings.reader.impl.TopNSelector;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * WordVectors implementation backed by memory-mapped file. Vectors, their norms, and vocabulary (as open-addressing
+ * hash table over UTF-8 encoded words) are all kept in the mapped file, so loading takes milliseconds regardless of
+ * model size, nothing is copied onto the heap, and multiple JVMs on the same host share the same page cache.
+ *
+ * Files in this format are produced by {@link Writer}, see also
+ * {@link org.deeplearning4j.models.embeddings.loader.WordVectorSerializer#convertToMappedModel(File, File)}.
+ *
+ * PLEASE NOTE: Vectors are read-only. wordsNearest methods do exact full scan over mapped vectors.
+ */
+@Slf4j
+public class MappedWordVectors implements WordVectors {
+    public static final int MAGIC = 0x444C3457;
+    public static final int VERSION = 1;
+    protected static final int HEADER_SIZE = 64;
+
+    // vectors are mapped in segments of whole rows, since single mapping can't exceed 2GB
+    protected static final long SEGMENT_BYTES = 1L << 30;
+
+    protected final File file;
+    protected final int numWords;
+    protected final int vectorLength;
+    protected final int rowsPerSegment;
+    protected final FloatBuffer[] segments;
+    protected final FloatBuffer norms;
+    protected final IntBuffer offsets;
+    protected final IntBuffer hashTable;
+    protected final int hashMask;
+    protected final ByteBuffer strings;
+
+    protected transient volatile VocabCache<VocabWord> vocabCache;
+    protected String unk = null;
+
+    protected MappedWordVectors(@NonNull File file) throws IOException {
+        this.file = file;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            ByteBuffer header = map(channel, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC)
+                throw new IOException("File [" + file.getAbsolutePath() + "] isn't a mapped word vectors model");
+            if (header.getInt(4) != VERSION)
+                throw new IOException("Unsupported mapped word vectors version: " + header.getInt(4));
+
+            numWords = header.getInt(8);
+            vectorLength = header.getInt(12);
+            int hashCapacity = header.getInt(16);
+            long vectorsOffset = header.getLong(24);
+            long normsOffset = header.getLong(32);
+            long offsetsOffset = header.getLong(40);
+            long hashOffset = header.getLong(48);
+            long stringsOffset = header.getLong(56);
+
+            long rowBytes = 4L * Math.max(1, vectorLength);
+            rowsPerSegment = (int) Math.max(1, Math.min(Integer.MAX_VALUE, SEGMENT_BYTES / rowBytes));
+            int numSegments = (int) ((numWords + (long) rowsPerSegment - 1) / rowsPerSegment);
+            segments = new FloatBuffer[numSegments];
+            for (int s = 0; s < numSegments; s++) {
+                long rows = Math.min(rowsPerSegment, numWords - (long) s * rowsPerSegment);
+                segments[s] = map(channel, vectorsOffset + (long) s * rowsPerSegment * rowBytes, rows * rowBytes)
+                                .asFloatBuffer();
+            }
+
+            norms = map(channel, normsOffset, 4L * numWords).asFloatBuffer();
+            offsets = map(channel, offsetsOffset, 4L * (numWords + 1)).asIntBuffer();
+            hashTable = map(channel, hashOffset, 4L * hashCapacity).asIntBuffer();
+            hashMask = hashCapacity - 1;
+            strings = map(channel, stringsOffset, channel.size() - stringsOffset);
+        }
+    }
+
+    protected static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("Section of " + size + " bytes can't be mapped");
+
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Maps previously written model. Mapped buffers stay valid after file handle is closed.
+     *
+     * @param file model file produced by {@link Writer}
+     * @return mapped model
+     */
+    public static MappedWordVectors load(@NonNull File file) throws IOException {
+        return new MappedWordVectors(file);
+    }
+
+    protected static int hash(byte[] bytes) {
+        // FNV-1a
+        int h = 0x811C9DC5;
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return number of words in this model
+     */
+    public int numWords() {
+        return numWords;
+    }
+
+    /**
+     * @return length of word vectors
+     */
+    public int getVectorLength() {
+        return vectorLength;
+    }
+
+    /**
+     * Returns word stored at given index, or null if index is out of bounds
+     */
+    public String wordAtIndex(int index) {
+        if (index < 0 || index >= numWords)
+            return null;
+
+        int start = offsets.get(index);
+        byte[] bytes = new byte[offsets.get(index + 1) - start];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = strings.get(start + i);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int indexOf(String word) {
+        if (word == null || numWords == 0)
+            return -1;
+
+        byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+        int slot = hash(bytes) & hashMask;
+        while (true) {
+            int entry = hashTable.get(slot);
+            if (entry == 0)
+                return -1;
+
+            int index = entry - 1;
+            if (matches(index, bytes))
+                return index;
+
+            slot = (slot + 1) & hashMask;
+        }
+    }
+
+    protected boolean matches(int index, byte[] bytes) {
+        int start = offsets.get(index);
+        if (offsets.get(index + 1) - start != bytes.length)
+            return false;
+
+        for (int i = 0; i < bytes.length; i++)
+            if (strings.get(start + i) != bytes[i])
+                return false;
+
+        return true;
+    }
+
+    @Override
+    public boolean hasWord(String word) {
+        return indexOf(word) >= 0;
+    }
+
+    @Override
+    public String getUNK() {
+        return unk;
+    }
+
+    @Override
+    public void setUNK(String newUNK) {
+        this.unk = newUNK;
+    }
+
+    /**
+     * Copies vector stored at given index into target array
+     */
+    public void getVector(int index, float[] target, int targetOffset) {
+        FloatBuffer segment = segments[index / rowsPerSegment].duplicate();
+        segment.position((index % rowsPerSegment) * vectorLength);
+        segment.get(target, targetOffset, vectorLength);
+    }
+
+    protected int resolve(String word) {
+        int idx = indexOf(word);
+        if (idx < 0 && unk != null)
+            idx = indexOf(unk);
+
+        return idx;
+    }
+
+    @Override
+    public double[] getWordVector(String word) {
+        int idx = resolve(word);
+        if (idx < 0)
+            return null;
+
+        float[] vector = new float[vectorLength];
+        getVector(idx, vector, 0);
+
+        double[] result = new double[vectorLength];
+        for (int i = 0; i < vectorLength; i++)
+            result[i] = vector[i];
+
+        return result;
+    }
+
+    @Override
+    public INDArray getWordVectorMatrix(String word) {
+        int idx = resolve(word);
+        if (idx < 0)
+            return null;
+
+        float[] vector = new float[vectorLength];
+        getVector(idx, vector, 0);
+        return Nd4j.create(vector, new int[] {1, vectorLength});
+    }
+
+    @Override
+    public INDArray getWordVectorMatrixNormalized(String word) {
+        INDArray vector = getWordVectorMatrix(word);
+        return vector == null ? null : Transforms.unitVec(vector);
+    }
+
+    /**
+     * This method returns 2D array, where each row represents corresponding word/label. Unknown words are skipped,
+     * unless UNK is defined.
+     *
+     * @param labels
+     * @return
+     */
+    @Override
+    public INDArray getWordVectors(@NonNull Collection<String> labels) {
+        int[] indices = new int[labels.size()];
+        int rows = 0;
+        for (String label : labels) {
+            int idx = resolve(label);
+            if (idx >= 0)
+                indices[rows++] = idx;
+        }
+
+        float[] data = new float[rows * vectorLength];
+        for (int r = 0; r < rows; r++)
+            getVector(indices[r], data, r * vectorLength);
+
+        return Nd4j.create(data, new int[] {rows, vectorLength});
+    }
+
+    @Override
+    public INDArray getWordVectorsMean(Collection<String> labels) {
+        return getWordVectors(labels).mean(0);
+    }
+
+    /**
+     * Returns the similarity of 2 words
+     *
+     * @param label1 the first word
+     * @param label2 the second word
+     * @return a normalized similarity (cosine similarity), or NaN if any of words is unknown
+     */
+    @Override
+    public double similarity(String label1, String label2) {
+        int idx1 = resolve(label1);
+        int idx2 = resolve(label2);
+        if (idx1 < 0 || idx2 < 0)
+            return Double.NaN;
+
+        if (label1.equals(label2))
+            return 1.0;
+
+        float[] v1 = new float[vectorLength];
+        float[] v2 = new float[vectorLength];
+        getVector(idx1, v1, 0);
+        getVector(idx2, v2, 0);
+
+        double dot = 0.0;
+        for (int i = 0; i < vectorLength; i++)
+            dot += v1[i] * v2[i];
+
+        return dot / ((double) norms.get(idx1) * norms.get(idx2));
+    }
+
+    /**
+     * Returns indices of N words with the highest cosine similarity to the given vector, from the most similar one.
+     * This is exact full scan over mapped vectors.
+     *
+     * @param query query vector
+     * @param n number of indices to return
+     * @return word indices
+     */
+    public int[] nearestIndices(@NonNull float[] query, int n) {
+        double queryNorm = 0.0;
+        for (float v : query)
+            queryNorm += v * v;
+        queryNorm = Math.sqrt(queryNorm);
+
+        TopNSelector selector = new TopNSelector(Math.max(1, Math.min(n, numWords)));
+        float[] row = new float[vectorLength];
+        for (int s = 0; s < segments.length; s++) {
+            FloatBuffer segment = segments[s].duplicate();
+            int first = s * rowsPerSegment;
+            int rows = segment.remaining() / Math.max(1, vectorLength);
+            for (int r = 0; r < rows; r++) {
+                segment.get(row);
+                float dot = 0.0f;
+                for (int e = 0; e < vectorLength; e++)
+                    dot += row[e] * query[e];
+
+                selector.offer(first + r, (float) (dot / (queryNorm * norms.get(first + r))));
+            }
+        }
+
+        return selector.drainDescending();
+    }
+
+    protected List<String> nearestWords(float[] query, int top, Collection<String> exclude) {
+        List<String> result = new ArrayList<>();
+        for (int idx : nearestIndices(query, top + exclude.size())) {
+            String word = wordAtIndex(idx);
+            if (!exclude.contains(word))
+                result.add(word);
+
+            if (result.size() >= top)
+                break;
+        }
+
+        return result;
+    }
+
+    @Override
+    public Collection<String> wordsNearest(@NonNull INDArray words, int top) {
+        return nearestWords(words.dup('c').data().asFloat(), top, Collections.<String>emptySet());
+    }
+
+    @Override
+    public Collection<String> wordsNearest(String word, int n) {
+        int idx = indexOf(word);
+        if (idx < 0)
+            return new ArrayList<>();
+
+        float[] query = new float[vectorLength];
+        getVector(idx, query, 0);
+        return nearestWords(query, n, Collections.singleton(word));
+    }
+
+    /**
+     * Same semantics as {@link org.deeplearning4j.models.embeddings.reader.impl.BasicModelUtils}: query is the mean of
+     * unit-normalized positive vectors and negated unit-normalized negative vectors.
+     */
+    @Override
+    public Collection<String> wordsNearest(@NonNull Collection<String> positive, @NonNull Collection<String> negative,
+                    int top) {
+        float[] query = new float[vectorLength];
+        float[] vector = new float[vectorLength];
+        Set<String> exclude = new HashSet<>();
+        int count = 0;
+        for (String word : positive) {
+            if (!accumulateUnit(word, 1.0f, vector, query))
+                return new ArrayList<>();
+            exclude.add(word);
+            count++;
+        }
+
+        for (String word : negative) {
+            if (!accumulateUnit(word, -1.0f, vector, query))
+                return new ArrayList<>();
+            exclude.add(word);
+            count++;
+        }
+
+        if (count > 1)
+            for (int i = 0; i < vectorLength; i++)
+                query[i] /= count;
+
+        return nearestWords(query, top, exclude);
+    }
+
+    /**
+     * Adds unit-normalized vector of the given word, multiplied by sign, to the query
+     *
+     * @return false if word isn't in vocabulary
+     */
+    protected boolean accumulateUnit(String word, float sign, float[] buffer, float[] query) {
+        int idx = indexOf(word);
+        if (idx < 0)
+            return false;
+
+        getVector(idx, buffer, 0);
+        float norm = norms.get(idx);
+        float scale = norm > 0.0f ? sign / norm : 0.0f;
+        for (int i = 0; i < vectorLength; i++)
+            query[i] += buffer[i] * scale;
+
+        return true;
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public Collection<String> wordsNearestSum(INDArray words, int top) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public Collection<String> wordsNearestSum(String word, int n) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public Collection<String> wordsNearestSum(Collection<String> positive, Collection<String> negative, int top) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public Map<String, Double> accuracy(List<String> questions) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * PLEASE NOTE: This method is not available in this implementation.
+     */
+    @Override
+    public List<String> similarWordsInVocabTo(String word, double accuracy) {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * Vocab for the vectors.
+     * PLEASE NOTE: Vocabulary is materialized on heap upon first call to this method, use {@link #indexOf(String)},
+     * {@link #wordAtIndex(int)} and {@link #hasWord(String)} to avoid that.
+     *
+     * @return
+     */
+    @Override
+    public VocabCache vocab() {
+        if (vocabCache == null) {
+            synchronized (this) {
+                if (vocabCache == null) {
+                    VocabCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+                    for (int i = 0; i < numWords; i++) {
+                        VocabWord word = new VocabWord(1.0, wordAtIndex(i));
+                        word.setIndex(i);
+                        cache.addToken(word);
+                        cache.addWordToIndex(i, word.getLabel());
+                    }
+                    vocabCache = cache;
+                }
+            }
+        }
+
+        return vocabCache;
+    }
+
+    /**
+     * Lookup table for the vectors
+     * PLEASE NOTE: This method is not available in this implementation.
+     *
+     * @return
+     */
+    @Override
+    public WeightLookupTable lookupTable() {
+        throw new UnsupportedOperationException("Method isn't implemented. Please use usual Word2Vec implementation");
+    }
+
+    /**
+     * Specifies ModelUtils to be used to access model
+     * PLEASE NOTE: This method has no effect in this implementation.
+     *
+     * @param utils
+     */
+    @Override
+    public void setModelUtils(ModelUtils utils) {
+        // no-op
+    }
+
+    /**
+     * Streaming writer for mapped word vectors format: vectors are written to the file as they come, only vocabulary
+     * is kept in memory until {@link #close()} is called.
+     */
+    public static class Writer implements Closeable {
+        protected final RandomAccessFile raf;
+        protected final FileChannel channel;
+        protected final ByteBuffer buffer;
+        protected final List<byte[]> words = new ArrayList<>();
+        protected float[] norms = new float[1024];
+        protected int vectorLength = -1;
+        protected long position = HEADER_SIZE;
+
+        public Writer(@NonNull File file) throws IOException {
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(0);
+            channel = raf.getChannel();
+            buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * Appends next word. Words get consecutive indices, for duplicate words first occurrence is used for lookups.
+         *
+         * @param word word label
+         * @param vector word vector, all vectors should have the same length
+         */
+        public void add(@NonNull String word, @NonNull float[] vector) throws IOException {
+            if (vectorLength < 0)
+                vectorLength = vector.length;
+            else if (vector.length != vectorLength)
+                throw new IllegalArgumentException("Vector for word [" + word + "] has length " + vector.length
+                                + ", but " + vectorLength + " was expected");
+
+            double norm = 0.0;
+            for (float v : vector) {
+                if (buffer.remaining() < 4)
+                    flush();
+                buffer.putFloat(v);
+                norm += v * v;
+            }
+
+            if (words.size() == norms.length)
+                norms = Arrays.copyOf(norms, norms.length * 2);
+            norms[words.size()] = (float) Math.sqrt(norm);
+            words.add(word.getBytes(StandardCharsets.UTF_8));
+        }
+
+        protected void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                position += channel.write(buffer, position);
+            buffer.clear();
+        }
+
+        protected void put(int value) throws IOException {
+            if (buffer.remaining() < 4)
+                flush();
+            buffer.putInt(value);
+        }
+
+        protected void align() throws IOException {
+            flush();
+            position = (position + 7) & ~7L;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                int numWords = words.size();
+                align();
+                long normsOffset = position;
+                for (int i = 0; i < numWords; i++)
+                    put(Float.floatToRawIntBits(norms[i]));
+
+                align();
+                long offsetsOffset = position;
+                long offset = 0;
+                for (int i = 0; i < numWords; i++) {
+                    put((int) offset);
+                    offset += words.get(i).length;
+                    if (offset > Integer.MAX_VALUE)
+                        throw new IOException("Vocabulary is too large");
+                }
+                put((int) offset);
+
+                int capacity = Integer.highestOneBit(Math.max(2, numWords * 2 - 1)) << 1;
+                int[] table = new int[capacity];
+                for (int i = 0; i < numWords; i++) {
+                    byte[] bytes = words.get(i);
+                    int slot = hash(bytes) & (capacity - 1);
+                    boolean duplicate = false;
+                    while (table[slot] != 0) {
+                        if (Arrays.equals(words.get(table[slot] - 1), bytes)) {
+                            duplicate = true;
+                            break;
+                        }
+                        slot = (slot + 1) & (capacity - 1);
+                    }
+
+                    if (!duplicate)
+                        table[slot] = i + 1;
+                }
+
+                align();
+                long hashOffset = position;
+                for (int v : table)
+                    put(v);
+
+                align();
+                long stringsOffset = position;
+                for (byte[] bytes : words) {
+                    for (byte b : bytes) {
+                        if (!buffer.hasRemaining())
+                            flush();
+                        buffer.put(b);
+                    }
+                }
+                flush();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(numWords).putInt(Math.max(0, vectorLength))
+                                .putInt(capacity).putInt(0).putLong(HEADER_SIZE).putLong(normsOffset)
+                                .putLong(offsetsOffset).putLong(hashOffset).putLong(stringsOffset);
+                header.flip();
+                long p = 0;
+                while (header.hasRemaining())
+                    p += channel.write(header, p);
+
+                raf.setLength(position);
+            } finally {
+                channel.close();
+                raf.close();
+            }
+        }
+    }
+}
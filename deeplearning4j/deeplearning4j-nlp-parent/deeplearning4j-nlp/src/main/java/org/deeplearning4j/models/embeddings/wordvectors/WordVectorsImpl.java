@@ -22,6 +22,7 @@ import lombok.NonNull;
 import lombok.Setter;
 import org.apache.commons.lang.ArrayUtils;
 import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.reader.BatchModelUtils;
 import org.deeplearning4j.models.embeddings.reader.ModelUtils;
 import org.deeplearning4j.models.embeddings.reader.impl.BasicModelUtils;
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
@@ -36,6 +37,7 @@ import org.nd4j.linalg.heartbeat.utils.EnvironmentUtils;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -138,6 +140,44 @@ public class WordVectorsImpl<T extends SequenceElement> implements WordVectors {
         return modelUtils.wordsNearest(words, top);
     }
 
+    /**
+     * Words nearest to each row of the given matrix. This is faster than calling
+     * {@link #wordsNearest(INDArray, int)} for each query separately.
+     *
+     * @param queries query vectors, one per row
+     * @param top the top n words
+     * @return the words nearest each query, in row order
+     */
+    public List<Collection<String>> wordsNearestBatch(INDArray queries, int top) {
+        if (modelUtils instanceof BatchModelUtils)
+            return ((BatchModelUtils<T>) modelUtils).wordsNearestBatch(queries, top);
+
+        List<Collection<String>> result = new ArrayList<>(queries.rows());
+        for (int i = 0; i < queries.rows(); i++)
+            result.add(modelUtils.wordsNearest(queries.getRow(i), top));
+
+        return result;
+    }
+
+    /**
+     * Get the top n words most similar to each of the given words. This is faster than calling
+     * {@link #wordsNearest(String, int)} for each word separately.
+     *
+     * @param words the words to compare
+     * @param n the n to get
+     * @return map of word to its top n most similar words, unknown words are mapped to empty collections
+     */
+    public Map<String, Collection<String>> wordsNearestBatch(Collection<String> words, int n) {
+        if (modelUtils instanceof BatchModelUtils)
+            return ((BatchModelUtils<T>) modelUtils).wordsNearestBatch(words, n);
+
+        Map<String, Collection<String>> result = new LinkedHashMap<>();
+        for (String word : words)
+            result.put(word, hasWord(word) ? modelUtils.wordsNearest(word, n) : new ArrayList<String>());
+
+        return result;
+    }
+
     /**
      * Get the top n words most similar to the given word
      * @param word the word to compare
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.models.embeddings.reader.impl;
+
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.word2vec.Huffman;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BasicModelUtilsTest {
+    private InMemoryLookupTable<VocabWord> lookupTable;
+    private List<String> words;
+
+    @Before
+    public void setUp() throws Exception {
+        AbstractCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+        words = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String word = "word_" + i;
+            words.add(word);
+            cache.addToken(new VocabWord(1.0 + i, word));
+        }
+
+        Huffman huffman = new Huffman(cache.tokens());
+        huffman.build();
+        huffman.applyIndexes(cache);
+
+        lookupTable = (InMemoryLookupTable<VocabWord>) new InMemoryLookupTable.Builder<VocabWord>().vectorLength(50)
+                        .cache(cache).seed(119).build();
+        lookupTable.resetWeights(true);
+    }
+
+    @Test
+    public void testTopNSelector() {
+        Random random = new Random(119);
+        float[] scores = new float[1000];
+        for (int i = 0; i < scores.length; i++)
+            scores[i] = random.nextFloat();
+        scores[17] = Float.NaN;
+
+        TopNSelector selector = new TopNSelector(10);
+        selector.offer(scores, 0, scores.length, 0);
+        assertEquals(10, selector.size());
+
+        float[] expScores = selector.scoresDescending();
+        int[] indices = selector.drainDescending();
+        assertEquals(0, selector.size());
+
+        Integer[] sorted = new Integer[scores.length];
+        for (int i = 0; i < sorted.length; i++)
+            sorted[i] = i;
+        final float[] s = scores;
+        Arrays.sort(sorted, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Float.compare(Float.isNaN(s[o2]) ? -1 : s[o2], Float.isNaN(s[o1]) ? -1 : s[o1]);
+            }
+        });
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(sorted[i].intValue(), indices[i]);
+            assertEquals(scores[sorted[i]], expScores[i], 0.0f);
+        }
+    }
+
+    @Test
+    public void testWordsNearestMatchesFlatScan() {
+        FlatModelUtils<VocabWord> flat = new FlatModelUtils<>();
+        flat.init(lookupTable);
+
+        // flat scan goes first, since BasicModelUtils normalizes weights in place.
+        // flat scan doesn't compensate for the word itself, so we request one more element
+        Map<String, Collection<String>> expected = new HashMap<>();
+        for (int i = 0; i < 20; i++)
+            expected.put(words.get(i), flat.wordsNearest(words.get(i), 11));
+
+        BasicModelUtils<VocabWord> utils = new BasicModelUtils<>();
+        utils.init(lookupTable);
+        utils.setScoringBatchSize(64);
+
+        for (int i = 0; i < 20; i++) {
+            String word = words.get(i);
+            assertEquals(new ArrayList<>(expected.get(word)), new ArrayList<>(utils.wordsNearest(word, 10)));
+        }
+    }
+
+    @Test
+    public void testWordsNearestBatch() {
+        BasicModelUtils<VocabWord> utils = new BasicModelUtils<>();
+        utils.init(lookupTable);
+        utils.setScoringBatchSize(100);
+
+        List<String> labels = new ArrayList<>(words.subList(0, 30));
+        labels.add("unknown_word");
+
+        Map<String, Collection<String>> batch = utils.wordsNearestBatch(labels, 10);
+        assertEquals(labels, new ArrayList<>(batch.keySet()));
+        assertTrue(batch.get("unknown_word").isEmpty());
+
+        for (int i = 0; i < 30; i++) {
+            String word = words.get(i);
+            Collection<String> nearest = batch.get(word);
+            assertEquals(10, nearest.size());
+            assertFalse(nearest.contains(word));
+            assertEquals(new ArrayList<>(utils.wordsNearest(word, 10)), new ArrayList<>(nearest));
+        }
+
+        INDArray queries = Nd4j.create(3, 50);
+        for (int i = 0; i < 3; i++)
+            queries.putRow(i, lookupTable.vector(words.get(i)));
+
+        List<Collection<String>> byVector = utils.wordsNearestBatch(queries, 5);
+        assertEquals(3, byVector.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(new ArrayList<>(utils.wordsNearest(queries.getRow(i), 5)),
+                            new ArrayList<>(byVector.get(i)));
+            assertEquals(words.get(i), byVector.get(i).iterator().next());
+        }
+    }
+
+    @Test
+    public void testWordsNearestSum() {
+        BasicModelUtils<VocabWord> utils = new BasicModelUtils<>();
+        utils.init(lookupTable);
+
+        INDArray syn0 = lookupTable.getSyn0();
+        INDArray weights = syn0.norm2(0).rdivi(1).muli(lookupTable.vector(words.get(7)));
+        INDArray distances = syn0.mulRowVector(weights).sum(1);
+        INDArray[] sorted = Nd4j.sortWithIndices(distances, 0, false);
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            expected.add(lookupTable.getVocabCache().wordAtIndex(sorted[0].getInt(i)));
+
+        assertEquals(expected, new ArrayList<>(utils.wordsNearestSum(words.get(7), 10)));
+    }
+
+    @Test
+    public void testHnswModelUtils() {
+        BasicModelUtils<VocabWord> exact = new BasicModelUtils<>();
+        exact.init(lookupTable);
+
+        HnswModelUtils<VocabWord> approximate = new HnswModelUtils<>();
+        approximate.init(lookupTable);
+
+        List<String> labels = words.subList(0, 50);
+        Map<String, Collection<String>> expected = exact.wordsNearestBatch(labels, 10);
+        Map<String, Collection<String>> found = approximate.wordsNearestBatch(labels, 10);
+
+        int hits = 0;
+        for (String label : labels) {
+            assertEquals(10, found.get(label).size());
+            for (String word : found.get(label))
+                if (expected.get(label).contains(word))
+                    hits++;
+        }
+
+        double recall = hits / (labels.size() * 10.0);
+        assertTrue("Recall was " + recall, recall >= 0.95);
+
+        assertEquals(new ArrayList<>(found.get(words.get(3))),
+                        new ArrayList<>(approximate.wordsNearest(words.get(3), 10)));
+    }
+}
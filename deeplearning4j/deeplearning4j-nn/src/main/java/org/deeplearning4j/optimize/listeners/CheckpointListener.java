@@ -26,12 +26,16 @@ import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.optimize.api.BaseTrainingListener;
 import org.deeplearning4j.optimize.api.TrainingListener;
 import org.deeplearning4j.util.ModelSerializer;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
 
 import java.io.*;
 import java.nio.charset.Charset;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  *
@@ -81,6 +85,16 @@ import java.util.concurrent.TimeUnit;
  * {@code .saveEveryEpoch().saveEvery(15, TimeUnit.MINUTES, true)}<br>
  * Note that is this last example, the <i>sinceLast</i> parameter is true. This means the 15-minute counter will be
  * reset any time a model is saved.<br>
+ * <br>
+ * <b>Asynchronous saving</b>: by default, checkpoints are written on the training thread. With
+ * {@code .asyncSaving(true)} only a snapshot of the model (configuration, parameters and updater state) is taken on
+ * the training thread; the model file is then written on a background thread. At most
+ * {@code maxPendingCheckpoints} snapshots may be waiting to be written at any time - if this limit is reached,
+ * training blocks until the oldest pending checkpoint is written. Checkpoint files are written to a temporary file,
+ * fsync'ed (optionally) and then renamed, so partially written checkpoints are never visible. Use
+ * {@link #awaitPendingCheckpoints()} before relying on {@link #availableCheckpoints()} or the files on disk.<br>
+ * Timing of snapshots and writes is available via {@link #getTotalSnapshotTimeMs()}, {@link #getTotalWriteTimeMs()}
+ * and related methods.<br>
  *
  * @author Alex Black
  */
@@ -108,11 +122,28 @@ public class CheckpointListener extends BaseTrainingListener implements Serializ
     private int lastCheckpointNum = -1;
     private File checkpointRecordFile;
 
-    private Checkpoint lastCheckpoint;
+    //Last checkpoint taken, used for scheduling: with asynchronous saving it may not be written yet
+    private Checkpoint lastCheckpointTaken;
+    //Last checkpoint written: only set once the model file is in place
+    private volatile Checkpoint lastCheckpoint;
     private long startTime = -1;
     private int startIter = -1;
     private Long lastSaveEveryMsNoSinceLast;
 
+    private boolean asyncSaving;
+    private int maxPendingCheckpoints;
+    private boolean fsync;
+    private transient ThreadPoolExecutor writer;
+    private transient Semaphore pendingPermits;
+    private final AtomicReference<Throwable> asyncError = new AtomicReference<>();
+
+    private final AtomicLong checkpointsWritten = new AtomicLong();
+    private final AtomicLong totalSnapshotTimeMs = new AtomicLong();
+    private final AtomicLong totalWriteTimeMs = new AtomicLong();
+    private final AtomicLong totalBlockedTimeMs = new AtomicLong();
+    private volatile long lastSnapshotTimeMs;
+    private volatile long lastWriteTimeMs;
+
     private CheckpointListener(Builder builder){
         this.rootDir = builder.rootDir;
         this.keepMode = builder.keepMode;
@@ -127,6 +158,9 @@ public class CheckpointListener extends BaseTrainingListener implements Serializ
         this.saveEveryAmount = builder.saveEveryAmount;
         this.saveEveryUnit = builder.saveEveryUnit;
         this.saveEverySinceLast = builder.saveEverySinceLast;
+        this.asyncSaving = builder.asyncSaving;
+        this.maxPendingCheckpoints = builder.maxPendingCheckpoints;
+        this.fsync = builder.fsync;
 
         if(saveEveryAmount != null){
             saveEveryMs = TimeUnit.MILLISECONDS.convert(saveEveryAmount, saveEveryUnit);
@@ -143,7 +177,8 @@ public class CheckpointListener extends BaseTrainingListener implements Serializ
                 if(files != null && files.length > 0){
                     for(File f : files){
                         String name = f.getName();
-                        if(name.startsWith("checkpoint_") && (name.endsWith("MultiLayerNetwork.zip") || name.endsWith("ComputationGraph.zip"))){
+                        if(name.startsWith("checkpoint_") && (name.endsWith("MultiLayerNetwork.zip") || name.endsWith("ComputationGraph.zip")
+                                || name.endsWith(".zip.tmp"))){
                             f.delete();
                         }
                     }
@@ -177,7 +212,7 @@ public class CheckpointListener extends BaseTrainingListener implements Serializ
         if(saveEveryNIterations != null){
             if(saveEveryNIterSinceLast){
                 //Consider last saved model when deciding whether to save
-                long lastSaveIter = (lastCheckpoint != null ? lastCheckpoint.getIteration() : startIter);
+                long lastSaveIter = (lastCheckpointTaken != null ? lastCheckpointTaken.getIteration() : startIter);
                 if(iteration - lastSaveIter >= saveEveryNIterations){
                     saveCheckpoint(model);
                     return;
@@ -196,7 +231,7 @@ public class CheckpointListener extends BaseTrainingListener implements Serializ
         if(saveEveryUnit != null){
             if(saveEverySinceLast){
                 //Consider last saved when when deciding whether to save
-                long lastSaveTime = (lastCheckpoint != null ? lastCheckpoint.getTimestamp() : startTime);
+                long lastSaveTime = (lastCheckpointTaken != null ? lastCheckpointTaken.getTimestamp() : startTime);
                 if((time - lastSaveTime) >= saveEveryMs){
                     saveCheckpoint(model);
                     return;
@@ -214,6 +249,7 @@ public class CheckpointListener extends BaseTrainingListener implements Serializ
     }
 
     private void saveCheckpoint(Model model) {
+        rethrowAsyncError();
         try{
             saveCheckpointHelper(model);
         } catch (Exception e){
@@ -230,17 +266,110 @@ public class CheckpointListener extends BaseTrainingListener implements Serializ
         Checkpoint c = new Checkpoint(++lastCheckpointNum, System.currentTimeMillis(), getIter(model), getEpoch(model),
                 getModelType(model), null);
         setFileName(c);
+        this.lastCheckpointTaken = c;
+
+        if(asyncSaving){
+            saveCheckpointAsync(model, c);
+            return;
+        }
 
+        long start = System.currentTimeMillis();
         ModelSerializer.writeModel(model, new File(rootDir, c.getFilename()), true);
+        recordWrite(System.currentTimeMillis() - start);
 
+        checkpointWritten(c);
+    }
+
+    private void saveCheckpointAsync(Model model, final Checkpoint c) throws Exception {
+        //Bound number of snapshots waiting to be written: block training until the oldest one is written
+        long start = System.currentTimeMillis();
+        getPendingPermits().acquire();
+        long acquired = System.currentTimeMillis();
+        totalBlockedTimeMs.addAndGet(acquired - start);
+
+        final String json;
+        final INDArray params;
+        final INDArray updaterState;
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            INDArray state = null;
+            if (model instanceof MultiLayerNetwork) {
+                json = ((MultiLayerNetwork) model).getLayerWiseConfigurations().toJson();
+                state = ((MultiLayerNetwork) model).getUpdater().getStateViewArray();
+            } else if (model instanceof ComputationGraph) {
+                json = ((ComputationGraph) model).getConfiguration().toJson();
+                state = ((ComputationGraph) model).getUpdater().getStateViewArray();
+            } else {
+                json = "";
+            }
+
+            params = model.params() == null ? null : model.params().dup();
+            updaterState = state == null ? null : state.dup();
+        } catch (Throwable t){
+            getPendingPermits().release();
+            throw t;
+        }
+
+        long snapshotTime = System.currentTimeMillis() - acquired;
+        lastSnapshotTimeMs = snapshotTime;
+        totalSnapshotTimeMs.addAndGet(snapshotTime);
+
+        getWriter().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    long start = System.currentTimeMillis();
+                    writeSnapshot(c, json, params, updaterState);
+                    recordWrite(System.currentTimeMillis() - start);
+
+                    checkpointWritten(c);
+                } catch (Throwable t) {
+                    log.error("Error saving checkpoint {}", c.getCheckpointNum(), t);
+                    asyncError.compareAndSet(null, t);
+                } finally {
+                    getPendingPermits().release();
+                }
+            }
+        });
+    }
+
+    private void writeSnapshot(Checkpoint c, String json, INDArray params, INDArray updaterState) throws IOException {
+        File target = new File(rootDir, c.getFilename());
+        File tmp = new File(rootDir, c.getFilename() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp)) {
+            BufferedOutputStream bos = new BufferedOutputStream(fos);
+            ModelSerializer.writeModel(json, params, updaterState, null, bos);
+            bos.flush();
+            if(fsync){
+                fos.getFD().sync();
+            }
+        }
+
+        if(!tmp.renameTo(target)){
+            target.delete();
+            if(!tmp.renameTo(target)){
+                throw new IOException("Unable to rename checkpoint file " + tmp.getAbsolutePath() + " to " + target.getAbsolutePath());
+            }
+        }
+    }
+
+    private void recordWrite(long writeTime){
+        lastWriteTimeMs = writeTime;
+        totalWriteTimeMs.addAndGet(writeTime);
+        checkpointsWritten.incrementAndGet();
+    }
+
+    /**
+     * Records checkpoint in the checkpoint record file, and deletes old model files as required by keep mode
+     */
+    private void checkpointWritten(Checkpoint c) {
         String s = c.toFileString();
         write(s + "\n", checkpointRecordFile);
+        lastCheckpoint = c;
 
         if(logSaving){
             log.info("Model checkpoint saved: epoch {}, iteration {}, path: {}", c.getEpoch(), c.getIteration(),
                     new File(rootDir, c.getFilename()).getPath() );
         }
-        this.lastCheckpoint = c;
 
 
         //Finally: determine if we should delete some old models...
@@ -261,7 +390,7 @@ public class CheckpointListener extends BaseTrainingListener implements Serializ
                 if(cp.getCheckpointNum() > 0 && (cp.getCheckpointNum()+1) % keepEvery == 0){
                     //One of the "every M to keep" models
                     continue;
-                } else if(cp.getCheckpointNum() > lastCheckpointNum - keepLast ){        //Example: latest is 5, keep last 2 -> keep checkpoints 4 and 5
+                } else if(cp.getCheckpointNum() > c.getCheckpointNum() - keepLast ){        //Example: latest is 5, keep last 2 -> keep checkpoints 4 and 5
                     //One of last N to keep
                     continue;
                 }
@@ -272,6 +401,107 @@ public class CheckpointListener extends BaseTrainingListener implements Serializ
         }
     }
 
+    private synchronized Semaphore getPendingPermits(){
+        if(pendingPermits == null){
+            pendingPermits = new Semaphore(maxPendingCheckpoints);
+        }
+        return pendingPermits;
+    }
+
+    private synchronized ThreadPoolExecutor getWriter(){
+        if(writer == null){
+            //Single thread keeps checkpoints ordered. Thread isn't a daemon, so pending checkpoints are written
+            // before JVM exits; it times out when idle, so it doesn't prevent JVM exit otherwise
+            writer = new ThreadPoolExecutor(1, 1, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r, "CheckpointListener writer");
+                            t.setDaemon(false);
+                            return t;
+                        }
+                    });
+            writer.allowCoreThreadTimeOut(true);
+        }
+        return writer;
+    }
+
+    private void rethrowAsyncError(){
+        Throwable t = asyncError.getAndSet(null);
+        if(t != null){
+            throw new RuntimeException("Error saving checkpoint", t);
+        }
+    }
+
+    /**
+     * Block until all pending checkpoints are written. This is a no-op if asynchronous saving isn't enabled.
+     * Any exception thrown while writing checkpoints in the background is rethrown here.
+     */
+    public void awaitPendingCheckpoints(){
+        if(asyncSaving){
+            Semaphore permits = getPendingPermits();
+            try {
+                permits.acquire(maxPendingCheckpoints);
+                permits.release(maxPendingCheckpoints);
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+        rethrowAsyncError();
+    }
+
+    /**
+     * @return Number of checkpoints taken, but not yet written to disk (always 0 if asynchronous saving isn't enabled)
+     */
+    public int getNumPendingCheckpoints(){
+        return asyncSaving ? maxPendingCheckpoints - getPendingPermits().availablePermits() : 0;
+    }
+
+    /**
+     * @return Number of checkpoints written to disk so far
+     */
+    public long getNumCheckpointsWritten(){
+        return checkpointsWritten.get();
+    }
+
+    /**
+     * @return Time taken by the last model snapshot, in milliseconds (asynchronous saving only)
+     */
+    public long getLastSnapshotTimeMs(){
+        return lastSnapshotTimeMs;
+    }
+
+    /**
+     * @return Total time spent taking model snapshots on the training thread, in milliseconds (asynchronous saving only)
+     */
+    public long getTotalSnapshotTimeMs(){
+        return totalSnapshotTimeMs.get();
+    }
+
+    /**
+     * @return Total time the training thread was blocked waiting for pending checkpoints to be written, in milliseconds
+     * (asynchronous saving only)
+     */
+    public long getTotalBlockedTimeMs(){
+        return totalBlockedTimeMs.get();
+    }
+
+    /**
+     * @return Time taken to write the last checkpoint file, in milliseconds
+     */
+    public long getLastWriteTimeMs(){
+        return lastWriteTimeMs;
+    }
+
+    /**
+     * @return Total time spent writing checkpoint files, in milliseconds. For asynchronous saving this time is spent
+     * on the background thread
+     */
+    public long getTotalWriteTimeMs(){
+        return totalWriteTimeMs.get();
+    }
+
     private static void setFileName(Checkpoint c){
         String filename = getFileName(c.getCheckpointNum(), c.getModelType());
         c.setFilename(filename);
@@ -351,10 +581,15 @@ public class CheckpointListener extends BaseTrainingListener implements Serializ
     }
 
     /**
-     * Return the most recent checkpoint, if one exists - otherwise returns null
+     * Return the most recent checkpoint written to disk, if one exists - otherwise returns null.<br>
+     * With asynchronous saving, checkpoints that are still pending are not returned
      * @return Checkpoint
      */
     public Checkpoint lastCheckpoint(){
+        Checkpoint last = lastCheckpoint;
+        if(last != null && new File(rootDir, last.getFilename()).exists()){
+            return last;
+        }
         List<Checkpoint> all = availableCheckpoints();
         if(all.isEmpty()){
             return null;
@@ -457,6 +692,9 @@ public class CheckpointListener extends BaseTrainingListener implements Serializ
         private Long saveEveryAmount;
         private TimeUnit saveEveryUnit;
         private boolean saveEverySinceLast;
+        private boolean asyncSaving = false;
+        private int maxPendingCheckpoints = 1;
+        private boolean fsync = true;
 
         /**
          * @param rootDir Root directory to save models to
@@ -594,6 +832,44 @@ public class CheckpointListener extends BaseTrainingListener implements Serializ
             return this;
         }
 
+        /**
+         * If true, model files are written on a background thread: only a snapshot of the model (configuration,
+         * parameters and updater state) is taken on the training thread. Disabled by default.<br>
+         * Note that each pending snapshot requires a copy of the parameters and updater state in memory - see
+         * {@link #maxPendingCheckpoints(int)}
+         *
+         * @param asyncSaving Whether checkpoints should be written asynchronously
+         */
+        public Builder asyncSaving(boolean asyncSaving){
+            this.asyncSaving = asyncSaving;
+            return this;
+        }
+
+        /**
+         * Maximum number of snapshots taken but not yet written, when asynchronous saving is enabled. If this limit
+         * is reached, training blocks until the oldest pending checkpoint is written. Default: 1
+         *
+         * @param maxPendingCheckpoints Maximum number of checkpoints waiting to be written
+         */
+        public Builder maxPendingCheckpoints(int maxPendingCheckpoints){
+            if(maxPendingCheckpoints <= 0){
+                throw new IllegalArgumentException("Maximum number of pending checkpoints should be > 0 (got: "
+                        + maxPendingCheckpoints + ")");
+            }
+            this.maxPendingCheckpoints = maxPendingCheckpoints;
+            return this;
+        }
+
+        /**
+         * If true (the default), checkpoint files written asynchronously are fsync'ed before they become available
+         *
+         * @param fsync Whether asynchronously written checkpoint files should be synced to disk
+         */
+        public Builder fsync(boolean fsync){
+            this.fsync = fsync;
+            return this;
+        }
+
         public CheckpointListener build(){
             if(saveEveryNEpochs == null && saveEveryAmount == null && saveEveryNIterations == null){
                 throw new IllegalStateException("Cannot construct listener: no models will be saved (must use at least" +
@@ -0,0 +1,419 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.util;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.preprocessor.Normalizer;
+import org.nd4j.linalg.dataset.api.preprocessor.serializer.NormalizerSerializer;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.io.*;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Uncompressed, memory-mappable alternative to the {@link ModelSerializer} zip format.<br>
+ * Parameters and updater state are stored as raw, page-aligned arrays in native byte order, so restoring a model
+ * maps them and wraps them directly as a {@link DataBuffer} - nothing is inflated or copied onto the heap, and
+ * restore time doesn't depend on model size. Files are mapped copy-on-write: the page cache is shared between
+ * processes restoring the same file, and any changes to restored parameters (i.e. further training) are private
+ * to the process and never written back to the file.<br>
+ * <br>
+ * {@link ModelSerializer#restoreMultiLayerNetwork(File, boolean)} and
+ * {@link ModelSerializer#restoreComputationGraph(File, boolean)} detect files in this format automatically.<br>
+ * <br>
+ * PLEASE NOTE: Arrays larger than 2GB, or arrays of a data type different from {@link Nd4j#dataType()}, or written
+ * with a different byte order, are read (without decompression) into newly allocated buffers instead of being mapped.
+ */
+@Slf4j
+public class MappedModelSerializer {
+    public static final int MAGIC = 0x444C4D43;
+    public static final int VERSION = 1;
+
+    protected static final int HEADER_SIZE = 128;
+    protected static final int ALIGNMENT = 4096;
+    protected static final int CHUNK_ELEMENTS = 1 << 24;
+
+    protected static final int TYPE_MLN = 0;
+    protected static final int TYPE_CG = 1;
+    protected static final int TYPE_OTHER = 2;
+
+    protected static final int DTYPE_FLOAT = 0;
+    protected static final int DTYPE_DOUBLE = 1;
+
+    // mapped buffers have to stay reachable as long as DataBuffers wrapping them are alive
+    private static final ReferenceQueue<DataBuffer> queue = new ReferenceQueue<>();
+    private static final Set<MappingHolder> mappings =
+                    Collections.newSetFromMap(new ConcurrentHashMap<MappingHolder, Boolean>());
+
+    private MappedModelSerializer() {}
+
+    /**
+     * Write a model to a file
+     *
+     * @param model the model to write
+     * @param file the file to write to
+     * @param saveUpdater whether to save the updater or not
+     * @throws IOException
+     */
+    public static void writeModel(@NonNull Model model, @NonNull File file, boolean saveUpdater) throws IOException {
+        writeModel(model, file, saveUpdater, null);
+    }
+
+    /**
+     * Write a model to a file
+     *
+     * @param model the model to write
+     * @param file the file to write to
+     * @param saveUpdater whether to save the updater or not
+     * @param normalizer the normalizer to save (optional)
+     * @throws IOException
+     */
+    public static void writeModel(@NonNull Model model, @NonNull File file, boolean saveUpdater,
+                    Normalizer<?> normalizer) throws IOException {
+        String json = "";
+        int modelType = TYPE_OTHER;
+        INDArray updaterState = null;
+        if (model instanceof MultiLayerNetwork) {
+            json = ((MultiLayerNetwork) model).getLayerWiseConfigurations().toJson();
+            modelType = TYPE_MLN;
+            if (saveUpdater)
+                updaterState = ((MultiLayerNetwork) model).getUpdater().getStateViewArray();
+        } else if (model instanceof ComputationGraph) {
+            json = ((ComputationGraph) model).getConfiguration().toJson();
+            modelType = TYPE_CG;
+            if (saveUpdater)
+                updaterState = ((ComputationGraph) model).getUpdater().getStateViewArray();
+        }
+
+        byte[] normalizerBytes = new byte[0];
+        if (normalizer != null) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            NormalizerSerializer.getDefault().write(normalizer, baos);
+            normalizerBytes = baos.toByteArray();
+        }
+
+        INDArray params = model.params();
+        int dtype = Nd4j.dataType() == DataBuffer.Type.DOUBLE ? DTYPE_DOUBLE : DTYPE_FLOAT;
+        int elementSize = dtype == DTYPE_DOUBLE ? 8 : 4;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+            raf.setLength(0);
+
+            byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+            long configOffset = HEADER_SIZE;
+            writeFully(channel, ByteBuffer.wrap(jsonBytes), configOffset);
+
+            long paramsOffset = align(configOffset + jsonBytes.length);
+            long paramsLength = params == null ? -1 : params.length();
+            long position = writeArray(channel, params, dtype, paramsOffset);
+
+            long updaterOffset = align(position);
+            long updaterLength = updaterState == null ? 0 : updaterState.length();
+            position = writeArray(channel, updaterState, dtype, updaterOffset);
+
+            long normalizerOffset = position;
+            writeFully(channel, ByteBuffer.wrap(normalizerBytes), normalizerOffset);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(modelType).putInt(dtype)
+                            .putInt(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 0 : 1).putInt(elementSize)
+                            .putLong(configOffset).putLong(jsonBytes.length).putLong(paramsOffset)
+                            .putLong(paramsLength).putLong(updaterOffset).putLong(updaterLength)
+                            .putLong(normalizerOffset).putLong(normalizerBytes.length);
+            header.rewind();
+            writeFully(channel, header, 0);
+        }
+    }
+
+    protected static long align(long position) {
+        return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    protected static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    /**
+     * Writes array content in native byte order, in chunks
+     *
+     * @return position right after the written array
+     */
+    protected static long writeArray(FileChannel channel, INDArray array, int dtype, long position)
+                    throws IOException {
+        if (array == null || array.length() == 0)
+            return position;
+
+        INDArray flat = array.reshape(1, array.length());
+        int elementSize = dtype == DTYPE_DOUBLE ? 8 : 4;
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) Math.min(array.length(), CHUNK_ELEMENTS) * elementSize)
+                        .order(ByteOrder.nativeOrder());
+        for (long start = 0; start < array.length(); start += CHUNK_ELEMENTS) {
+            long end = Math.min(array.length(), start + CHUNK_ELEMENTS);
+            INDArray chunk = flat.get(NDArrayIndex.point(0), NDArrayIndex.interval(start, end)).dup('c');
+
+            buffer.clear();
+            if (dtype == DTYPE_DOUBLE)
+                buffer.asDoubleBuffer().put(chunk.data().asDouble());
+            else
+                buffer.asFloatBuffer().put(chunk.data().asFloat());
+            buffer.limit((int) (end - start) * elementSize);
+
+            writeFully(channel, buffer, position);
+            position += (end - start) * elementSize;
+        }
+
+        return position;
+    }
+
+    /**
+     * @param file file to check
+     * @return true, if the given file was written by {@link #writeModel(Model, File, boolean)}
+     */
+    public static boolean isMappedModel(@NonNull File file) {
+        if (!file.isFile() || file.length() < HEADER_SIZE)
+            return false;
+
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+            return Integer.reverseBytes(dis.readInt()) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Load a MultiLayerNetwork from a file, mapping its parameters
+     *
+     * @param file the file to load from
+     * @param loadUpdater whether to load the updater state or not
+     * @return the loaded multi layer network
+     * @throws IOException
+     */
+    public static MultiLayerNetwork restoreMultiLayerNetwork(@NonNull File file, boolean loadUpdater)
+                    throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            Header header = readHeader(channel, file);
+            if (header.modelType != TYPE_MLN)
+                throw new IllegalStateException("Saved model is not a MultiLayerNetwork"
+                                + (header.modelType == TYPE_CG ? " - use restoreComputationGraph instead" : ""));
+
+            MultiLayerConfiguration conf = MultiLayerConfiguration.fromJson(readConfiguration(channel, header));
+            MultiLayerNetwork network = new MultiLayerNetwork(conf);
+            network.init(readArray(channel, header, header.paramsOffset, header.paramsLength), false);
+
+            if (loadUpdater && header.updaterLength > 0) {
+                INDArray updaterState = readArray(channel, header, header.updaterOffset, header.updaterLength);
+                network.getUpdater().setStateViewArray(network, updaterState, false);
+            }
+
+            return network;
+        }
+    }
+
+    /**
+     * Load a ComputationGraph from a file, mapping its parameters
+     *
+     * @param file the file to load from
+     * @param loadUpdater whether to load the updater state or not
+     * @return the loaded computation graph
+     * @throws IOException
+     */
+    public static ComputationGraph restoreComputationGraph(@NonNull File file, boolean loadUpdater)
+                    throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            Header header = readHeader(channel, file);
+            if (header.modelType != TYPE_CG)
+                throw new IllegalStateException("Saved model is not a ComputationGraph"
+                                + (header.modelType == TYPE_MLN ? " - use restoreMultiLayerNetwork instead" : ""));
+
+            ComputationGraphConfiguration conf =
+                            ComputationGraphConfiguration.fromJson(readConfiguration(channel, header));
+            ComputationGraph graph = new ComputationGraph(conf);
+            graph.init(readArray(channel, header, header.paramsOffset, header.paramsLength), false);
+
+            if (loadUpdater && header.updaterLength > 0) {
+                INDArray updaterState = readArray(channel, header, header.updaterOffset, header.updaterLength);
+                graph.getUpdater().setStateViewArray(updaterState);
+            }
+
+            return graph;
+        }
+    }
+
+    /**
+     * Restore normalizer saved along with the model, if any
+     *
+     * @param file the file to load from
+     * @return the normalizer, or null if none was saved
+     */
+    public static <T extends Normalizer> T restoreNormalizer(@NonNull File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            Header header = readHeader(channel, file);
+            if (header.normalizerLength == 0)
+                return null;
+
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, header.normalizerOffset,
+                            header.normalizerLength);
+            byte[] bytes = new byte[(int) header.normalizerLength];
+            buffer.get(bytes);
+            try {
+                return NormalizerSerializer.getDefault().restore(new ByteArrayInputStream(bytes));
+            } catch (Exception e) {
+                throw new IOException("Error restoring normalizer", e);
+            }
+        }
+    }
+
+    protected static Header readHeader(FileChannel channel, File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long position = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0)
+                throw new IOException("File [" + file.getAbsolutePath() + "] is not a mapped model file");
+            position += read;
+        }
+        buffer.flip();
+
+        if (buffer.getInt() != MAGIC)
+            throw new IOException("File [" + file.getAbsolutePath() + "] is not a mapped model file");
+
+        Header header = new Header();
+        int version = buffer.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported mapped model version: " + version);
+
+        header.modelType = buffer.getInt();
+        header.dtype = buffer.getInt();
+        header.order = buffer.getInt() == 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        header.elementSize = buffer.getInt();
+        header.configOffset = buffer.getLong();
+        header.configLength = buffer.getLong();
+        header.paramsOffset = buffer.getLong();
+        header.paramsLength = buffer.getLong();
+        header.updaterOffset = buffer.getLong();
+        header.updaterLength = buffer.getLong();
+        header.normalizerOffset = buffer.getLong();
+        header.normalizerLength = buffer.getLong();
+        return header;
+    }
+
+    protected static String readConfiguration(FileChannel channel, Header header) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) header.configLength);
+        long position = header.configOffset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0)
+                throw new EOFException("Unexpected end of file while reading configuration");
+            position += read;
+        }
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Maps array stored at the given offset, or reads it into newly allocated buffer if it can't be mapped directly
+     */
+    protected static INDArray readArray(FileChannel channel, Header header, long offset, long length)
+                    throws IOException {
+        if (length < 0)
+            return null;
+
+        DataBuffer.Type type = header.dtype == DTYPE_DOUBLE ? DataBuffer.Type.DOUBLE : DataBuffer.Type.FLOAT;
+        long bytes = length * header.elementSize;
+        if (length > 0 && bytes <= Integer.MAX_VALUE && type == Nd4j.dataType()
+                        && header.order == ByteOrder.nativeOrder()) {
+            // private mapping: pages are shared until written, and writes never reach the file
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.PRIVATE, offset, bytes).order(header.order);
+            DataBuffer buffer = Nd4j.createBuffer(mapped, type, (int) length);
+            register(buffer, mapped);
+            return Nd4j.create(buffer, new long[] {1, length});
+        }
+
+        log.debug("Array of {} elements can't be mapped, reading it instead", length);
+        INDArray result = Nd4j.create(new long[] {1, Math.max(1, length)});
+        for (long start = 0; start < length; start += CHUNK_ELEMENTS) {
+            long end = Math.min(length, start + CHUNK_ELEMENTS);
+            int count = (int) (end - start);
+            ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, offset + start * header.elementSize,
+                            (long) count * header.elementSize).order(header.order);
+
+            INDArray values;
+            if (header.dtype == DTYPE_DOUBLE) {
+                double[] data = new double[count];
+                chunk.asDoubleBuffer().get(data);
+                values = Nd4j.create(data, new int[] {1, count});
+            } else {
+                float[] data = new float[count];
+                chunk.asFloatBuffer().get(data);
+                values = Nd4j.create(data, new int[] {1, count});
+            }
+            result.get(NDArrayIndex.point(0), NDArrayIndex.interval(start, end)).assign(values);
+        }
+
+        return result;
+    }
+
+    private static void register(DataBuffer buffer, ByteBuffer mapped) {
+        Reference<? extends DataBuffer> ref;
+        while ((ref = queue.poll()) != null)
+            mappings.remove(ref);
+
+        mappings.add(new MappingHolder(buffer, mapped, queue));
+    }
+
+    private static class MappingHolder extends WeakReference<DataBuffer> {
+        private final ByteBuffer mapped;
+
+        private MappingHolder(DataBuffer buffer, ByteBuffer mapped, ReferenceQueue<DataBuffer> queue) {
+            super(buffer, queue);
+            this.mapped = mapped;
+        }
+    }
+
+    protected static class Header {
+        protected int modelType;
+        protected int dtype;
+        protected ByteOrder order;
+        protected int elementSize;
+        protected long configOffset;
+        protected long configLength;
+        protected long paramsOffset;
+        protected long paramsLength;
+        protected long updaterOffset;
+        protected long updaterLength;
+        protected long normalizerOffset;
+        protected long normalizerLength;
+    }
+}
@@ -132,8 +132,6 @@ public class ModelSerializer {
      */
     public static void writeModel(@NonNull Model model, @NonNull OutputStream stream, boolean saveUpdater,DataNormalization dataNormalization)
             throws IOException {
-        ZipOutputStream zipfile = new ZipOutputStream(new CloseShieldOutputStream(stream));
-
         // Save configuration as JSON
         String json = "";
         if (model instanceof MultiLayerNetwork) {
@@ -141,18 +139,46 @@ public class ModelSerializer {
         } else if (model instanceof ComputationGraph) {
             json = ((ComputationGraph) model).getConfiguration().toJson();
         }
+
+        INDArray updaterState = null;
+        if (saveUpdater) {
+            if (model instanceof MultiLayerNetwork) {
+                updaterState = ((MultiLayerNetwork) model).getUpdater().getStateViewArray();
+            } else if (model instanceof ComputationGraph) {
+                updaterState = ((ComputationGraph) model).getUpdater().getStateViewArray();
+            }
+        }
+
+        writeModel(json, model.params(), updaterState, dataNormalization, stream);
+    }
+
+    /**
+     * Write a model, given as its separate components, to an output stream. Output is identical to
+     * {@link #writeModel(Model, OutputStream, boolean, DataNormalization)}, this method is useful when model state
+     * was captured earlier, i.e. for writing model snapshots from a background thread.
+     *
+     * @param configurationJson the model configuration JSON
+     * @param params the model parameters (may be null)
+     * @param updaterState the updater state to save (may be null)
+     * @param dataNormalization the normalizer to save (may be null)
+     * @param stream the output stream to write to
+     * @throws IOException
+     */
+    public static void writeModel(@NonNull String configurationJson, INDArray params, INDArray updaterState,
+                    DataNormalization dataNormalization, @NonNull OutputStream stream) throws IOException {
+        ZipOutputStream zipfile = new ZipOutputStream(new CloseShieldOutputStream(stream));
+
         ZipEntry config = new ZipEntry(CONFIGURATION_JSON);
         zipfile.putNextEntry(config);
-        zipfile.write(json.getBytes());
+        zipfile.write(configurationJson.getBytes());
 
         // Save parameters as binary
         ZipEntry coefficients = new ZipEntry(COEFFICIENTS_BIN);
         zipfile.putNextEntry(coefficients);
         DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(zipfile));
-        INDArray params = model.params();
         if(params != null) {
             try {
-                Nd4j.write(model.params(), dos);
+                Nd4j.write(params, dos);
             } finally {
                 dos.flush();
             }
@@ -161,23 +187,14 @@ public class ModelSerializer {
             zipfile.putNextEntry(noParamsMarker);
         }
 
-        if (saveUpdater) {
-            INDArray updaterState = null;
-            if (model instanceof MultiLayerNetwork) {
-                updaterState = ((MultiLayerNetwork) model).getUpdater().getStateViewArray();
-            } else if (model instanceof ComputationGraph) {
-                updaterState = ((ComputationGraph) model).getUpdater().getStateViewArray();
-            }
-
-            if (updaterState != null && updaterState.length() > 0) {
-                ZipEntry updater = new ZipEntry(UPDATER_BIN);
-                zipfile.putNextEntry(updater);
+        if (updaterState != null && updaterState.length() > 0) {
+            ZipEntry updater = new ZipEntry(UPDATER_BIN);
+            zipfile.putNextEntry(updater);
 
-                try {
-                    Nd4j.write(updaterState, dos);
-                } finally {
-                    dos.flush();
-                }
+            try {
+                Nd4j.write(updaterState, dos);
+            } finally {
+                dos.flush();
             }
         }
 
@@ -214,6 +231,9 @@ public class ModelSerializer {
      */
     public static MultiLayerNetwork restoreMultiLayerNetwork(@NonNull File file, boolean loadUpdater)
             throws IOException {
+        if (MappedModelSerializer.isMappedModel(file))
+            return MappedModelSerializer.restoreMultiLayerNetwork(file, loadUpdater);
+
         ZipFile zipFile = new ZipFile(file);
 
         boolean gotConfig = false;
@@ -540,6 +560,9 @@ public class ModelSerializer {
      * @throws IOException
      */
     public static ComputationGraph restoreComputationGraph(@NonNull File file, boolean loadUpdater) throws IOException {
+        if (MappedModelSerializer.isMappedModel(file))
+            return MappedModelSerializer.restoreComputationGraph(file, loadUpdater);
+
         ZipFile zipFile = new ZipFile(file);
 
         boolean gotConfig = false;
@@ -895,6 +918,14 @@ public class ModelSerializer {
      * @return
      */
     public static <T extends Normalizer> T restoreNormalizerFromFile(File file) {
+        if (MappedModelSerializer.isMappedModel(file)) {
+            try {
+                return MappedModelSerializer.restoreNormalizer(file);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
         try (ZipFile zipFile = new ZipFile(file)) {
             ZipEntry norm = zipFile.getEntry(NORMALIZER_BIN);
 
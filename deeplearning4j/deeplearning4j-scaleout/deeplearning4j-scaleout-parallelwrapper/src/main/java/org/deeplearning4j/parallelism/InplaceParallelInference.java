@@ -28,13 +28,17 @@ import org.deeplearning4j.parallelism.inference.LoadBalanceMode;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.profiler.metrics.LatencyHistogram;
 
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This ParallelInference implementation provides inference functionality without launching additional threads, so inference happens in the calling thread.
@@ -43,6 +47,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  *
  * PLEASE NOTE: This implementation does not create additional threads
  * PLEASE NOTE: This implementation uses shared parameters for models on per-device basis
+ * PLEASE NOTE: Model updates never block inference: new replicas are built and warmed up aside, and then swapped atomically
  *
  * @author raver119@gmail.com
  */
@@ -53,6 +58,14 @@ public class InplaceParallelInference extends ParallelInference {
 
     protected final Object locker = new Object();
 
+    // synthetic input used to warm up replicas before they're exposed to callers
+    protected INDArray[] warmupInput;
+    protected int warmupIterations = 1;
+
+    // model swap stats
+    protected final LatencyHistogram swapLatency = new LatencyHistogram();
+    protected final LatencyHistogram warmupLatency = new LatencyHistogram();
+
     @Override
     protected void init() {
         for (int e = 0; e < Nd4j.getAffinityManager().getNumberOfDevices(); e++) {
@@ -62,6 +75,8 @@ public class InplaceParallelInference extends ParallelInference {
                     .loadBalanceMode(loadBalanceMode)
                     .targetDeviceId(e)
                     .rootDevice(e == Nd4j.getAffinityManager().getDeviceForCurrentThread().intValue())
+                    .warmupInput(warmupInput)
+                    .warmupIterations(warmupIterations)
                     .build();
             h.init();
 
@@ -73,10 +88,57 @@ public class InplaceParallelInference extends ParallelInference {
         }
     }
 
+    /**
+     * This method replaces Model used for inference. Inference isn't blocked during update:
+     * each device gets new replicas built and warmed up first, and then they're swapped with old ones atomically.
+     *
+     * PLEASE NOTE: This method blocks calling thread until swap is finished. Use updateModelAsync() to avoid that.
+     *
+     * @param model
+     */
     @Override
     public synchronized void updateModel(@NonNull Model model) {
-        for (val h:holders)
+        val time = System.nanoTime();
+
+        long warmup = 0;
+        for (val h:holders) {
             h.updateModel(model);
+            warmup += h.lastWarmupTime.get();
+        }
+
+        this.model = model;
+
+        swapLatency.record(System.nanoTime() - time);
+        if (warmupInput != null)
+            warmupLatency.record(warmup);
+    }
+
+    /**
+     * This method replaces Model used for inference in background, using Executor provided via Builder.
+     *
+     * @param model
+     * @return Future, completed once new model is used for all new requests
+     */
+    public CompletableFuture<Void> updateModelAsync(@NonNull Model model) {
+        return CompletableFuture.runAsync(() -> updateModel(model), asyncExecutor);
+    }
+
+    /**
+     * This method returns histogram of model swap durations, including replicas building and warm-up
+     *
+     * @return
+     */
+    public LatencyHistogram getSwapLatencyHistogram() {
+        return swapLatency;
+    }
+
+    /**
+     * This method returns histogram of time spent on replicas warm-up during model swaps
+     *
+     * @return
+     */
+    public LatencyHistogram getWarmupLatencyHistogram() {
+        return warmupLatency;
     }
 
     @Override
@@ -95,6 +157,21 @@ public class InplaceParallelInference extends ParallelInference {
         return selector.output(input, inputMasks);
     }
 
+    /**
+     * Generate predictions/outputs from the network asynchronously, using Executor provided via Builder.
+     *
+     * In FIFO load balance mode, if all model replicas are busy, returned future is completed exceptionally
+     * with RejectedExecutionException instead of blocking.
+     *
+     * @param input      Input to the network
+     * @param inputMasks Input masks for the network. May be null.
+     * @return Future, holding output from the network
+     */
+    @Override
+    public CompletableFuture<INDArray[]> outputAsync(INDArray[] input, INDArray[] inputMasks) {
+        return selector.outputAsync(input, inputMasks, asyncExecutor);
+    }
+
 
     protected static class ModelSelector {
         // this map stores collection of shared
@@ -129,6 +206,10 @@ public class InplaceParallelInference extends ParallelInference {
             return getModelForThisThread().output(input, inputMasks);
         }
 
+        public CompletableFuture<INDArray[]> outputAsync(INDArray[] input, INDArray[] inputMasks, @NonNull Executor executor) {
+            return getModelForThisThread().outputAsync(input, inputMasks, executor);
+        }
+
         public ModelHolder getModelForThisThread() {
             return getModelForThread(Thread.currentThread().getId());
         }
@@ -138,31 +219,62 @@ public class InplaceParallelInference extends ParallelInference {
     @AllArgsConstructor
     @lombok.Builder
     protected static class ModelHolder {
-        protected Model sourceModel;
+        protected volatile Model sourceModel;
         @lombok.Builder.Default protected int workers = 4;
-        @lombok.Builder.Default protected List<Model> replicas = new ArrayList<>();
         @lombok.Builder.Default protected boolean rootDevice = true;
         @lombok.Builder.Default protected LoadBalanceMode loadBalanceMode = LoadBalanceMode.ROUND_ROBIN;
         protected int targetDeviceId;
 
+        // synthetic input used to warm up new replicas before they're exposed to callers. May be null.
+        protected INDArray[] warmupInput;
+        @lombok.Builder.Default protected int warmupIterations = 1;
+
         protected final AtomicLong position = new AtomicLong(0);
-        protected final ReentrantReadWriteLock modelLock = new ReentrantReadWriteLock();
 
-        // this queue is used in FIFO mode
-        protected final BlockingQueue<Model> queue = new LinkedBlockingQueue<>();
+        // current set of replicas. Swapped atomically on model update, so readers never block
+        protected final AtomicReference<Replicas> current = new AtomicReference<>();
+
+        // time spent on warm-up of the last replica set, in nanoseconds
+        protected final AtomicLong lastWarmupTime = new AtomicLong(0);
+
 
-        @lombok.Builder.Default protected transient boolean isCG = false;
-        @lombok.Builder.Default protected transient boolean isMLN = false;
+        /**
+         * This class holds replicas built from the single source model. Instances are never modified after publication,
+         * except for FIFO queue
+         */
+        protected static class Replicas {
+            protected final Model sourceModel;
+            protected final List<Model> replicas;
+            protected final boolean isCG;
+            protected final boolean isMLN;
+
+            // this queue is used in FIFO mode
+            protected final BlockingQueue<Model> queue = new LinkedBlockingQueue<>();
+
+            protected Replicas(@NonNull Model sourceModel, @NonNull List<Model> replicas, @NonNull LoadBalanceMode loadBalanceMode) {
+                this.sourceModel = sourceModel;
+                this.replicas = replicas;
+                this.isCG = sourceModel instanceof ComputationGraph;
+                this.isMLN = sourceModel instanceof MultiLayerNetwork;
+
+                if (loadBalanceMode == LoadBalanceMode.FIFO)
+                    queue.addAll(replicas);
+            }
+        }
 
 
         protected synchronized void init() {
+            current.set(buildReplicas(sourceModel));
+        }
+
+        /**
+         * This method builds and warms up new replicas for given model, without touching currently used replicas
+         */
+        protected Replicas buildReplicas(@NonNull Model sourceModel) {
             if (workers < 1)
                 throw new ND4JIllegalStateException("Workers must be positive value");
 
-            replicas.clear();
-
-            isCG = sourceModel instanceof ComputationGraph;
-            isMLN = sourceModel instanceof MultiLayerNetwork;
+            val replicas = new ArrayList<Model>(workers);
 
             // we clone params only if we're not on the same device
             val params = rootDevice ? sourceModel.params() : sourceModel.params().unsafeDuplication(true);
@@ -180,100 +292,146 @@ public class InplaceParallelInference extends ParallelInference {
 
                     // storing model for future reuse
                     replicas.add(model);
-
-                    if (loadBalanceMode == LoadBalanceMode.FIFO)
-                        queue.add(model);
                 } else if (sourceModel instanceof MultiLayerNetwork) {
                     val model = new MultiLayerNetwork(MultiLayerConfiguration.fromJson(((MultiLayerNetwork) sourceModel).getLayerWiseConfigurations().toJson()));
                     model.init(params, false);
                     Nd4j.getExecutioner().commit();
 
                     replicas.add(model);
-
-                    if (loadBalanceMode == LoadBalanceMode.FIFO)
-                        queue.add(model);
                 }
             }
+
+            val result = new Replicas(sourceModel, replicas, loadBalanceMode);
+            warmUp(result);
+
+            return result;
         }
 
+        /**
+         * This method runs warm-up input through each of given replicas, so first real requests won't pay for lazy allocations & JIT
+         *
+         * PLEASE NOTE: workspaces are thread-local, so workspaces allocated here won't be reused by calling threads
+         */
+        protected void warmUp(@NonNull Replicas replicas) {
+            if (warmupInput == null || warmupIterations < 1)
+                return;
+
+            val time = System.nanoTime();
+            for (val model : replicas.replicas) {
+                for (int e = 0; e < warmupIterations; e++)
+                    output(replicas, model, warmupInput, null);
+            }
+            Nd4j.getExecutioner().commit();
 
-        protected Model acquireModel() throws InterruptedException {
-            try {
-                modelLock.readLock().lock();
-
-                switch (loadBalanceMode) {
-                    case FIFO: {
-                            return queue.take();
-                        }
-                    case ROUND_ROBIN:
-                        return replicas.get((int) (position.getAndIncrement() % replicas.size()));
-                    default:
-                        throw new ND4JIllegalStateException("Unknown LoadBalanceMode was specified: [" + loadBalanceMode + "]");
-                }
-            } finally {
-                modelLock.readLock().unlock();
+            lastWarmupTime.set(System.nanoTime() - time);
+        }
+
+        protected Model acquireModel(@NonNull Replicas replicas) throws InterruptedException {
+            switch (loadBalanceMode) {
+                case FIFO: {
+                        return replicas.queue.take();
+                    }
+                case ROUND_ROBIN:
+                    return replicas.replicas.get((int) (position.getAndIncrement() % replicas.replicas.size()));
+                default:
+                    throw new ND4JIllegalStateException("Unknown LoadBalanceMode was specified: [" + loadBalanceMode + "]");
             }
         }
 
-        protected void releaseModel(Model model) {
-            try {
-                modelLock.readLock().lock();
-
-                switch (loadBalanceMode) {
-                    case FIFO:
-                        queue.add(model);
-                        break;
-                    case ROUND_ROBIN:
-                        break;
-                    default:
-                        throw new ND4JIllegalStateException("Unknown LoadBalanceMode was specified: [" + loadBalanceMode + "]");
-                }
-            } finally {
-                modelLock.readLock().unlock();
+        /**
+         * This method works like acquireModel(), but returns null instead of blocking if no models are available
+         */
+        protected Model tryAcquireModel(@NonNull Replicas replicas) {
+            switch (loadBalanceMode) {
+                case FIFO:
+                    return replicas.queue.poll();
+                case ROUND_ROBIN:
+                    return replicas.replicas.get((int) (position.getAndIncrement() % replicas.replicas.size()));
+                default:
+                    throw new ND4JIllegalStateException("Unknown LoadBalanceMode was specified: [" + loadBalanceMode + "]");
+            }
+        }
+
+        /**
+         * This method returns model back to the replica set it was acquired from. If that set was swapped out meanwhile, model just goes away with it
+         */
+        protected void releaseModel(@NonNull Replicas replicas, Model model) {
+            switch (loadBalanceMode) {
+                case FIFO:
+                    replicas.queue.add(model);
+                    break;
+                case ROUND_ROBIN:
+                    break;
+                default:
+                    throw new ND4JIllegalStateException("Unknown LoadBalanceMode was specified: [" + loadBalanceMode + "]");
             }
         }
 
         protected INDArray[] output(INDArray[] input, INDArray[] inputMasks) {
-            try {
-                modelLock.readLock().lock();
-                if (isCG) {
-                    // acquiring model from pool
-                    val model = acquireModel();
+            // we pin replica set once, so concurrent model swap won't affect this request
+            val replicas = current.get();
+            if (!replicas.isCG && !replicas.isMLN)
+                throw new UnsupportedOperationException();
 
+            try {
+                // acquiring model from pool
+                val model = acquireModel(replicas);
+                try {
                     // doing inference
-                    val output = ((ComputationGraph) model).output(false, input, inputMasks);
-
+                    return output(replicas, model, input, inputMasks);
+                } finally {
                     // releasing model
-                    releaseModel(model);
-                    return output;
-                } else if (isMLN) {
-                    if (input.length > 1 || (inputMasks != null && inputMasks.length > 1))
-                        throw new ND4JIllegalStateException("MultilayerNetwork can't have multiple inputs");
-
-                    val model = acquireModel();
-                    val result = ((MultiLayerNetwork) model).output(input[0], false, (inputMasks == null ? null : inputMasks[0]), null);
-                    releaseModel(model);
-                    return new INDArray[]{result};
-                } else
-                    throw new UnsupportedOperationException();
+                    releaseModel(replicas, model);
+                }
             } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 throw new RuntimeException(e);
-            } finally {
-                modelLock.readLock().unlock();
             }
         }
 
-        protected void updateModel(@NonNull Model model) {
-            try {
-                modelLock.writeLock().lock();
+        protected INDArray[] output(@NonNull Replicas replicas, @NonNull Model model, INDArray[] input, INDArray[] inputMasks) {
+            if (replicas.isCG) {
+                return ((ComputationGraph) model).output(false, input, inputMasks);
+            } else if (replicas.isMLN) {
+                if (input.length > 1 || (inputMasks != null && inputMasks.length > 1))
+                    throw new ND4JIllegalStateException("MultilayerNetwork can't have multiple inputs");
+
+                val result = ((MultiLayerNetwork) model).output(input[0], false, (inputMasks == null ? null : inputMasks[0]), null);
+                return new INDArray[]{result};
+            } else
+                throw new UnsupportedOperationException();
+        }
 
-                this.sourceModel = model;
+        protected CompletableFuture<INDArray[]> outputAsync(INDArray[] input, INDArray[] inputMasks, @NonNull Executor executor) {
+            val replicas = current.get();
+            val model = tryAcquireModel(replicas);
+            if (model == null)
+                return failedFuture(new RejectedExecutionException("All model replicas are busy"));
 
-                init();
-            } finally {
-                modelLock.writeLock().unlock();
+            try {
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return output(replicas, model, input, inputMasks);
+                    } finally {
+                        releaseModel(replicas, model);
+                    }
+                }, executor);
+            } catch (RejectedExecutionException e) {
+                releaseModel(replicas, model);
+                return failedFuture(e);
             }
         }
 
+        /**
+         * This method builds new replicas for given model, and then atomically swaps them with current ones.
+         * Requests issued before the swap are finished with old replicas, and requests issued after it use new ones.
+         */
+        protected void updateModel(@NonNull Model model) {
+            val replicas = buildReplicas(model);
+
+            this.sourceModel = model;
+            current.set(replicas);
+        }
+
     }
 }
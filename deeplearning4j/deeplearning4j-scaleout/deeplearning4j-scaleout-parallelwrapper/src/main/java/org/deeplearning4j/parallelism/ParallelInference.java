@@ -24,6 +24,7 @@ import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.parallelism.inference.AdaptiveBatchController;
 import org.deeplearning4j.parallelism.inference.InferenceMode;
 import org.deeplearning4j.parallelism.inference.InferenceObservable;
 import org.deeplearning4j.parallelism.inference.LoadBalanceMode;
@@ -34,12 +35,18 @@ import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.primitives.Pair;
+import org.nd4j.linalg.profiler.metrics.LatencyHistogram;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Observer;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -61,6 +68,18 @@ public class ParallelInference {
     protected int queueLimit;
     protected LoadBalanceMode loadBalanceMode = LoadBalanceMode.FIFO;
 
+    // latency target for adaptive batching, in nanoseconds. 0 means adaptive batching is disabled
+    protected long latencyTarget = 0;
+    protected double latencyPercentile = AdaptiveBatchController.DEFAULT_PERCENTILE;
+    protected AdaptiveBatchController batchController;
+
+    // executor used for async inference in INPLACE mode. Other modes have their own workers
+    protected Executor asyncExecutor = ForkJoinPool.commonPool();
+
+    // per-request latency stats: time spent in queue, and time spent in actual inference
+    protected final LatencyHistogram queueLatency = new LatencyHistogram();
+    protected final LatencyHistogram computeLatency = new LatencyHistogram();
+
     // this queue holds data for inference
     private BlockingQueue<InferenceObservable> observables;
 
@@ -139,7 +158,12 @@ public class ParallelInference {
 
         if (inferenceMode == InferenceMode.BATCHED) {
             log.info("Initializing ObservablesProvider...");
-            provider = new ObservablesProvider(nanos, batchLimit, observables);
+            if (latencyTarget > 0) {
+                batchController = new AdaptiveBatchController(latencyTarget, TimeUnit.NANOSECONDS, latencyPercentile,
+                                batchLimit, AdaptiveBatchController.DEFAULT_EVALUATION_WINDOW);
+                provider = new ObservablesProvider(nanos, batchController, observables);
+            } else
+                provider = new ObservablesProvider(nanos, batchLimit, observables);
         }
     }
 
@@ -147,6 +171,54 @@ public class ParallelInference {
         return zoo[workerIdx].getCounterValue();
     }
 
+    /**
+     * This method returns histogram of time requests spent waiting in queue before being picked up by worker
+     *
+     * PLEASE NOTE: this histogram isn't populated in INPLACE mode
+     *
+     * @return
+     */
+    public LatencyHistogram getQueueLatencyHistogram() {
+        return queueLatency;
+    }
+
+    /**
+     * This method returns histogram of time requests spent in actual inference, including time spent by other requests in the same batch
+     *
+     * PLEASE NOTE: this histogram isn't populated in INPLACE mode
+     *
+     * @return
+     */
+    public LatencyHistogram getComputeLatencyHistogram() {
+        return computeLatency;
+    }
+
+    /**
+     * This method returns batch limit currently used for new batches.
+     * If adaptive batching is enabled, this value changes over time, otherwise it's equal to configured batch limit
+     *
+     * @return
+     */
+    public int getCurrentBatchLimit() {
+        return batchController != null ? batchController.getBatchLimit() : batchLimit;
+    }
+
+    /**
+     * This method updates latency stats once request is complete
+     */
+    protected void recordLatency(@NonNull BasicInferenceObserver observer, @NonNull InferenceObservable observable) {
+        long dispatched = observable.getDispatchTime();
+        long completed = observable.getCompletionTime();
+        if (dispatched == 0 || completed == 0)
+            return;
+
+        queueLatency.record(dispatched - observer.getSubmitTime());
+        computeLatency.record(completed - dispatched);
+
+        if (batchController != null)
+            batchController.recordLatency(completed - observer.getSubmitTime());
+    }
+
     /**
      * This method gracefully shuts down ParallelInference instance
      */
@@ -252,13 +324,75 @@ public class ParallelInference {
             //observer.wait();
 
             observer.waitTillDone();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
 
+        recordLatency(observer, observable);
+
         return observable.getOutput();
     }
 
+    /**
+     * Generate predictions/output from the network asynchronously
+     *
+     * @param input Input to the network
+     * @return Future, holding output from the network
+     */
+    public CompletableFuture<INDArray[]> outputAsync(INDArray... input) {
+        return outputAsync(input, null);
+    }
+
+    /**
+     * Generate predictions/outputs from the network asynchronously, optionally using input masks for predictions.
+     *
+     * This method never blocks: if inference queue is full, returned future is completed exceptionally
+     * with RejectedExecutionException, so caller can apply backpressure on its side.
+     *
+     * @param input      Input to the network
+     * @param inputMasks Input masks for the network. May be null.
+     * @return Future, holding output from the network
+     */
+    public CompletableFuture<INDArray[]> outputAsync(INDArray[] input, INDArray[] inputMasks) {
+        final BasicInferenceObserver observer = new BasicInferenceObserver();
+        final InferenceObservable observable;
+        final int position;
+
+        if (inferenceMode == InferenceMode.SEQUENTIAL) {
+            observable = new BasicInferenceObservable(input, inputMasks);
+            observable.addObserver(observer);
+            position = 0;
+
+            if (!observables.offer(observable))
+                return failedFuture(new RejectedExecutionException("Inference queue is full"));
+        } else {
+            observable = provider.trySetInput(observer, input, inputMasks);
+            if (observable == null)
+                return failedFuture(new RejectedExecutionException("Inference queue is full"));
+
+            // position is thread-local within observable, so we have to fetch it in this thread
+            position = ((BatchedInferenceObservable) observable).getPosition();
+        }
+
+        return observer.getFuture().thenApply(v -> {
+            recordLatency(observer, observable);
+
+            if (observable instanceof BatchedInferenceObservable)
+                return ((BatchedInferenceObservable) observable).getOutput(position);
+            else
+                return observable.getOutput();
+        });
+    }
+
+    protected static <T> CompletableFuture<T> failedFuture(@NonNull Throwable t) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+
 
     public static class Builder {
         private Model model;
@@ -267,6 +401,11 @@ public class ParallelInference {
         private InferenceMode inferenceMode = DEFAULT_INFERENCE_MODE;
         private int queueLimit = DEFAULT_QUEUE_LIMIT;
         protected LoadBalanceMode loadBalanceMode = LoadBalanceMode.FIFO;
+        private long latencyTarget = 0;
+        private double latencyPercentile = AdaptiveBatchController.DEFAULT_PERCENTILE;
+        private Executor asyncExecutor = ForkJoinPool.commonPool();
+        private INDArray[] warmupInput;
+        private int warmupIterations = 1;
 
         public Builder(@NonNull Model model) {
             this.model = model;
@@ -336,6 +475,85 @@ public class ParallelInference {
             return this;
         }
 
+        /**
+         * This method enables adaptive batching: batch size will be adjusted in runtime, to keep
+         * latency percentile (p99 by default) below specified target. Batch size will never exceed batchLimit.
+         *
+         * PLEASE NOTE: This value has effect only in BATCHED inference mode
+         *
+         * @param latencyTarget target latency, end-to-end, including time spent in queue
+         * @param timeUnit
+         * @return
+         */
+        public Builder latencyTarget(long latencyTarget, @NonNull TimeUnit timeUnit) {
+            if (latencyTarget < 1)
+                throw new IllegalStateException("Latency target should be positive value");
+
+            this.latencyTarget = timeUnit.toNanos(latencyTarget);
+            return this;
+        }
+
+        /**
+         * This method defines latency percentile used for adaptive batching.
+         *
+         * Default value: 99.0
+         *
+         * @param percentile percentile, in range (0, 100]
+         * @return
+         */
+        public Builder latencyPercentile(double percentile) {
+            if (percentile <= 0.0 || percentile > 100.0)
+                throw new IllegalStateException("Percentile should be in range (0, 100]");
+
+            this.latencyPercentile = percentile;
+            return this;
+        }
+
+        /**
+         * This method defines Executor used for outputAsync() calls in INPLACE mode.
+         *
+         * PLEASE NOTE: This value has no effect in SEQUENTIAL and BATCHED modes, since they have their own worker threads
+         *
+         * Default value: ForkJoinPool.commonPool()
+         *
+         * @param executor
+         * @return
+         */
+        public Builder asyncExecutor(@NonNull Executor executor) {
+            this.asyncExecutor = executor;
+            return this;
+        }
+
+        /**
+         * This method defines synthetic input, that'll be passed through new model replicas before they start serving requests.
+         * Shapes should match real input, i.e. [minibatch, ...] for each network input
+         *
+         * PLEASE NOTE: This value has effect only in INPLACE mode, on initialization and on updateModel() calls
+         *
+         * @param input
+         * @return
+         */
+        public Builder warmupInput(@NonNull INDArray... input) {
+            this.warmupInput = input;
+            return this;
+        }
+
+        /**
+         * This method defines, how many times warm-up input will be passed through each replica.
+         *
+         * Default value: 1
+         *
+         * @param iterations
+         * @return
+         */
+        public Builder warmupIterations(int iterations) {
+            if (iterations < 1)
+                throw new IllegalStateException("Warm-up iterations should be positive value");
+
+            this.warmupIterations = iterations;
+            return this;
+        }
+
         /**
          * This method defines buffer queue size.
          *
@@ -364,6 +582,9 @@ public class ParallelInference {
                 inf.model = this.model;
                 inf.workers = this.workers;
                 inf.loadBalanceMode = this.loadBalanceMode;
+                inf.asyncExecutor = this.asyncExecutor;
+                inf.warmupInput = this.warmupInput;
+                inf.warmupIterations = this.warmupIterations;
 
                 inf.init();
 
@@ -376,6 +597,8 @@ public class ParallelInference {
                 inference.model = this.model;
                 inference.workers = this.workers;
                 inference.loadBalanceMode = this.loadBalanceMode;
+                inference.latencyTarget = this.latencyTarget;
+                inference.latencyPercentile = this.latencyPercentile;
 
                 inference.init();
 
@@ -475,6 +698,7 @@ public class ParallelInference {
 
                     if (request != null) {
                         counter.incrementAndGet();
+                        request.markDispatched();
 
                         // FIXME: get rid of instanceof here, model won't change during runtime anyway
                         if (isCG) {
@@ -546,6 +770,7 @@ public class ParallelInference {
         private BlockingQueue<InferenceObservable> targetQueue;
         private long nanos;
         private int batchLimit;
+        private AdaptiveBatchController batchController;
 
         private volatile BatchedInferenceObservable currentObservable;
         private final Object locker = new Object();
@@ -556,6 +781,15 @@ public class ParallelInference {
             this.batchLimit = batchLimit;
         }
 
+        protected ObservablesProvider(long nanos, @NonNull AdaptiveBatchController batchController, @NonNull BlockingQueue<InferenceObservable> queue) {
+            this(nanos, batchController.getMaxBatchLimit(), queue);
+            this.batchController = batchController;
+        }
+
+        protected int getBatchLimit() {
+            return batchController != null ? batchController.getBatchLimit() : batchLimit;
+        }
+
         protected InferenceObservable setInput(@NonNull Observer observer, INDArray input){
             return setInput(observer, new INDArray[]{input}, null);
         }
@@ -564,10 +798,38 @@ public class ParallelInference {
             return setInput(observer, input, null);
         }
 
+        /**
+         * This method works like setInput(), but never blocks: if new batch can't be put into queue, null is returned
+         */
+        protected InferenceObservable trySetInput(@NonNull Observer observer, INDArray[] input, INDArray[] inputMask) {
+            synchronized (locker) {
+                boolean isNew = false;
+                if (currentObservable == null || currentObservable.getCounter() >= getBatchLimit()
+                                || currentObservable.isLocked()) {
+                    // workers only take from this queue, and all puts happen under this lock
+                    if (targetQueue.remainingCapacity() == 0)
+                        return null;
+
+                    isNew = true;
+                    currentObservable = new BatchedInferenceObservable();
+                }
+
+                currentObservable.addInput(input, inputMask);
+                currentObservable.addObserver(observer);
+
+                if (isNew && !targetQueue.offer(currentObservable)) {
+                    currentObservable = null;
+                    return null;
+                }
+
+                return currentObservable;
+            }
+        }
+
         protected InferenceObservable setInput(@NonNull Observer observer, INDArray[] input, INDArray[] inputMask) {
             synchronized (locker) {
                 boolean isNew = false;
-                if (currentObservable == null || currentObservable.getCounter() >= batchLimit
+                if (currentObservable == null || currentObservable.getCounter() >= getBatchLimit()
                                 || currentObservable.isLocked()) {
                     isNew = true;
                     currentObservable = new BatchedInferenceObservable();
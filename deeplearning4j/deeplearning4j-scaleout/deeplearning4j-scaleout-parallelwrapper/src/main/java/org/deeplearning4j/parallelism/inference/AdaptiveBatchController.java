@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.parallelism.inference;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.linalg.profiler.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class adjusts batch size used in BATCHED inference mode, to keep given latency percentile below configured target.
+ *
+ * Batch limit follows AIMD scheme: once per evaluation window we look at latency percentile observed within this window,
+ * and halve batch limit if target was missed, or grow it additively if there's enough headroom.
+ * So under light load requests get dispatched almost immediately, and under heavy load batches grow as long as tail latency allows.
+ *
+ * Window latencies are collected with nd4j {@link LatencyHistogram}, so observed percentile may overestimate actual latency by up to 1/16.
+ */
+@Slf4j
+public class AdaptiveBatchController {
+    public final static int DEFAULT_EVALUATION_WINDOW = 64;
+    public final static double DEFAULT_PERCENTILE = 99.0;
+
+    @Getter protected final long latencyTarget;
+    @Getter protected final double percentile;
+    @Getter protected final int maxBatchLimit;
+    protected final int evaluationWindow;
+
+    protected final LatencyHistogram window = new LatencyHistogram();
+    protected final AtomicInteger windowCount = new AtomicInteger(0);
+    protected volatile int batchLimit;
+
+    public AdaptiveBatchController(long latencyTarget, TimeUnit timeUnit, int maxBatchLimit) {
+        this(latencyTarget, timeUnit, DEFAULT_PERCENTILE, maxBatchLimit, DEFAULT_EVALUATION_WINDOW);
+    }
+
+    /**
+     *
+     * @param latencyTarget target latency for given percentile
+     * @param timeUnit TimeUnit for latencyTarget
+     * @param percentile percentile to be controlled, in range (0, 100]
+     * @param maxBatchLimit upper bound for batch size
+     * @param evaluationWindow number of requests between batch limit adjustments
+     */
+    public AdaptiveBatchController(long latencyTarget, TimeUnit timeUnit, double percentile, int maxBatchLimit, int evaluationWindow) {
+        if (latencyTarget <= 0)
+            throw new IllegalArgumentException("Latency target should be positive value");
+
+        if (percentile <= 0.0 || percentile > 100.0)
+            throw new IllegalArgumentException("Percentile should be in range (0, 100]");
+
+        if (maxBatchLimit < 1)
+            throw new IllegalArgumentException("Batch limit should be positive value");
+
+        if (evaluationWindow < 1)
+            throw new IllegalArgumentException("Evaluation window should be positive value");
+
+        this.latencyTarget = timeUnit.toNanos(latencyTarget);
+        this.percentile = percentile;
+        this.maxBatchLimit = maxBatchLimit;
+        this.evaluationWindow = evaluationWindow;
+
+        // we start from the smallest batches, and let the load grow them
+        this.batchLimit = 1;
+    }
+
+    /**
+     * This method returns batch limit that should be used for new batches
+     *
+     * @return
+     */
+    public int getBatchLimit() {
+        return batchLimit;
+    }
+
+    /**
+     * This method records end-to-end latency of a single request, and adjusts batch limit once evaluation window is full
+     *
+     * @param nanos request latency, in nanoseconds
+     */
+    public void recordLatency(long nanos) {
+        window.record(nanos);
+
+        if (windowCount.incrementAndGet() >= evaluationWindow) {
+            synchronized (window) {
+                // other thread might have adjusted limit already
+                if (windowCount.get() < evaluationWindow)
+                    return;
+
+                long observed = window.snapshot().getValueAtPercentile(percentile);
+                window.reset();
+                windowCount.set(0);
+
+                int current = batchLimit;
+                int updated;
+                if (observed > latencyTarget) {
+                    updated = Math.max(1, current / 2);
+                } else if (observed < latencyTarget * 3 / 4) {
+                    updated = Math.min(maxBatchLimit, current + Math.max(1, current / 8));
+                } else
+                    updated = current;
+
+                if (updated != current) {
+                    log.debug("Adjusting batch limit: {} -> {}, p{} latency: {} us", current, updated, percentile, observed / 1000);
+                    batchLimit = updated;
+                }
+            }
+        }
+    }
+}
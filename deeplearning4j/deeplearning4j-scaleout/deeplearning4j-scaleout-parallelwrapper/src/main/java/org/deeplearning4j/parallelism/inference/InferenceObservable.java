@@ -48,4 +48,19 @@ public interface InferenceObservable {
     void addObserver(Observer observer);
 
     INDArray[] getOutput();
+
+    /**
+     * This method marks the moment this observable was taken by worker for processing
+     */
+    void markDispatched();
+
+    /**
+     * @return System.nanoTime() value at the moment this observable was taken by worker, or 0 if it wasn't dispatched yet
+     */
+    long getDispatchTime();
+
+    /**
+     * @return System.nanoTime() value at the moment output (or exception) was set, or 0 if processing isn't finished yet
+     */
+    long getCompletionTime();
 }
@@ -39,6 +39,8 @@ public class BasicInferenceObservable extends Observable implements InferenceObs
     private long id;
     private INDArray[] output;
     protected Exception exception;
+    protected volatile long dispatchTime;
+    protected volatile long completionTime;
 
 
     public BasicInferenceObservable(INDArray... inputs) {
@@ -66,6 +68,7 @@ public class BasicInferenceObservable extends Observable implements InferenceObs
     public void setOutputBatches(@NonNull List<INDArray[]> output) {
         Preconditions.checkArgument(output.size() == 1, "Expected size 1 output: got size " + output.size());
         this.output = output.get(0);
+        markCompleted();
         this.setChanged();
         notifyObservers();
     }
@@ -78,6 +81,7 @@ public class BasicInferenceObservable extends Observable implements InferenceObs
     @Override
     public void setOutputException(Exception exception){
         this.exception = exception;
+        markCompleted();
         this.setChanged();
         notifyObservers();
     }
@@ -88,6 +92,25 @@ public class BasicInferenceObservable extends Observable implements InferenceObs
         return output;
     }
 
+    @Override
+    public void markDispatched() {
+        this.dispatchTime = System.nanoTime();
+    }
+
+    @Override
+    public long getDispatchTime() {
+        return dispatchTime;
+    }
+
+    @Override
+    public long getCompletionTime() {
+        return completionTime;
+    }
+
+    protected void markCompleted() {
+        this.completionTime = System.nanoTime();
+    }
+
     protected void checkOutputException(){
         if(exception != null){
             if(exception instanceof RuntimeException){
@@ -16,12 +16,13 @@
 
 package org.deeplearning4j.parallelism.inference.observers;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Observable;
 import java.util.Observer;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Simple Observer implementation for
@@ -31,23 +32,39 @@ import java.util.concurrent.locks.LockSupport;
  */
 @Slf4j
 public class BasicInferenceObserver implements Observer {
-    private AtomicBoolean finished;
+    // this future gets completed once observable notifies us
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    @Getter
+    private final long submitTime;
 
     public BasicInferenceObserver() {
-        finished = new AtomicBoolean(false);
+        submitTime = System.nanoTime();
     }
 
     @Override
     public void update(Observable o, Object arg) {
-        finished.set(true);
+        future.complete(null);
+    }
+
+    /**
+     * This method returns future, that'll be completed once output is available
+     *
+     * @return
+     */
+    public CompletableFuture<Void> getFuture() {
+        return future;
     }
 
     /**
-     * FOR DEBUGGING ONLY, TO BE REMOVED BEFORE MERGE
+     * This method blocks until observable notifies this observer
      */
-    public void waitTillDone() {
-        while (!finished.get()) {
-            LockSupport.parkNanos(1000);
+    public void waitTillDone() throws InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            // we never complete this future exceptionally, output exceptions are propagated via observable
+            throw new RuntimeException(e.getCause());
         }
     }
 }
@@ -175,6 +175,7 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
             }
         }
 
+        markCompleted();
         this.setChanged();
         notifyObservers();
     }
@@ -218,6 +219,15 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
         position.set(pos);
     }
 
+    /**
+     * This method returns position of the last input added to this observable by the calling thread
+     *
+     * @return
+     */
+    public int getPosition() {
+        return position.get();
+    }
+
     public int getCounter() {
         return counter.get();
     }
@@ -242,4 +252,15 @@ public class BatchedInferenceObservable extends BasicInferenceObservable impleme
         checkOutputException();
         return outputs.get(position.get());
     }
+
+    /**
+     * This method returns output for the input at given position. Unlike getOutput(), it doesn't depend on calling thread
+     *
+     * @param position position of the input, as returned by getPosition()
+     * @return
+     */
+    public INDArray[] getOutput(int position) {
+        checkOutputException();
+        return outputs.get(position);
+    }
 }
@@ -143,4 +143,85 @@ public class InplaceParallelInferenceTest {
         assertNotNull(result0);
         assertEquals(result0, result1);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testOutputAsync_FIFO_1() throws Exception {
+        int nIn = 5;
+
+        val conf = new NeuralNetConfiguration.Builder()
+                .graphBuilder()
+                .addInputs("in")
+                .layer("out0", new OutputLayer.Builder().nIn(nIn).nOut(4).activation(Activation.SOFTMAX).build(), "in")
+                .layer("out1", new OutputLayer.Builder().nIn(nIn).nOut(6).activation(Activation.SOFTMAX).build(), "in")
+                .setOutputs("out0", "out1")
+                .build();
+
+        val net = new ComputationGraph(conf);
+        net.init();
+
+        val pi = new ParallelInference.Builder(net)
+                .inferenceMode(InferenceMode.INPLACE)
+                .loadBalanceMode(LoadBalanceMode.FIFO)
+                .workers(2)
+                .build();
+
+        val input = new INDArray[]{Nd4j.create(new double[]{1.0, 2.0, 3.0, 4.0, 5.0})};
+        val expected = pi.output(input, null);
+
+        val result = pi.outputAsync(input, null).get();
+
+        assertEquals(2, result.length);
+        assertEquals(expected[0], result[0]);
+        assertEquals(expected[1], result[1]);
+    }
+
+    @Test
+    public void testUpdateModelAsync_WarmUp_1() throws Exception {
+        int nIn = 5;
+
+        val conf = new NeuralNetConfiguration.Builder()
+                .graphBuilder()
+                .addInputs("in")
+                .layer("out0", new OutputLayer.Builder().nIn(nIn).nOut(4).activation(Activation.SOFTMAX).build(), "in")
+                .setOutputs("out0")
+                .build();
+
+        val net = new ComputationGraph(conf);
+        net.init();
+
+        val net2 = new ComputationGraph(conf.clone());
+        net2.init();
+
+        val input = new INDArray[]{Nd4j.create(new double[]{1.0, 2.0, 3.0, 4.0, 5.0})};
+
+        val pi = (InplaceParallelInference) new ParallelInference.Builder(net)
+                .inferenceMode(InferenceMode.INPLACE)
+                .loadBalanceMode(LoadBalanceMode.FIFO)
+                .warmupInput(Nd4j.create(4, nIn))
+                .warmupIterations(2)
+                .workers(2)
+                .build();
+
+        assertEquals(net.output(input)[0], pi.output(input, null)[0]);
+
+        pi.updateModelAsync(net2).get();
+
+        assertEquals(net2.output(input)[0], pi.output(input, null)[0]);
+        assertEquals(1, pi.getSwapLatencyHistogram().snapshot().getCount());
+        assertEquals(1, pi.getWarmupLatencyHistogram().snapshot().getCount());
+        assertTrue(pi.getWarmupLatencyHistogram().snapshot().getMax() > 0);
+
+        // every worker replica should have been rebuilt from the new model
+        val expected = net2.output(input)[0];
+        for (val h : pi.holders) {
+            val replicas = h.current.get();
+            assertSame(net2, replicas.sourceModel);
+            assertEquals(2, replicas.replicas.size());
+            for (val m : replicas.replicas) {
+                assertNotSame(net2, m);
+                assertEquals(net2.params(), m.params());
+                assertEquals(expected, ((ComputationGraph) m).output(input)[0]);
+            }
+        }
+    }
+}
@@ -48,6 +48,7 @@ import org.nd4j.linalg.primitives.Pair;
 import java.io.File;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -199,6 +200,49 @@ public class ParallelInferenceTest {
     }
 
 
+    @Test(timeout = 30000L)
+    public void testInferenceAsync1() throws Exception {
+        for (InferenceMode mode : new InferenceMode[] {InferenceMode.SEQUENTIAL, InferenceMode.BATCHED}) {
+            ParallelInference inf = new ParallelInference.Builder(model).inferenceMode(mode).batchLimit(8)
+                    .queueLimit(64).workers(2).build();
+
+            iterator = new MnistDataSetIterator(1, false, 12345);
+
+            List<INDArray> features = new ArrayList<>();
+            List<CompletableFuture<INDArray[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 10 && iterator.hasNext(); i++) {
+                INDArray f = iterator.next().getFeatures();
+                features.add(f);
+                futures.add(inf.outputAsync(f));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                INDArray[] out = futures.get(i).get();
+                assertEquals(1, out.length);
+                assertEquals(model.output(features.get(i)), out[0]);
+            }
+
+            assertTrue(inf.getComputeLatencyHistogram().snapshot().getCount() > 0);
+
+            inf.shutdown();
+        }
+    }
+
+    @Test
+    public void testProviderBackpressure1() throws Exception {
+        LinkedBlockingQueue queue = new LinkedBlockingQueue(1);
+        BasicInferenceObserver observer = new BasicInferenceObserver();
+        ParallelInference.ObservablesProvider provider = new ParallelInference.ObservablesProvider(10000000L, 1, queue);
+
+        InferenceObservable observable1 = provider.trySetInput(observer, new INDArray[]{Nd4j.create(100)}, null);
+        InferenceObservable observable2 = provider.trySetInput(observer, new INDArray[]{Nd4j.create(100)}, null);
+
+        // queue has room for a single batch only, and batch limit is 1
+        assertNotNull(observable1);
+        assertNull(observable2);
+        assertEquals(1, queue.size());
+    }
+
     @Test
     public void testProvider1() throws Exception {
         LinkedBlockingQueue queue = new LinkedBlockingQueue();
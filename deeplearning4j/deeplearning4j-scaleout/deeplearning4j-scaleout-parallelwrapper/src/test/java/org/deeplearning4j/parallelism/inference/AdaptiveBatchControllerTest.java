@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.deeplearning4j.parallelism.inference;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class AdaptiveBatchControllerTest {
+
+    @Test
+    public void testControllerGrowth1() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(10, TimeUnit.MILLISECONDS, 99.0, 32, 16);
+        assertEquals(1, controller.getBatchLimit());
+
+        // latency is way below target, so batch limit should grow up to max value
+        for (int e = 0; e < 16 * 100; e++)
+            controller.recordLatency(TimeUnit.MICROSECONDS.toNanos(100));
+
+        assertEquals(32, controller.getBatchLimit());
+    }
+
+    @Test
+    public void testControllerShrink1() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(10, TimeUnit.MILLISECONDS, 99.0, 32, 16);
+
+        for (int e = 0; e < 16 * 100; e++)
+            controller.recordLatency(TimeUnit.MICROSECONDS.toNanos(100));
+
+        assertEquals(32, controller.getBatchLimit());
+
+        // target is missed now, so limit should go down
+        for (int e = 0; e < 16; e++)
+            controller.recordLatency(TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertEquals(16, controller.getBatchLimit());
+
+        for (int e = 0; e < 16 * 10; e++)
+            controller.recordLatency(TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertEquals(1, controller.getBatchLimit());
+    }
+
+    @Test
+    public void testControllerAdditiveIncrease1() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(10, TimeUnit.MILLISECONDS, 99.0, 100, 4);
+
+        // limit isn't touched until evaluation window is full
+        recordWindow(controller, 3, 1);
+        assertEquals(1, controller.getBatchLimit());
+        controller.recordLatency(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(2, controller.getBatchLimit());
+
+        // below 3/4 of the target, limit grows by max(1, limit / 8) per window
+        int[] expected = {3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 18, 20, 22, 24, 27};
+        for (int exp : expected) {
+            recordWindow(controller, 4, 1);
+            assertEquals(exp, controller.getBatchLimit());
+        }
+    }
+
+    @Test
+    public void testControllerHold1() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(10, TimeUnit.MILLISECONDS, 99.0, 100, 4);
+        for (int e = 0; e < 5; e++)
+            recordWindow(controller, 4, 1);
+        assertEquals(6, controller.getBatchLimit());
+
+        // between 3/4 of the target and the target: limit stays as is
+        for (int e = 0; e < 10; e++) {
+            recordWindow(controller, 4, 8);
+            assertEquals(6, controller.getBatchLimit());
+        }
+    }
+
+    @Test
+    public void testControllerMultiplicativeDecrease1() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(10, TimeUnit.MILLISECONDS, 99.0, 100, 4);
+        for (int e = 0; e < 20; e++)
+            recordWindow(controller, 4, 1);
+        assertEquals(27, controller.getBatchLimit());
+
+        // target missed: limit is halved every window, but never goes below 1
+        int[] expected = {13, 6, 3, 1, 1, 1};
+        for (int exp : expected) {
+            recordWindow(controller, 4, 20);
+            assertEquals(exp, controller.getBatchLimit());
+        }
+
+        // and grows again once latency recovers
+        recordWindow(controller, 4, 1);
+        assertEquals(2, controller.getBatchLimit());
+    }
+
+    @Test
+    public void testControllerClampToMax1() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(10, TimeUnit.MILLISECONDS, 99.0, 5, 4);
+        for (int e = 0; e < 4; e++)
+            recordWindow(controller, 4, 1);
+        assertEquals(5, controller.getBatchLimit());
+
+        for (int e = 0; e < 100; e++) {
+            recordWindow(controller, 4, 1);
+            assertEquals(5, controller.getBatchLimit());
+        }
+    }
+
+    @Test
+    public void testControllerPercentile1() {
+        // single outlier per window: misses p99 target, but not p50 target
+        AdaptiveBatchController p99 = new AdaptiveBatchController(10, TimeUnit.MILLISECONDS, 99.0, 100, 16);
+        AdaptiveBatchController p50 = new AdaptiveBatchController(10, TimeUnit.MILLISECONDS, 50.0, 100, 16);
+        for (int w = 0; w < 10; w++)
+            recordWindow(p99, 16, 1);
+        for (int w = 0; w < 10; w++)
+            recordWindow(p50, 16, 1);
+        assertEquals(11, p99.getBatchLimit());
+        assertEquals(11, p50.getBatchLimit());
+
+        for (AdaptiveBatchController c : new AdaptiveBatchController[] {p99, p50}) {
+            recordWindow(c, 15, 1);
+            c.recordLatency(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+
+        assertEquals(5, p99.getBatchLimit());
+        assertEquals(12, p50.getBatchLimit());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testControllerValidation1() {
+        new AdaptiveBatchController(10, TimeUnit.MILLISECONDS, 0.0, 32, 16);
+    }
+
+    private static void recordWindow(AdaptiveBatchController controller, int count, long latencyMillis) {
+        for (int e = 0; e < count; e++)
+            controller.recordLatency(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+    }
+}
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.autodiff.samediff;
+
+import com.rits.cloning.Cloner;
+import com.rits.cloning.IDeepCloner;
+import com.rits.cloning.IFastCloner;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.autodiff.samediff.memory.MemoryPlan;
+import org.nd4j.autodiff.samediff.memory.MemoryPlanner;
+import org.nd4j.autodiff.samediff.optimize.GraphOptimizer;
+import org.nd4j.base.Preconditions;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable, thread-safe inference wrapper for a {@link SameDiff} graph.<br>
+ * SameDiff execution keeps its state (activations, op arguments, control flow state) within the SameDiff instance, so
+ * a single instance can't serve concurrent requests. CompiledSameDiff takes a private copy of the graph structure once,
+ * and then creates lightweight {@link InferenceSession}s on demand: each session has its own graph structure and
+ * activations, but all sessions share the same weight and constant arrays - so memory use doesn't grow with the number
+ * of serving threads, apart from activations.<br>
+ * <br>
+ * {@link #output(Map, String...)} can be called from any number of threads concurrently: sessions are pooled, and
+ * a new session is created only if all existing sessions are busy.<br>
+ * <br>
+ * PLEASE NOTE: weight and constant arrays are shared with the original SameDiff instance, not copied. Changes to
+ * these arrays (i.e. further training of the original graph) will be visible to the compiled graph.
+ */
+@Slf4j
+public class CompiledSameDiff {
+    private final SameDiff template;
+    private final Set<INDArray> sharedArrays = Collections.newSetFromMap(new IdentityHashMap<INDArray, Boolean>());
+    private final Queue<InferenceSession> sessions = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger numSessions = new AtomicInteger(0);
+    private volatile boolean memoryPlanning;
+
+    protected CompiledSameDiff(@NonNull SameDiff sameDiff, GraphOptimizer optimizer, @NonNull String... outputs) {
+        collectSharedArrays(sameDiff);
+        this.template = copyStructure(sameDiff);
+
+        if (optimizer != null) {
+            optimizer.optimize(template, outputs);
+
+            // template keeps the original weight arrays, plus constants folded by the optimizer
+            sharedArrays.clear();
+            collectSharedArrays(template);
+        }
+    }
+
+    /**
+     * Compiles given SameDiff graph for concurrent inference.
+     *
+     * @param sameDiff graph to compile. It's not modified, and further changes to its structure don't affect compiled graph
+     * @return compiled graph
+     */
+    public static CompiledSameDiff compile(@NonNull SameDiff sameDiff) {
+        return new CompiledSameDiff(sameDiff, null);
+    }
+
+    /**
+     * Compiles given SameDiff graph for concurrent inference of the given outputs only.
+     * Compiled graph is optimized with {@link GraphOptimizer#defaultOptimizer()}: ops that aren't required for these
+     * outputs are removed, constant subgraphs are precomputed, and some op sequences are fused.
+     *
+     * @param sameDiff graph to compile. It's not modified, and further changes to its structure don't affect compiled graph
+     * @param outputs  names of variables that will be requested from the compiled graph
+     * @return compiled graph
+     */
+    public static CompiledSameDiff compile(@NonNull SameDiff sameDiff, @NonNull String... outputs) {
+        return new CompiledSameDiff(sameDiff, GraphOptimizer.defaultOptimizer(), outputs);
+    }
+
+    /**
+     * Weights and constants: arrays of variables that aren't placeholders, and aren't produced by any op
+     */
+    protected void collectSharedArrays(SameDiff sameDiff) {
+        for (SDVariable variable : sameDiff.variables()) {
+            String name = variable.getVarName();
+            if (sameDiff.isPlaceHolder(name) || sameDiff.getVariableOutputFunction(name) != null)
+                continue;
+
+            INDArray array = sameDiff.getArrForVarName(name);
+            if (array != null)
+                sharedArrays.add(array);
+        }
+    }
+
+    /**
+     * Deep copy of given graph, sharing weight and constant arrays instead of duplicating them
+     */
+    protected SameDiff copyStructure(SameDiff sameDiff) {
+        Cloner cloner = SameDiff.newCloner();
+        cloner.registerFastCloner(Nd4j.getBackend().getNDArrayClass(), new IFastCloner() {
+            @Override
+            public Object clone(Object o, IDeepCloner iDeepCloner, Map<Object, Object> map) {
+                return sharedArrays.contains(o) ? o : ((INDArray) o).dup();
+            }
+        });
+
+        synchronized (sameDiff) {
+            return cloner.deepClone(sameDiff);
+        }
+    }
+
+    /**
+     * Creates new inference session. Session can be used by one thread at a time, and should be reused between calls.
+     *
+     * @return new session
+     */
+    public InferenceSession newSession() {
+        numSessions.incrementAndGet();
+        return new InferenceSession(copyStructure(template), memoryPlanning);
+    }
+
+    /**
+     * Executes the graph for given placeholders, and returns arrays of requested variables.
+     * This method is thread-safe.
+     *
+     * @param placeholders arrays for placeholder variables
+     * @param outputs      names of variables to return
+     * @return map of variable name to array. Returned arrays are owned by the caller
+     */
+    public Map<String, INDArray> output(@NonNull Map<String, INDArray> placeholders, @NonNull String... outputs) {
+        InferenceSession session = sessions.poll();
+        if (session == null)
+            session = newSession();
+
+        try {
+            return session.output(placeholders, outputs);
+        } finally {
+            sessions.add(session);
+        }
+    }
+
+    /**
+     * Executes the graph for given placeholders, and returns array of single requested variable.
+     * This method is thread-safe.
+     */
+    public INDArray outputSingle(@NonNull Map<String, INDArray> placeholders, @NonNull String output) {
+        return output(placeholders, output).get(output);
+    }
+
+    /**
+     * @return total number of sessions created so far. Equals to max number of concurrent calls, unless sessions were created manually
+     */
+    public int getNumSessions() {
+        return numSessions.get();
+    }
+
+    /**
+     * @return number of weight and constant arrays shared between sessions
+     */
+    public int getNumSharedArrays() {
+        return sharedArrays.size();
+    }
+
+    /**
+     * Enables or disables memory planning for inference sessions. With memory planning, each session builds a
+     * {@link MemoryPlan} after the first call for given outputs and input shapes, and intermediate arrays of the
+     * following calls share memory slots - so session memory is close to the peak of live activations.<br>
+     * Pooled sessions are dropped, so the setting applies to all sessions used afterwards.
+     *
+     * @param memoryPlanning true to enable memory planning
+     */
+    public void setMemoryPlanning(boolean memoryPlanning) {
+        this.memoryPlanning = memoryPlanning;
+        clearSessions();
+    }
+
+    /**
+     * @return true if memory planning is enabled for inference sessions
+     */
+    public boolean isMemoryPlanning() {
+        return memoryPlanning;
+    }
+
+    /**
+     * Drops all pooled sessions, releasing their activations
+     */
+    public void clearSessions() {
+        sessions.clear();
+    }
+
+    /**
+     * Per-caller inference context: holds own copy of the graph structure and own activations, weights are shared.
+     * Session isn't thread-safe: it must be used by one thread at a time.
+     */
+    public static class InferenceSession {
+        private final SameDiff sameDiff;
+        private final boolean memoryPlanning;
+        private MemoryPlan memoryPlan;
+        private String memoryPlanKey;
+
+        protected InferenceSession(@NonNull SameDiff sameDiff, boolean memoryPlanning) {
+            this.sameDiff = sameDiff;
+            this.memoryPlanning = memoryPlanning;
+        }
+
+        /**
+         * @return memory plan currently used by this session, or null if there's none
+         */
+        public MemoryPlan getMemoryPlan() {
+            return memoryPlan;
+        }
+
+        /**
+         * Executes the graph for given placeholders, and returns arrays of requested variables
+         *
+         * @param placeholders arrays for placeholder variables
+         * @param outputs      names of variables to return
+         * @return map of variable name to array. Returned arrays are detached from this session
+         */
+        public Map<String, INDArray> output(@NonNull Map<String, INDArray> placeholders, @NonNull String... outputs) {
+            Preconditions.checkArgument(outputs.length > 0, "At least one output variable name is required");
+            for (String name : outputs)
+                Preconditions.checkArgument(sameDiff.getVariable(name) != null, "No variable found for name \"%s\"", name);
+
+            // plan is valid only for the outputs and input shapes it was built for
+            String planKey = memoryPlanning ? planKey(placeholders, outputs) : null;
+            if (memoryPlan != null && !memoryPlanKey.equals(planKey)) {
+                memoryPlan.detach(sameDiff);
+                memoryPlan = null;
+            }
+
+            sameDiff.execWithPlaceHolder(placeholders);
+
+            Map<String, INDArray> result = new LinkedHashMap<>();
+            for (String name : outputs) {
+                INDArray array = sameDiff.getArrForVarName(name);
+                Preconditions.checkState(array != null, "No array was produced for variable \"%s\"", name);
+
+                // arrays of this session will be reused by the next call
+                result.put(name, array.dup());
+            }
+
+            // shapes are known after the first execution, so the next calls can use planned memory
+            if (memoryPlanning && memoryPlan == null) {
+                memoryPlan = MemoryPlanner.plan(sameDiff, outputs);
+                memoryPlan.apply(sameDiff);
+                memoryPlanKey = planKey;
+            }
+
+            return result;
+        }
+
+        protected static String planKey(Map<String, INDArray> placeholders, String[] outputs) {
+            StringBuilder sb = new StringBuilder();
+            for (String output : new TreeSet<>(Arrays.asList(outputs)))
+                sb.append(output).append(";");
+
+            for (Map.Entry<String, INDArray> e : new TreeMap<>(placeholders).entrySet())
+                sb.append(e.getKey()).append(Arrays.toString(e.getValue().shape())).append(";");
+
+            return sb.toString();
+        }
+    }
+}
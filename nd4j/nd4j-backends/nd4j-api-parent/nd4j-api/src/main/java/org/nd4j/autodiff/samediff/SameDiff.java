@@ -2424,6 +2424,148 @@ public class SameDiff {
         }
     }
 
+    /**
+     * Replace an argument of a function with another variable, keeping the position of the argument.
+     * Note that if this function does not contain the argument, it will just be a no op.
+     *
+     * @param oldVarName the variable name to replace
+     * @param newVarName the variable name to use instead
+     * @param function   the function to update
+     */
+    public void replaceArgForFunction(@NonNull String oldVarName, @NonNull String newVarName, @NonNull DifferentialFunction function) {
+        val args = incomingArgsReverse.get(function.getOwnName());
+        if (args == null || !ArrayUtils.contains(args, oldVarName))
+            return;
+
+        if (!variableMap.containsKey(newVarName))
+            throw new ND4JIllegalStateException("No variable found for " + newVarName);
+
+        val newArgs = new String[args.length];
+        for (int i = 0; i < args.length; i++)
+            newArgs[i] = args[i].equals(oldVarName) ? newVarName : args[i];
+
+        incomingArgsReverse.put(function.getOwnName(), newArgs);
+
+        val oldFuncs = functionsArgsFor.get(oldVarName);
+        if (oldFuncs != null) {
+            oldFuncs.remove(function);
+            if (oldFuncs.isEmpty())
+                functionsArgsFor.remove(oldVarName);
+        }
+
+        List<DifferentialFunction> funcs = functionsArgsFor.get(newVarName);
+        if (funcs == null) {
+            funcs = new ArrayList<>();
+            functionsArgsFor.put(newVarName, funcs);
+        }
+
+        if (!funcs.contains(function))
+            funcs.add(function);
+
+        if (isPlaceHolder(newVarName))
+            placeHolderFunctions.add(function.getOwnName());
+    }
+
+    /**
+     * Remove the function from the graph. Output variables of the function are kept, so they become
+     * leaf variables - their arrays (if any) will be used as is during execution.
+     *
+     * @param function the function to remove
+     */
+    public void removeFunction(@NonNull DifferentialFunction function) {
+        val name = function.getOwnName();
+        if (functionInstancesById.get(name) != function)
+            throw new ND4JIllegalStateException("Function " + name + " doesn't belong to this graph");
+
+        val inputs = incomingArgsReverse.remove(name);
+        if (inputs != null) {
+            for (val input : inputs) {
+                val funcs = functionsArgsFor.get(input);
+                if (funcs != null) {
+                    funcs.remove(function);
+                    if (funcs.isEmpty())
+                        functionsArgsFor.remove(input);
+                }
+            }
+        }
+
+        val outputs = outgoingArgsReverse.remove(name);
+        if (outputs != null) {
+            for (val output : outputs) {
+                val funcs = functionOutputFor.get(output);
+                if (funcs != null) {
+                    funcs.remove(function);
+                    if (funcs.isEmpty())
+                        functionOutputFor.remove(output);
+                }
+            }
+        }
+
+        functionInstancesById.remove(name);
+        placeHolderFunctions.remove(name);
+        propertiesToResolve.remove(name);
+        propertiesForFunction.remove(name);
+        baseNameForFunctionInstanceId.remove(name);
+        fieldVariableResolutionMapping.row(name).clear();
+    }
+
+    /**
+     * Replace the function with another one. Replacement takes the position of the original function in the execution
+     * order, and produces the same output variables. The original function is removed from the graph.
+     *
+     * @param original    the function to replace
+     * @param replacement the new function. Must not be registered in this graph yet
+     * @param inputs      names of the variables that are arguments (inputs) of the new function
+     */
+    public void replaceFunction(@NonNull DifferentialFunction original, @NonNull DifferentialFunction replacement, @NonNull String... inputs) {
+        val originalName = original.getOwnName();
+        if (functionInstancesById.get(originalName) != original)
+            throw new ND4JIllegalStateException("Function " + originalName + " doesn't belong to this graph");
+
+        if (replacement.getOwnName() == null || functionInstancesById.containsKey(replacement.getOwnName()))
+            throw new ND4JIllegalStateException("Replacement function must have unique name");
+
+        val outputs = outgoingArgsReverse.get(originalName);
+
+        val newMap = new LinkedHashMap<String, DifferentialFunction>();
+        for (val e : functionInstancesById.entrySet()) {
+            if (e.getKey().equals(originalName))
+                newMap.put(replacement.getOwnName(), replacement);
+
+            newMap.put(e.getKey(), e.getValue());
+        }
+
+        functionInstancesById = newMap;
+        removeFunction(original);
+
+        replacement.setSameDiff(this);
+        addArgsFor(inputs, replacement);
+        addOutgoingFor(outputs, replacement);
+    }
+
+    /**
+     * Remove the variable from the graph, along with its array and shape.
+     * Variable must not be an input or output of any function.
+     *
+     * @param varName the name of variable to remove
+     */
+    public void removeVariable(@NonNull String varName) {
+        if (functionsArgsFor.containsKey(varName) || functionOutputFor.containsKey(varName))
+            throw new ND4JIllegalStateException("Variable " + varName + " is still used by one or more functions");
+
+        variableMap.remove(varName);
+        variableNameToArr.remove(varName);
+        variableNameToShape.remove(varName);
+        placeHolderVarNames.remove(varName);
+        placeHolderOriginalShapes.remove(varName);
+        placeHolderMap.remove(varName);
+        gradients.remove(varName);
+        forwardVarForGrad.remove(varName);
+
+        if (importedConstants != null)
+            importedConstants.remove(varName);
+    }
+
     /**
      * Get the variable based on the opName
      *
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.autodiff.samediff.memory;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NonNull;
+import org.nd4j.autodiff.functions.DifferentialFunction;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.base.Preconditions;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.BaseOp;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.text.DecimalFormat;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Result of {@link MemoryPlanner}: assignment of intermediate SameDiff arrays to reusable memory slots,
+ * along with the planned memory figures.<br>
+ * All slots live in a single buffer, allocated once on the first {@link #apply(SameDiff)} call. Variables whose
+ * lifetimes don't overlap share the same memory, so planned memory is close to the peak of simultaneously live arrays,
+ * instead of the sum of all intermediate arrays.<br>
+ * <br>
+ * PLEASE NOTE: after execution of the planned graph, only requested outputs (and variables that aren't planned) hold
+ * valid values. Arrays of other intermediate variables may be overwritten by later ops.
+ */
+@Getter
+public class MemoryPlan {
+    private static final DecimalFormat BYTES_FORMAT = new DecimalFormat("#,###");
+
+    private final DataBuffer.Type dataType;
+    private final Map<String, Allocation> allocations;
+    private final long[] slotSizes;
+    private final long peakLiveBytes;
+
+    private transient INDArray buffer;
+
+    public MemoryPlan(@NonNull DataBuffer.Type dataType, @NonNull Map<String, Allocation> allocations, @NonNull long[] slotSizes, long peakLiveBytes) {
+        this.dataType = dataType;
+        this.allocations = Collections.unmodifiableMap(allocations);
+        this.slotSizes = slotSizes;
+        this.peakLiveBytes = peakLiveBytes;
+    }
+
+    /**
+     * @return number of reusable slots
+     */
+    public int getNumSlots() {
+        return slotSizes.length;
+    }
+
+    /**
+     * @return memory used by the slots buffer, in bytes
+     */
+    public long getPlannedBytes() {
+        long elements = 0;
+        for (long size : slotSizes)
+            elements += size;
+
+        return elements * Nd4j.sizeOfDataType(dataType);
+    }
+
+    /**
+     * @return memory that planned variables would use if each of them had its own array, in bytes
+     */
+    public long getUnplannedBytes() {
+        long elements = 0;
+        for (Allocation allocation : allocations.values())
+            elements += allocation.getLength();
+
+        return elements * Nd4j.sizeOfDataType(dataType);
+    }
+
+    /**
+     * Assigns planned arrays to the variables of the given graph. Graph must be the one this plan was built for
+     * (or a copy of it). Subsequent executions with the same shapes will write intermediate results into the slots.
+     * If shapes change, ops just allocate new arrays as usual, and graph should be planned again.
+     *
+     * @param sameDiff graph to apply plan to
+     */
+    public void apply(@NonNull SameDiff sameDiff) {
+        Preconditions.checkState(dataType == Nd4j.dataType(), "Plan was built for data type %s, but current data type is %s", dataType, Nd4j.dataType());
+
+        if (buffer == null && !allocations.isEmpty()) {
+            long elements = 0;
+            for (long size : slotSizes)
+                elements += size;
+
+            buffer = Nd4j.createUninitializedDetached(new long[] {1, elements});
+        }
+
+        for (Allocation allocation : allocations.values()) {
+            String name = allocation.getVariable();
+            Preconditions.checkState(sameDiff.getVariable(name) != null, "No variable found for name \"%s\"", name);
+
+            INDArray array = Nd4j.create(buffer.data(), allocation.getShape(), Nd4j.getStrides(allocation.getShape(), 'c'), allocation.getOffset(), 'c');
+            sameDiff.putOrUpdateArrayForVarName(name, array);
+
+            // legacy ops write into their own z array, instead of the variable array
+            DifferentialFunction producer = sameDiff.getVariableOutputFunction(name);
+            if (producer instanceof BaseOp)
+                ((BaseOp) producer).setZ(array);
+        }
+    }
+
+    /**
+     * Gives planned variables of the given graph their own arrays again, so they no longer share memory.
+     * This is required before executing the graph for outputs other than ones this plan was built for.
+     *
+     * @param sameDiff graph this plan was applied to
+     */
+    public void detach(@NonNull SameDiff sameDiff) {
+        for (Allocation allocation : allocations.values()) {
+            String name = allocation.getVariable();
+            if (sameDiff.getVariable(name) == null)
+                continue;
+
+            INDArray array = Nd4j.create(allocation.getShape(), 'c');
+            sameDiff.putOrUpdateArrayForVarName(name, array);
+
+            DifferentialFunction producer = sameDiff.getVariableOutputFunction(name);
+            if (producer instanceof BaseOp)
+                ((BaseOp) producer).setZ(array);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("----- SameDiff Memory Plan -----\n");
+        sb.append("Data Type:                    ").append(dataType).append("\n");
+        sb.append("Planned Variables:            ").append(allocations.size()).append("\n");
+        sb.append("Memory Slots:                 ").append(slotSizes.length).append("\n");
+        sb.append("Planned Memory (bytes):       ").append(BYTES_FORMAT.format(getPlannedBytes())).append("\n");
+        sb.append("Peak Live Memory (bytes):     ").append(BYTES_FORMAT.format(peakLiveBytes)).append("\n");
+        sb.append("Without Planning (bytes):     ").append(BYTES_FORMAT.format(getUnplannedBytes())).append("\n");
+        return sb.toString();
+    }
+
+    /**
+     * Placement of a single variable array within the slots buffer
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Allocation {
+        private String variable;
+        private long[] shape;
+        private int slot;
+        private long offset;
+        private long length;
+    }
+}
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.autodiff.samediff.memory;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.autodiff.functions.DifferentialFunction;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.autodiff.samediff.optimize.GraphOptimizer;
+import org.nd4j.base.Preconditions;
+import org.nd4j.linalg.api.ops.Accumulation;
+import org.nd4j.linalg.api.ops.BaseOp;
+import org.nd4j.linalg.api.ops.DynamicCustomOp;
+import org.nd4j.linalg.api.ops.IndexAccumulation;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.ArrayUtil;
+
+import java.util.*;
+
+/**
+ * Liveness-based memory planner for SameDiff inference.<br>
+ * For each intermediate variable, planner finds the op that produces it and the last op that uses it, and then assigns
+ * variables to memory slots so that variables with overlapping lifetimes never share a slot. Slots are reused as soon
+ * as their previous variable is dead, best fitting free slot first.<br>
+ * <br>
+ * Planning requires known shapes, so the graph should be executed (or have its shapes calculated) at least once
+ * for the target input shapes. Variables with unknown shapes, requested outputs, and arrays of ops that may alias
+ * their inputs (in-place ops, reductions and broadcasts along dimensions) aren't planned, and are allocated as usual.
+ */
+@Slf4j
+public class MemoryPlanner {
+    // slot sizes are aligned to this number of elements, to keep all arrays SIMD-aligned within the buffer
+    protected static final long ALIGNMENT = 8;
+
+    private MemoryPlanner() {
+        //
+    }
+
+    /**
+     * Builds memory plan for the given graph
+     *
+     * @param sameDiff graph to plan
+     * @param outputs  names of variables that will be requested from the graph. These variables keep their own arrays
+     * @return memory plan
+     */
+    public static MemoryPlan plan(@NonNull SameDiff sameDiff, @NonNull String... outputs) {
+        Preconditions.checkArgument(outputs.length > 0, "At least one output variable must be specified");
+        for (String output : outputs)
+            Preconditions.checkArgument(sameDiff.getVariable(output) != null, "No variable found for output \"%s\"", output);
+
+        Map<String, MemoryPlan.Allocation> allocations = new LinkedHashMap<>();
+        if (!GraphOptimizer.isSupported(sameDiff)) {
+            log.info("Graph contains control flow, TensorArray or gradient ops, skipping memory planning");
+            return new MemoryPlan(Nd4j.dataType(), allocations, new long[0], 0);
+        }
+
+        Set<String> requested = new HashSet<>(Arrays.asList(outputs));
+        DifferentialFunction[] functions = sameDiff.functions();
+
+        Map<DifferentialFunction, Integer> positions = new IdentityHashMap<>();
+        for (int i = 0; i < functions.length; i++)
+            positions.put(functions[i], i);
+
+        // variables that are touched by in-place ops can't be planned: their arrays are aliased
+        Set<String> excluded = new HashSet<>(requested);
+        for (DifferentialFunction function : functions) {
+            if (function instanceof DynamicCustomOp && ((DynamicCustomOp) function).isInplaceCall()) {
+                if (sameDiff.hasArgs(function))
+                    Collections.addAll(excluded, sameDiff.getInputsForFunction(function));
+                if (sameDiff.getOutputsForFunction(function) != null)
+                    Collections.addAll(excluded, sameDiff.getOutputsForFunction(function));
+            }
+        }
+
+        // lifetimes, in execution order of producers
+        List<String> variables = new ArrayList<>();
+        Map<String, Integer> firstUse = new HashMap<>();
+        Map<String, Integer> lastUse = new HashMap<>();
+        Map<String, long[]> shapes = new HashMap<>();
+        for (int i = 0; i < functions.length; i++) {
+            DifferentialFunction function = functions[i];
+            String[] results = sameDiff.getOutputsForFunction(function);
+            if (results == null || !isPlannable(function))
+                continue;
+
+            for (String name : results) {
+                long[] shape = sameDiff.getShapeForVarName(name);
+                if (excluded.contains(name) || shape == null || shape.length == 0 || ArrayUtil.prodLong(shape) < 1)
+                    continue;
+
+                int last = i;
+                List<DifferentialFunction> consumers = sameDiff.getVariableArgOfFunctions(name);
+                if (consumers != null)
+                    for (DifferentialFunction consumer : consumers)
+                        last = Math.max(last, positions.get(consumer));
+
+                variables.add(name);
+                firstUse.put(name, i);
+                lastUse.put(name, last);
+                shapes.put(name, shape);
+            }
+        }
+
+        // greedy assignment: free slots of dead variables first, then assign best fitting free slot, or grow/add one
+        List<Long> slotSizes = new ArrayList<>();
+        Map<String, Integer> slots = new HashMap<>();
+        List<String> live = new ArrayList<>();
+        TreeSet<Integer> freeSlots = new TreeSet<>();
+        long liveElements = 0;
+        long peakElements = 0;
+
+        for (String name : variables) {
+            int position = firstUse.get(name);
+            for (Iterator<String> iterator = live.iterator(); iterator.hasNext(); ) {
+                String other = iterator.next();
+                // variable used by the current op must stay intact while the op writes its outputs
+                if (lastUse.get(other) < position) {
+                    iterator.remove();
+                    freeSlots.add(slots.get(other));
+                    liveElements -= ArrayUtil.prodLong(shapes.get(other));
+                }
+            }
+
+            long length = ArrayUtil.prodLong(shapes.get(name));
+            long size = align(length);
+
+            int slot = -1;
+            for (int free : freeSlots) {
+                if (slotSizes.get(free) >= size && (slot < 0 || slotSizes.get(free) < slotSizes.get(slot)))
+                    slot = free;
+            }
+
+            if (slot < 0 && !freeSlots.isEmpty()) {
+                // no free slot is large enough: grow the largest one
+                for (int free : freeSlots)
+                    if (slot < 0 || slotSizes.get(free) > slotSizes.get(slot))
+                        slot = free;
+
+                slotSizes.set(slot, size);
+            }
+
+            if (slot < 0) {
+                slot = slotSizes.size();
+                slotSizes.add(size);
+            } else {
+                freeSlots.remove(slot);
+            }
+
+            slots.put(name, slot);
+            live.add(name);
+            liveElements += length;
+            peakElements = Math.max(peakElements, liveElements);
+        }
+
+        long[] sizes = new long[slotSizes.size()];
+        long[] offsets = new long[slotSizes.size()];
+        long offset = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = slotSizes.get(i);
+            offsets[i] = offset;
+            offset += sizes[i];
+        }
+
+        for (String name : variables) {
+            int slot = slots.get(name);
+            allocations.put(name, new MemoryPlan.Allocation(name, shapes.get(name), slot, offsets[slot], ArrayUtil.prodLong(shapes.get(name))));
+        }
+
+        MemoryPlan plan = new MemoryPlan(Nd4j.dataType(), allocations, sizes, peakElements * Nd4j.sizeOfDataType());
+        log.debug("Memory plan: {} variables in {} slots, {} bytes planned, {} bytes without planning", allocations.size(),
+                        sizes.length, plan.getPlannedBytes(), plan.getUnplannedBytes());
+        return plan;
+    }
+
+    /**
+     * @return true if op always writes its results into the output arrays provided by SameDiff
+     */
+    protected static boolean isPlannable(DifferentialFunction function) {
+        if (function instanceof DynamicCustomOp)
+            return !((DynamicCustomOp) function).isInplaceCall();
+
+        if (function instanceof BaseOp)
+            return !(function instanceof Accumulation || function instanceof IndexAccumulation
+                            || function.getDimensions() != null || ((BaseOp) function).isExecSpecial());
+
+        return false;
+    }
+
+    protected static long align(long length) {
+        return ((length + ALIGNMENT - 1) / ALIGNMENT) * ALIGNMENT;
+    }
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.autodiff.samediff.optimize;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.autodiff.functions.DifferentialFunction;
+import org.nd4j.autodiff.samediff.SDVariable;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.*;
+import org.nd4j.linalg.api.ops.impl.transforms.LegacyDropOut;
+import org.nd4j.linalg.api.ops.impl.transforms.LegacyDropOutInverted;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Constant folding: ops whose inputs are all constants are executed once, and replaced with their results.
+ * Results become constants as well, so whole constant subgraphs are folded in a single pass.<br>
+ * <br>
+ * Constants are variables imported as constants (i.e. TF Const nodes). Optionally, all variables (weights) can be
+ * treated as constants too - that's valid only for frozen graphs, since folded results won't follow further weight updates.<br>
+ * Random ops and in-place ops are never folded, and ops that fail to execute at this point are left as is.
+ */
+@Slf4j
+public class ConstantFolding implements OptimizationPass {
+    private static final String RANDOM_OPS_PACKAGE = "org.nd4j.linalg.api.ops.random.";
+
+    private final boolean foldVariables;
+
+    /**
+     * @param foldVariables if true, variables (weights) are treated as constants
+     */
+    public ConstantFolding(boolean foldVariables) {
+        this.foldVariables = foldVariables;
+    }
+
+    /**
+     * @return number of folded ops
+     */
+    @Override
+    public int optimize(SameDiff sameDiff, Set<String> outputs) {
+        if (sameDiff.getImportedConstants() == null)
+            sameDiff.setImportedConstants(new LinkedHashSet<String>());
+
+        Set<String> constants = new HashSet<>(sameDiff.getImportedConstants());
+        if (foldVariables) {
+            for (SDVariable variable : sameDiff.variables()) {
+                String name = variable.getVarName();
+                if (!sameDiff.isPlaceHolder(name) && !GraphOptimizer.isOpOutput(sameDiff, name) && sameDiff.getArrForVarName(name) != null)
+                    constants.add(name);
+            }
+        }
+
+        int folded = 0;
+        // functions are stored in execution order, so chains of constant ops are folded within a single pass
+        for (DifferentialFunction function : sameDiff.functions()) {
+            if (!isFoldable(sameDiff, function, constants))
+                continue;
+
+            String[] results = sameDiff.getOutputsForFunction(function);
+            INDArray[] arrays;
+            try {
+                arrays = execute(sameDiff, function);
+            } catch (Exception e) {
+                log.debug("Unable to fold op [{}]: {}", function.getOwnName(), e.getMessage());
+                continue;
+            }
+
+            if (arrays == null || arrays.length != results.length)
+                continue;
+
+            sameDiff.removeFunction(function);
+            for (int i = 0; i < results.length; i++) {
+                sameDiff.putOrUpdateArrayForVarName(results[i], arrays[i]);
+                sameDiff.getImportedConstants().add(results[i]);
+                constants.add(results[i]);
+            }
+
+            folded++;
+        }
+
+        return folded;
+    }
+
+    protected boolean isFoldable(SameDiff sameDiff, DifferentialFunction function, Set<String> constants) {
+        if (function instanceof RandomOp || function.getClass().getName().startsWith(RANDOM_OPS_PACKAGE)
+                        || function instanceof LegacyDropOut || function instanceof LegacyDropOutInverted)
+            return false;
+
+        if (function instanceof DynamicCustomOp) {
+            if (((DynamicCustomOp) function).isInplaceCall())
+                return false;
+        } else if (function instanceof BaseOp) {
+            // reductions and broadcasts along dimensions are left to the regular execution
+            if (function instanceof Accumulation || function instanceof IndexAccumulation
+                            || function.getDimensions() != null || ((BaseOp) function).isExecSpecial())
+                return false;
+        } else {
+            return false;
+        }
+
+        String[] results = sameDiff.getOutputsForFunction(function);
+        if (results == null || results.length == 0 || !sameDiff.hasArgs(function))
+            return false;
+
+        for (String input : sameDiff.getInputsForFunction(function)) {
+            if (!constants.contains(input) || sameDiff.getArrForVarName(input) == null)
+                return false;
+        }
+
+        return true;
+    }
+
+    protected INDArray[] execute(SameDiff sameDiff, DifferentialFunction function) {
+        if (function instanceof DynamicCustomOp) {
+            DynamicCustomOp op = (DynamicCustomOp) function;
+            op.populateInputsAndOutputsFromSameDiff();
+            op.assertValidForExecution();
+            Nd4j.getExecutioner().exec(op);
+            return op.outputArguments();
+        }
+
+        BaseOp op = (BaseOp) function;
+        SDVariable[] inputs = sameDiff.getInputVariablesForFunction(function);
+        if (inputs.length > 2)
+            return null;
+
+        op.setX(inputs[0].getArr());
+        if (inputs.length == 2)
+            op.setY(inputs[1].getArr());
+
+        List<long[]> shapes = op.calculateOutputShape();
+        if (shapes == null || shapes.size() != 1)
+            return null;
+
+        // results must not share memory with inputs or with the array the op had before
+        op.setZ(Nd4j.create(shapes.get(0)));
+        Nd4j.getExecutioner().exec(op);
+        return new INDArray[] {op.z()};
+    }
+}
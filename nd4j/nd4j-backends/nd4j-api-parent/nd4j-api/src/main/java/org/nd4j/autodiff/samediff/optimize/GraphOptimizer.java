@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.autodiff.samediff.optimize;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.autodiff.functions.DifferentialFunction;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.base.Preconditions;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ops.impl.controlflow.If;
+import org.nd4j.linalg.api.ops.impl.controlflow.While;
+import org.nd4j.linalg.api.ops.impl.controlflow.compat.BaseCompatOp;
+import org.nd4j.linalg.api.ops.impl.shape.tensorops.BaseTensorOp;
+import org.nd4j.linalg.api.ops.impl.transforms.gradient.GradientBackwardsMarker;
+import org.nd4j.linalg.api.ops.impl.transforms.temp.ExternalErrorsFunction;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.*;
+
+/**
+ * Optimizer pipeline for {@link SameDiff} graphs, meant to be applied once before inference.<br>
+ * Graph is modified in place: ops that aren't required for the requested outputs are removed, identity ops are
+ * bypassed, ops with constant inputs are precomputed, and some op sequences are fused into a single native op.<br>
+ * <br>
+ * PLEASE NOTE: optimized graph can only be used to compute the requested outputs, and can't be used for training.
+ * Graphs with control flow (If/While, TF loops) or TensorArray ops are left as is.
+ */
+@Slf4j
+public class GraphOptimizer {
+    private final List<OptimizationPass> passes;
+
+    public GraphOptimizer(@NonNull OptimizationPass... passes) {
+        this.passes = Arrays.asList(passes);
+    }
+
+    /**
+     * Default pipeline: dead node pruning, identity elimination, constant folding over constants, linear layer fusion,
+     * and one more pruning round to remove constants that aren't used anymore
+     */
+    public static GraphOptimizer defaultOptimizer() {
+        return new GraphOptimizer(new PruneUnusedNodes(), new IdentityElimination(), new ConstantFolding(false),
+                        new LinearLayerFusion(), new PruneUnusedNodes());
+    }
+
+    /**
+     * Optimizes given graph in place, for the given outputs
+     *
+     * @param sameDiff graph to optimize
+     * @param outputs  names of variables that will be requested from the optimized graph
+     * @return total number of rewrites done
+     */
+    public int optimize(@NonNull SameDiff sameDiff, @NonNull String... outputs) {
+        Preconditions.checkArgument(outputs.length > 0, "At least one output variable must be specified");
+        for (String output : outputs)
+            Preconditions.checkArgument(sameDiff.getVariable(output) != null, "No variable found for output \"%s\"", output);
+
+        if (!isSupported(sameDiff)) {
+            log.info("Graph contains control flow, TensorArray or gradient ops, skipping optimization");
+            return 0;
+        }
+
+        Set<String> outputSet = new HashSet<>(Arrays.asList(outputs));
+        int numOpsBefore = sameDiff.functions().length;
+        int total = 0;
+
+        // folded constants must outlive any workspace that might be open at this point
+        try (MemoryWorkspace ws = Nd4j.getMemoryManager().scopeOutOfWorkspaces()) {
+            for (OptimizationPass pass : passes) {
+                int rewrites = pass.optimize(sameDiff, outputSet);
+                log.debug("{}: {} rewrites", pass.getClass().getSimpleName(), rewrites);
+                total += rewrites;
+            }
+        }
+
+        log.info("Graph optimized: {} rewrites, number of ops: {} -> {}", total, numOpsBefore, sameDiff.functions().length);
+        return total;
+    }
+
+    /**
+     * @return true if all ops of the given graph can be handled by optimization passes
+     */
+    public static boolean isSupported(@NonNull SameDiff sameDiff) {
+        for (DifferentialFunction function : sameDiff.functions()) {
+            if (function instanceof BaseCompatOp || function instanceof If || function instanceof While
+                            || function instanceof BaseTensorOp || function instanceof GradientBackwardsMarker
+                            || function instanceof ExternalErrorsFunction)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return true if variable is produced by some op, false for placeholders, variables and constants
+     */
+    protected static boolean isOpOutput(SameDiff sameDiff, String varName) {
+        return sameDiff.getVariableOutputFunction(varName) != null;
+    }
+
+    /**
+     * @return ops that use given variable as input, never null
+     */
+    protected static List<DifferentialFunction> consumersOf(SameDiff sameDiff, String varName) {
+        List<DifferentialFunction> list = sameDiff.getVariableArgOfFunctions(varName);
+        return list == null ? Collections.<DifferentialFunction>emptyList() : new ArrayList<>(list);
+    }
+
+    /**
+     * @return unique function name for the given base name
+     */
+    protected static String newFunctionName(SameDiff sameDiff, String baseName) {
+        String name = baseName;
+        int cnt = 0;
+        while (sameDiff.functionExists(name) || sameDiff.getVariable(name) != null)
+            name = baseName + "_" + (++cnt);
+
+        return name;
+    }
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.autodiff.samediff.optimize;
+
+import org.nd4j.autodiff.functions.DifferentialFunction;
+import org.nd4j.autodiff.samediff.SameDiff;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Identity and no-op elimination: ops that just pass their single input through (identity, noop, stop_gradient) are
+ * removed, and their consumers are rewired to use the original input instead.<br>
+ * Identity ops that produce one of the requested outputs are kept.
+ */
+public class IdentityElimination implements OptimizationPass {
+    protected static final Set<String> IDENTITY_OPS = new HashSet<>(Arrays.asList("identity", "old_identity", "noop", "stop_gradient"));
+
+    /**
+     * @return number of removed ops
+     */
+    @Override
+    public int optimize(SameDiff sameDiff, Set<String> outputs) {
+        int removed = 0;
+        for (DifferentialFunction function : sameDiff.functions()) {
+            if (!IDENTITY_OPS.contains(function.opName()) || !sameDiff.hasArgs(function))
+                continue;
+
+            String[] inputs = sameDiff.getInputsForFunction(function);
+            String[] results = sameDiff.getOutputsForFunction(function);
+            if (inputs.length != 1 || results == null || results.length != 1 || outputs.contains(results[0]))
+                continue;
+
+            for (DifferentialFunction consumer : GraphOptimizer.consumersOf(sameDiff, results[0]))
+                sameDiff.replaceArgForFunction(results[0], inputs[0], consumer);
+
+            sameDiff.removeFunction(function);
+            sameDiff.removeVariable(results[0]);
+            removed++;
+        }
+
+        return removed;
+    }
+}
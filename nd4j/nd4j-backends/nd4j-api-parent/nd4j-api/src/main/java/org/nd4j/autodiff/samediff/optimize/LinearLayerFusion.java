@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.autodiff.samediff.optimize;
+
+import org.nd4j.autodiff.functions.DifferentialFunction;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.accum.Mmul;
+import org.nd4j.linalg.api.ops.impl.broadcast.BiasAdd;
+import org.nd4j.linalg.api.ops.impl.transforms.RectifedLinear;
+import org.nd4j.linalg.api.ops.impl.transforms.ReluLayer;
+import org.nd4j.linalg.api.ops.impl.transforms.XwPlusB;
+import org.nd4j.linalg.api.ops.impl.transforms.arithmetic.AddOp;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Elementwise op fusion for dense layers: mmul(x, W) followed by bias addition is replaced with single xw_plus_b op,
+ * and xw_plus_b followed by relu is replaced with single relu_layer op. So typical dense layer is executed as one
+ * native call instead of three, without intermediate arrays.<br>
+ * <br>
+ * Fusion is applied only when it's known to be safe: W and b are variables or constants (not op outputs) of
+ * compatible shapes, x is 2d, mmul isn't transposed, and intermediate results aren't used anywhere else.
+ */
+public class LinearLayerFusion implements OptimizationPass {
+
+    /**
+     * @return number of fused op pairs
+     */
+    @Override
+    public int optimize(SameDiff sameDiff, Set<String> outputs) {
+        int fused = 0;
+        for (DifferentialFunction function : sameDiff.functions()) {
+            if (!(function instanceof Mmul) || !sameDiff.functionExists(function.getOwnName()))
+                continue;
+
+            Mmul mmul = (Mmul) function;
+            if (isTransposed(mmul))
+                continue;
+
+            String[] mmulInputs = sameDiff.getInputsForFunction(mmul);
+            String mmulOutput = singleIntermediateOutput(sameDiff, mmul, outputs);
+            if (mmulInputs.length != 2 || mmulOutput == null || !isMatrix(sameDiff, mmulInputs[0]))
+                continue;
+
+            DifferentialFunction add = singleConsumer(sameDiff, mmulOutput);
+            if (!(add instanceof AddOp || add instanceof BiasAdd))
+                continue;
+
+            String[] addInputs = sameDiff.getInputsForFunction(add);
+            if (addInputs.length != 2)
+                continue;
+
+            String bias;
+            if (addInputs[0].equals(mmulOutput) && !addInputs[1].equals(mmulOutput))
+                bias = addInputs[1];
+            else if (add instanceof AddOp && addInputs[1].equals(mmulOutput) && !addInputs[0].equals(mmulOutput))
+                bias = addInputs[0];
+            else
+                continue;
+
+            if (!isBiasCompatible(sameDiff, mmulInputs[1], bias))
+                continue;
+
+            String[] linearInputs = new String[] {mmulInputs[0], mmulInputs[1], bias};
+            XwPlusB xwPlusB = new XwPlusB();
+            xwPlusB.setOwnName(GraphOptimizer.newFunctionName(sameDiff, xwPlusB.opName()));
+            sameDiff.replaceFunction(add, xwPlusB, linearInputs);
+            sameDiff.removeFunction(mmul);
+            sameDiff.removeVariable(mmulOutput);
+            fused++;
+
+            String linearOutput = singleIntermediateOutput(sameDiff, xwPlusB, outputs);
+            if (linearOutput == null)
+                continue;
+
+            DifferentialFunction relu = singleConsumer(sameDiff, linearOutput);
+            if (!(relu instanceof RectifedLinear) || !isZeroCutoff((RectifedLinear) relu)
+                            || sameDiff.getInputsForFunction(relu).length != 1)
+                continue;
+
+            ReluLayer reluLayer = new ReluLayer();
+            reluLayer.setOwnName(GraphOptimizer.newFunctionName(sameDiff, reluLayer.opName()));
+            sameDiff.replaceFunction(relu, reluLayer, linearInputs);
+            sameDiff.removeFunction(xwPlusB);
+            sameDiff.removeVariable(linearOutput);
+            fused++;
+        }
+
+        return fused;
+    }
+
+    /**
+     * @return name of the single output of the function, or null if function has multiple outputs, or if output was requested
+     */
+    protected static String singleIntermediateOutput(SameDiff sameDiff, DifferentialFunction function, Set<String> outputs) {
+        String[] results = sameDiff.getOutputsForFunction(function);
+        if (results == null || results.length != 1 || outputs.contains(results[0]))
+            return null;
+
+        return results[0];
+    }
+
+    protected static DifferentialFunction singleConsumer(SameDiff sameDiff, String varName) {
+        List<DifferentialFunction> consumers = GraphOptimizer.consumersOf(sameDiff, varName);
+        return consumers.size() == 1 ? consumers.get(0) : null;
+    }
+
+    protected static boolean isMatrix(SameDiff sameDiff, String varName) {
+        long[] shape = sameDiff.getShapeForVarName(varName);
+        if (shape == null && sameDiff.isPlaceHolder(varName))
+            shape = sameDiff.getOriginalShapeForPlaceHolder(varName);
+
+        return shape != null && shape.length == 2;
+    }
+
+    protected static boolean isBiasCompatible(SameDiff sameDiff, String weights, String bias) {
+        if (GraphOptimizer.isOpOutput(sameDiff, weights) || GraphOptimizer.isOpOutput(sameDiff, bias)
+                        || sameDiff.isPlaceHolder(weights) || sameDiff.isPlaceHolder(bias))
+            return false;
+
+        INDArray w = sameDiff.getArrForVarName(weights);
+        INDArray b = sameDiff.getArrForVarName(bias);
+        return w != null && b != null && w.rank() == 2 && b.isVector() && b.length() == w.size(1);
+    }
+
+    protected static boolean isTransposed(Mmul mmul) {
+        for (long arg : mmul.iArgs())
+            if (arg != 0)
+                return true;
+
+        return false;
+    }
+
+    protected static boolean isZeroCutoff(RectifedLinear relu) {
+        Object[] extraArgs = relu.extraArgs();
+        return extraArgs == null || extraArgs.length == 0 || ((Number) extraArgs[0]).doubleValue() == 0.0;
+    }
+}
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.autodiff.samediff.optimize;
+
+import org.nd4j.autodiff.samediff.SameDiff;
+
+import java.util.Set;
+
+/**
+ * Single optimization pass over a {@link SameDiff} graph, used by {@link GraphOptimizer}.<br>
+ * Passes modify the graph in place, and must never change values of the requested output variables.
+ */
+public interface OptimizationPass {
+
+    /**
+     * Applies this pass to the graph
+     *
+     * @param sameDiff graph to optimize
+     * @param outputs  names of variables that will be requested from the graph. These variables must be kept as is
+     * @return number of rewrites done, 0 if graph wasn't changed
+     */
+    int optimize(SameDiff sameDiff, Set<String> outputs);
+}
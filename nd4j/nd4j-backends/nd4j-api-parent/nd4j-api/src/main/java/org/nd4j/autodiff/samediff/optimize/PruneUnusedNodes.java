@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.autodiff.samediff.optimize;
+
+import org.nd4j.autodiff.functions.DifferentialFunction;
+import org.nd4j.autodiff.samediff.SDVariable;
+import org.nd4j.autodiff.samediff.SameDiff;
+
+import java.util.*;
+
+/**
+ * Dead node pruning: removes all ops that aren't required to compute the requested outputs,
+ * and all variables (with their arrays) that aren't used by the remaining ops.<br>
+ * Placeholders are always kept, so the same placeholder map can be used for the pruned graph.
+ */
+public class PruneUnusedNodes implements OptimizationPass {
+
+    /**
+     * @return number of removed ops and variables
+     */
+    @Override
+    public int optimize(SameDiff sameDiff, Set<String> outputs) {
+        Set<String> requiredVars = new HashSet<>();
+        Set<DifferentialFunction> requiredOps = Collections.newSetFromMap(new IdentityHashMap<DifferentialFunction, Boolean>());
+
+        Deque<String> queue = new ArrayDeque<>(outputs);
+        while (!queue.isEmpty()) {
+            String varName = queue.pop();
+            if (!requiredVars.add(varName))
+                continue;
+
+            DifferentialFunction producer = sameDiff.getVariableOutputFunction(varName);
+            if (producer != null && requiredOps.add(producer) && sameDiff.hasArgs(producer))
+                Collections.addAll(queue, sameDiff.getInputsForFunction(producer));
+        }
+
+        int removed = 0;
+        for (DifferentialFunction function : sameDiff.functions()) {
+            if (!requiredOps.contains(function)) {
+                sameDiff.removeFunction(function);
+                removed++;
+            }
+        }
+
+        for (SDVariable variable : sameDiff.variables()) {
+            String name = variable.getVarName();
+            if (requiredVars.contains(name) || sameDiff.isPlaceHolder(name))
+                continue;
+
+            // secondary outputs of the required multi-output ops stay in place
+            if (sameDiff.getVariableOutputFunction(name) != null || sameDiff.getVariableArgOfFunctions(name) != null)
+                continue;
+
+            sameDiff.removeVariable(name);
+            removed++;
+        }
+
+        return removed;
+    }
+}
@@ -18,25 +18,45 @@ package org.nd4j.evaluation.classification;
 
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
-import lombok.Getter;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.*;
+
+/**
+ * Confusion matrix: counts of (actual, predicted) class pairs.<br>
+ * Counts are kept in primitive arrays, indexed by the position of each class in an internal key list (initialized
+ * from the provided classes; previously unseen classes are appended on first use). Up to {@link #DENSE_MAX_CLASSES}
+ * classes a dense [actual, predicted] int array is used; above that, counts are kept in a sparse open-addressing
+ * hash map, so memory scales with the number of non-zero entries rather than the square of the number of classes.<br>
+ * Row and column totals are maintained incrementally, so {@link #getActualTotal(Comparable)} and
+ * {@link #getPredictedTotal(Comparable)} are O(1), and merging via {@link #add(ConfusionMatrix)} is a single pass over
+ * the other matrix without any boxing.
+ */
 public class ConfusionMatrix<T extends Comparable<? super T>> implements Serializable {
-    @Getter
-    private volatile Map<T, Multiset<T>> matrix;
+
+    /**
+     * Maximum number of classes for which counts are stored in a dense array. 1024 classes = 4MB of int counts
+     */
+    public static final int DENSE_MAX_CLASSES = 1024;
+
     private List<T> classes;
+    private final Map<T, Integer> index = new HashMap<>();
+    private final List<T> keys = new ArrayList<>();
+    private int[] dense = new int[0];   //Row major [actual, predicted], with row stride of denseSize
+    private int denseSize;
+    private SparseCounts sparse;        //Non-null only when number of keys exceeds DENSE_MAX_CLASSES
+    private int[] actualTotals = new int[0];
+    private int[] predictedTotals = new int[0];
 
     /**
      * Creates an empty confusion Matrix
      */
     public ConfusionMatrix(List<T> classes) {
-        this.matrix = new ConcurrentHashMap<>();
         this.classes = classes;
+        if (classes != null) {
+            for (T c : classes)
+                indexOf(c, true);
+        }
     }
 
     public ConfusionMatrix() {
@@ -62,12 +82,38 @@ public class ConfusionMatrix<T extends Comparable<? super T>> implements Seriali
      * Increments the entry specified by actual and predicted by count.
      */
     public synchronized void add(T actual, T predicted, int count) {
-        if (matrix.containsKey(actual)) {
-            matrix.get(actual).add(predicted, count);
-        } else {
-            Multiset<T> counts = HashMultiset.create();
-            counts.add(predicted, count);
-            matrix.put(actual, counts);
+        if (count < 0)
+            throw new IllegalArgumentException("Count must be non-negative: got " + count);
+        int a = indexOf(actual, true);
+        int p = indexOf(predicted, true);
+        addAt(a, p, count);
+    }
+
+    /**
+     * Increments the entries for a batch of (actual, predicted) pairs, without boxing each entry.
+     * Values are class indices - i.e., positions in {@link #getClasses()} - and not class values
+     *
+     * @param actualIdx    Index of the actual class, for each example
+     * @param predictedIdx Index of the predicted class, for each example
+     */
+    public synchronized void add(int[] actualIdx, int[] predictedIdx) {
+        if (actualIdx.length != predictedIdx.length)
+            throw new IllegalArgumentException("Actual and predicted index arrays must have same length: got "
+                            + actualIdx.length + " vs. " + predictedIdx.length);
+
+        List<T> c = getClasses();
+        int nClasses = c.size();
+        int[] remap = new int[nClasses];
+        for (int i = 0; i < nClasses; i++)
+            remap[i] = indexOf(c.get(i), true);
+
+        for (int i = 0; i < actualIdx.length; i++) {
+            int a = actualIdx[i];
+            int p = predictedIdx[i];
+            if (a < 0 || a >= nClasses || p < 0 || p >= nClasses)
+                throw new IllegalArgumentException("Invalid class index at position " + i + ": actual=" + a
+                                + ", predicted=" + p + ", number of classes=" + nClasses);
+            addAt(remap[a], remap[p], 1);
         }
     }
 
@@ -75,11 +121,35 @@ public class ConfusionMatrix<T extends Comparable<? super T>> implements Seriali
      * Adds the entries from another confusion matrix to this one.
      */
     public synchronized void add(ConfusionMatrix<T> other) {
-        for (T actual : other.matrix.keySet()) {
-            Multiset<T> counts = other.matrix.get(actual);
-            for (T predicted : counts.elementSet()) {
-                int count = counts.count(predicted);
-                this.add(actual, predicted, count);
+        int n = other.keys.size();
+        final int[] remap = new int[n];
+        boolean identity = true;
+        for (int i = 0; i < n; i++) {
+            remap[i] = indexOf(other.keys.get(i), true);
+            identity &= remap[i] == i;
+        }
+
+        if (identity && sparse == null && other.sparse == null) {
+            //Same key layout, both dense: plain array sums
+            for (int a = 0; a < n; a++) {
+                int src = a * other.denseSize;
+                int dst = a * denseSize;
+                for (int p = 0; p < n; p++)
+                    dense[dst + p] += other.dense[src + p];
+                actualTotals[a] += other.actualTotals[a];
+                predictedTotals[a] += other.predictedTotals[a];
+            }
+        } else if (other.sparse != null) {
+            SparseCounts o = other.sparse;
+            for (int i = 0; i < o.keys.length; i++) {
+                if (o.keys[i] != SparseCounts.EMPTY)
+                    addAt(remap[SparseCounts.actual(o.keys[i])], remap[SparseCounts.predicted(o.keys[i])], o.values[i]);
+            }
+        } else {
+            for (int a = 0; a < n; a++) {
+                int offset = a * other.denseSize;
+                for (int p = 0; p < n; p++)
+                    addAt(remap[a], remap[p], other.dense[offset + p]);
             }
         }
     }
@@ -93,47 +163,219 @@ public class ConfusionMatrix<T extends Comparable<? super T>> implements Seriali
         return classes;
     }
 
+    /**
+     * Returns a snapshot of the confusion matrix contents, as a map from actual class to a multiset of predicted
+     * classes. Only non-zero entries are included. Changes to the returned map are not reflected in this matrix.
+     */
+    public synchronized Map<T, Multiset<T>> getMatrix() {
+        Map<T, Multiset<T>> out = new LinkedHashMap<>();
+        if (sparse != null) {
+            for (int i = 0; i < sparse.keys.length; i++) {
+                long key = sparse.keys[i];
+                if (key != SparseCounts.EMPTY && sparse.values[i] != 0)
+                    addTo(out, SparseCounts.actual(key), SparseCounts.predicted(key), sparse.values[i]);
+            }
+        } else {
+            int n = keys.size();
+            for (int a = 0; a < n; a++) {
+                int offset = a * denseSize;
+                for (int p = 0; p < n; p++) {
+                    if (dense[offset + p] != 0)
+                        addTo(out, a, p, dense[offset + p]);
+                }
+            }
+        }
+        return out;
+    }
+
+    private void addTo(Map<T, Multiset<T>> out, int a, int p, int count) {
+        T actual = keys.get(a);
+        Multiset<T> ms = out.get(actual);
+        if (ms == null) {
+            ms = HashMultiset.create();
+            out.put(actual, ms);
+        }
+        ms.add(keys.get(p), count);
+    }
+
     /**
      * Gives the count of the number of times the "predicted" class was predicted for the "actual"
      * class.
      */
     public synchronized int getCount(T actual, T predicted) {
-        if (!matrix.containsKey(actual)) {
+        int a = indexOf(actual, false);
+        int p = indexOf(predicted, false);
+        if (a < 0 || p < 0)
             return 0;
-        } else {
-            return matrix.get(actual).count(predicted);
-        }
+        return countAt(a, p);
     }
 
     /**
      * Computes the total number of times the class was predicted by the classifier.
      */
     public synchronized int getPredictedTotal(T predicted) {
-        int total = 0;
-        for (T actual : classes) {
-            total += getCount(actual, predicted);
-        }
-        return total;
+        int p = indexOf(predicted, false);
+        return p < 0 ? 0 : predictedTotals[p];
     }
 
     /**
      * Computes the total number of times the class actually appeared in the data.
      */
     public synchronized int getActualTotal(T actual) {
-        if (!matrix.containsKey(actual)) {
+        int a = indexOf(actual, false);
+        return a < 0 ? 0 : actualTotals[a];
+    }
+
+    private int indexOf(T key, boolean create) {
+        Integer idx = index.get(key);
+        if (idx != null)
+            return idx;
+        if (!create)
+            return -1;
+
+        int i = keys.size();
+        keys.add(key);
+        index.put(key, i);
+        ensureCapacity(i + 1);
+        return i;
+    }
+
+    private void ensureCapacity(int nKeys) {
+        if (actualTotals.length < nKeys) {
+            int newLength = Math.max(nKeys, 2 * actualTotals.length);
+            actualTotals = Arrays.copyOf(actualTotals, newLength);
+            predictedTotals = Arrays.copyOf(predictedTotals, newLength);
+        }
+
+        if (sparse != null || nKeys <= denseSize)
+            return;
+
+        if (nKeys > DENSE_MAX_CLASSES) {
+            //Switch to sparse storage; existing dense entries are moved across
+            SparseCounts s = new SparseCounts(Math.max(16, nKeys));
+            for (int a = 0; a < denseSize; a++) {
+                for (int p = 0; p < denseSize; p++) {
+                    int count = dense[a * denseSize + p];
+                    if (count != 0)
+                        s.add(SparseCounts.key(a, p), count);
+                }
+            }
+            sparse = s;
+            dense = null;
+            denseSize = 0;
+            return;
+        }
+
+        int newSize = Math.min(DENSE_MAX_CLASSES, Math.max(nKeys, 2 * denseSize));
+        int[] newDense = new int[newSize * newSize];
+        for (int a = 0; a < denseSize; a++)
+            System.arraycopy(dense, a * denseSize, newDense, a * newSize, denseSize);
+        dense = newDense;
+        denseSize = newSize;
+    }
+
+    private void addAt(int a, int p, int count) {
+        if (count == 0)
+            return;
+        if (sparse != null)
+            sparse.add(SparseCounts.key(a, p), count);
+        else
+            dense[a * denseSize + p] += count;
+        actualTotals[a] += count;
+        predictedTotals[p] += count;
+    }
+
+    private int countAt(int a, int p) {
+        if (sparse != null)
+            return sparse.get(SparseCounts.key(a, p));
+        return dense[a * denseSize + p];
+    }
+
+    /**
+     * Open addressing (linear probing) hash map from packed (actual, predicted) key indices to counts
+     */
+    private static class SparseCounts implements Serializable {
+        private static final long EMPTY = -1L;
+
+        private long[] keys;
+        private int[] values;
+        private int size;
+
+        private SparseCounts(int expected) {
+            int capacity = 16;
+            while (capacity < 2 * expected)
+                capacity <<= 1;
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            values = new int[capacity];
+        }
+
+        private static long key(int actual, int predicted) {
+            return ((long) actual << 32) | (predicted & 0xFFFFFFFFL);
+        }
+
+        private static int actual(long key) {
+            return (int) (key >>> 32);
+        }
+
+        private static int predicted(long key) {
+            return (int) key;
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        private void add(long key, int count) {
+            int mask = keys.length - 1;
+            int s = slot(key, mask);
+            while (keys[s] != EMPTY && keys[s] != key)
+                s = (s + 1) & mask;
+
+            if (keys[s] == EMPTY) {
+                keys[s] = key;
+                size++;
+            }
+            values[s] += count;
+
+            if (4 * size > 3 * keys.length)
+                rehash(2 * keys.length);
+        }
+
+        private int get(long key) {
+            int mask = keys.length - 1;
+            int s = slot(key, mask);
+            while (keys[s] != EMPTY) {
+                if (keys[s] == key)
+                    return values[s];
+                s = (s + 1) & mask;
+            }
             return 0;
-        } else {
-            int total = 0;
-            for (T elem : matrix.get(actual).elementSet()) {
-                total += matrix.get(actual).count(elem);
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            values = new int[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == EMPTY)
+                    continue;
+                int s = slot(oldKeys[i], mask);
+                while (keys[s] != EMPTY)
+                    s = (s + 1) & mask;
+                keys[s] = oldKeys[i];
+                values[s] = oldValues[i];
             }
-            return total;
         }
     }
 
     @Override
     public String toString() {
-        return matrix.toString();
+        return getMatrix().toString();
     }
 
     /**
@@ -247,13 +489,13 @@ public class ConfusionMatrix<T extends Comparable<? super T>> implements Seriali
         if (!(o instanceof ConfusionMatrix))
             return false;
         ConfusionMatrix<?> c = (ConfusionMatrix<?>) o;
-        return matrix.equals(c.matrix) && classes.equals(c.classes);
+        return getMatrix().equals(c.getMatrix()) && getClasses().equals(c.getClasses());
     }
 
     @Override
     public int hashCode() {
         int result = 17;
-        result = 31 * result + (matrix == null ? 0 : matrix.hashCode());
+        result = 31 * result + getMatrix().hashCode();
         result = 31 * result + (classes == null ? 0 : classes.hashCode());
         return result;
     }
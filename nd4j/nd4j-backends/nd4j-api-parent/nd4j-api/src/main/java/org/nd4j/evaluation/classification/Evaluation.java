@@ -26,10 +26,9 @@ import org.nd4j.evaluation.meta.Prediction;
 import org.nd4j.evaluation.serde.ConfusionMatrixDeserializer;
 import org.nd4j.evaluation.serde.ConfusionMatrixSerializer;
 import org.nd4j.linalg.api.ndarray.INDArray;
-import org.nd4j.linalg.api.ops.impl.accum.MatchCondition;
 import org.nd4j.linalg.api.ops.impl.transforms.Not;
+import org.nd4j.linalg.factory.Broadcast;
 import org.nd4j.linalg.factory.Nd4j;
-import org.nd4j.linalg.indexing.conditions.Conditions;
 import org.nd4j.linalg.lossfunctions.serde.RowVectorDeserializer;
 import org.nd4j.linalg.lossfunctions.serde.RowVectorSerializer;
 import org.nd4j.linalg.primitives.Counter;
@@ -444,77 +443,64 @@ public class Evaluation extends BaseEvaluation<Evaluation> {
                 //Standard case: argmax
                 guessIndex = Nd4j.argMax(guesses, 1);
             }
-            INDArray realOutcomeIndex = Nd4j.argMax(realOutcomes, 1);
-            val nExamples = guessIndex.length();
+            //Single pass over the argmax indices for the whole minibatch: primitive per-class counts, then O(nClasses)
+            // updates of the counters, instead of per-example (boxed) counter increments
+            int[] actual = Nd4j.argMax(realOutcomes, 1).toIntVector();
+            int[] predicted = guessIndex.toIntVector();
 
-            for (int i = 0; i < nExamples; i++) {
-                int actual = (int) realOutcomeIndex.getDouble(i);
-                int predicted = (int) guessIndex.getDouble(i);
+            if (nCols <= confusion().getClasses().size()) {
                 confusion().add(actual, predicted);
+            } else {
+                for (int i = 0; i < actual.length; i++)
+                    confusion().add(actual[i], predicted[i]);
+            }
+
+            long[] tp = new long[nCols];
+            long[] fp = new long[nCols];
+            long[] fn = new long[nCols];
+            for (int i = 0; i < actual.length; i++) {
+                if (actual[i] == predicted[i]) {
+                    tp[actual[i]]++;
+                } else {
+                    fp[predicted[i]]++;
+                    fn[actual[i]]++;
+                }
 
                 if (recordMetaData != null && recordMetaData.size() > i) {
                     Object m = recordMetaData.get(i);
-                    addToMetaConfusionMatrix(actual, predicted, m);
+                    addToMetaConfusionMatrix(actual[i], predicted[i], m);
                 }
+            }
 
-                // instead of looping through each label for confusion
-                // matrix, instead infer those values by determining if true/false negative/positive,
-                // then just add across matrix
-
-                // if actual == predicted, then it's a true positive, assign true negative to every other label
-                if (actual == predicted) {
-                    truePositives.incrementCount(actual, 1);
-                    for (int col = 0; col < nCols; col++) {
-                        if (col == actual) {
-                            continue;
-                        }
-                        trueNegatives.incrementCount(col, 1); // all cols prior
-                    }
-                } else {
-                    falsePositives.incrementCount(predicted, 1);
-                    falseNegatives.incrementCount(actual, 1);
-
-                    // first determine intervals for adding true negatives
-                    int lesserIndex, greaterIndex;
-                    if (actual < predicted) {
-                        lesserIndex = actual;
-                        greaterIndex = predicted;
-                    } else {
-                        lesserIndex = predicted;
-                        greaterIndex = actual;
-                    }
-
-                    // now loop through intervals
-                    for (int col = 0; col < lesserIndex; col++) {
-                        trueNegatives.incrementCount(col, 1); // all cols prior
-                    }
-                    for (int col = lesserIndex + 1; col < greaterIndex; col++) {
-                        trueNegatives.incrementCount(col, 1); // all cols after
-                    }
-                    for (int col = greaterIndex + 1; col < nCols; col++) {
-                        trueNegatives.incrementCount(col, 1); // all cols after
-                    }
-                }
+            // A class is a true negative for every example where it is neither the actual nor the predicted class
+            for (int col = 0; col < nCols; col++) {
+                long tn = actual.length - tp[col] - fp[col] - fn[col];
+                if (tp[col] > 0)
+                    truePositives.incrementCount(col, tp[col]);
+                if (fp[col] > 0)
+                    falsePositives.incrementCount(col, fp[col]);
+                if (fn[col] > 0)
+                    falseNegatives.incrementCount(col, fn[col]);
+                if (tn > 0)
+                    trueNegatives.incrementCount(col, tn);
             }
-        }
 
-        if (nCols > 1 && topN > 1) {
-            //Calculate top N accuracy
-            //TODO: this could be more efficient
-            INDArray realOutcomeIndex = Nd4j.argMax(realOutcomes, 1);
-            val nExamples = realOutcomeIndex.length();
-            for (int i = 0; i < nExamples; i++) {
-                int labelIdx = (int) realOutcomeIndex.getDouble(i);
-                double prob = guesses.getDouble(i, labelIdx);
-                INDArray row = guesses.getRow(i);
-                int countGreaterThan = (int) Nd4j.getExecutioner()
-                                .exec(new MatchCondition(row, Conditions.greaterThan(prob)), Integer.MAX_VALUE)
-                                .getDouble(0);
-                if (countGreaterThan < topN) {
-                    //For example, for top 3 accuracy: can have at most 2 other probabilities larger
-                    topNCorrectCount++;
+            if (topN > 1) {
+                //Calculate top N accuracy: count of probabilities strictly greater than the probability of the label
+                // class, for all examples at once. For example, for top 3 accuracy: can have at most 2 other
+                // probabilities larger
+                INDArray labelProb = Nd4j.create(actual.length, 1);
+                for (int i = 0; i < actual.length; i++) {
+                    labelProb.putScalar(i, 0, guesses.getDouble(i, actual[i]));
+                }
+                INDArray greaterThan = Broadcast.gt(guesses, labelProb, Nd4j.createUninitialized(guesses.shape(), guesses.ordering()), 0);
+                int[] countGreaterThan = greaterThan.sum(1).toIntVector();
+                for (int i = 0; i < countGreaterThan.length; i++) {
+                    if (countGreaterThan[i] < topN) {
+                        topNCorrectCount++;
+                    }
+                    topNTotalCount++;
                 }
-                topNTotalCount++;
             }
         }
     }
@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.evaluation.classification;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-memory, mergeable sketch of predicted probabilities for positive and negative examples, used by {@link ROC}
+ * (and hence {@link ROCBinary} and {@link ROCMultiClass}) in streaming mode.<br>
+ * Probabilities are assigned to logarithmically spaced bins, separately in each tail: probabilities p <= 0.5 are
+ * binned on log(p), and probabilities p > 0.5 on log(1-p). Consequently each bin covers a range of probabilities whose
+ * relative width (relative to min(p, 1-p)) is at most the configured relative error - i.e., resolution is finest
+ * where it matters most for skewed predictions, near 0 and near 1. Probabilities closer than {@link #MIN_PROBABILITY}
+ * to 0 or 1 share the outermost bins.<br>
+ * Bin boundaries depend only on the relative error, so merging two sketches is a simple addition of counts, and the
+ * result is independent of the order in which examples or sketches were added.<br>
+ * Memory use is bounded by {@link #maxBins()} bins (two longs each), regardless of the number of examples. For the
+ * default relative error of 1e-3 this is under 27,000 bins (~430kB) in the worst case; usually much less, as only the
+ * range of bins actually observed is allocated.<br>
+ * <br>
+ * Accuracy: examples in different bins are always ranked correctly with respect to each other, so the only source of
+ * AUC error is (positive, negative) pairs that fall in the same bin - see {@link #calculateAUCErrorBound()}.
+ * Precision/recall curve points are exact at bin boundaries.
+ */
+@Data
+@NoArgsConstructor
+public class ProbabilitySketch implements Serializable {
+    public static final double DEFAULT_RELATIVE_ERROR = 1e-3;
+    public static final double MIN_PROBABILITY = 1e-12;
+
+    private double relativeError;
+    private int offset;                         //Bin index of element 0 of the count arrays
+    private long[] positive = new long[0];
+    private long[] negative = new long[0];
+
+    /**
+     * @param relativeError Maximum relative width of each bin, with respect to min(p, 1-p). Must be in range (0, 1)
+     */
+    public ProbabilitySketch(double relativeError) {
+        if (!(relativeError > 0.0 && relativeError < 1.0))
+            throw new IllegalArgumentException("Relative error must be in range (0, 1), got " + relativeError);
+        this.relativeError = relativeError;
+    }
+
+    private double lnGamma() {
+        return Math.log((1.0 + relativeError) / (1.0 - relativeError));
+    }
+
+    /**
+     * Depth of the deepest (outermost) bin in each tail
+     */
+    private static int maxDepth(double lnGamma) {
+        return (int) Math.ceil(-Math.log(MIN_PROBABILITY) / lnGamma);
+    }
+
+    /**
+     * Depth of the bins adjacent to p = 0.5
+     */
+    private static int minDepth(double lnGamma) {
+        return (int) Math.ceil(Math.log(2.0) / lnGamma);
+    }
+
+    private static int depth(double x, double lnGamma, int maxDepth) {
+        if (x <= MIN_PROBABILITY)
+            return maxDepth;
+        return Math.min(maxDepth, (int) Math.ceil(-Math.log(x) / lnGamma));
+    }
+
+    /**
+     * @return Maximum number of bins this sketch can use, for its relative error
+     */
+    public int maxBins() {
+        double lnGamma = lnGamma();
+        return 2 * (maxDepth(lnGamma) - minDepth(lnGamma) + 1);
+    }
+
+    /**
+     * Add a set of examples to the sketch
+     *
+     * @param probabilities Predicted probability of the positive class, for each example
+     * @param labels        Labels: 0 for negative examples, non-zero for positive examples
+     */
+    public void add(double[] probabilities, double[] labels) {
+        if (probabilities.length != labels.length)
+            throw new IllegalArgumentException("Probabilities and labels must have same length: got "
+                            + probabilities.length + " vs. " + labels.length);
+        if (probabilities.length == 0)
+            return;
+
+        double lnGamma = lnGamma();
+        int maxDepth = maxDepth(lnGamma);
+        int minDepth = minDepth(lnGamma);
+        int lowBins = maxDepth - minDepth + 1;
+
+        int[] idx = new int[probabilities.length];
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < probabilities.length; i++) {
+            double p = probabilities[i];
+            if (Double.isNaN(p))
+                throw new IllegalArgumentException("Cannot add NaN probability to sketch (example " + i + ")");
+
+            int b;
+            if (p <= 0.5) {
+                b = maxDepth - depth(p, lnGamma, maxDepth);
+            } else {
+                b = lowBins + depth(1.0 - p, lnGamma, maxDepth) - minDepth;
+            }
+            idx[i] = b;
+            min = Math.min(min, b);
+            max = Math.max(max, b);
+        }
+
+        ensureRange(min, max);
+        for (int i = 0; i < idx.length; i++) {
+            if (labels[i] != 0.0) {
+                positive[idx[i] - offset]++;
+            } else {
+                negative[idx[i] - offset]++;
+            }
+        }
+    }
+
+    /**
+     * Merge the other sketch into this one. Both sketches must have the same relative error
+     *
+     * @param other Sketch to merge into this one
+     */
+    public void merge(ProbabilitySketch other) {
+        if (relativeError != other.relativeError)
+            throw new IllegalArgumentException("Cannot merge sketches with different relative errors ("
+                            + relativeError + " vs. " + other.relativeError + ")");
+        if (other.positive.length == 0)
+            return;
+
+        ensureRange(other.offset, other.offset + other.positive.length - 1);
+        int shift = other.offset - offset;
+        for (int i = 0; i < other.positive.length; i++) {
+            positive[shift + i] += other.positive[i];
+            negative[shift + i] += other.negative[i];
+        }
+    }
+
+    private void ensureRange(int min, int max) {
+        if (positive.length == 0) {
+            offset = min;
+            positive = new long[max - min + 1];
+            negative = new long[max - min + 1];
+            return;
+        }
+
+        int currMax = offset + positive.length - 1;
+        int newMin = Math.min(min, offset);
+        int newMax = Math.max(max, currMax);
+        if (newMin == offset && newMax == currMax)
+            return;
+
+        long[] newPositive = new long[newMax - newMin + 1];
+        long[] newNegative = new long[newMax - newMin + 1];
+        System.arraycopy(positive, 0, newPositive, offset - newMin, positive.length);
+        System.arraycopy(negative, 0, newNegative, offset - newMin, negative.length);
+        positive = newPositive;
+        negative = newNegative;
+        offset = newMin;
+    }
+
+    /**
+     * Lower boundary (in probability space) of the specified bin
+     */
+    private double lowerEdge(int bin, double lnGamma, int maxDepth, int minDepth) {
+        int lowBins = maxDepth - minDepth + 1;
+        if (bin == 0) {
+            return 0.0;
+        } else if (bin < lowBins) {
+            return Math.exp(-(maxDepth - bin) * lnGamma);
+        } else {
+            int d = bin - lowBins + minDepth;
+            return Math.max(0.5, 1.0 - Math.exp(-(d - 1) * lnGamma));
+        }
+    }
+
+    /**
+     * Get the true positive and false positive counts at each bin boundary, in order of increasing threshold. Examples
+     * are predicted positive at a threshold if their bin lies at or above that threshold. The first entry has a
+     * threshold of 0.0 (all examples predicted positive), and the last entry a threshold of 1.0 (no examples predicted
+     * positive). Only boundaries of non-empty bins are included, as other boundaries don't change the counts.
+     *
+     * @return Counts for each threshold
+     */
+    public List<ROC.CountsForThreshold> getThresholdCounts() {
+        double lnGamma = lnGamma();
+        int maxDepth = maxDepth(lnGamma);
+        int minDepth = minDepth(lnGamma);
+
+        long tp = 0;
+        long fp = 0;
+        for (int i = 0; i < positive.length; i++) {
+            tp += positive[i];
+            fp += negative[i];
+        }
+
+        List<ROC.CountsForThreshold> out = new ArrayList<>();
+        for (int i = 0; i < positive.length; i++) {
+            if (positive[i] == 0 && negative[i] == 0)
+                continue;
+            double threshold = out.isEmpty() ? 0.0 : lowerEdge(offset + i, lnGamma, maxDepth, minDepth);
+            out.add(new ROC.CountsForThreshold(threshold, tp, fp));
+            tp -= positive[i];
+            fp -= negative[i];
+        }
+        out.add(new ROC.CountsForThreshold(1.0, 0, 0));
+        return out;
+    }
+
+    /**
+     * Upper bound on the absolute difference between the AUC calculated from this sketch and the exact AUC for the
+     * same data. Pairs of (positive, negative) examples in different bins are ranked correctly; pairs in the same bin
+     * are counted as ties (0.5), whereas the exact calculation might count them as 0 or 1.
+     *
+     * @return AUC error bound, in range [0, 0.5]. NaN if no positive or no negative examples have been added
+     */
+    public double calculateAUCErrorBound() {
+        double countPos = 0;
+        double countNeg = 0;
+        double sameBinPairs = 0;
+        for (int i = 0; i < positive.length; i++) {
+            countPos += positive[i];
+            countNeg += negative[i];
+            sameBinPairs += positive[i] * (double) negative[i];
+        }
+        if (countPos == 0 || countNeg == 0)
+            return Double.NaN;
+        return 0.5 * sameBinPairs / (countPos * countNeg);
+    }
+
+    /**
+     * Reset the sketch to its initial (empty) state
+     */
+    public void reset() {
+        offset = 0;
+        positive = new long[0];
+        negative = new long[0];
+    }
+}
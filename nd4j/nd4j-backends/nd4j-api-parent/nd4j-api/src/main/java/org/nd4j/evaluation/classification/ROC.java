@@ -38,6 +38,7 @@ import org.nd4j.shade.jackson.databind.annotation.JsonSerialize;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -46,9 +47,10 @@ import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
 
 /**
  * ROC (Receiver Operating Characteristic) for binary classifiers.<br>
- * ROC has 2 modes of operation:
+ * ROC has 3 modes of operation:
  * (a) Thresholded (less memory)<br>
- * (b) Exact (default; use numSteps == 0 to set. May not scale to very large datasets)
+ * (b) Exact (default; use numSteps == 0 to set. May not scale to very large datasets)<br>
+ * (c) Streaming (fixed memory, mergeable; use {@link #ROC(double, boolean)} to set)
  *
  * <p>
  * Thresholded Is an approximate method, that (for large datasets) may use significantly less memory than exact..
@@ -59,6 +61,11 @@ import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
  * Note that in some cases (very skewed probability predictions, for example) the threshold approach can be inaccurate,
  * often underestimating the true area.
  * <p>
+ * Streaming mode keeps counts of positive and negative examples in logarithmically spaced probability bins (see
+ * {@link ProbabilitySketch}): memory is fixed regardless of the number of examples, instances can be merged exactly
+ * (as with thresholded mode), and resolution is much finer than thresholded mode close to 0 and 1. The AUC error due
+ * to binning is bounded, and can be obtained via {@link #calculateAUCErrorBound()}.
+ * <p>
  * The data is assumed to be binary classification - nColumns == 1 (single binary output variable) or nColumns == 2
  * (probability distribution over 2 classes, with column 1 being values for 'positive' examples)
  *
@@ -89,6 +96,7 @@ public class ROC extends BaseEvaluation<ROC> {
     private int exampleCount = 0;
     private boolean rocRemoveRedundantPts;
     private int exactAllocBlockSize;
+    private ProbabilitySketch sketch;
 
     public ROC() {
         //Default to exact
@@ -138,6 +146,28 @@ public class ROC extends BaseEvaluation<ROC> {
         this.exactAllocBlockSize = exactAllocBlockSize;
     }
 
+    /**
+     * Create a ROC instance in streaming mode: memory use is fixed, and determined by the relative error only.
+     * See {@link ProbabilitySketch} for details.
+     *
+     * @param streamingRelativeError Relative resolution of the probability bins (with respect to min(p, 1-p)), in
+     *                               range (0, 1). For example, {@link ProbabilitySketch#DEFAULT_RELATIVE_ERROR}
+     * @param rocRemoveRedundantPts  Usually set to true. If true,  remove any redundant points from ROC and P-R curves
+     */
+    public ROC(double streamingRelativeError, boolean rocRemoveRedundantPts) {
+        this.sketch = new ProbabilitySketch(streamingRelativeError);
+        this.isExact = false;
+        this.rocRemoveRedundantPts = rocRemoveRedundantPts;
+        this.exactAllocBlockSize = DEFAULT_EXACT_ALLOC_BLOCK_SIZE;
+    }
+
+    /**
+     * @return True if this ROC instance is in streaming mode
+     */
+    public boolean isStreaming() {
+        return sketch != null;
+    }
+
     protected INDArray getProbAndLabelUsed() {
         if (probAndLabel == null || exampleCount == 0) {
             return null;
@@ -169,6 +199,8 @@ public class ROC extends BaseEvaluation<ROC> {
 
         if (isExact) {
             probAndLabel = null;
+        } else if (sketch != null) {
+            sketch.reset();
         } else {
             double step = 1.0 / thresholdSteps;
             for (int i = 0; i <= thresholdSteps; i++) {
@@ -187,7 +219,11 @@ public class ROC extends BaseEvaluation<ROC> {
         StringBuilder sb = new StringBuilder();
         sb.append("AUC (Area under ROC Curve):                ").append(calculateAUC()).append("\n");
         sb.append("AUPRC (Area under Precision/Recall Curve): ").append(calculateAUCPR());
-        if(!isExact){
+        if (sketch != null) {
+            sb.append("\n");
+            sb.append("[Note: Streaming AUC/AUPRC calculation used with relative error ").append(sketch.getRelativeError())
+                    .append("; AUC error bound: ").append(calculateAUCErrorBound()).append("]");
+        } else if(!isExact){
             sb.append("\n");
             sb.append("[Note: Thresholded AUC/AUPRC calculation used with ").append(thresholdSteps)
                     .append(" steps); accuracy may reduced compared to exact mode]");
@@ -258,6 +294,27 @@ public class ROC extends BaseEvaluation<ROC> {
             int countClass1CurrMinibatch = labelClass1.sumNumber().intValue();
             countActualPositive += countClass1CurrMinibatch;
             countActualNegative += labels.size(0) - countClass1CurrMinibatch;
+        } else if (sketch != null) {
+            //Streaming approach: add to the (fixed size) sketch
+            INDArray probClass1;
+            INDArray labelClass1;
+            if (singleOutput) {
+                probClass1 = predictions;
+                labelClass1 = labels;
+            } else {
+                probClass1 = predictions.getColumn(1);
+                labelClass1 = labels.getColumn(1);
+            }
+            double[] l = labelClass1.toDoubleVector();
+            sketch.add(probClass1.toDoubleVector(), l);
+
+            int countClass1CurrMinibatch = 0;
+            for (double d : l) {
+                if (d != 0.0)
+                    countClass1CurrMinibatch++;
+            }
+            countActualPositive += countClass1CurrMinibatch;
+            countActualNegative += l.length - countClass1CurrMinibatch;
         } else {
             //Thresholded approach
             INDArray positivePredictedClassColumn;
@@ -444,17 +501,17 @@ public class ROC extends BaseEvaluation<ROC> {
                 fnCountOut = temp2[2];
             }
         } else {
-            thresholdOut = new double[counts.size()];
-            precisionOut = new double[counts.size()];
-            recallOut = new double[counts.size()];
-            tpCountOut = new int[counts.size()];
-            fpCountOut = new int[counts.size()];
-            fnCountOut = new int[counts.size()];
+            Collection<CountsForThreshold> thresholdCounts =
+                            sketch != null ? sketch.getThresholdCounts() : counts.values();
+            thresholdOut = new double[thresholdCounts.size()];
+            precisionOut = new double[thresholdCounts.size()];
+            recallOut = new double[thresholdCounts.size()];
+            tpCountOut = new int[thresholdCounts.size()];
+            fpCountOut = new int[thresholdCounts.size()];
+            fnCountOut = new int[thresholdCounts.size()];
 
             int i = 0;
-            for (Map.Entry<Double, CountsForThreshold> entry : counts.entrySet()) {
-                double t = entry.getKey();
-                CountsForThreshold c = entry.getValue();
+            for (CountsForThreshold c : thresholdCounts) {
                 long tpCount = c.getCountTruePositive();
                 long fpCount = c.getCountFalsePositive();
                 //For edge cases: http://stats.stackexchange.com/questions/1773/what-are-correct-values-for-precision-and-recall-in-edge-cases
@@ -484,6 +541,19 @@ public class ROC extends BaseEvaluation<ROC> {
                 fnCountOut[i] = (int) (countActualPositive - tpCount);
                 i++;
             }
+
+            if (sketch != null && rocRemoveRedundantPts) {
+                Pair<double[][], int[][]> pair = removeRedundant(thresholdOut, precisionOut, recallOut, tpCountOut,
+                                fpCountOut, fnCountOut);
+                double[][] temp = pair.getFirst();
+                int[][] temp2 = pair.getSecond();
+                thresholdOut = temp[0];
+                precisionOut = temp[1];
+                recallOut = temp[2];
+                tpCountOut = temp2[0];
+                fpCountOut = temp2[1];
+                fnCountOut = temp2[2];
+            }
         }
 
         prCurve = new PrecisionRecallCurve(thresholdOut, precisionOut, recallOut, tpCountOut, fpCountOut, fnCountOut,
@@ -551,11 +621,11 @@ public class ROC extends BaseEvaluation<ROC> {
 
             return rocCurve;
         } else {
-
-            double[][] out = new double[3][thresholdSteps + 1];
+            Collection<CountsForThreshold> thresholdCounts =
+                            sketch != null ? sketch.getThresholdCounts() : counts.values();
+            double[][] out = new double[3][thresholdCounts.size()];
             int i = 0;
-            for (Map.Entry<Double, CountsForThreshold> entry : counts.entrySet()) {
-                CountsForThreshold c = entry.getValue();
+            for (CountsForThreshold c : thresholdCounts) {
                 double tpr = c.getCountTruePositive() / ((double) countActualPositive);
                 double fpr = c.getCountFalsePositive() / ((double) countActualNegative);
 
@@ -564,6 +634,14 @@ public class ROC extends BaseEvaluation<ROC> {
                 out[2][i] = tpr;
                 i++;
             }
+
+            if (sketch != null) {
+                if (rocRemoveRedundantPts) {
+                    out = removeRedundant(out[0], out[1], out[2], null, null, null).getFirst();
+                }
+                rocCurve = new RocCurve(out[0], out[1], out[2]);
+                return rocCurve;
+            }
             return new RocCurve(out[0], out[1], out[2]);
         }
     }
@@ -642,6 +720,22 @@ public class ROC extends BaseEvaluation<ROC> {
         return auc;
     }
 
+    /**
+     * Upper bound on the error of {@link #calculateAUC()} relative to the exact AUC, for streaming mode.
+     * See {@link ProbabilitySketch#calculateAUCErrorBound()}
+     *
+     * @return AUC error bound for streaming mode; 0.0 for exact mode; NaN for thresholded mode (unknown)
+     */
+    public double calculateAUCErrorBound() {
+        if (isExact) {
+            return 0.0;
+        }
+        if (sketch == null) {
+            return Double.NaN;
+        }
+        return sketch.calculateAUCErrorBound();
+    }
+
     /**
      * Calculate the area under the precision/recall curve - aka AUCPR
      *
@@ -673,6 +767,11 @@ public class ROC extends BaseEvaluation<ROC> {
                             "Cannot merge ROC instances with different numbers of threshold steps ("
                                             + this.thresholdSteps + " vs. " + other.thresholdSteps + ")");
         }
+        if (this.isExact != other.isExact || (this.sketch == null) != (other.sketch == null)) {
+            throw new UnsupportedOperationException("Cannot merge ROC instances with different modes (exact: "
+                            + this.isExact + " vs. " + other.isExact + ", streaming: " + isStreaming() + " vs. "
+                            + other.isStreaming() + ")");
+        }
         this.countActualPositive += other.countActualPositive;
         this.countActualNegative += other.countActualNegative;
         this.auc = null;
@@ -704,6 +803,8 @@ public class ROC extends BaseEvaluation<ROC> {
             probAndLabel.put(new INDArrayIndex[] {
                             interval(exampleCount, exampleCount + other.exampleCount), all()},
                             toPut);
+        } else if (sketch != null) {
+            sketch.merge(other.sketch);
         } else {
             for (Double d : this.counts.keySet()) {
                 CountsForThreshold cft = this.counts.get(d);
@@ -32,7 +32,7 @@ import java.util.List;
 
 /**
  * ROC (Receiver Operating Characteristic) for multi-task binary classifiers.
- * As per {@link ROC}, ROCBinary supports both exact (thersholdSteps == 0) and thresholded; see {@link ROC} for details.
+ * As per {@link ROC}, ROCBinary supports exact (thersholdSteps == 0), thresholded and streaming modes; see {@link ROC} for details.
  * <p>
  * Unlike {@link ROC} (which supports a single binary label (as a single column probability, or 2 column 'softmax' probability
  * distribution), ROCBinary assumes that all outputs are independent binary variables. This also differs from
@@ -51,6 +51,7 @@ public class ROCBinary extends BaseEvaluation<ROCBinary> {
 
     private int thresholdSteps;
     private boolean rocRemoveRedundantPts;
+    private double streamingRelativeError;
     private List<String> labels;
 
     public ROCBinary() {
@@ -73,6 +74,21 @@ public class ROCBinary extends BaseEvaluation<ROCBinary> {
         this.rocRemoveRedundantPts = rocRemoveRedundantPts;
     }
 
+    /**
+     * Create an instance in streaming mode: each underlying ROC uses fixed memory, determined by the relative error only.
+     * See {@link ROC#ROC(double, boolean)} and {@link ProbabilitySketch} for details.
+     *
+     * @param streamingRelativeError Relative resolution of the probability bins, in range (0, 1). For example,
+     *                               {@link ProbabilitySketch#DEFAULT_RELATIVE_ERROR}
+     * @param rocRemoveRedundantPts  Usually set to true. If true,  remove any redundant points from ROC and P-R curves
+     */
+    public ROCBinary(double streamingRelativeError, boolean rocRemoveRedundantPts) {
+        if (!(streamingRelativeError > 0.0 && streamingRelativeError < 1.0))
+            throw new IllegalArgumentException("Relative error must be in range (0, 1), got " + streamingRelativeError);
+        this.streamingRelativeError = streamingRelativeError;
+        this.rocRemoveRedundantPts = rocRemoveRedundantPts;
+    }
+
 
     @Override
     public void reset() {
@@ -101,7 +117,8 @@ public class ROCBinary extends BaseEvaluation<ROCBinary> {
         if (underlying == null) {
             underlying = new ROC[n];
             for (int i = 0; i < n; i++) {
-                underlying[i] = new ROC(thresholdSteps, rocRemoveRedundantPts);
+                underlying[i] = streamingRelativeError > 0.0 ? new ROC(streamingRelativeError, rocRemoveRedundantPts)
+                                : new ROC(thresholdSteps, rocRemoveRedundantPts);
             }
         }
 
@@ -326,7 +343,11 @@ public class ROCBinary extends BaseEvaluation<ROCBinary> {
                                 getCountActualNegative(i)));
             }
 
-            if(thresholdSteps > 0){
+            if (streamingRelativeError > 0.0) {
+                sb.append("\n");
+                sb.append("[Note: Streaming AUC/AUPRC calculation used with relative error ").append(streamingRelativeError)
+                        .append("; see ROC.calculateAUCErrorBound() for per-output AUC error bounds]");
+            } else if(thresholdSteps > 0){
                 sb.append("\n");
                 sb.append("[Note: Thresholded AUC/AUPRC calculation used with ").append(thresholdSteps)
                         .append(" steps); accuracy may reduced compared to exact mode]");
@@ -30,7 +30,7 @@ import java.util.List;
 
 /**
  * ROC (Receiver Operating Characteristic) for multi-class classifiers.
-  As per {@link ROC}, ROCBinary supports both exact (thersholdSteps == 0) and thresholded; see {@link ROC} for details.
+  As per {@link ROC}, ROCMultiClass supports exact (thersholdSteps == 0), thresholded and streaming modes; see {@link ROC} for details.
  * <p>
  * The ROC curves are produced by treating the predictions as a set of one-vs-all classifiers, and then calculating
  * ROC curves for each. In practice, this means for N classes, we get N ROC curves.
@@ -44,6 +44,7 @@ public class ROCMultiClass extends BaseEvaluation<ROCMultiClass> {
 
     private int thresholdSteps;
     private boolean rocRemoveRedundantPts;
+    private double streamingRelativeError;
     @JsonSerialize(using = ROCArraySerializer.class)
     private ROC[] underlying;
     private List<String> labels;
@@ -69,6 +70,21 @@ public class ROCMultiClass extends BaseEvaluation<ROCMultiClass> {
         this.rocRemoveRedundantPts = rocRemoveRedundantPts;
     }
 
+    /**
+     * Create an instance in streaming mode: each underlying ROC uses fixed memory, determined by the relative error only.
+     * See {@link ROC#ROC(double, boolean)} and {@link ProbabilitySketch} for details.
+     *
+     * @param streamingRelativeError Relative resolution of the probability bins, in range (0, 1). For example,
+     *                               {@link ProbabilitySketch#DEFAULT_RELATIVE_ERROR}
+     * @param rocRemoveRedundantPts  Usually set to true. If true,  remove any redundant points from ROC and P-R curves
+     */
+    public ROCMultiClass(double streamingRelativeError, boolean rocRemoveRedundantPts) {
+        if (!(streamingRelativeError > 0.0 && streamingRelativeError < 1.0))
+            throw new IllegalArgumentException("Relative error must be in range (0, 1), got " + streamingRelativeError);
+        this.streamingRelativeError = streamingRelativeError;
+        this.rocRemoveRedundantPts = rocRemoveRedundantPts;
+    }
+
     @Override
     public void reset() {
         underlying = null;
@@ -112,7 +128,11 @@ public class ROCMultiClass extends BaseEvaluation<ROCMultiClass> {
 
             sb.append("Average AUC: ").append(String.format("%-12." + printPrecision + "f", calculateAverageAUC()));
 
-            if(thresholdSteps > 0){
+            if (streamingRelativeError > 0.0) {
+                sb.append("\n");
+                sb.append("[Note: Streaming AUC/AUPRC calculation used with relative error ").append(streamingRelativeError)
+                        .append("; see ROC.calculateAUCErrorBound() for per-output AUC error bounds]");
+            } else if(thresholdSteps > 0){
                 sb.append("\n");
                 sb.append("[Note: Thresholded AUC/AUPRC calculation used with ").append(thresholdSteps)
                         .append(" steps); accuracy may reduced compared to exact mode]");
@@ -149,7 +169,8 @@ public class ROCMultiClass extends BaseEvaluation<ROCMultiClass> {
         if (underlying == null) {
             underlying = new ROC[n];
             for (int i = 0; i < n; i++) {
-                underlying[i] = new ROC(thresholdSteps, rocRemoveRedundantPts);
+                underlying[i] = streamingRelativeError > 0.0 ? new ROC(streamingRelativeError, rocRemoveRedundantPts)
+                                : new ROC(thresholdSteps, rocRemoveRedundantPts);
             }
         }
 
@@ -54,6 +54,10 @@ public class ROCSerializer extends JsonSerializer<ROC> {
             jsonGenerator.writeObjectField("rocCurve", roc.getRocCurve());
             jsonGenerator.writeObjectField("prCurve", roc.getPrecisionRecallCurve());
         }
+        if (roc.isStreaming()) {
+            //Streaming mode: store the (fixed size) sketch, so the ROC can be merged/recalculated after deserialization
+            jsonGenerator.writeObjectField("sketch", roc.getSketch());
+        }
         jsonGenerator.writeBooleanField("isExact", roc.isExact());
         jsonGenerator.writeNumberField("exampleCount", roc.getExampleCount());
         jsonGenerator.writeBooleanField("rocRemoveRedundantPts", roc.isRocRemoveRedundantPts());
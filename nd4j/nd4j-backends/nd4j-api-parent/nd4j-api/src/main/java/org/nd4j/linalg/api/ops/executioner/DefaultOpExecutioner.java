@@ -37,6 +37,7 @@ import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.primitives.AtomicBoolean;
 import org.nd4j.linalg.primitives.Optional;
 import org.nd4j.linalg.profiler.OpProfiler;
+import org.nd4j.linalg.profiler.metrics.OpMetrics;
 
 import java.util.*;
 
@@ -377,6 +378,13 @@ public class DefaultOpExecutioner implements OpExecutioner {
         return profilingMode;
     }
 
+    /**
+     * This method returns start timestamp for {@link OpMetrics} if they are enabled, 0 otherwise
+     */
+    protected long metricsTimeStart() {
+        return OpMetrics.isEnabled() ? System.nanoTime() : 0L;
+    }
+
     public long profilingHookIn(Op op, DataBuffer... tadBuffers) {
         switch (profilingMode) {
             case ALL:
@@ -389,7 +397,7 @@ public class DefaultOpExecutioner implements OpExecutioner {
                 break;
             case DISABLED:
             default:
-                return 0L;
+                return metricsTimeStart();
         }
 
         return System.nanoTime();
@@ -458,10 +466,10 @@ public class DefaultOpExecutioner implements OpExecutioner {
                 break;
             case SCOPE_PANIC:
                 checkForWorkspaces(op);
-                return 0L;
+                return metricsTimeStart();
             case DISABLED:
             default:
-                return 0L;
+                return metricsTimeStart();
         }
 
         return System.nanoTime();
@@ -479,16 +487,19 @@ public class DefaultOpExecutioner implements OpExecutioner {
                 break;
             case SCOPE_PANIC:
                 checkForWorkspaces(op);
-                return 0L;
+                return metricsTimeStart();
             case DISABLED:
             default:
-                return 0L;
+                return metricsTimeStart();
         }
 
         return System.nanoTime();
     }
 
     public void profilingHookOut(Op op, long timeStart) {
+        if (timeStart != 0L && OpMetrics.isEnabled())
+            OpMetrics.getInstance().record(op, System.nanoTime() - timeStart);
+
         switch (profilingMode) {
             case ALL:
                 OpProfiler.getInstance().processStackCall(op, timeStart);
@@ -525,6 +536,9 @@ public class DefaultOpExecutioner implements OpExecutioner {
 
 
     public void profilingHookOut(CustomOp op, long timeStart) {
+        if (timeStart != 0L && OpMetrics.isEnabled())
+            OpMetrics.getInstance().record(op, System.nanoTime() - timeStart);
+
         switch (profilingMode) {
             case ALL:
                 OpProfiler.getInstance().processStackCall(op, timeStart);
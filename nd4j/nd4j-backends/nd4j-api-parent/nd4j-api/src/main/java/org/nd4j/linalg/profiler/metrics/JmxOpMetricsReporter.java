@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.profiler.metrics;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * This reporter exposes {@link OpMetrics} via platform MBean server, as {@code org.nd4j:type=OpMetrics} by default
+ */
+@Slf4j
+public class JmxOpMetricsReporter implements OpMetricsReporter {
+    public static final String DEFAULT_OBJECT_NAME = "org.nd4j:type=OpMetrics";
+
+    @Getter
+    private final String objectName;
+    private ObjectName registeredName;
+
+    public JmxOpMetricsReporter() {
+        this(DEFAULT_OBJECT_NAME);
+    }
+
+    public JmxOpMetricsReporter(@NonNull String objectName) {
+        this.objectName = objectName;
+    }
+
+    @Override
+    public synchronized void start(OpMetrics metrics) {
+        if (registeredName != null)
+            throw new IllegalStateException("JmxOpMetricsReporter is already started");
+
+        try {
+            ObjectName name = new ObjectName(objectName);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new OpMetricsBean(metrics), name);
+            registeredName = name;
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to register OpMetrics MXBean as [" + objectName + "]", e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (registeredName == null)
+            return;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (Exception e) {
+            log.warn("Unable to unregister OpMetrics MXBean [{}]", registeredName, e);
+        } finally {
+            registeredName = null;
+        }
+    }
+
+    protected static class OpMetricsBean implements OpMetricsMXBean {
+        private final OpMetrics metrics;
+
+        protected OpMetricsBean(OpMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return OpMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            OpMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public long getTotalCount() {
+            return metrics.totals().getCount();
+        }
+
+        @Override
+        public long getTotalTimeNanos() {
+            return metrics.totals().getSum();
+        }
+
+        @Override
+        public List<OpMetricsSnapshot> getOperations() {
+            return metrics.snapshot();
+        }
+
+        @Override
+        public void reset() {
+            metrics.reset();
+        }
+    }
+}
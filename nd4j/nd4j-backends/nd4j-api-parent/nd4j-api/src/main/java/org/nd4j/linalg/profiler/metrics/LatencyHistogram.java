@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.profiler.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent latency histogram with log-linear buckets, in the spirit of HdrHistogram:
+ * every power-of-two range is split into {@link #SUB_BUCKETS} linear sub-buckets, so relative error of reported
+ * values stays within ~6% regardless of magnitude, while memory footprint stays fixed.<br>
+ * <br>
+ * Recording is allocation-free and lock-free: every thread writes into one of striped counter arrays (chosen by thread id),
+ * so concurrent threads executing the same op don't contend on the same cache lines. Stripes are allocated lazily,
+ * so single-threaded usage costs a single stripe. Stripes are merged only when snapshot is taken.<br>
+ * <br>
+ * PLEASE NOTE: snapshots aren't atomic with respect to concurrent recording, i.e. values recorded while snapshot
+ * is taken might be partially visible.
+ */
+public class LatencyHistogram {
+    protected static final int SUB_BUCKET_BITS = 4;
+    protected static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // values above 2^MAX_EXPONENT ns (~68 seconds) are clamped into the last bucket
+    protected static final int MAX_EXPONENT = 36;
+    protected static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    protected static final int NUM_BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    // each stripe holds bucket counters, followed by total sum and max value
+    protected static final int SUM_INDEX = NUM_BUCKETS;
+    protected static final int MAX_INDEX = NUM_BUCKETS + 1;
+    protected static final int STRIPE_LENGTH = NUM_BUCKETS + 2;
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes;
+    private final int stripeMask;
+
+    public LatencyHistogram() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param concurrency expected number of threads recording values concurrently, rounded up to the power of 2
+     */
+    public LatencyHistogram(int concurrency) {
+        int numStripes = Integer.highestOneBit(Math.max(1, Math.min(concurrency, 64)) * 2 - 1);
+        this.stripes = new AtomicReferenceArray<>(numStripes);
+        this.stripeMask = numStripes - 1;
+    }
+
+    /**
+     * This method records single value
+     *
+     * @param value non-negative value, i.e. nanoseconds
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+
+        AtomicLongArray stripe = stripe();
+        stripe.incrementAndGet(bucketIndex(value));
+        stripe.addAndGet(SUM_INDEX, value);
+
+        long max = stripe.get(MAX_INDEX);
+        while (value > max && !stripe.compareAndSet(MAX_INDEX, max, value))
+            max = stripe.get(MAX_INDEX);
+    }
+
+    /**
+     * This method returns merged state of all stripes
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[NUM_BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+
+        for (int s = 0; s < stripes.length(); s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe == null)
+                continue;
+
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                long c = stripe.get(i);
+                counts[i] += c;
+                count += c;
+            }
+
+            sum += stripe.get(SUM_INDEX);
+            max = Math.max(max, stripe.get(MAX_INDEX));
+        }
+
+        return new Snapshot(counts, count, sum, max);
+    }
+
+    /**
+     * This method resets all recorded values
+     */
+    public void reset() {
+        for (int s = 0; s < stripes.length(); s++)
+            stripes.set(s, null);
+    }
+
+    private AtomicLongArray stripe() {
+        int idx = (int) (Thread.currentThread().getId() & stripeMask);
+        while (true) {
+            AtomicLongArray stripe = stripes.get(idx);
+            if (stripe != null)
+                return stripe;
+
+            // slot may be nulled again by concurrent reset(), so never re-read after a successful CAS
+            AtomicLongArray created = new AtomicLongArray(STRIPE_LENGTH);
+            if (stripes.compareAndSet(idx, null, created))
+                return created;
+        }
+    }
+
+    protected static int bucketIndex(long value) {
+        if (value > MAX_VALUE)
+            value = MAX_VALUE;
+
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * @return lowest value that falls into the given bucket
+     */
+    protected static long lowestValue(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKETS)
+            return bucketIndex;
+
+        int shift = bucketIndex / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucketIndex % SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * @return highest value that falls into the given bucket
+     */
+    protected static long highestValue(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKETS)
+            return bucketIndex;
+
+        int shift = bucketIndex / SUB_BUCKETS - 1;
+        return lowestValue(bucketIndex) + (1L << shift) - 1;
+    }
+
+    /**
+     * Immutable point-in-time view of the histogram
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        protected Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        /**
+         * This method returns value at the given percentile. Returned value is the highest value
+         * equivalent to the bucket the percentile falls into, but never above the max recorded value.
+         *
+         * @param percentile percentile, in range [0, 100]
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (percentile < 0.0 || percentile > 100.0)
+                throw new IllegalArgumentException("Percentile should be in range [0, 100], got " + percentile);
+
+            if (count == 0)
+                return 0;
+
+            long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long accumulated = 0;
+            for (int i = 0; i < counts.length; i++) {
+                accumulated += counts[i];
+                if (accumulated >= target)
+                    return Math.min(highestValue(i), max);
+            }
+
+            return max;
+        }
+
+        /**
+         * This method merges two snapshots, i.e. to aggregate values across different ops
+         */
+        public Snapshot merge(Snapshot other) {
+            long[] merged = new long[counts.length];
+            for (int i = 0; i < merged.length; i++)
+                merged[i] = counts[i] + other.counts[i];
+
+            return new Snapshot(merged, count + other.count, sum + other.sum, Math.max(max, other.max));
+        }
+    }
+}
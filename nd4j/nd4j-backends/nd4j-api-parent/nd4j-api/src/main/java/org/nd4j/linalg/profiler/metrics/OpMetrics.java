@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.profiler.metrics;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.nd4j.config.ND4JSystemProperties;
+import org.nd4j.linalg.api.ops.CustomOp;
+import org.nd4j.linalg.api.ops.Op;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Low-overhead op-level metrics, suitable for production use: per-op-type invocation counts and latency histograms.<br>
+ * Unlike {@link org.nd4j.linalg.profiler.OpProfiler}, this class doesn't build strings, inspect stack traces or
+ * arrays on the hot path: recording is a single map lookup by op name plus a few atomic increments in striped
+ * {@link LatencyHistogram}, with no allocations after the op type was seen for the first time.<br>
+ * <br>
+ * Metrics are disabled by default, and can be enabled via {@link #setEnabled(boolean)} or with system property
+ * {@link ND4JSystemProperties#OP_METRICS_ENABLED}. They are independent of OpExecutioner profiling mode.<br>
+ * Collected metrics are available via pull API ({@link #snapshot()}, {@link #getStatistics(String)}), or via
+ * registered {@link OpMetricsReporter}s, i.e. {@link JmxOpMetricsReporter}.
+ */
+@Slf4j
+public class OpMetrics {
+    private static final OpMetrics INSTANCE = new OpMetrics();
+
+    private static volatile boolean enabled = Boolean.parseBoolean(System.getProperty(ND4JSystemProperties.OP_METRICS_ENABLED, "false"));
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final List<OpMetricsReporter> reporters = new CopyOnWriteArrayList<>();
+
+    protected OpMetrics() {
+        //
+    }
+
+    public static OpMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean reallyEnable) {
+        enabled = reallyEnable;
+    }
+
+    /**
+     * This method records single execution of the given op
+     *
+     * @param op         executed op
+     * @param timeNanos  execution time, in nanoseconds
+     */
+    public void record(@NonNull Op op, long timeNanos) {
+        record(op.opName(), timeNanos);
+    }
+
+    /**
+     * This method records single execution of the given custom op
+     *
+     * @param op         executed op
+     * @param timeNanos  execution time, in nanoseconds
+     */
+    public void record(@NonNull CustomOp op, long timeNanos) {
+        record(op.opName(), timeNanos);
+    }
+
+    /**
+     * This method records single execution of the op with the given name
+     *
+     * @param opName     op name
+     * @param timeNanos  execution time, in nanoseconds
+     */
+    public void record(@NonNull String opName, long timeNanos) {
+        LatencyHistogram histogram = histograms.get(opName);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(opName, created);
+            if (histogram == null)
+                histogram = created;
+        }
+
+        histogram.record(timeNanos);
+    }
+
+    /**
+     * This method returns statistics for the given op, or null if this op wasn't executed yet
+     *
+     * @param opName op name
+     */
+    public OpMetricsSnapshot getStatistics(@NonNull String opName) {
+        LatencyHistogram histogram = histograms.get(opName);
+        return histogram == null ? null : OpMetricsSnapshot.fromHistogram(opName, histogram.snapshot());
+    }
+
+    /**
+     * This method returns statistics for all ops seen so far, ordered by total time spent, descending
+     */
+    public List<OpMetricsSnapshot> snapshot() {
+        List<OpMetricsSnapshot> result = new ArrayList<>(histograms.size());
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot();
+            if (snapshot.getCount() > 0)
+                result.add(OpMetricsSnapshot.fromHistogram(entry.getKey(), snapshot));
+        }
+
+        Collections.sort(result, new Comparator<OpMetricsSnapshot>() {
+            @Override
+            public int compare(OpMetricsSnapshot o1, OpMetricsSnapshot o2) {
+                return Long.compare(o2.getTotalTimeNanos(), o1.getTotalTimeNanos());
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * This method returns statistics aggregated over all op types
+     */
+    public LatencyHistogram.Snapshot totals() {
+        LatencyHistogram.Snapshot result = new LatencyHistogram().snapshot();
+        for (LatencyHistogram histogram : histograms.values())
+            result = result.merge(histogram.snapshot());
+
+        return result;
+    }
+
+    /**
+     * This method resets all collected metrics
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values())
+            histogram.reset();
+    }
+
+    /**
+     * This method registers and starts given reporter
+     */
+    public void addReporter(@NonNull OpMetricsReporter reporter) {
+        reporter.start(this);
+        reporters.add(reporter);
+    }
+
+    /**
+     * This method stops and removes given reporter
+     */
+    public void removeReporter(@NonNull OpMetricsReporter reporter) {
+        if (reporters.remove(reporter))
+            reporter.stop();
+    }
+
+    /**
+     * @return currently registered reporters
+     */
+    public List<OpMetricsReporter> getReporters() {
+        return Collections.unmodifiableList(reporters);
+    }
+
+    /**
+     * This method returns human-readable table of the top ops, by total time spent
+     *
+     * @param numOps maximal number of ops to include
+     */
+    public String summary(int numOps) {
+        List<OpMetricsSnapshot> ops = snapshot();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < Math.min(numOps, ops.size()); i++)
+            builder.append(ops.get(i)).append("\n");
+
+        return builder.toString();
+    }
+
+    /**
+     * This method logs top 20 ops, by total time spent
+     */
+    public void printOut() {
+        log.info("Op metrics:\n{}", summary(20));
+    }
+}
@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.profiler.metrics;
+
+/**
+ * Reporter publishes {@link OpMetrics} to some external monitoring system.
+ * Reporters are registered via {@link OpMetrics#addReporter(OpMetricsReporter)}
+ */
+public interface OpMetricsReporter {
+
+    /**
+     * This method is called once, when reporter gets registered
+     *
+     * @param metrics metrics instance to report
+     */
+    void start(OpMetrics metrics);
+
+    /**
+     * This method is called once, when reporter gets removed
+     */
+    void stop();
+}
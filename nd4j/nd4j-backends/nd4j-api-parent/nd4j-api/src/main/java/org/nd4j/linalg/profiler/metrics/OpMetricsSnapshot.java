@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.profiler.metrics;
+
+import lombok.Getter;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Immutable per-op statistics, as returned by {@link OpMetrics#snapshot()}. All times are in nanoseconds.<br>
+ * This class follows JavaBeans conventions, so it's exposed as CompositeData via JMX.
+ */
+@Getter
+public class OpMetricsSnapshot {
+    private final String opName;
+    private final long count;
+    private final long totalTimeNanos;
+    private final long maxTimeNanos;
+    private final double meanTimeNanos;
+    private final long p50TimeNanos;
+    private final long p90TimeNanos;
+    private final long p99TimeNanos;
+    private final long p999TimeNanos;
+
+    @ConstructorProperties({"opName", "count", "totalTimeNanos", "maxTimeNanos", "meanTimeNanos", "p50TimeNanos",
+                    "p90TimeNanos", "p99TimeNanos", "p999TimeNanos"})
+    public OpMetricsSnapshot(String opName, long count, long totalTimeNanos, long maxTimeNanos, double meanTimeNanos,
+                    long p50TimeNanos, long p90TimeNanos, long p99TimeNanos, long p999TimeNanos) {
+        this.opName = opName;
+        this.count = count;
+        this.totalTimeNanos = totalTimeNanos;
+        this.maxTimeNanos = maxTimeNanos;
+        this.meanTimeNanos = meanTimeNanos;
+        this.p50TimeNanos = p50TimeNanos;
+        this.p90TimeNanos = p90TimeNanos;
+        this.p99TimeNanos = p99TimeNanos;
+        this.p999TimeNanos = p999TimeNanos;
+    }
+
+    public static OpMetricsSnapshot fromHistogram(String opName, LatencyHistogram.Snapshot snapshot) {
+        return new OpMetricsSnapshot(opName, snapshot.getCount(), snapshot.getSum(), snapshot.getMax(),
+                        snapshot.getMean(), snapshot.getValueAtPercentile(50.0), snapshot.getValueAtPercentile(90.0),
+                        snapshot.getValueAtPercentile(99.0), snapshot.getValueAtPercentile(99.9));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-30s count: %10d; total: %10d us; mean: %10.1f us; p50: %8d us; p99: %8d us; max: %8d us",
+                        opName, count, totalTimeNanos / 1000, meanTimeNanos / 1000.0, p50TimeNanos / 1000,
+                        p99TimeNanos / 1000, maxTimeNanos / 1000);
+    }
+}
@@ -603,6 +603,8 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
             }
         }
 
+        profilingHookOut(op, st);
+
         return ret;
     }
 
@@ -984,6 +986,8 @@ public class NativeOpExecutioner extends DefaultOpExecutioner {
                     dimension.length);
         }
 
+        profilingHookOut(op, st);
+
         return op.z();
     }
 
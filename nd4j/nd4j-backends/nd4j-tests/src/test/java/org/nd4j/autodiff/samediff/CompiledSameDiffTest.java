@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.autodiff.samediff;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.weightinit.impl.XavierInitScheme;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class CompiledSameDiffTest {
+
+    private static SameDiff getGraph() {
+        Nd4j.getRandom().setSeed(12345);
+        SameDiff sd = SameDiff.create();
+
+        SDVariable in = sd.var("input", -1, 4);
+        sd.addAsPlaceHolder("input");
+
+        SDVariable w0 = sd.var("w0", new XavierInitScheme('c', 4, 10), 4, 10);
+        SDVariable b0 = sd.var("b0", Nd4j.rand(1, 10));
+        SDVariable w1 = sd.var("w1", new XavierInitScheme('c', 10, 3), 10, 3);
+        SDVariable b1 = sd.var("b1", Nd4j.rand(1, 3));
+
+        SDVariable a0 = sd.tanh("a0", in.mmul(w0).add(b0));
+        sd.softmax("out", a0.mmul(w1).add(b1));
+        return sd;
+    }
+
+    private static INDArray expected(SameDiff sd, INDArray input) {
+        Map<String, INDArray> ph = new HashMap<>();
+        ph.put("input", input);
+        sd.execWithPlaceHolder(ph);
+        return sd.getArrForVarName("out").dup();
+    }
+
+    @Test
+    public void testSingleThreaded() {
+        SameDiff sd = getGraph();
+        CompiledSameDiff compiled = CompiledSameDiff.compile(sd);
+        assertEquals(4, compiled.getNumSharedArrays());
+
+        for (int i = 0; i < 5; i++) {
+            INDArray input = Nd4j.rand(3 + i, 4);
+            Map<String, INDArray> ph = Collections.singletonMap("input", input);
+            Map<String, INDArray> out = compiled.output(ph, "out", "a0");
+
+            assertEquals(expected(sd, input), out.get("out"));
+            assertArrayEquals(new long[] {3 + i, 10}, out.get("a0").shape());
+        }
+
+        // sessions are reused for sequential calls
+        assertEquals(1, compiled.getNumSessions());
+    }
+
+    @Test
+    public void testWeightsShared() {
+        SameDiff sd = getGraph();
+        CompiledSameDiff compiled = CompiledSameDiff.compile(sd);
+
+        INDArray input = Nd4j.rand(5, 4);
+        Map<String, INDArray> ph = Collections.singletonMap("input", input);
+        INDArray before = compiled.outputSingle(ph, "out");
+
+        // in-place weights change is visible to compiled graph: weights aren't copied
+        sd.getArrForVarName("w1").muli(2.0);
+        INDArray after = compiled.outputSingle(ph, "out");
+        assertNotEquals(before, after);
+        assertEquals(expected(sd, input), after);
+    }
+
+    @Test
+    public void testConcurrentOutput() throws Exception {
+        final SameDiff sd = getGraph();
+        final CompiledSameDiff compiled = CompiledSameDiff.compile(sd);
+
+        int numThreads = 6;
+        final int numCalls = 20;
+        final List<INDArray> inputs = new ArrayList<>();
+        final List<INDArray> expected = new ArrayList<>();
+        for (int i = 0; i < numThreads * numCalls; i++) {
+            INDArray input = Nd4j.rand(1 + i % 7, 4);
+            inputs.add(input);
+            expected.add(expected(sd, input));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int c = 0; c < numCalls; c++) {
+                    int idx = thread * numCalls + c;
+                    INDArray out = compiled.outputSingle(Collections.singletonMap("input", inputs.get(idx)), "out");
+                    if (!expected.get(idx).equalsWithEps(out, 1e-5))
+                        return false;
+                }
+                return true;
+            }));
+        }
+
+        for (Future<Boolean> f : futures)
+            assertTrue(f.get());
+        executor.shutdown();
+
+        assertTrue(compiled.getNumSessions() >= 1 && compiled.getNumSessions() <= numThreads);
+    }
+
+    @Test
+    public void testOptimizedCompile() {
+        SameDiff sd = getGraph();
+        int numOps = sd.functions().length;
+        expected(sd, Nd4j.rand(2, 4));
+
+        CompiledSameDiff compiled = CompiledSameDiff.compile(sd, "out");
+
+        // original graph isn't modified by optimization
+        assertEquals(numOps, sd.functions().length);
+
+        for (int i = 0; i < 3; i++) {
+            INDArray input = Nd4j.rand(2 + i, 4);
+            INDArray out = compiled.outputSingle(Collections.singletonMap("input", input), "out");
+            assertTrue(expected(sd, input).equalsWithEps(out, 1e-5));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownOutput() {
+        CompiledSameDiff compiled = CompiledSameDiff.compile(getGraph());
+        compiled.output(Collections.singletonMap("input", Nd4j.rand(2, 4)), "nonexistent");
+    }
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.autodiff.samediff.memory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.nd4j.autodiff.samediff.CompiledSameDiff;
+import org.nd4j.autodiff.samediff.SDVariable;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class MemoryPlannerTest {
+
+    private static INDArray exec(SameDiff sd, INDArray input, String output) {
+        Map<String, INDArray> ph = Collections.singletonMap("input", input);
+        sd.execWithPlaceHolder(ph);
+        return sd.getArrForVarName(output).dup();
+    }
+
+    private static SameDiff chainGraph() {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.var("input", -1, 100);
+        sd.addAsPlaceHolder("input");
+
+        SDVariable x = sd.tanh("x0", in);
+        x = sd.sigmoid("x1", x);
+        x = sd.tanh("x2", x.mul(2.0));
+        x = sd.exp("x3", x);
+        sd.sigmoid("out", x.sub(1.0));
+        return sd;
+    }
+
+    private static SameDiff diamondGraph() {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.var("input", -1, 100);
+        sd.addAsPlaceHolder("input");
+
+        SDVariable a = sd.tanh("a", in);
+        SDVariable b = sd.sigmoid("b", in);
+        SDVariable c = sd.exp("c", a.add(b));
+        sd.tanh("out", c.mul(b));
+        return sd;
+    }
+
+    @Test
+    public void testChainReusesSlots() {
+        SameDiff sd = chainGraph();
+        SameDiff reference = chainGraph();
+
+        INDArray input = Nd4j.rand(10, 100);
+        exec(sd, input, "out");
+
+        MemoryPlan plan = MemoryPlanner.plan(sd, "out");
+        log.info("Memory plan:\n{}", plan);
+
+        // each intermediate array is used only by the next op: two slots are enough
+        assertEquals(6, plan.getAllocations().size());
+        assertEquals(2, plan.getNumSlots());
+        assertFalse(plan.getAllocations().containsKey("out"));
+        assertEquals(2 * 1000 * Nd4j.sizeOfDataType(), plan.getPeakLiveBytes());
+        assertEquals(plan.getPeakLiveBytes(), plan.getPlannedBytes());
+        assertEquals(6 * 1000 * Nd4j.sizeOfDataType(), plan.getUnplannedBytes());
+
+        plan.apply(sd);
+        for (int i = 0; i < 3; i++) {
+            INDArray in = Nd4j.rand(10, 100);
+            assertEquals(exec(reference, in, "out"), exec(sd, in, "out"));
+        }
+
+        // shape change is handled by regular allocation
+        INDArray other = Nd4j.rand(3, 100);
+        assertEquals(exec(reference, other, "out"), exec(sd, other, "out"));
+    }
+
+    @Test
+    public void testOverlappingLifetimes() {
+        SameDiff sd = diamondGraph();
+        SameDiff reference = diamondGraph();
+
+        INDArray input = Nd4j.rand(4, 100);
+        exec(sd, input, "out");
+
+        MemoryPlan plan = MemoryPlanner.plan(sd, "out");
+        Map<String, MemoryPlan.Allocation> allocations = plan.getAllocations();
+
+        // "b" is live until the last op, so nothing else can use its slot
+        int slotB = allocations.get("b").getSlot();
+        for (MemoryPlan.Allocation allocation : allocations.values())
+            if (!allocation.getVariable().equals("b"))
+                assertNotEquals(slotB, allocation.getSlot());
+
+        assertNotEquals(allocations.get("a").getSlot(), slotB);
+        assertTrue(plan.getPlannedBytes() < plan.getUnplannedBytes());
+
+        plan.apply(sd);
+        for (int i = 0; i < 3; i++) {
+            INDArray in = Nd4j.rand(4, 100);
+            assertEquals(exec(reference, in, "out"), exec(sd, in, "out"));
+        }
+
+        // after detaching, intermediate values are kept again
+        plan.detach(sd);
+        exec(sd, input, "out");
+        assertEquals(exec(reference, input, "a"), sd.getArrForVarName("a"));
+    }
+
+    @Test
+    public void testCompiledSameDiffMemoryPlanning() {
+        SameDiff sd = chainGraph();
+        CompiledSameDiff compiled = CompiledSameDiff.compile(sd);
+        compiled.setMemoryPlanning(true);
+
+        CompiledSameDiff.InferenceSession session = compiled.newSession();
+        for (int i = 0; i < 3; i++) {
+            INDArray in = Nd4j.rand(5, 100);
+            Map<String, INDArray> ph = Collections.singletonMap("input", in);
+            assertEquals(exec(sd, in, "out"), session.output(ph, "out").get("out"));
+            assertNotNull(session.getMemoryPlan());
+        }
+
+        // intermediate output requested: plan built for "out" alone isn't used for this call
+        INDArray in = Nd4j.rand(5, 100);
+        Map<String, INDArray> ph = Collections.singletonMap("input", in);
+        Map<String, INDArray> out = session.output(ph, "x1", "out");
+        assertEquals(exec(sd, in, "x1"), out.get("x1"));
+        assertEquals(exec(sd, in, "out"), out.get("out"));
+        assertFalse(session.getMemoryPlan().getAllocations().containsKey("x1"));
+    }
+}
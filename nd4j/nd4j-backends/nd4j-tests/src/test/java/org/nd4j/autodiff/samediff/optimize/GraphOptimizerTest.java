@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.autodiff.samediff.optimize;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.nd4j.autodiff.functions.DifferentialFunction;
+import org.nd4j.autodiff.samediff.SDVariable;
+import org.nd4j.autodiff.samediff.SameDiff;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.impl.transforms.ReluLayer;
+import org.nd4j.linalg.api.ops.impl.transforms.XwPlusB;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class GraphOptimizerTest {
+
+    private static INDArray exec(SameDiff sd, INDArray input, String output) {
+        Map<String, INDArray> ph = Collections.singletonMap("input", input);
+        sd.execWithPlaceHolder(ph);
+        return sd.getArrForVarName(output).dup();
+    }
+
+    private static SameDiff denseGraph() {
+        Nd4j.getRandom().setSeed(12345);
+        SameDiff sd = SameDiff.create();
+
+        SDVariable in = sd.var("input", -1, 4);
+        sd.addAsPlaceHolder("input");
+
+        SDVariable w0 = sd.var("w0", Nd4j.rand(4, 10));
+        SDVariable b0 = sd.var("b0", Nd4j.rand(1, 10));
+        SDVariable w1 = sd.var("w1", Nd4j.rand(10, 3));
+        SDVariable b1 = sd.var("b1", Nd4j.rand(1, 3));
+
+        SDVariable a0 = sd.relu("a0", in.mmul(w0).add(b0), 0.0);
+        sd.identity("out", a0.mmul(w1).add(b1));
+        return sd;
+    }
+
+    @Test
+    public void testPruneUnusedNodes() {
+        SameDiff sd = denseGraph();
+        SDVariable in = sd.getVariable("input");
+        SDVariable unused = sd.var("unused", Nd4j.rand(4, 4));
+        sd.tanh("side", in.mmul(unused));
+
+        INDArray input = Nd4j.rand(5, 4);
+        INDArray expected = exec(sd, input, "out");
+        int numOps = sd.functions().length;
+
+        int removed = new PruneUnusedNodes().optimize(sd, Collections.singleton("out"));
+        // 2 ops of the side branch, and 3 variables: "unused", its mmul result and "side"
+        assertEquals(5, removed);
+        assertEquals(numOps - 2, sd.functions().length);
+        assertNull(sd.getVariable("side"));
+        assertNull(sd.getVariable("unused"));
+        assertNotNull(sd.getVariable("input"));
+
+        assertEquals(expected, exec(sd, input, "out"));
+    }
+
+    @Test
+    public void testIdentityElimination() {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.var("input", -1, 4);
+        sd.addAsPlaceHolder("input");
+
+        SDVariable id = sd.identity("id", in.mul(2.0));
+        sd.identity("out", sd.tanh(id));
+
+        INDArray input = Nd4j.rand(3, 4);
+        INDArray expected = exec(sd, input, "out");
+
+        int removed = new IdentityElimination().optimize(sd, Collections.singleton("out"));
+
+        // identity producing requested output is kept
+        assertEquals(1, removed);
+        assertNull(sd.getVariable("id"));
+        assertNotNull(sd.getVariableOutputFunction("out"));
+        assertEquals(expected, exec(sd, input, "out"));
+    }
+
+    @Test
+    public void testConstantFolding() {
+        SameDiff sd = SameDiff.create();
+        SDVariable in = sd.var("input", -1, 4);
+        sd.addAsPlaceHolder("input");
+
+        SDVariable c = sd.var("c", Nd4j.rand(1, 4));
+        SDVariable folded = sd.exp("folded", c.mul(2.0).add(1.0));
+        in.add("out", folded);
+
+        INDArray input = Nd4j.rand(3, 4);
+        INDArray expected = exec(sd, input, "out");
+
+        // variables aren't constants by default
+        assertEquals(0, new ConstantFolding(false).optimize(sd, Collections.singleton("out")));
+
+        assertEquals(3, new ConstantFolding(true).optimize(sd, Collections.singleton("out")));
+        assertEquals(1, sd.functions().length);
+        assertNull(sd.getVariableOutputFunction("folded"));
+        assertTrue(sd.getImportedConstants().contains("folded"));
+        assertEquals(Transforms.exp(sd.getArrForVarName("c").mul(2.0).add(1.0)), sd.getArrForVarName("folded"));
+
+        assertEquals(expected, exec(sd, input, "out"));
+
+        // pruning afterwards drops constant subgraph leftovers
+        new PruneUnusedNodes().optimize(sd, Collections.singleton("out"));
+        assertNull(sd.getVariable("c"));
+        assertEquals(expected, exec(sd, input, "out"));
+    }
+
+    @Test
+    public void testLinearLayerFusion() {
+        SameDiff sd = denseGraph();
+        INDArray input = Nd4j.rand(5, 4);
+        INDArray expected = exec(sd, input, "out");
+
+        int fused = new LinearLayerFusion().optimize(sd, Collections.singleton("out"));
+        assertEquals(3, fused);
+
+        // relu(mmul + b) -> relu_layer, mmul + b -> xw_plus_b, identity
+        assertEquals(3, sd.functions().length);
+        assertTrue(sd.getVariableOutputFunction("a0") instanceof ReluLayer);
+
+        int numXwPlusB = 0;
+        for (DifferentialFunction function : sd.functions())
+            if (function.getClass() == XwPlusB.class)
+                numXwPlusB++;
+        assertEquals(1, numXwPlusB);
+
+        assertTrue(expected.equalsWithEps(exec(sd, input, "out"), 1e-5));
+        INDArray other = Nd4j.rand(9, 4);
+        assertEquals(9, exec(sd, other, "out").rows());
+    }
+
+    @Test
+    public void testFusionKeepsRequestedIntermediates() {
+        SameDiff sd = denseGraph();
+        SDVariable pre = sd.getVariableOutputFunction("a0").arg();
+
+        int fused = new LinearLayerFusion().optimize(sd, new HashSet<>(Arrays.asList("out", pre.getVarName())));
+
+        // relu input was requested, so only mmul + b pairs are fused
+        assertEquals(2, fused);
+        assertNotNull(sd.getVariable(pre.getVarName()));
+    }
+
+    @Test
+    public void testDefaultOptimizer() {
+        SameDiff sd = denseGraph();
+        SDVariable in = sd.getVariable("input");
+        sd.tanh("side", in.mul(3.0));
+
+        INDArray input = Nd4j.rand(7, 4);
+        INDArray expected = exec(sd, input, "out");
+
+        GraphOptimizer.defaultOptimizer().optimize(sd, "out");
+
+        // relu_layer + xw_plus_b, identity producing the output is kept
+        assertEquals(3, sd.functions().length);
+        assertNull(sd.getVariable("side"));
+        assertTrue(expected.equalsWithEps(exec(sd, input, "out"), 1e-5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownOutput() {
+        GraphOptimizer.defaultOptimizer().optimize(denseGraph(), "nonexistent");
+    }
+}
@@ -17,6 +17,7 @@
 package org.nd4j.evaluation;
 
 import org.junit.Test;
+import org.nd4j.evaluation.classification.ConfusionMatrix;
 import org.nd4j.evaluation.classification.Evaluation;
 import org.nd4j.linalg.BaseNd4jTest;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -880,4 +881,111 @@ public class EvalTest extends BaseNd4jTest {
         System.out.println("\n\n\n\n");
         System.out.println(e.stats(false, true));
     }
+
+    @Test
+    public void testBatchEvalMatchesSingleExampleEval() {
+        Nd4j.getRandom().setSeed(12345);
+        int nClasses = 7;
+        int nExamples = 200;
+
+        INDArray labels = Nd4j.zeros(nExamples, nClasses);
+        INDArray predictions = Nd4j.rand(nExamples, nClasses);
+        Random r = new Random(12345);
+        int[] actual = new int[nExamples];
+        for (int i = 0; i < nExamples; i++) {
+            actual[i] = r.nextInt(nClasses);
+            labels.putScalar(i, actual[i], 1.0);
+        }
+        INDArray predictedIdx = Nd4j.argMax(predictions, 1);
+
+        Evaluation batch = new Evaluation(nClasses);
+        batch.eval(labels, predictions);
+
+        Evaluation single = new Evaluation(nClasses);
+        for (int i = 0; i < nExamples; i++) {
+            single.eval(predictedIdx.getInt(i), actual[i]);
+        }
+
+        assertEquals(single.getConfusionMatrix(), batch.getConfusionMatrix());
+        for (int c = 0; c < nClasses; c++) {
+            assertEquals(single.getTruePositives().getCount(c), batch.getTruePositives().getCount(c), 0.0);
+            assertEquals(single.getFalsePositives().getCount(c), batch.getFalsePositives().getCount(c), 0.0);
+            assertEquals(single.getFalseNegatives().getCount(c), batch.getFalseNegatives().getCount(c), 0.0);
+            assertEquals(single.getTrueNegatives().getCount(c), batch.getTrueNegatives().getCount(c), 0.0);
+            assertEquals(single.getConfusionMatrix().getPredictedTotal(c), batch.getConfusionMatrix().getPredictedTotal(c));
+            assertEquals(single.getConfusionMatrix().getActualTotal(c), batch.getConfusionMatrix().getActualTotal(c));
+        }
+        assertEquals(single.stats(), batch.stats());
+
+        //Top N: compare with a direct count
+        int topNCorrect = 0;
+        for (int i = 0; i < nExamples; i++) {
+            double p = predictions.getDouble(i, actual[i]);
+            int countGreater = 0;
+            for (int j = 0; j < nClasses; j++) {
+                if (predictions.getDouble(i, j) > p)
+                    countGreater++;
+            }
+            if (countGreater < 3)
+                topNCorrect++;
+        }
+        List<String> labelNames = new ArrayList<>();
+        for (int i = 0; i < nClasses; i++)
+            labelNames.add(String.valueOf(i));
+        Evaluation topN = new Evaluation(labelNames, 3);
+        topN.eval(labels, predictions);
+        assertEquals(topNCorrect, topN.getTopNCorrectCount());
+        assertEquals(nExamples, topN.getTopNTotalCount());
+    }
+
+    @Test
+    public void testConfusionMatrixSparseAndMerge() {
+        int nClasses = ConfusionMatrix.DENSE_MAX_CLASSES + 10;
+        List<Integer> classes = new ArrayList<>();
+        for (int i = 0; i < nClasses; i++)
+            classes.add(i);
+
+        ConfusionMatrix<Integer> sparse = new ConfusionMatrix<>(classes);
+        ConfusionMatrix<Integer> dense = new ConfusionMatrix<>();
+        Random r = new Random(12345);
+        int[] a = new int[5000];
+        int[] p = new int[5000];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = r.nextInt(nClasses);
+            p[i] = r.nextInt(10) == 0 ? r.nextInt(nClasses) : a[i];
+            //Dense matrix starts with no classes and grows, then switches to sparse storage
+            dense.add(a[i], p[i]);
+        }
+        sparse.add(a, p);
+
+        for (int i = 0; i < a.length; i++) {
+            assertEquals(dense.getCount(a[i], p[i]), sparse.getCount(a[i], p[i]));
+            assertEquals(dense.getActualTotal(a[i]), sparse.getActualTotal(a[i]));
+            assertEquals(dense.getPredictedTotal(p[i]), sparse.getPredictedTotal(p[i]));
+        }
+        assertEquals(dense.getMatrix(), sparse.getMatrix());
+
+        ConfusionMatrix<Integer> merged = new ConfusionMatrix<>(sparse);
+        merged.add(dense);
+        for (int i = 0; i < a.length; i++) {
+            assertEquals(2 * sparse.getCount(a[i], p[i]), merged.getCount(a[i], p[i]));
+            assertEquals(2 * sparse.getActualTotal(a[i]), merged.getActualTotal(a[i]));
+        }
+
+        //Small, dense case: merge of two evaluations
+        ConfusionMatrix<Integer> cm1 = new ConfusionMatrix<>(Arrays.asList(0, 1, 2));
+        ConfusionMatrix<Integer> cm2 = new ConfusionMatrix<>(Arrays.asList(0, 1, 2));
+        cm1.add(new int[]{0, 1, 2, 2}, new int[]{0, 2, 2, 1});
+        cm2.add(0, 0, 3);
+        cm2.add(2, 1);
+        cm1.add(cm2);
+        assertEquals(4, cm1.getCount(0, 0));
+        assertEquals(1, cm1.getCount(1, 2));
+        assertEquals(2, cm1.getCount(2, 1));
+        assertEquals(1, cm1.getCount(2, 2));
+        assertEquals(0, cm1.getCount(1, 1));
+        assertEquals(3, cm1.getActualTotal(2));
+        assertEquals(2, cm1.getPredictedTotal(1));
+        assertEquals(4, cm1.getPredictedTotal(0));
+    }
 }
@@ -17,6 +17,7 @@
 package org.nd4j.evaluation;
 
 import org.junit.Test;
+import org.nd4j.evaluation.classification.ProbabilitySketch;
 import org.nd4j.evaluation.classification.ROC;
 import org.nd4j.evaluation.classification.ROCBinary;
 import org.nd4j.evaluation.classification.ROCMultiClass;
@@ -33,11 +34,13 @@ import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.factory.Nd4jBackend;
 import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
+import org.nd4j.linalg.ops.transforms.Transforms;
 
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Created by Alex on 04/11/2016.
@@ -1001,4 +1004,107 @@ public class ROCTest extends BaseNd4jTest {
         }
     }
 
+    @Test
+    public void testRocStreaming(){
+        Nd4j.getRandom().setSeed(12345);
+
+        ROC exact = new ROC(0);
+        ROC streaming = new ROC(ProbabilitySketch.DEFAULT_RELATIVE_ERROR, true);
+        ROC streaming1 = new ROC(ProbabilitySketch.DEFAULT_RELATIVE_ERROR, true);
+        ROC streaming2 = new ROC(ProbabilitySketch.DEFAULT_RELATIVE_ERROR, true);
+
+        for( int i=0; i<20; i++ ){
+            INDArray labels = Nd4j.getExecutioner().exec(new BernoulliDistribution(Nd4j.createUninitialized(100, 1), 0.3));
+            //Skewed predictions, correlated with labels: most probabilities very close to 0 or 1
+            INDArray noise = Nd4j.randn(100, 1);
+            INDArray out = Transforms.sigmoid(labels.mul(6.0).subi(3.0).addi(noise.muli(3.0)));
+
+            exact.eval(labels, out);
+            streaming.eval(labels, out);
+            if(i % 2 == 0){
+                streaming1.eval(labels, out);
+            } else {
+                streaming2.eval(labels, out);
+            }
+        }
+
+        double aucExact = exact.calculateAUC();
+        double aucStreaming = streaming.calculateAUC();
+        double bound = streaming.calculateAUCErrorBound();
+        assertTrue(bound >= 0.0 && bound < 0.01);
+        assertEquals(aucExact, aucStreaming, bound + 1e-6);
+        assertEquals(exact.calculateAUCPR(), streaming.calculateAUCPR(), 0.01);
+        assertEquals(exact.getCountActualPositive(), streaming.getCountActualPositive());
+        assertEquals(exact.getCountActualNegative(), streaming.getCountActualNegative());
+
+        //Merging is exact for streaming mode: same result as evaluating all data on one instance
+        streaming1.calculateAUC();
+        streaming1.merge(streaming2);
+        assertEquals(streaming.getSketch(), streaming1.getSketch());
+        assertEquals(aucStreaming, streaming1.calculateAUC(), 1e-10);
+        assertEquals(streaming.calculateAUCPR(), streaming1.calculateAUCPR(), 1e-10);
+
+        //JSON round trip keeps the sketch, so the deserialized instance can still be merged
+        ROC fromJson = ROC.fromJson(streaming.toJson());
+        assertTrue(fromJson.isStreaming());
+        assertEquals(streaming.getSketch(), fromJson.getSketch());
+        assertEquals(aucStreaming, fromJson.calculateAUC(), 1e-10);
+
+        //Memory doesn't depend on the number of examples
+        int maxBins = streaming.getSketch().maxBins();
+        assertTrue(streaming.getSketch().getPositive().length <= maxBins);
+
+        try {
+            exact.merge(streaming);
+            fail("Expected exception");
+        } catch (UnsupportedOperationException e){
+            //Expected
+        }
+    }
+
+    @Test
+    public void testRocBinaryMultiClassStreaming(){
+        Nd4j.getRandom().setSeed(12345);
+        int nOut = 4;
+
+        ROCBinary binExact = new ROCBinary(0);
+        ROCBinary binStreaming = new ROCBinary(ProbabilitySketch.DEFAULT_RELATIVE_ERROR, true);
+        ROCMultiClass mcExact = new ROCMultiClass(0);
+        ROCMultiClass mcStreaming1 = new ROCMultiClass(ProbabilitySketch.DEFAULT_RELATIVE_ERROR, true);
+        ROCMultiClass mcStreaming2 = new ROCMultiClass(ProbabilitySketch.DEFAULT_RELATIVE_ERROR, true);
+
+        Random r = new Random(12345);
+        for( int i=0; i<10; i++ ){
+            INDArray binLabels = Nd4j.getExecutioner().exec(new BernoulliDistribution(Nd4j.createUninitialized(50, nOut), 0.5));
+            INDArray binOut = Nd4j.rand(50, nOut);
+            binExact.eval(binLabels, binOut);
+            binStreaming.eval(binLabels, binOut);
+
+            INDArray mcLabels = Nd4j.zeros(50, nOut);
+            for( int j=0; j<50; j++ ){
+                mcLabels.putScalar(j, r.nextInt(nOut), 1.0 );
+            }
+            INDArray mcOut = Nd4j.rand(50, nOut);
+            mcOut.diviColumnVector(mcOut.sum(1));
+            mcExact.eval(mcLabels, mcOut);
+            if(i % 2 == 0){
+                mcStreaming1.eval(mcLabels, mcOut);
+            } else {
+                mcStreaming2.eval(mcLabels, mcOut);
+            }
+        }
+        mcStreaming1.merge(mcStreaming2);
+
+        for( int i=0; i<nOut; i++ ) {
+            assertEquals(binExact.calculateAUC(i), binStreaming.calculateAUC(i),
+                    binStreaming.getUnderlying()[i].calculateAUCErrorBound() + 1e-6);
+            assertEquals(mcExact.calculateAUC(i), mcStreaming1.calculateAUC(i),
+                    mcStreaming1.getUnderlying()[i].calculateAUCErrorBound() + 1e-6);
+            assertEquals(binExact.calculateAUCPR(i), binStreaming.calculateAUCPR(i), 0.01);
+            assertEquals(mcExact.calculateAUCPR(i), mcStreaming1.calculateAUCPR(i), 0.01);
+        }
+
+        ROCMultiClass mcFromJson = ROCMultiClass.fromJson(mcStreaming1.toJson());
+        assertEquals(mcStreaming1.calculateAverageAUC(), mcFromJson.calculateAverageAUC(), 1e-10);
+    }
 }
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.linalg.profiling;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.ops.DynamicCustomOp;
+import org.nd4j.linalg.api.ops.executioner.OpExecutioner;
+import org.nd4j.linalg.api.ops.impl.accum.Sum;
+import org.nd4j.linalg.api.ops.impl.broadcast.BroadcastAddOp;
+import org.nd4j.linalg.api.ops.impl.transforms.Tanh;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.profiler.metrics.JmxOpMetricsReporter;
+import org.nd4j.linalg.profiler.metrics.LatencyHistogram;
+import org.nd4j.linalg.profiler.metrics.OpMetrics;
+import org.nd4j.linalg.profiler.metrics.OpMetricsSnapshot;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class OpMetricsTests {
+
+    @Before
+    public void setUp() {
+        Nd4j.getExecutioner().setProfilingMode(OpExecutioner.ProfilingMode.DISABLED);
+        OpMetrics.getInstance().reset();
+        OpMetrics.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        OpMetrics.setEnabled(false);
+        OpMetrics.getInstance().reset();
+    }
+
+    @Test
+    public void testHistogramPercentiles1() {
+        LatencyHistogram histogram = new LatencyHistogram(1);
+        for (int i = 1; i <= 10000; i++)
+            histogram.record(i * 1000L);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10000, snapshot.getCount());
+        assertEquals(10000L * 1000L, snapshot.getMax());
+        assertEquals(5000500.0, snapshot.getMean(), 1e-5);
+
+        // log-linear buckets guarantee relative error below 1/16
+        assertEquals(5000000, snapshot.getValueAtPercentile(50.0), 5000000 / 16);
+        assertEquals(9900000, snapshot.getValueAtPercentile(99.0), 9900000 / 16);
+        assertEquals(10000000, snapshot.getValueAtPercentile(100.0));
+        assertEquals(1000, snapshot.getValueAtPercentile(0.0), 1000 / 16);
+    }
+
+    @Test
+    public void testHistogramSmallValues1() {
+        LatencyHistogram histogram = new LatencyHistogram(1);
+        for (int i = 0; i < 16; i++)
+            histogram.record(i);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(16, snapshot.getCount());
+        assertEquals(7, snapshot.getValueAtPercentile(50.0));
+        assertEquals(15, snapshot.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    public void testHistogramBucketBounds1() {
+        // reported value is never below the recorded one, and at most 1/16 above it
+        for (long v : new long[] {0, 1, 15, 16, 17, 31, 32, 1023, 1024, 123456789L, 1L << 36}) {
+            LatencyHistogram histogram = new LatencyHistogram(1);
+            histogram.record(v);
+            histogram.record(1L << 40);
+
+            long reported = histogram.snapshot().getValueAtPercentile(50.0);
+            assertTrue("Value " + v + " reported as " + reported, reported >= v);
+            assertTrue("Value " + v + " reported as " + reported, reported - v <= v / 16);
+        }
+    }
+
+    @Test
+    public void testHistogramReset1() {
+        LatencyHistogram histogram = new LatencyHistogram(1);
+        histogram.record(100);
+        histogram.reset();
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMax());
+        assertEquals(0, snapshot.getValueAtPercentile(99.0));
+    }
+
+    @Test
+    public void testHistogramConcurrency1() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram(4);
+        final int numThreads = 8;
+        final int numValues = 100000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < numValues; i++)
+                        histogram.record(i % 1000);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(numThreads * numValues, snapshot.getCount());
+        assertEquals(999, snapshot.getMax());
+        assertEquals(numThreads * 100L * (999 * 1000 / 2), snapshot.getSum());
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+    }
+
+    @Test
+    public void testHistogramConcurrentReset1() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram(4);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (running.get())
+                            histogram.record(100);
+                    } catch (Throwable e) {
+                        failure.set(e);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (int i = 0; i < 10000; i++)
+            histogram.reset();
+
+        running.set(false);
+        for (Thread thread : threads)
+            thread.join();
+
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void testOpMetrics1() {
+        INDArray array = Nd4j.createUninitialized(100);
+
+        array.assign(10f);
+        array.divi(2f);
+        array.divi(2f);
+
+        List<OpMetricsSnapshot> snapshot = OpMetrics.getInstance().snapshot();
+        log.info("Metrics:\n{}", OpMetrics.getInstance().summary(10));
+
+        long total = 0;
+        for (OpMetricsSnapshot op : snapshot)
+            total += op.getCount();
+
+        assertEquals(3, total);
+        assertEquals(3, OpMetrics.getInstance().totals().getCount());
+        assertTrue(snapshot.get(0).getTotalTimeNanos() >= snapshot.get(snapshot.size() - 1).getTotalTimeNanos());
+    }
+
+    @Test
+    public void testOpMetricsDisabled1() {
+        OpMetrics.setEnabled(false);
+
+        INDArray array = Nd4j.createUninitialized(100);
+        array.assign(10f);
+
+        assertEquals(0, OpMetrics.getInstance().totals().getCount());
+        assertTrue(OpMetrics.getInstance().snapshot().isEmpty());
+    }
+
+    @Test
+    public void testOpMetricsCustomOp1() {
+        INDArray x = Nd4j.rand(4, 4);
+        Nd4j.getExecutioner().exec(new Tanh(x));
+        Nd4j.getExecutioner().exec(DynamicCustomOp.builder("identity")
+                        .addInputs(x)
+                        .addOutputs(Nd4j.create(4, 4))
+                        .build());
+
+        OpMetricsSnapshot tanh = OpMetrics.getInstance().getStatistics("tanh");
+        assertNotNull(tanh);
+        assertEquals(1, tanh.getCount());
+
+        OpMetricsSnapshot identity = OpMetrics.getInstance().getStatistics("identity");
+        assertNotNull(identity);
+        assertEquals(1, identity.getCount());
+    }
+
+    @Test
+    public void testOpMetricsAlongDimension1() {
+        INDArray x = Nd4j.create(4, 5).assign(1.0);
+        INDArray row = Nd4j.create(1, 5).assign(2.0);
+        INDArray z = Nd4j.create(4, 5);
+        OpMetrics.getInstance().reset();
+
+        Nd4j.getExecutioner().exec(new BroadcastAddOp(x, row, z, 1), 1);
+        Nd4j.getExecutioner().exec(new BroadcastAddOp(x, row, z, 1), 1);
+        INDArray sum = Nd4j.getExecutioner().exec(new Sum(x), 1);
+
+        OpMetricsSnapshot broadcast = OpMetrics.getInstance().getStatistics("broadcastadd");
+        assertNotNull(broadcast);
+        assertEquals(2, broadcast.getCount());
+
+        OpMetricsSnapshot reduce = OpMetrics.getInstance().getStatistics("reduce_sum");
+        assertNotNull(reduce);
+        assertEquals(1, reduce.getCount());
+
+        assertEquals(3, OpMetrics.getInstance().totals().getCount());
+        assertEquals(20.0, sum.sumNumber().doubleValue(), 1e-5);
+    }
+
+    @Test
+    public void testJmxReporter1() throws Exception {
+        JmxOpMetricsReporter reporter = new JmxOpMetricsReporter("org.nd4j:type=OpMetricsTest");
+        OpMetrics.getInstance().addReporter(reporter);
+        try {
+            Nd4j.createUninitialized(100).assign(1.0);
+
+            ObjectName name = new ObjectName("org.nd4j:type=OpMetricsTest");
+            assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+
+            long count = (Long) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "TotalCount");
+            assertEquals(1, count);
+        } finally {
+            OpMetrics.getInstance().removeReporter(reporter);
+        }
+
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName("org.nd4j:type=OpMetricsTest")));
+    }
+}
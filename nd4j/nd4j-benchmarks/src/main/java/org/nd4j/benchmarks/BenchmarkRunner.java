@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.benchmarks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+
+/**
+ * Entry point for nd4j benchmarks.<br>
+ * Usage: {@code java -jar nd4j-benchmarks.jar [output file] [benchmark regex]}<br>
+ * Results are written in JSON format (or CSV, if output file name ends with .csv), so they can be stored and compared
+ * across versions and backends. Regular JMH command line is available via {@code org.openjdk.jmh.Main} as well.
+ */
+@Slf4j
+public class BenchmarkRunner {
+    public static final String DEFAULT_OUTPUT = "nd4j-benchmarks.json";
+
+    private BenchmarkRunner() {
+        //
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        run(BenchmarkRunner.class.getPackage().getName() + ".*", DEFAULT_OUTPUT, false, args);
+    }
+
+    /**
+     * Runs benchmarks, writing machine-readable results into the output file
+     *
+     * @param defaultInclude regex of benchmarks to run, if not specified as the second argument
+     * @param defaultOutput  output file, if not specified as the first argument
+     * @param gcProfiler     if true, allocation rate and GC counts are reported for each benchmark
+     * @param args           optional arguments: output file, benchmark regex
+     * @return results of all benchmarks
+     */
+    public static Collection<RunResult> run(String defaultInclude, String defaultOutput, boolean gcProfiler, String... args) throws RunnerException {
+        String output = args.length > 0 ? args[0] : defaultOutput;
+        String include = args.length > 1 ? args[1] : defaultInclude;
+        ResultFormatType format = output.toLowerCase().endsWith(".csv") ? ResultFormatType.CSV : ResultFormatType.JSON;
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                        .include(include)
+                        .result(output)
+                        .resultFormat(format);
+
+        if (gcProfiler)
+            options.addProfiler(GCProfiler.class);
+
+        log.info("Running benchmarks [{}], results will be saved to [{}]", include, output);
+        return new Runner(options.build()).run();
+    }
+}
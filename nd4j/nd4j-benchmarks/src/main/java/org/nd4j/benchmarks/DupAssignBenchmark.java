@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.benchmarks;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies between arrays of the same or different orders: dup(order), assign() into preallocated array,
+ * and assign() from a strided view.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DupAssignBenchmark {
+
+    @Param({"64", "1024", "4096"})
+    public int size;
+
+    @Param({"c", "f"})
+    public char sourceOrder;
+
+    @Param({"c", "f"})
+    public char targetOrder;
+
+    private INDArray source;
+    private INDArray target;
+    private INDArray view;
+    private INDArray viewTarget;
+
+    @Setup
+    public void setUp() {
+        Nd4j.getRandom().setSeed(119);
+        source = Nd4j.rand(new long[] {size, size}).dup(sourceOrder);
+        target = Nd4j.create(new long[] {size, size}, targetOrder);
+        view = source.get(NDArrayIndex.interval(0, size / 2), NDArrayIndex.interval(0, size / 2));
+        viewTarget = Nd4j.create(new long[] {size / 2, size / 2}, targetOrder);
+    }
+
+    @Benchmark
+    public INDArray dup() {
+        return source.dup(targetOrder);
+    }
+
+    @Benchmark
+    public INDArray assign() {
+        return target.assign(source);
+    }
+
+    @Benchmark
+    public INDArray assignFromView() {
+        return viewTarget.assign(view);
+    }
+
+    @Benchmark
+    public INDArray assignScalar() {
+        return target.assign(1.0);
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.benchmarks;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matrix multiplication: {@link INDArray#mmul(INDArray)} and {@link Nd4j#gemm(INDArray, INDArray, INDArray, boolean, boolean, double, double)}
+ * for various shapes and input orders. Shape is defined as MxKxN: [M, K] x [K, N]
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GemmBenchmark {
+
+    @Param({"64x64x64", "256x256x256", "1024x1024x1024", "32x1024x1024", "1024x1024x32"})
+    public String shape;
+
+    @Param({"c", "f"})
+    public char orderA;
+
+    @Param({"c", "f"})
+    public char orderB;
+
+    private INDArray a;
+    private INDArray aT;
+    private INDArray b;
+    private INDArray c;
+
+    @Setup
+    public void setUp() {
+        Nd4j.getRandom().setSeed(119);
+        String[] split = shape.split("x");
+        long m = Long.parseLong(split[0]);
+        long k = Long.parseLong(split[1]);
+        long n = Long.parseLong(split[2]);
+
+        a = Nd4j.rand(new long[] {m, k}).dup(orderA);
+        aT = Nd4j.rand(new long[] {k, m}).dup(orderA);
+        b = Nd4j.rand(new long[] {k, n}).dup(orderB);
+        c = Nd4j.create(new long[] {m, n}, 'f');
+    }
+
+    @Benchmark
+    public INDArray mmul() {
+        return a.mmul(b);
+    }
+
+    @Benchmark
+    public INDArray mmulInto() {
+        return a.mmul(b, c);
+    }
+
+    @Benchmark
+    public INDArray gemm() {
+        return Nd4j.gemm(a, b, c, false, false, 1.0, 0.0);
+    }
+
+    @Benchmark
+    public INDArray gemmTransposeA() {
+        return Nd4j.gemm(aT, b, c, true, false, 1.0, 0.0);
+    }
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.benchmarks;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reductions, full and along dimensions, for various shapes and orders. Shape is defined as RxC
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReductionBenchmark {
+
+    @Param({"256x256", "4096x256", "256x4096"})
+    public String shape;
+
+    @Param({"c", "f"})
+    public char order;
+
+    private INDArray x;
+
+    @Setup
+    public void setUp() {
+        Nd4j.getRandom().setSeed(119);
+        String[] split = shape.split("x");
+        x = Nd4j.rand(new long[] {Long.parseLong(split[0]), Long.parseLong(split[1])}).dup(order);
+    }
+
+    @Benchmark
+    public INDArray sumRows() {
+        return x.sum(0);
+    }
+
+    @Benchmark
+    public INDArray sumColumns() {
+        return x.sum(1);
+    }
+
+    @Benchmark
+    public INDArray meanColumns() {
+        return x.mean(1);
+    }
+
+    @Benchmark
+    public INDArray maxRows() {
+        return x.max(0);
+    }
+
+    @Benchmark
+    public INDArray argMaxColumns() {
+        return Nd4j.argMax(x, 1);
+    }
+
+    @Benchmark
+    public INDArray norm2Columns() {
+        return x.norm2(1);
+    }
+
+    @Benchmark
+    public double sumFull() {
+        return x.sumNumber().doubleValue();
+    }
+
+    @Benchmark
+    public double varianceFull() {
+        return x.varNumber().doubleValue();
+    }
+}
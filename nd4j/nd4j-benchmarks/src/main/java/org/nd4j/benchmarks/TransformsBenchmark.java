@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.benchmarks;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elementwise transforms from {@link Transforms}: copying variants (allocation included) and in-place variants.
+ * Inputs are [length / 100, 100] matrices.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransformsBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    public int length;
+
+    private INDArray x;
+    private INDArray inPlace;
+
+    @Setup
+    public void setUp() {
+        Nd4j.getRandom().setSeed(119);
+        x = Nd4j.rand(length / 100, 100).subi(0.5);
+        inPlace = x.dup();
+    }
+
+    @Benchmark
+    public INDArray tanh() {
+        return Transforms.tanh(x, true);
+    }
+
+    @Benchmark
+    public INDArray sigmoid() {
+        return Transforms.sigmoid(x, true);
+    }
+
+    @Benchmark
+    public INDArray exp() {
+        return Transforms.exp(x, true);
+    }
+
+    @Benchmark
+    public INDArray relu() {
+        return Transforms.relu(x, true);
+    }
+
+    @Benchmark
+    public INDArray softmax() {
+        return Transforms.softmax(x, true);
+    }
+
+    @Benchmark
+    public INDArray pow() {
+        return Transforms.pow(x, 2, true);
+    }
+
+    // in-place variants use bounded functions only, so values stay finite over iterations
+
+    @Benchmark
+    public INDArray tanhInPlace() {
+        return Transforms.tanh(inPlace, false);
+    }
+
+    @Benchmark
+    public INDArray sigmoidInPlace() {
+        return Transforms.sigmoid(inPlace, false);
+    }
+
+    @Benchmark
+    public INDArray reluInPlace() {
+        return Transforms.relu(inPlace, false);
+    }
+}
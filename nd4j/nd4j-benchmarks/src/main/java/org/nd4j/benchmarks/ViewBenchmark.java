@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.benchmarks;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * View creation with {@link INDArray#get(org.nd4j.linalg.indexing.INDArrayIndex...)} and friends, and materialization
+ * of views with dup(). View creation doesn't touch the data, so it's all about shape info and Java-side overhead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ViewBenchmark {
+
+    @Param({"c", "f"})
+    public char order;
+
+    private INDArray x;
+    private int idx;
+
+    @Setup
+    public void setUp() {
+        Nd4j.getRandom().setSeed(119);
+        x = Nd4j.rand(new long[] {1024, 1024}).dup(order);
+    }
+
+    private int nextIndex() {
+        idx = (idx + 1) & 511;
+        return idx;
+    }
+
+    @Benchmark
+    public INDArray intervalRows() {
+        return x.get(NDArrayIndex.interval(0, 512), NDArrayIndex.all());
+    }
+
+    @Benchmark
+    public INDArray intervalColumns() {
+        return x.get(NDArrayIndex.all(), NDArrayIndex.interval(100, 200));
+    }
+
+    @Benchmark
+    public INDArray pointRow() {
+        return x.get(NDArrayIndex.point(nextIndex()), NDArrayIndex.all());
+    }
+
+    @Benchmark
+    public INDArray getRow() {
+        return x.getRow(nextIndex());
+    }
+
+    @Benchmark
+    public INDArray getColumn() {
+        return x.getColumn(nextIndex());
+    }
+
+    @Benchmark
+    public INDArray tensorAlongDimension() {
+        return x.tensorAlongDimension(nextIndex(), 1);
+    }
+
+    @Benchmark
+    public INDArray intervalDup() {
+        return x.get(NDArrayIndex.interval(256, 512), NDArrayIndex.interval(256, 512)).dup();
+    }
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.benchmarks;
+
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.ResetPolicy;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation of a batch of arrays, as done in a single training/inference iteration:
+ * regular allocation, versus allocation within a workspace, initialized or not.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorkspaceBenchmark {
+    private static final String WORKSPACE_ID = "WS_BENCHMARK";
+    private static final WorkspaceConfiguration CONFIGURATION = WorkspaceConfiguration.builder()
+                    .initialSize(0)
+                    .overallocationLimit(0.05)
+                    .policyLearning(LearningPolicy.FIRST_LOOP)
+                    .policyReset(ResetPolicy.BLOCK_LEFT)
+                    .policySpill(SpillPolicy.REALLOCATE)
+                    .policyAllocation(AllocationPolicy.OVERALLOCATE)
+                    .build();
+
+    @Param({"10", "100"})
+    public int numArrays;
+
+    @Param({"100", "100000"})
+    public int arrayLength;
+
+    @TearDown
+    public void tearDown() {
+        Nd4j.getWorkspaceManager().destroyAllWorkspacesForCurrentThread();
+    }
+
+    @Benchmark
+    public void allocate(Blackhole bh) {
+        for (int i = 0; i < numArrays; i++)
+            bh.consume(Nd4j.create(1, arrayLength));
+    }
+
+    @Benchmark
+    public void allocateUninitialized(Blackhole bh) {
+        for (int i = 0; i < numArrays; i++)
+            bh.consume(Nd4j.createUninitialized(1, arrayLength));
+    }
+
+    @Benchmark
+    public void allocateInWorkspace(Blackhole bh) {
+        try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().getAndActivateWorkspace(CONFIGURATION, WORKSPACE_ID)) {
+            for (int i = 0; i < numArrays; i++)
+                bh.consume(Nd4j.create(1, arrayLength));
+        }
+    }
+
+    @Benchmark
+    public void allocateUninitializedInWorkspace(Blackhole bh) {
+        try (MemoryWorkspace ws = Nd4j.getWorkspaceManager().getAndActivateWorkspace(CONFIGURATION, WORKSPACE_ID)) {
+            for (int i = 0; i < numArrays; i++)
+                bh.consume(Nd4j.createUninitialized(1, arrayLength));
+        }
+    }
+}
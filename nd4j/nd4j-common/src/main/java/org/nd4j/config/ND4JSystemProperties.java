@@ -109,6 +109,12 @@ public class ND4JSystemProperties {
      * the buffer size will have no effect)
      */
     public static final String AERON_TERM_BUFFER_PROP = "aeron.term.buffer.length";
+    /**
+     * Applicability: Always<br>
+     * Description: Set this property to true to enable low-overhead per-op metrics (invocation counts and latency
+     * histograms) at startup. See {@code org.nd4j.linalg.profiler.metrics.OpMetrics}. Default: false
+     */
+    public static final String OP_METRICS_ENABLED = "org.nd4j.profiler.opmetrics.enabled";
 
     private ND4JSystemProperties() {
     }
@@ -22,12 +22,13 @@ import lombok.val;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.primitives.AtomicBoolean;
 import org.nd4j.linalg.util.ND4JFileUtils;
-import org.nd4j.linalg.util.SerializationUtils;
 import org.nd4j.parameterserver.distributed.v2.chunks.ChunksTracker;
 import org.nd4j.parameterserver.distributed.v2.chunks.VoidChunk;
 import org.nd4j.parameterserver.distributed.v2.messages.VoidMessage;
+import org.nd4j.parameterserver.distributed.v2.util.MessageCodec;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -111,8 +112,18 @@ public class FileChunksTracker<T extends VoidMessage> implements ChunksTracker<T
         if (!isComplete())
             throw new ND4JIllegalStateException("Message isn't ready for concatenation");
 
-        try (val fis = new FileInputStream(holder); val bis = new BufferedInputStream(fis)) {
-            return SerializationUtils.deserialize(bis);
+        if (size > Integer.MAX_VALUE)
+            throw new ND4JIllegalStateException("Message size exceeds 2GB: " + size);
+
+        // message is read into heap buffer, so no file mapping outlives release()
+        try (val raf = new RandomAccessFile(holder, "r"); val channel = raf.getChannel()) {
+            val buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining())
+                if (channel.read(buffer) < 0)
+                    throw new EOFException("Unexpected end of file, " + buffer.remaining() + " bytes missing");
+
+            buffer.flip();
+            return MessageCodec.decode(buffer);
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException(e);
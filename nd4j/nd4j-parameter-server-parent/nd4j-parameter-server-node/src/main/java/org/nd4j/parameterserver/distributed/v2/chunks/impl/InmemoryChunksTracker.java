@@ -22,12 +22,11 @@ import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.primitives.AtomicBoolean;
-import org.nd4j.linalg.util.SerializationUtils;
 import org.nd4j.parameterserver.distributed.v2.chunks.ChunksTracker;
 import org.nd4j.parameterserver.distributed.v2.chunks.VoidChunk;
 import org.nd4j.parameterserver.distributed.v2.messages.VoidMessage;
+import org.nd4j.parameterserver.distributed.v2.util.MessageCodec;
 
-import java.io.*;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -106,8 +105,8 @@ public class InmemoryChunksTracker<T extends VoidMessage> implements ChunksTrack
         if (!isComplete())
             throw new ND4JIllegalStateException("Message isn't ready for concatenation");
 
-        try (val bais = new ByteArrayInputStream(buffer)) {
-            return SerializationUtils.deserialize(bais);
+        try {
+            return MessageCodec.decode(buffer);
         } catch (Exception e) {
             log.error("Exception: {}",e);
             throw new RuntimeException(e);
@@ -17,8 +17,8 @@
 package org.nd4j.parameterserver.distributed.v2.messages;
 
 import org.agrona.concurrent.UnsafeBuffer;
+import org.nd4j.parameterserver.distributed.v2.util.MessageCodec;
 
-import java.io.ByteArrayInputStream;
 import java.io.Serializable;
 
 public interface VoidMessage extends Serializable {
@@ -46,15 +46,16 @@ public interface VoidMessage extends Serializable {
     void setOriginatorId(String id);
 
     /**
-     * This method serializes this VoidMessage into UnsafeBuffer
+     * This method serializes this VoidMessage into UnsafeBuffer.
+     * Binary format is used for messages supported by MessageCodec, Java serialization otherwise
      *
      * @return
      */
     default UnsafeBuffer asUnsafeBuffer() {
-        return new UnsafeBuffer(org.nd4j.linalg.util.SerializationUtils.toByteArray(this));
+        return new UnsafeBuffer(MessageCodec.encode(this));
     }
 
     static VoidMessage fromBytes(byte[] bytes) {
-        return org.nd4j.linalg.util.SerializationUtils.readObject(new ByteArrayInputStream(bytes));
+        return MessageCodec.decode(bytes);
     }
 }
@@ -0,0 +1,440 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.parameterserver.distributed.v2.util;
+
+import lombok.NonNull;
+import lombok.val;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.concurrency.AffinityManager;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.exception.ND4JIllegalStateException;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.ArrayUtil;
+import org.nd4j.linalg.util.SerializationUtils;
+import org.nd4j.parameterserver.distributed.v2.chunks.VoidChunk;
+import org.nd4j.parameterserver.distributed.v2.messages.INDArrayMessage;
+import org.nd4j.parameterserver.distributed.v2.messages.VoidMessage;
+import org.nd4j.parameterserver.distributed.v2.messages.impl.GradientsUpdateMessage;
+import org.nd4j.parameterserver.distributed.v2.messages.pairs.params.ModelParametersMessage;
+import org.nd4j.parameterserver.distributed.v2.messages.pairs.params.UpdaterParametersMessage;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class provides compact binary wire format for messages that are sent often and/or carry INDArrays:
+ * {@link GradientsUpdateMessage}, {@link ModelParametersMessage}, {@link UpdaterParametersMessage} and {@link VoidChunk}.<br>
+ * INDArrays are written as header (data type, rank, shape) followed by raw DataBuffer bytes, copied straight from
+ * the array buffer into the frame, and read back the same way. No Java serialization is involved.<br>
+ * All other messages are encoded with Java serialization, as before, and {@link #decode(byte[])} accepts both formats,
+ * so it's safe to use it for any incoming frame.<br>
+ * <br>
+ * Frame layout: 4 bytes of magic, version byte, byte order byte, message type byte, message fields.<br>
+ * <br>
+ * PLEASE NOTE: raw array bytes are written in native byte order, so nodes must share the same endianness.
+ */
+public class MessageCodec {
+    protected static final byte[] MAGIC = new byte[] {'N', 'D', 'M', 'S'};
+    protected static final byte VERSION = 1;
+    protected static final int HEADER_LENGTH = MAGIC.length + 3;
+
+    protected static final byte ORDER_BIG_ENDIAN = 0;
+    protected static final byte ORDER_LITTLE_ENDIAN = 1;
+
+    protected static final byte TYPE_GRADIENTS_UPDATE = 1;
+    protected static final byte TYPE_MODEL_PARAMETERS = 2;
+    protected static final byte TYPE_UPDATER_PARAMETERS = 3;
+    protected static final byte TYPE_CHUNK = 4;
+
+    private MessageCodec() {
+        //
+    }
+
+    /**
+     * This method checks if given message has binary representation
+     *
+     * @param message message to check
+     * @return true if message will be encoded in binary format, false if Java serialization will be used
+     */
+    public static boolean isBinaryEncodable(@NonNull VoidMessage message) {
+        if (message instanceof VoidChunk)
+            return true;
+
+        if (message instanceof GradientsUpdateMessage || message instanceof ModelParametersMessage || message instanceof UpdaterParametersMessage) {
+            val payload = ((INDArrayMessage) message).getPayload();
+            return payload == null || (!payload.isCompressed() && payload.length() > 0);
+        }
+
+        return false;
+    }
+
+    /**
+     * This method encodes given message into byte array
+     *
+     * @param message message to encode
+     * @return encoded message
+     */
+    public static byte[] encode(@NonNull VoidMessage message) {
+        if (!isBinaryEncodable(message))
+            return SerializationUtils.toByteArray(message);
+
+        INDArray array = null;
+        if (message instanceof INDArrayMessage && ((INDArrayMessage) message).getPayload() != null)
+            array = prepareArray(((INDArrayMessage) message).getPayload());
+
+        val bytes = new byte[encodedLength(message, array)];
+        val buffer = ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder());
+        encode(message, array, buffer);
+
+        if (buffer.hasRemaining())
+            throw new ND4JIllegalStateException("Encoded message length mismatch: " + buffer.remaining() + " bytes left");
+
+        return bytes;
+    }
+
+    /**
+     * This method encodes given message into the provided buffer, starting at its current position
+     *
+     * @param message message to encode, should be binary encodable
+     * @param buffer  target buffer, with at least {@link #encodedLength(VoidMessage)} bytes remaining
+     */
+    public static void encode(@NonNull VoidMessage message, @NonNull ByteBuffer buffer) {
+        if (!isBinaryEncodable(message))
+            throw new ND4JIllegalStateException("Message of type [" + message.getClass().getSimpleName() + "] has no binary representation");
+
+        INDArray array = null;
+        if (message instanceof INDArrayMessage && ((INDArrayMessage) message).getPayload() != null)
+            array = prepareArray(((INDArrayMessage) message).getPayload());
+
+        val order = buffer.order();
+        buffer.order(ByteOrder.nativeOrder());
+        try {
+            encode(message, array, buffer);
+        } finally {
+            buffer.order(order);
+        }
+    }
+
+    /**
+     * This method returns number of bytes required to encode given message in binary format
+     *
+     * @param message message to encode, should be binary encodable
+     */
+    public static int encodedLength(@NonNull VoidMessage message) {
+        if (!isBinaryEncodable(message))
+            throw new ND4JIllegalStateException("Message of type [" + message.getClass().getSimpleName() + "] has no binary representation");
+
+        INDArray array = null;
+        if (message instanceof INDArrayMessage && ((INDArrayMessage) message).getPayload() != null)
+            array = ((INDArrayMessage) message).getPayload();
+
+        return encodedLength(message, array);
+    }
+
+    /**
+     * This method decodes message from byte array. Both binary frames and Java-serialized messages are accepted
+     *
+     * @param bytes encoded message
+     * @return decoded message
+     */
+    public static <T extends VoidMessage> T decode(@NonNull byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * This method decodes message from the buffer, starting at its current position.
+     * Both binary frames and Java-serialized messages are accepted
+     *
+     * @param buffer encoded message
+     * @return decoded message
+     */
+    public static <T extends VoidMessage> T decode(@NonNull ByteBuffer buffer) {
+        if (!isBinaryFrame(buffer)) {
+            if (buffer.hasArray())
+                return SerializationUtils.deserialize(new ByteArrayInputStream(buffer.array(),
+                                buffer.arrayOffset() + buffer.position(), buffer.remaining()));
+
+            val bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            return SerializationUtils.deserialize(new ByteArrayInputStream(bytes));
+        }
+
+        val frame = buffer.duplicate();
+        frame.position(frame.position() + MAGIC.length);
+
+        val version = frame.get();
+        if (version != VERSION)
+            throw new ND4JIllegalStateException("Unsupported message format version: [" + version + "]");
+
+        val order = frame.get() == ORDER_LITTLE_ENDIAN ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        frame.order(order);
+
+        val type = frame.get();
+        switch (type) {
+            case TYPE_GRADIENTS_UPDATE: {
+                val messageId = readString(frame);
+                val originatorId = readString(frame);
+                val requestId = readString(frame);
+                val relayId = readString(frame);
+                val iteration = frame.getInt();
+                val epoch = frame.getInt();
+                val message = new GradientsUpdateMessage(messageId, readArray(frame));
+                message.setOriginatorId(originatorId);
+                message.setRequestId(requestId);
+                message.setRelayId(relayId);
+                message.setIteration(iteration);
+                message.setEpoch(epoch);
+                return (T) message;
+            }
+            case TYPE_MODEL_PARAMETERS: {
+                val messageId = readString(frame);
+                val originatorId = readString(frame);
+                val requestId = readString(frame);
+                val iterationNumber = frame.getInt();
+                val epochNumber = frame.getInt();
+                val message = new ModelParametersMessage(messageId, readArray(frame));
+                message.setOriginatorId(originatorId);
+                message.setRequestId(requestId);
+                message.setIterationNumber(iterationNumber);
+                message.setEpochNumber(epochNumber);
+                return (T) message;
+            }
+            case TYPE_UPDATER_PARAMETERS: {
+                val messageId = readString(frame);
+                val originatorId = readString(frame);
+                val requestId = readString(frame);
+                val finalState = frame.get() != 0;
+                val message = new UpdaterParametersMessage(messageId, readArray(frame));
+                message.setOriginatorId(originatorId);
+                message.setRequestId(requestId);
+                message.setFinalState(finalState);
+                return (T) message;
+            }
+            case TYPE_CHUNK: {
+                val chunkId = frame.getInt();
+                val totalSize = frame.getLong();
+                val splitSize = frame.getInt();
+                val numberOfChunks = frame.getInt();
+                val messageId = readString(frame);
+                val originalId = readString(frame);
+                val originatorId = readString(frame);
+                val payload = new byte[frame.getInt()];
+                frame.get(payload);
+
+                val chunk = VoidChunk.builder()
+                                .chunkId(chunkId)
+                                .totalSize(totalSize)
+                                .splitSize(splitSize)
+                                .numberOfChunks(numberOfChunks)
+                                .messageId(messageId)
+                                .originalId(originalId)
+                                .payload(payload)
+                                .build();
+                chunk.setOriginatorId(originatorId);
+                return (T) chunk;
+            }
+            default:
+                throw new ND4JIllegalStateException("Unknown message type: [" + type + "]");
+        }
+    }
+
+    /**
+     * This method checks if buffer contains binary frame, starting at its current position
+     */
+    public static boolean isBinaryFrame(@NonNull ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_LENGTH)
+            return false;
+
+        val position = buffer.position();
+        for (int e = 0; e < MAGIC.length; e++)
+            if (buffer.get(position + e) != MAGIC[e])
+                return false;
+
+        return true;
+    }
+
+    protected static void encode(VoidMessage message, INDArray array, ByteBuffer buffer) {
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+        buffer.put(buffer.order() == ByteOrder.LITTLE_ENDIAN ? ORDER_LITTLE_ENDIAN : ORDER_BIG_ENDIAN);
+
+        if (message instanceof GradientsUpdateMessage) {
+            val m = (GradientsUpdateMessage) message;
+            buffer.put(TYPE_GRADIENTS_UPDATE);
+            writeString(buffer, m.getMessageId());
+            writeString(buffer, m.getOriginatorId());
+            writeString(buffer, m.getRequestId());
+            writeString(buffer, m.getRelayId());
+            buffer.putInt(m.getIteration());
+            buffer.putInt(m.getEpoch());
+            writeArray(buffer, array);
+        } else if (message instanceof ModelParametersMessage) {
+            val m = (ModelParametersMessage) message;
+            buffer.put(TYPE_MODEL_PARAMETERS);
+            writeString(buffer, m.getMessageId());
+            writeString(buffer, m.getOriginatorId());
+            writeString(buffer, m.getRequestId());
+            buffer.putInt(m.getIterationNumber());
+            buffer.putInt(m.getEpochNumber());
+            writeArray(buffer, array);
+        } else if (message instanceof UpdaterParametersMessage) {
+            val m = (UpdaterParametersMessage) message;
+            buffer.put(TYPE_UPDATER_PARAMETERS);
+            writeString(buffer, m.getMessageId());
+            writeString(buffer, m.getOriginatorId());
+            writeString(buffer, m.getRequestId());
+            buffer.put((byte) (m.isFinalState() ? 1 : 0));
+            writeArray(buffer, array);
+        } else if (message instanceof VoidChunk) {
+            val m = (VoidChunk) message;
+            buffer.put(TYPE_CHUNK);
+            buffer.putInt(m.getChunkId());
+            buffer.putLong(m.getTotalSize());
+            buffer.putInt(m.getSplitSize());
+            buffer.putInt(m.getNumberOfChunks());
+            writeString(buffer, m.getMessageId());
+            writeString(buffer, m.getOriginalId());
+            writeString(buffer, m.getOriginatorId());
+            buffer.putInt(m.getPayload().length);
+            buffer.put(m.getPayload());
+        } else
+            throw new ND4JIllegalStateException("Message of type [" + message.getClass().getSimpleName() + "] has no binary representation");
+    }
+
+    protected static int encodedLength(VoidMessage message, INDArray array) {
+        int length = HEADER_LENGTH;
+        if (message instanceof GradientsUpdateMessage) {
+            val m = (GradientsUpdateMessage) message;
+            length += stringLength(m.getMessageId()) + stringLength(m.getOriginatorId()) + stringLength(m.getRequestId())
+                            + stringLength(m.getRelayId()) + 8 + arrayLength(array);
+        } else if (message instanceof ModelParametersMessage) {
+            val m = (ModelParametersMessage) message;
+            length += stringLength(m.getMessageId()) + stringLength(m.getOriginatorId()) + stringLength(m.getRequestId())
+                            + 8 + arrayLength(array);
+        } else if (message instanceof UpdaterParametersMessage) {
+            val m = (UpdaterParametersMessage) message;
+            length += stringLength(m.getMessageId()) + stringLength(m.getOriginatorId()) + stringLength(m.getRequestId())
+                            + 1 + arrayLength(array);
+        } else if (message instanceof VoidChunk) {
+            val m = (VoidChunk) message;
+            length += 4 + 8 + 4 + 4 + stringLength(m.getMessageId()) + stringLength(m.getOriginalId())
+                            + stringLength(m.getOriginatorId()) + 4 + m.getPayload().length;
+        }
+
+        return length;
+    }
+
+    /**
+     * This method returns array suitable for raw buffer copy: dense, c-ordered, and available on host
+     */
+    protected static INDArray prepareArray(INDArray array) {
+        if (array.isView() || array.ordering() != 'c' || array.data().length() != array.length())
+            array = array.dup('c');
+
+        Nd4j.getExecutioner().commit();
+        Nd4j.getAffinityManager().ensureLocation(array, AffinityManager.Location.HOST);
+
+        return array;
+    }
+
+    protected static int arrayLength(INDArray array) {
+        if (array == null)
+            return 1;
+
+        val bytes = array.length() * array.data().getElementSize();
+        if (bytes > Integer.MAX_VALUE)
+            throw new ND4JIllegalStateException("INDArray is too large for a single message: " + bytes + " bytes");
+
+        // flag, data type, rank, shape, data
+        return 1 + 1 + 4 + 8 * array.rank() + (int) bytes;
+    }
+
+    protected static void writeArray(ByteBuffer buffer, INDArray array) {
+        if (array == null) {
+            buffer.put((byte) 0);
+            return;
+        }
+
+        buffer.put((byte) 1);
+        buffer.put((byte) array.data().dataType().ordinal());
+        buffer.putInt(array.rank());
+        for (val d : array.shape())
+            buffer.putLong(d);
+
+        val data = array.data().asNio().duplicate();
+        data.position(0);
+        data.limit((int) (array.length() * array.data().getElementSize()));
+        buffer.put(data);
+    }
+
+    protected static INDArray readArray(ByteBuffer buffer) {
+        if (buffer.get() == 0)
+            return null;
+
+        if (buffer.order() != ByteOrder.nativeOrder())
+            throw new ND4JIllegalStateException("INDArray was encoded with byte order [" + buffer.order()
+                            + "], but native byte order is [" + ByteOrder.nativeOrder() + "]");
+
+        val type = DataBuffer.Type.values()[buffer.get()];
+        val rank = buffer.getInt();
+        val shape = new long[rank];
+        for (int e = 0; e < rank; e++)
+            shape[e] = buffer.getLong();
+
+        val data = Nd4j.createBufferDetached(shape, type);
+        val bytes = (int) (ArrayUtil.prodLong(shape) * data.getElementSize());
+
+        val source = buffer.slice();
+        source.limit(bytes);
+
+        val target = data.asNio();
+        target.position(0);
+        target.put(source);
+        buffer.position(buffer.position() + bytes);
+
+        val array = Nd4j.create(data, shape, Nd4j.getStrides(shape, 'c'), 0, 'c');
+        Nd4j.getAffinityManager().tagLocation(array, AffinityManager.Location.HOST);
+        return array;
+    }
+
+    protected static int stringLength(String string) {
+        return 4 + (string == null ? 0 : string.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    protected static void writeString(ByteBuffer buffer, String string) {
+        if (string == null) {
+            buffer.putInt(-1);
+            return;
+        }
+
+        val bytes = string.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    protected static String readString(ByteBuffer buffer) {
+        val length = buffer.getInt();
+        if (length < 0)
+            return null;
+
+        val bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -20,8 +20,6 @@ import lombok.NonNull;
 import lombok.val;
 import org.nd4j.linalg.exception.ND4JIllegalStateException;
 import org.nd4j.linalg.primitives.AtomicBoolean;
-import org.nd4j.linalg.util.ND4JFileUtils;
-import org.nd4j.linalg.util.SerializationUtils;
 import org.nd4j.parameterserver.distributed.v2.chunks.ChunksTracker;
 import org.nd4j.parameterserver.distributed.v2.chunks.impl.FileChunksTracker;
 import org.nd4j.parameterserver.distributed.v2.chunks.VoidChunk;
@@ -29,7 +27,7 @@ import org.nd4j.parameterserver.distributed.v2.chunks.impl.InmemoryChunksTracker
 import org.nd4j.parameterserver.distributed.v2.messages.VoidMessage;
 import org.nd4j.linalg.primitives.Optional;
 
-import java.io.*;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -64,7 +62,10 @@ public class MessageSplitter {
     }
 
     /**
-     * This method splits VoidMessage into chunks, and returns them as Collection
+     * This method splits VoidMessage into chunks, and returns them as Collection.
+     * Message is encoded with {@link MessageCodec} in memory, and each chunk payload is a copy of its range of the
+     * encoded message (single-chunk messages use the encoded bytes as is)
+     *
      * @param message
      * @return
      */
@@ -72,44 +73,31 @@ public class MessageSplitter {
         if (maxBytes <= 0)
             throw new ND4JIllegalStateException("MaxBytes must be > 0");
 
-        val tempFile = ND4JFileUtils.createTempFile("messageSplitter","temp");
-        val result = new ArrayList<VoidChunk>();
-
-        try (val fos = new FileOutputStream(tempFile); val bos = new BufferedOutputStream(fos)) {
-            // serializing original message to disc
-            SerializationUtils.serialize(message, fos);
-
-            val length = tempFile.length();
-            int numChunks = (int) (length /  maxBytes + (length % maxBytes > 0 ? 1 : 0));
-            try (val fis = new FileInputStream(tempFile); val bis = new BufferedInputStream(fis)) {
-                // now we'll be reading serialized message into
-                val bytes = new byte[maxBytes];
-                int cnt = 0;
-                int id = 0;
-
-                while (cnt < length) {
-                    val c = bis.read(bytes);
-
-                    val tmp = Arrays.copyOf(bytes, c);
-
-                    // FIXME: we don't really want UUID used here, it's just a placeholder for now
-                    val msg = VoidChunk.builder()
-                            .messageId(java.util.UUID.randomUUID().toString())
-                            .originalId(message.getMessageId())
-                            .chunkId(id++)
-                            .numberOfChunks(numChunks)
-                            .splitSize(maxBytes)
-                            .payload(tmp)
-                            .totalSize(length)
-                            .build();
-
-                    result.add(msg);
-                    cnt += c;
-                }
-            }
+        val bytes = MessageCodec.encode(message);
+        val length = bytes.length;
+        int numChunks = length / maxBytes + (length % maxBytes > 0 ? 1 : 0);
+        val result = new ArrayList<VoidChunk>(numChunks);
+
+        for (int id = 0; id < numChunks; id++) {
+            val offset = id * maxBytes;
+
+            // single chunk can use encoded message as is
+            val payload = numChunks == 1 ? bytes : Arrays.copyOfRange(bytes, offset, Math.min(offset + maxBytes, length));
+
+            // FIXME: we don't really want UUID used here, it's just a placeholder for now
+            val msg = VoidChunk.builder()
+                    .messageId(java.util.UUID.randomUUID().toString())
+                    .originalId(message.getMessageId())
+                    .chunkId(id)
+                    .numberOfChunks(numChunks)
+                    .splitSize(maxBytes)
+                    .payload(payload)
+                    .totalSize(length)
+                    .build();
+
+            result.add(msg);
         }
 
-        tempFile.delete();
         return result;
     }
 
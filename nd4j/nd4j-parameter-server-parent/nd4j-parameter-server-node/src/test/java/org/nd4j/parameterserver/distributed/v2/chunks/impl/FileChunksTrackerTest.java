@@ -80,4 +80,25 @@ public class FileChunksTrackerTest {
         for (val m:messages)
             tracker.append(m);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testReleaseAfterDecode_1() throws Exception {
+        val array = Nd4j.linspace(1, 100000, 100000).reshape(-1, 1000);
+        val splitter = MessageSplitter.getInstance();
+
+        val message = new GradientsUpdateMessage("123", array);
+        val messages = new ArrayList<VoidChunk>(splitter.split(message, 16384));
+
+        val tracker = new FileChunksTracker<GradientsUpdateMessage>(messages.get(0));
+
+        for (val m:messages)
+            tracker.append(m);
+
+        val des = tracker.getMessage();
+
+        // decoded message must not depend on the backing file
+        tracker.release();
+
+        assertEquals(array, des.getPayload());
+    }
+}
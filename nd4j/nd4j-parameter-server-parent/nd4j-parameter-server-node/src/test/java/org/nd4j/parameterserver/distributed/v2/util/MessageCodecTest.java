@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2015-2018 Skymind, Inc.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ******************************************************************************/
+
+package org.nd4j.parameterserver.distributed.v2.util;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.junit.Test;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.nd4j.linalg.primitives.Optional;
+import org.nd4j.linalg.util.SerializationUtils;
+import org.nd4j.parameterserver.distributed.v2.chunks.VoidChunk;
+import org.nd4j.parameterserver.distributed.v2.messages.VoidMessage;
+import org.nd4j.parameterserver.distributed.v2.messages.impl.GradientsUpdateMessage;
+import org.nd4j.parameterserver.distributed.v2.messages.pairs.handshake.HandshakeRequest;
+import org.nd4j.parameterserver.distributed.v2.messages.pairs.params.ModelParametersMessage;
+import org.nd4j.parameterserver.distributed.v2.messages.pairs.params.UpdaterParametersMessage;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+@Slf4j
+public class MessageCodecTest {
+
+    @Test
+    public void testGradientsUpdateMessage_1() {
+        val array = Nd4j.linspace(1, 1000, 1000).reshape(10, 100);
+        val message = new GradientsUpdateMessage("123", array);
+        message.setOriginatorId("node_1");
+        message.setRelayId("node_2");
+        message.setIteration(17);
+        message.setEpoch(3);
+
+        val bytes = MessageCodec.encode(message);
+        assertTrue(MessageCodec.isBinaryFrame(ByteBuffer.wrap(bytes)));
+        assertEquals(MessageCodec.encodedLength(message), bytes.length);
+
+        // binary format should be more compact than java serialization
+        val serialized = SerializationUtils.toByteArray(message);
+        log.info("Binary size: {}; serialized size: {}", bytes.length, serialized.length);
+        assertTrue(bytes.length < serialized.length);
+
+        GradientsUpdateMessage restored = MessageCodec.decode(bytes);
+        assertEquals("123", restored.getMessageId());
+        assertEquals("node_1", restored.getOriginatorId());
+        assertEquals("node_2", restored.getRelayId());
+        assertNull(restored.getRequestId());
+        assertEquals(17, restored.getIteration());
+        assertEquals(3, restored.getEpoch());
+        assertEquals(array, restored.getPayload());
+    }
+
+    @Test
+    public void testIntPayload_1() {
+        // threshold-encoded updates are INT arrays
+        val array = Nd4j.create(Nd4j.createBuffer(new int[] {1, 2, 3, -4, 5, -6, 7, 8}), new long[] {1, 8});
+        val message = new GradientsUpdateMessage("123", array);
+
+        GradientsUpdateMessage restored = MessageCodec.decode(MessageCodec.encode(message));
+        assertEquals(DataBuffer.Type.INT, restored.getPayload().data().dataType());
+        assertArrayEquals(array.shape(), restored.getPayload().shape());
+        assertArrayEquals(array.data().asInt(), restored.getPayload().data().asInt());
+    }
+
+    @Test
+    public void testViewPayload_1() {
+        val array = Nd4j.linspace(1, 100, 100).reshape(10, 10);
+        val view = array.get(NDArrayIndex.interval(2, 5), NDArrayIndex.interval(3, 8));
+        val fOrder = array.dup('f');
+
+        ModelParametersMessage restored = MessageCodec.decode(MessageCodec.encode(new ModelParametersMessage("1", view)));
+        assertEquals(view, restored.getPayload());
+
+        restored = MessageCodec.decode(MessageCodec.encode(new ModelParametersMessage("2", fOrder)));
+        assertEquals(array, restored.getPayload());
+    }
+
+    @Test
+    public void testResponseMessages_1() {
+        val array = Nd4j.rand(5, 5);
+
+        val params = new ModelParametersMessage("1", array);
+        params.setRequestId("request_1");
+        params.setIterationNumber(11);
+        params.setEpochNumber(2);
+
+        ModelParametersMessage restoredParams = MessageCodec.decode(MessageCodec.encode(params));
+        assertEquals("request_1", restoredParams.getRequestId());
+        assertEquals(11, restoredParams.getIterationNumber());
+        assertEquals(2, restoredParams.getEpochNumber());
+        assertEquals(array, restoredParams.getPayload());
+
+        val updater = new UpdaterParametersMessage("2", null);
+        updater.setRequestId("request_2");
+        updater.setFinalState(true);
+
+        UpdaterParametersMessage restoredUpdater = MessageCodec.decode(MessageCodec.encode(updater));
+        assertEquals("request_2", restoredUpdater.getRequestId());
+        assertTrue(restoredUpdater.isFinalState());
+        assertNull(restoredUpdater.getPayload());
+    }
+
+    @Test
+    public void testChunk_1() {
+        val chunk = VoidChunk.builder()
+                        .messageId("chunk_1")
+                        .originalId("message_1")
+                        .chunkId(3)
+                        .numberOfChunks(7)
+                        .splitSize(16384)
+                        .totalSize(100000)
+                        .payload(new byte[] {1, 2, 3, 4, 5})
+                        .build();
+        chunk.setOriginatorId("node_1");
+
+        VoidChunk restored = VoidMessage.fromBytes(chunk.asUnsafeBuffer().byteArray());
+        assertEquals("chunk_1", restored.getMessageId());
+        assertEquals("message_1", restored.getOriginalId());
+        assertEquals("node_1", restored.getOriginatorId());
+        assertEquals(3, restored.getChunkId());
+        assertEquals(7, restored.getNumberOfChunks());
+        assertEquals(16384, restored.getSplitSize());
+        assertEquals(100000, restored.getTotalSize());
+        assertArrayEquals(new byte[] {1, 2, 3, 4, 5}, restored.getPayload());
+    }
+
+    @Test
+    public void testSerializationFallback_1() {
+        val request = new HandshakeRequest();
+        request.setOriginatorId("1234");
+
+        val bytes = MessageCodec.encode(request);
+        assertFalse(MessageCodec.isBinaryFrame(ByteBuffer.wrap(bytes)));
+
+        VoidMessage restored = MessageCodec.decode(bytes);
+        assertTrue(restored instanceof HandshakeRequest);
+        assertEquals("1234", restored.getOriginatorId());
+
+        // java-serialized INDArrayMessage must be still accepted
+        val array = Nd4j.rand(3, 3);
+        GradientsUpdateMessage legacy = MessageCodec.decode(SerializationUtils.toByteArray(new GradientsUpdateMessage("1", array)));
+        assertEquals(array, legacy.getPayload());
+    }
+
+    @Test
+    public void testSplitMerge_1() throws Exception {
+        val array = Nd4j.linspace(1, 100000, 100000).reshape(-1, 1000);
+        val splitter = new MessageSplitter();
+
+        val message = new GradientsUpdateMessage("123", array);
+        message.setIteration(5);
+
+        val chunks = splitter.split(message, 16384);
+        assertEquals((MessageCodec.encodedLength(message) + 16383) / 16384, chunks.size());
+
+        // in-memory tracker
+        Optional<GradientsUpdateMessage> dec = Optional.empty();
+        for (val c : chunks)
+            dec = splitter.merge(c, Long.MAX_VALUE);
+
+        assertTrue(dec.isPresent());
+        assertEquals(array, dec.get().getPayload());
+        assertEquals(5, dec.get().getIteration());
+
+        // file-based tracker
+        dec = Optional.empty();
+        for (val c : chunks)
+            dec = splitter.merge(c);
+
+        assertTrue(dec.isPresent());
+        assertEquals(array, dec.get().getPayload());
+    }
+}